@@ -0,0 +1,39 @@
+package net.regulus.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.regulus.batch.BatchJob;
+import net.regulus.batch.BatchReport;
+import net.regulus.batch.BatchRunner;
+
+/**
+ * Runs the benchmark scenes headless with a {@link BatchRunner}, each run with a different seed, and prints the
+ * throughput. Usage: {@code BatchMain [scene] [bodies] [runs] [ticks] [threads]}, defaulting to 32 runs of the basic
+ * scene with 100 bodies for 1000 ticks on all processors.
+ */
+public final class BatchMain {
+    private BatchMain() {
+    }
+
+    public static void main( String[] args ) throws InterruptedException {
+        String scene = args.length > 0 ? args[ 0 ] : "basic";
+        int bodies = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : 100;
+        int runs = args.length > 2 ? Integer.parseInt( args[ 2 ] ) : 32;
+        int ticks = args.length > 3 ? Integer.parseInt( args[ 3 ] ) : 1000;
+        int threads = args.length > 4 ? Integer.parseInt( args[ 4 ] ) : Runtime.getRuntime().availableProcessors();
+
+        List<BatchJob> jobs = new ArrayList<>();
+        for( int i = 0; i < runs; i++ ) {
+            jobs.add( new BatchJob( scene + "#" + i, seed -> Scenes.create( scene, bodies, seed ), i, ticks, 0.2 / 30 ) );
+        }
+
+        BatchRunner runner = new BatchRunner( threads );
+        try {
+            BatchReport report = runner.run( jobs );
+            System.out.println( report );
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
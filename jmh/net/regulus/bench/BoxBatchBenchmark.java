@@ -0,0 +1,60 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.detection.broadphase.BoxBatch;
+import net.regulus.detection.broadphase.BoxKernels;
+import net.regulus.geom.AABB;
+
+/**
+ * Measures testing one box against a {@link BoxBatch}, comparing the Vector API kernel with the scalar kernel and with
+ * testing every box by {@link AABB#overlap}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class BoxBatchBenchmark {
+    @Param( { "64", "256", "1024" } )
+    public int boxes;
+
+    @Param( { "vector", "scalar" } )
+    public String kernel;
+
+    private BoxBatch batch;
+    private AABB[] list;
+    private long[] masks;
+    private final AABB query = AABB.put( null, 4, 4, 6, 6 );
+
+    @Setup
+    public void setup() {
+        Random random = new Random( 42 );
+        batch = new BoxBatch( kernel.equals( "scalar" ) ? BoxKernels.scalar() : BoxKernels.get() );
+        list = new AABB[ boxes ];
+        for( int i = 0; i < boxes; i++ ) {
+            double x = random.nextDouble() * 20, y = random.nextDouble() * 20;
+            list[ i ] = AABB.put( null, x, y, x + random.nextDouble(), y + random.nextDouble() );
+            batch.add( list[ i ] );
+        }
+    }
+
+    @Benchmark
+    public long[] batch() {
+        return masks = batch.overlaps( query, masks );
+    }
+
+    @Benchmark
+    public int perBox() {
+        int hits = 0;
+        for( AABB box : list ) {
+            if( AABB.overlap( box, query ) )
+                hits ++;
+        }
+        return hits;
+    }
+}
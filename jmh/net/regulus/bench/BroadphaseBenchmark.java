@@ -0,0 +1,78 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.detection.broadphase.AABBTree;
+import net.regulus.detection.broadphase.ITreeCallback;
+import net.regulus.geom.AABB;
+
+/**
+ * Measures the {@link AABBTree} on its own: moving all proxies a little, as happens every tick, and querying the
+ * neighbours of every proxy, as pair finding does.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class BroadphaseBenchmark {
+    @Param( { "100", "1000", "10000" } )
+    public int proxies;
+
+    private AABBTree tree;
+    private int[] ids;
+    private double[] x, y, vx, vy;
+    private final AABB box = new AABB();
+    private int hits;
+    private final ITreeCallback counter = proxy -> {
+        hits ++;
+        return true;
+    };
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        Random random = new Random( 42 );
+        double size = Math.sqrt( proxies ) * 1.5;
+
+        tree = new AABBTree( 0.1 );
+        ids = new int[ proxies ];
+        x = new double[ proxies ];
+        y = new double[ proxies ];
+        vx = new double[ proxies ];
+        vy = new double[ proxies ];
+        for( int i = 0; i < proxies; i++ ) {
+            x[ i ] = random.nextDouble() * size;
+            y[ i ] = random.nextDouble() * size;
+            vx[ i ] = ( random.nextDouble() - 0.5 ) * 0.02;
+            vy[ i ] = ( random.nextDouble() - 0.5 ) * 0.02;
+            ids[ i ] = tree.createProxy( box( i ), i );
+        }
+    }
+
+    private AABB box( int i ) {
+        return box.set( x[ i ] - 0.4, y[ i ] - 0.4, x[ i ] + 0.4, y[ i ] + 0.4 );
+    }
+
+    @Benchmark
+    public void move() {
+        for( int i = 0; i < proxies; i++ ) {
+            x[ i ] += vx[ i ];
+            y[ i ] += vy[ i ];
+            tree.moveProxy( ids[ i ], box( i ) );
+        }
+    }
+
+    @Benchmark
+    public void query( Blackhole bh ) {
+        hits = 0;
+        for( int i = 0; i < proxies; i++ ) {
+            tree.query( box( i ), counter );
+        }
+        bh.consume( hits );
+    }
+}
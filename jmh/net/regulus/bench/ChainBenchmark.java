@@ -0,0 +1,90 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+/**
+ * Measures {@link World#tick} for shapes resting on rolling terrain of 10,000 segments, built either as one {@link
+ * ChainCollider} or as a static polygon body per segment, covering the same strip.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class ChainBenchmark {
+    private static final int SEGMENTS = 10000;
+    private static final double SPACING = 0.1;
+    private static final double THICKNESS = 0.5;
+
+    @Param( { "chain", "polygons" } )
+    public String level;
+
+    @Param( { "100" } )
+    public int bodies;
+
+    private World world;
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        Random random = new Random( 42 );
+        double[] xy = new double[ ( SEGMENTS + 1 ) * 2 ];
+        for( int i = 0; i <= SEGMENTS; i++ ) {
+            double x = ( i - SEGMENTS / 2 ) * SPACING;
+            xy[ i * 2 ] = x;
+            xy[ i * 2 + 1 ] = height( x );
+        }
+
+        world = new World();
+        if( level.equals( "chain" ) ) {
+            ChainCollider chain = new ChainCollider( xy, false, THICKNESS );
+            Body.builder().collider( chain ).makeStatic().addTo( world ).build();
+        } else {
+            for( int i = 0; i < SEGMENTS; i++ ) {
+                double x1 = xy[ i * 2 ], y1 = xy[ i * 2 + 1 ];
+                double x2 = xy[ i * 2 + 2 ], y2 = xy[ i * 2 + 3 ];
+                double len = Math.hypot( x2 - x1, y2 - y1 );
+                double nx = - ( y2 - y1 ) / len * THICKNESS, ny = ( x2 - x1 ) / len * THICKNESS;
+                Body.builder()
+                    .collider( ICollider.polygon().add( x1, y1, x2, y2, x2 - nx, y2 - ny, x1 - nx, y1 - ny ) )
+                    .makeStatic()
+                    .addTo( world )
+                    .build();
+            }
+        }
+
+        for( int i = 0; i < bodies; i++ ) {
+            double x = - 48 + random.nextDouble() * 96;
+            Body.builder()
+                .collider( i % 2 == 0 ? ICollider.box().size( 0.6, 0.6 ) : ICollider.circle().radius( 0.3 ) )
+                .density( 1 )
+                .position( x, height( x ) + 1 + random.nextDouble() * 4 )
+                .addTo( world )
+                .build();
+        }
+        world.init();
+
+        // Let the shapes land, so that the measurement covers resting contacts
+        for( int i = 0; i < 200; i++ ) {
+            world.tick( 1 / 60.0 );
+        }
+    }
+
+    private static double height( double x ) {
+        return Math.sin( x * 0.3 ) * 1.5 + Math.sin( x * 1.1 ) * 0.3;
+    }
+
+    @Benchmark
+    public World tick() {
+        world.tick( 1 / 60.0 );
+        return world;
+    }
+}
@@ -0,0 +1,88 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.*;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.detection.sat.SAT;
+import net.regulus.geom.Transform;
+
+/**
+ * Measures narrowphase between two compounds of boxes, like two buildings whose corners touch, comparing the descent
+ * of the child trees with testing all pairs of children.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class CompoundBenchmark {
+    @Param( { "20", "50" } )
+    public int children;
+
+    private CompoundCollider a, b;
+    private final Transform transform = new Transform();
+    private final Collector collector = new Collector();
+
+    @Setup
+    public void setup() {
+        a = building( children );
+        b = building( children );
+        a.setBodyTransform( new Transform( 0, 0, 0 ) );
+        // Only the top right corner of A touches the bottom left corner of B
+        b.setBodyTransform( new Transform( 4.95, 4.95, 0 ) );
+    }
+
+    private static CompoundCollider building( int children ) {
+        ICollider.CompoundBuilder builder = ICollider.compound();
+        int columns = (int) Math.ceil( Math.sqrt( children ) );
+        double size = 5.0 / columns;
+        for( int i = 0; i < children; i++ ) {
+            double x = ( i % columns + 0.5 ) * size;
+            double y = ( i / columns + 0.5 ) * size;
+            builder.add( ICollider.box().size( size, size ).offset( x, y ) );
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public int treeDescent() {
+        SAT.collide( a, b, collector.reset() );
+        return collector.count;
+    }
+
+    @Benchmark
+    public int allPairs() {
+        collector.reset();
+        for( SimpleCollider c1 : a.colliders ) {
+            for( SimpleCollider c2 : b.colliders ) {
+                SAT.collide( c1, c2, collector );
+            }
+        }
+        return collector.count;
+    }
+
+    @Benchmark
+    public CompoundCollider setBodyTransform() {
+        a.setBodyTransform( transform.set( 0, 0, 0 ) );
+        return a;
+    }
+
+    private static class Collector implements ICollisionCollector {
+        int count;
+
+        Collector reset() {
+            count = 0;
+            return this;
+        }
+
+        @Override
+        public void addCollision( CollisionPrimer primer ) {
+            count ++;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+/**
+ * Measures {@link World#tick} for shapes resting on rolling ground of 10,000 columns, built either as one {@link
+ * HeightfieldCollider}, as one {@link ChainCollider} or as a static polygon body per column, covering the same ground.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class HeightfieldBenchmark {
+    private static final int COLUMNS = 10000;
+    private static final double SPACING = 0.1;
+    private static final double THICKNESS = 0.5;
+    private static final double LEFT = - COLUMNS / 2 * SPACING;
+
+    @Param( { "heightfield", "chain", "polygons" } )
+    public String level;
+
+    @Param( { "100" } )
+    public int bodies;
+
+    private World world;
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        Random random = new Random( 42 );
+        double[] heights = new double[ COLUMNS + 1 ];
+        for( int i = 0; i <= COLUMNS; i++ ) {
+            heights[ i ] = height( LEFT + i * SPACING );
+        }
+
+        world = new World();
+        if( level.equals( "heightfield" ) ) {
+            HeightfieldCollider field = new HeightfieldCollider( heights, SPACING, THICKNESS );
+            Body.builder().collider( field ).makeStatic().position( LEFT, 0 ).addTo( world ).build();
+        } else if( level.equals( "chain" ) ) {
+            double[] xy = new double[ ( COLUMNS + 1 ) * 2 ];
+            for( int i = 0; i <= COLUMNS; i++ ) {
+                xy[ i * 2 ] = LEFT + i * SPACING;
+                xy[ i * 2 + 1 ] = heights[ i ];
+            }
+            ChainCollider chain = new ChainCollider( xy, false, THICKNESS );
+            Body.builder().collider( chain ).makeStatic().addTo( world ).build();
+        } else {
+            for( int i = 0; i < COLUMNS; i++ ) {
+                double x1 = LEFT + i * SPACING, x2 = x1 + SPACING;
+                double y1 = heights[ i ], y2 = heights[ i + 1 ];
+                double bottom = Math.min( y1, y2 ) - THICKNESS;
+                Body.builder()
+                    .collider( ICollider.polygon().add( x1, y1, x2, y2, x2, bottom, x1, bottom ) )
+                    .makeStatic()
+                    .addTo( world )
+                    .build();
+            }
+        }
+
+        for( int i = 0; i < bodies; i++ ) {
+            double x = - 48 + random.nextDouble() * 96;
+            Body.builder()
+                .collider( i % 2 == 0 ? ICollider.box().size( 0.6, 0.6 ) : ICollider.circle().radius( 0.3 ) )
+                .density( 1 )
+                .position( x, height( x ) + 1 + random.nextDouble() * 4 )
+                .addTo( world )
+                .build();
+        }
+        world.init();
+
+        // Let the shapes land, so that the measurement covers resting contacts
+        for( int i = 0; i < 200; i++ ) {
+            world.tick( 1 / 60.0 );
+        }
+    }
+
+    private static double height( double x ) {
+        return Math.sin( x * 0.3 ) * 1.5 + Math.sin( x * 1.1 ) * 0.3;
+    }
+
+    @Benchmark
+    public World tick() {
+        world.tick( 1 / 60.0 );
+        return world;
+    }
+}
@@ -0,0 +1,95 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.geom.Vec2;
+import net.regulus.simulation.World;
+import net.regulus.simulation.particle.Particle;
+import net.regulus.simulation.particle.ParticleSystem;
+
+/**
+ * Measures {@link ParticleSystem#update} for a blob of particles resting in the stack scene.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class ParticleBenchmark {
+    @Param( { "100", "1000" } )
+    public int particles;
+
+    private ParticleSystem system;
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        Random random = new Random( 42 );
+        World world = Scenes.stack( 100 );
+        system = new ParticleSystem( world );
+        world.particleSystems.add( system );
+
+        double size = Math.sqrt( particles ) * 0.15;
+        for( int i = 0; i < particles; i++ ) {
+            BlobParticle p = new BlobParticle( system );
+            p.position.set( ( random.nextDouble() - 0.5 ) * size, - 4.5 + random.nextDouble() * size );
+            system.particles.add( p );
+        }
+    }
+
+    @Benchmark
+    public ParticleSystem update() {
+        system.update( 0.2 / 30 );
+        return system;
+    }
+
+    /**
+     * A simple particle that falls and pushes away nearby particles.
+     */
+    static class BlobParticle extends Particle {
+        private final List<Particle> neighbours = new ArrayList<>();
+
+        BlobParticle( ParticleSystem system ) {
+            super( system );
+        }
+
+        @Override
+        public void update( double dt ) {
+            velocity.add( 0, - 0.1 * dt, velocity );
+        }
+
+        @Override
+        public void getInteractingParticles( List<ParticleSystem.ParticleCollision> collisions ) {
+            neighbours.clear();
+            system.getParticlesInArea( position, radius * 2, neighbours );
+            for( Particle other : neighbours ) {
+                // Only one of both particles creates the collision
+                if( other != this && System.identityHashCode( other ) < System.identityHashCode( this ) ) {
+                    collisions.add( new Push( this, other ) );
+                }
+            }
+        }
+    }
+
+    static class Push extends ParticleSystem.ParticleCollision {
+        Push( Particle a, Particle b ) {
+            super( a, b );
+        }
+
+        @Override
+        public void solve( double dt ) {
+            double overlap = particleA.radius + particleB.radius - dist;
+            if( overlap <= 0 )
+                return;
+
+            Vec2 push = normal.mul( overlap * 0.5 / dt * 0.2, null );
+            particleA.velocity.add( push, particleA.velocity );
+            particleB.velocity.sub( push, particleB.velocity );
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.IPolygonKernel;
+import net.regulus.collider.PolygonKernels;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+
+/**
+ * Measures the polygon kernels in isolation, comparing the Vector API kernel with the scalar kernel.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class PolygonKernelBenchmark {
+    @Param( { "8", "16", "32", "64" } )
+    public int vertices;
+
+    @Param( { "vector", "scalar" } )
+    public String kernel;
+
+    private IPolygonKernel k;
+    private double[] x, y, outX, outY;
+    private final Transform transform = new Transform( 0.3, - 0.2, 0.7 );
+    private final AABB box = new AABB();
+
+    @Setup
+    public void setup() {
+        k = kernel.equals( "scalar" ) ? PolygonKernels.scalar() : PolygonKernels.get();
+        x = new double[ vertices ];
+        y = new double[ vertices ];
+        outX = new double[ vertices ];
+        outY = new double[ vertices ];
+        for( int i = 0; i < vertices; i++ ) {
+            double a = i * 2 * Math.PI / vertices;
+            x[ i ] = Math.cos( a );
+            y[ i ] = Math.sin( a );
+        }
+    }
+
+    @Benchmark
+    public double[] transform() {
+        k.transform( x, y, vertices, transform, outX, outY );
+        return outX;
+    }
+
+    @Benchmark
+    public double[] edges() {
+        k.edges( x, y, vertices, outX, outY );
+        return outX;
+    }
+
+    @Benchmark
+    public AABB bounds() {
+        return k.bounds( x, y, vertices, box );
+    }
+}
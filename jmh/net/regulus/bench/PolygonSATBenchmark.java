@@ -0,0 +1,95 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.*;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.detection.sat.*;
+import net.regulus.geom.Transform;
+
+/**
+ * Measures the polygon pair routines of the narrowphase with regular polygons of many sides, as in a resting contact,
+ * and the update of a polygon when it's body moves. Run with {@code -jvmArgsAppend -Dregulus.simd=false} to measure
+ * the scalar kernel.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class PolygonSATBenchmark {
+    @Param( { "8", "16", "32", "64" } )
+    public int sides;
+
+    private RegularPolyCollider polyA, polyB;
+    private CapsuleCollider capsule;
+    private PlaneCollider plane;
+    private BarCollider bar;
+
+    private final Transform transform = new Transform();
+    private final Collector collector = new Collector();
+
+    @Setup
+    public void setup() {
+        polyA = ICollider.regularPoly().radius( 0.5 ).sides( sides ).build();
+        polyB = ICollider.regularPoly().radius( 0.5 ).sides( sides ).build();
+        capsule = ICollider.capsule().radius( 0.3 ).length( 1 ).build();
+        plane = ICollider.plane().rotationOff( Math.PI / 2 ).build();
+        bar = ICollider.bar().width( 0.5 ).build();
+
+        polyA.setBodyTransform( new Transform( 0, 0.45, 0.1 ) );
+        polyB.setBodyTransform( new Transform( 0.1, - 0.5, 0.2 ) );
+        capsule.setBodyTransform( new Transform( 0.1, - 0.3, - 0.3 ) );
+        plane.setBodyTransform( new Transform( 0, 0.1, 0 ) );
+        bar.setBodyTransform( new Transform( 0, 0.1, Math.PI / 2 ) );
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonPolygon() {
+        PolygonPolygonSAT.collide( polyA, polyB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer capsulePolygon() {
+        CapsulePolygonSAT.collide( capsule, polyA, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonPlane() {
+        PolygonPlaneSAT.collide( polyA, plane, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonBar() {
+        PolygonBarSAT.collide( polyA, bar, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public RegularPolyCollider setBodyTransform() {
+        // Transforms the vertices and recomputes the edges, axes and box, as done for every body on every tick
+        polyA.setBodyTransform( transform.set( 0, 0.45, 0.1 ) );
+        return polyA;
+    }
+
+    private static class Collector implements ICollisionCollector {
+        CollisionPrimer last;
+
+        Collector reset() {
+            last = null;
+            return this;
+        }
+
+        @Override
+        public void addCollision( CollisionPrimer primer ) {
+            last = primer;
+        }
+    }
+}
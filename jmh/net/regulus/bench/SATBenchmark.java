@@ -0,0 +1,142 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.*;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.detection.sat.*;
+import net.regulus.geom.Transform;
+
+/**
+ * Measures every pair routine of the narrowphase with two overlapping colliders, as in a resting contact.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class SATBenchmark {
+    private CircleCollider circleA, circleB;
+    private CapsuleCollider capsuleA, capsuleB;
+    private PolygonalCollider boxA, polyB;
+    private PlaneCollider plane;
+    private BarCollider bar;
+
+    private final Collector collector = new Collector();
+
+    @Setup
+    public void setup() {
+        circleA = ICollider.circle().radius( 0.5 ).build();
+        circleB = ICollider.circle().radius( 0.5 ).build();
+        capsuleA = ICollider.capsule().radius( 0.3 ).length( 1 ).build();
+        capsuleB = ICollider.capsule().radius( 0.3 ).length( 1 ).build();
+        boxA = ICollider.box().size( 1, 1 ).build();
+        polyB = ICollider.regularPoly().radius( 0.6 ).sides( 6 ).build();
+        plane = ICollider.plane().rotationOff( Math.PI / 2 ).build();
+        bar = ICollider.bar().width( 0.5 ).build();
+
+        // A-shapes sit slightly above the origin, B-shapes slightly below, so that every pair overlaps a little
+        place( circleA, 0, 0.4, 0 );
+        place( capsuleA, 0.1, 0.4, 0.2 );
+        place( boxA, - 0.1, 0.45, 0.1 );
+        place( circleB, 0.2, - 0.5, 0 );
+        place( capsuleB, 0.2, - 0.2, - 0.3 );
+        place( polyB, 0.1, - 0.35, 0.2 );
+        place( plane, 0, 0.1, 0 );
+        place( bar, 0, 0.1, Math.PI / 2 );
+    }
+
+    private static void place( ICollider collider, double x, double y, double rotation ) {
+        collider.setBodyTransform( new Transform( x, y, rotation ) );
+    }
+
+    @Benchmark
+    public CollisionPrimer circleCircle() {
+        CircleCircleSAT.collide( circleA, circleB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer circlePolygon() {
+        CirclePolygonSAT.collide( circleA, polyB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer circleCapsule() {
+        CircleCapsuleSAT.collide( circleA, capsuleB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer circlePlane() {
+        CirclePlaneSAT.collide( circleA, plane, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer circleBar() {
+        CircleBarSAT.collide( circleA, bar, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonPolygon() {
+        PolygonPolygonSAT.collide( boxA, polyB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonPlane() {
+        PolygonPlaneSAT.collide( boxA, plane, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer polygonBar() {
+        PolygonBarSAT.collide( boxA, bar, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer capsuleCapsule() {
+        CapsuleCapsuleSAT.collide( capsuleA, capsuleB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer capsulePolygon() {
+        CapsulePolygonSAT.collide( capsuleA, polyB, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer capsulePlane() {
+        CapsulePlaneSAT.collide( capsuleA, plane, collector.reset() );
+        return collector.last;
+    }
+
+    @Benchmark
+    public CollisionPrimer capsuleBar() {
+        CapsuleBarSAT.collide( capsuleA, bar, collector.reset() );
+        return collector.last;
+    }
+
+    private static class Collector implements ICollisionCollector {
+        CollisionPrimer last;
+
+        Collector reset() {
+            last = null;
+            return this;
+        }
+
+        @Override
+        public void addCollision( CollisionPrimer primer ) {
+            last = primer;
+        }
+    }
+}
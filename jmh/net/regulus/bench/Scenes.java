@@ -0,0 +1,209 @@
+package net.regulus.bench;
+
+import java.util.Random;
+
+import net.regulus.collider.BoxCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+import net.regulus.simulation.constraint.IConstraint;
+
+/**
+ * Builds benchmark worlds derived from the demo scenes, scaled to a given amount of bodies. Bodies are placed with a
+ * fixed seed, so that every run simulates the same scene.
+ */
+public final class Scenes {
+    private Scenes() {
+    }
+
+    /**
+     * Creates a scene by name: {@code stack}, {@code constraint} or {@code basic}.
+     */
+    public static World create( String name, int bodies ) {
+        return create( name, bodies, 42 );
+    }
+
+    /**
+     * Creates a scene by name, placing bodies with a specific seed.
+     */
+    public static World create( String name, int bodies, long seed ) {
+        switch( name ) {
+            case "stack":
+                return stack( bodies, seed );
+            case "constraint":
+                return constraint( bodies, seed );
+            case "basic":
+                return basic( bodies, seed );
+            default:
+                throw new IllegalArgumentException( "Unknown scene: " + name );
+        }
+    }
+
+    /**
+     * Columns of 15 boxes falling onto a floor between two walls, like the stack test.
+     */
+    public static World stack( int bodies ) {
+        return stack( bodies, 42 );
+    }
+
+    public static World stack( int bodies, long seed ) {
+        Random random = new Random( seed );
+        int columns = ( bodies + 14 ) / 15;
+        double width = columns * 1.0;
+
+        World world = new World();
+        addBounds( world, width );
+
+        for( int i = 0; i < bodies; i++ ) {
+            int column = i / 15;
+            int row = i % 15;
+            Body.builder()
+                .collider( ICollider.box().size( 0.7, 0.7 ) )
+                .density( 1 )
+                .position( - width / 2 + 0.5 + column + 0.05 * ( random.nextDouble() - random.nextDouble() ), 2 + row * 1.5 )
+                .addTo( world )
+                .build();
+        }
+
+        world.init();
+        return world;
+    }
+
+    /**
+     * Levers of a long box on an axle with a ball on a spring, among falling shapes, like the constraint physics test.
+     */
+    public static World constraint( int bodies ) {
+        return constraint( bodies, 42 );
+    }
+
+    public static World constraint( int bodies, long seed ) {
+        Random random = new Random( seed );
+        int groups = ( bodies + 9 ) / 10;
+        double width = groups * 6.0;
+
+        World world = new World();
+        addBounds( world, width );
+
+        int count = 0;
+        for( int g = 0; g < groups && count < bodies; g++ ) {
+            double x = - width / 2 + 3 + g * 6;
+
+            Body lever = Body.builder()
+                             .collider( ICollider.box().size( 0.4, 4 ) )
+                             .density( 1 )
+                             .position( x, 0 )
+                             .rotation( 1 )
+                             .restitution( 0.3 )
+                             .addTo( world )
+                             .build();
+            count ++;
+            IConstraint.axle().a( lever, 0, 2 ).b( null, x, 2 ).addTo( world ).build();
+
+            if( count < bodies ) {
+                Body ball = Body.builder()
+                                .collider( ICollider.circle().radius( 0.3 ) )
+                                .density( 1 )
+                                .position( x + random.nextDouble() - random.nextDouble(), 0 )
+                                .restitution( 0.3 )
+                                .addTo( world )
+                                .build();
+                count ++;
+                IConstraint.spring()
+                           .a( lever, 0, - 2 )
+                           .b( ball, 0, 0.15 )
+                           .length( 1 )
+                           .constant( 0.05 )
+                           .damping( 0.01 )
+                           .addTo( world )
+                           .build();
+            }
+
+            for( int i = 0; i < 8 && count < bodies; i++, count++ ) {
+                randomShape( random, x + ( random.nextDouble() - random.nextDouble() ) * 2, 3 + i * 1.5, i ).addTo( world ).build();
+            }
+        }
+
+        world.init();
+        return world;
+    }
+
+    /**
+     * Mixed shapes falling onto a floor and tilted static boxes, like the basic physics test.
+     */
+    public static World basic( int bodies ) {
+        return basic( bodies, 42 );
+    }
+
+    public static World basic( int bodies, long seed ) {
+        Random random = new Random( seed );
+        int columns = ( bodies + 14 ) / 15;
+        double width = columns * 3.0;
+
+        World world = new World();
+        addBounds( world, width );
+
+        for( int c = 0; c < columns; c += 2 ) {
+            BoxCollider ramp = new BoxCollider();
+            ramp.setSize( 5, 0.4 );
+            ramp.setRotationOffset( c % 4 == 0 ? - 0.3 : 0.3 );
+            Body body = new Body();
+            body.setCollider( ramp );
+            body.mass.setStatic();
+            body.position.set( - width / 2 + 1.5 + c * 3, 0 );
+            world.add( body );
+        }
+
+        for( int i = 0; i < bodies; i++ ) {
+            int column = i / 15;
+            int row = i % 15;
+            double x = - width / 2 + 1.5 + column * 3 + ( random.nextDouble() - random.nextDouble() ) * 1.2;
+            randomShape( random, x, 2 + row * 1.5 + random.nextDouble(), i ).addTo( world ).build();
+        }
+
+        world.init();
+        return world;
+    }
+
+    private static Body.Builder randomShape( Random random, double x, double y, int kind ) {
+        Body.Builder builder = Body.builder().density( 1 ).position( x, y );
+        switch( kind % 5 ) {
+            default:
+            case 0:
+                return builder.collider( ICollider.capsule().radius( 0.2 ).length( 0.4 ) );
+            case 1:
+                return builder.collider(
+                    ICollider.box().size( 0.8, 0.2 ).build(),
+                    ICollider.box().size( 0.2, 0.8 ).build()
+                );
+            case 2:
+                return builder.collider( ICollider.circle().radius( 0.3 ) );
+            case 3:
+                return builder.collider( ICollider.regularPoly().radius( 0.3 ).sides( random.nextInt( 7 ) + 3 ) );
+            case 4:
+                return builder.collider( ICollider.box().size( 0.6, 0.3 ) );
+        }
+    }
+
+    private static void addBounds( World world, double width ) {
+        Body.builder()
+            .collider( ICollider.plane().rotationOff( Math.PI / 2 ) )
+            .makeStatic()
+            .position( 0, - 5 )
+            .addTo( world )
+            .build();
+
+        Body.builder()
+            .collider( ICollider.plane() )
+            .makeStatic()
+            .position( - width / 2 - 1, 0 )
+            .addTo( world )
+            .build();
+
+        Body.builder()
+            .collider( ICollider.plane().rotationOff( Math.PI ) )
+            .makeStatic()
+            .position( width / 2 + 1, 0 )
+            .addTo( world )
+            .build();
+    }
+}
@@ -0,0 +1,54 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.simulation.World;
+
+/**
+ * Measures {@link World#snapshot} and {@link World#restore} of the benchmark scenes, after they have been ticked for a
+ * while. Restoring into the world the snapshot was taken from reuses all bodies and colliders, as a rollback does.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class SnapshotBenchmark {
+    @Param( { "basic", "constraint" } )
+    public String scene;
+
+    @Param( { "100", "1000", "10000" } )
+    public int bodies;
+
+    private World world;
+    private ByteBuffer buffer;
+
+    @Setup( Level.Trial )
+    public void setup() {
+        world = Scenes.create( scene, bodies );
+        for( int i = 0; i < 30; i++ ) {
+            world.tick( 0.2 / 30 );
+        }
+        buffer = ByteBuffer.allocateDirect( bodies * 512 + 4096 );
+        world.snapshot( buffer );
+    }
+
+    @Benchmark
+    public ByteBuffer snapshot() {
+        buffer.clear();
+        world.snapshot( buffer );
+        return buffer;
+    }
+
+    @Benchmark
+    public World restore() {
+        buffer.flip();
+        world.restore( buffer );
+        buffer.position( buffer.limit() );
+        return world;
+    }
+}
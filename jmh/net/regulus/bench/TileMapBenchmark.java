@@ -0,0 +1,85 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.collider.ICollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+/**
+ * Measures {@link World#tick} for shapes falling into a tile level, built either as one {@link TileMapCollider} or as
+ * a static box body per solid tile.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class TileMapBenchmark {
+    @Param( { "map", "tiles" } )
+    public String level;
+
+    @Param( { "100" } )
+    public int bodies;
+
+    private World world;
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        Random random = new Random( 42 );
+        TileMapCollider map = ICollider.tileMap()
+                                       .size( 200, 30 )
+                                       .cellSize( 0.5 )
+                                       .fill( 0, 0, 200, 3 )
+                                       .fill( 0, 0, 1, 30 )
+                                       .fill( 199, 0, 1, 30 )
+                                       .build();
+        for( int i = 0; i < 40; i++ ) {
+            map.fill( 1 + random.nextInt( 190 ), 6 + random.nextInt( 20 ), 1 + random.nextInt( 8 ), 1, true );
+        }
+
+        world = new World();
+        if( level.equals( "map" ) ) {
+            Body.builder().collider( map ).makeStatic().position( - 50, - 5 ).addTo( world ).build();
+        } else {
+            for( int row = 0; row < map.getRows(); row++ ) {
+                for( int column = 0; column < map.getColumns(); column++ ) {
+                    if( map.isSolid( column, row ) ) {
+                        Body.builder()
+                            .collider( ICollider.box().size( 0.5, 0.5 ) )
+                            .makeStatic()
+                            .position( - 50 + ( column + 0.5 ) * 0.5, - 5 + ( row + 0.5 ) * 0.5 )
+                            .addTo( world )
+                            .build();
+                    }
+                }
+            }
+        }
+
+        for( int i = 0; i < bodies; i++ ) {
+            Body.builder()
+                .collider( i % 2 == 0 ? ICollider.box().size( 0.6, 0.6 ) : ICollider.circle().radius( 0.3 ) )
+                .density( 1 )
+                .position( - 48 + random.nextDouble() * 96, random.nextDouble() * 8 )
+                .addTo( world )
+                .build();
+        }
+        world.init();
+
+        // Let the shapes land, so that the measurement covers resting contacts
+        for( int i = 0; i < 200; i++ ) {
+            world.tick( 1 / 60.0 );
+        }
+    }
+
+    @Benchmark
+    public World tick() {
+        world.tick( 1 / 60.0 );
+        return world;
+    }
+}
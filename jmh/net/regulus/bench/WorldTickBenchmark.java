@@ -0,0 +1,38 @@
+package net.regulus.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import net.regulus.simulation.World;
+
+/**
+ * Measures a single {@link World#tick} of the benchmark scenes. The scene is rebuilt for every iteration, so that each
+ * iteration measures the same part of the simulation: bodies falling and settling.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" } )
+public class WorldTickBenchmark {
+    @Param( { "stack", "constraint", "basic" } )
+    public String scene;
+
+    @Param( { "100", "1000", "10000" } )
+    public int bodies;
+
+    private World world;
+
+    @Setup( Level.Iteration )
+    public void setup() {
+        world = Scenes.create( scene, bodies );
+    }
+
+    @Benchmark
+    public World tick() {
+        world.tick( 0.2 / 30 );
+        return world;
+    }
+}
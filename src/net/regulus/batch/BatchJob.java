@@ -0,0 +1,29 @@
+package net.regulus.batch;
+
+/**
+ * A single run in a batch: a scenario and how long to simulate it.
+ */
+public class BatchJob {
+    public final String name;
+    public final IScenario scenario;
+    public final long seed;
+    public final int ticks;
+    public final double timeStep;
+
+    /**
+     * @param name     The name of the run, for reporting
+     * @param scenario The scenario to build
+     * @param seed     The seed passed to the scenario
+     * @param ticks    The amount of ticks to run
+     * @param timeStep The time step of every tick
+     */
+    public BatchJob( String name, IScenario scenario, long seed, int ticks, double timeStep ) {
+        if( ticks < 0 )
+            throw new IllegalArgumentException( "Negative tick count" );
+        this.name = name;
+        this.scenario = scenario;
+        this.seed = seed;
+        this.ticks = ticks;
+        this.timeStep = timeStep;
+    }
+}
@@ -0,0 +1,64 @@
+package net.regulus.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The results of a batch run, in the order of the jobs.
+ */
+public class BatchReport {
+    public final List<BatchResult> results;
+    /** The wall clock time of the whole batch */
+    public final long wallNanos;
+    /** The amount of threads the batch ran on */
+    public final int threads;
+
+    BatchReport( List<BatchResult> results, long wallNanos, int threads ) {
+        this.results = Collections.unmodifiableList( results );
+        this.wallNanos = wallNanos;
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the amount of ticks of all runs together.
+     */
+    public long totalTicks() {
+        long ticks = 0;
+        for( BatchResult result : results ) {
+            ticks += result.ticks;
+        }
+        return ticks;
+    }
+
+    /**
+     * Returns the aggregate throughput: the amount of ticks of all runs per second of wall clock time.
+     */
+    public double ticksPerSecond() {
+        return wallNanos == 0 ? 0 : totalTicks() * 1E9 / wallNanos;
+    }
+
+    /**
+     * Returns the amount of runs that failed.
+     */
+    public int failures() {
+        int failures = 0;
+        for( BatchResult result : results ) {
+            if( ! result.succeeded() )
+                failures ++;
+        }
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for( BatchResult result : results ) {
+            builder.append( result ).append( '\n' );
+        }
+        builder.append( String.format(
+            "%d runs on %d threads, %d ticks in %.1f ms, %.0f ticks/s aggregate, %d failed",
+            results.size(), threads, totalTicks(), wallNanos / 1E6, ticksPerSecond(), failures()
+        ) );
+        return builder.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package net.regulus.batch;
+
+/**
+ * The result of a single run in a batch.
+ */
+public class BatchResult {
+    public final BatchJob job;
+    /** The amount of ticks that were run, which is less than requested when the run failed */
+    public final int ticks;
+    /** The time spent ticking, excluding building the world */
+    public final long nanos;
+    /** The {@linkplain net.regulus.simulation.World#checksum checksum} of the world after the last tick */
+    public final long checksum;
+    /** The exception that stopped the run, or {@code null} when the run completed */
+    public final RuntimeException failure;
+
+    BatchResult( BatchJob job, int ticks, long nanos, long checksum, RuntimeException failure ) {
+        this.job = job;
+        this.ticks = ticks;
+        this.nanos = nanos;
+        this.checksum = checksum;
+        this.failure = failure;
+    }
+
+    /**
+     * Returns whether the run completed all it's ticks.
+     */
+    public boolean succeeded() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the amount of ticks per second of this run.
+     */
+    public double ticksPerSecond() {
+        return nanos == 0 ? 0 : ticks * 1E9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        String result = String.format( "%s: %d ticks in %.1f ms, %.0f ticks/s, checksum %016x", job.name, ticks, nanos / 1E6, ticksPerSecond(), checksum );
+        return failure == null ? result : result + ", failed: " + failure;
+    }
+}
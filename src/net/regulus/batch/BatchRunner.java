@@ -0,0 +1,128 @@
+package net.regulus.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.regulus.simulation.World;
+
+/**
+ * Runs many independent worlds without rendering, as fast as possible and in parallel. Every job builds it's own world
+ * on a worker thread and ticks it for a fixed amount of ticks, so worlds never share state. A failing run does not stop
+ * the batch, it's failure is reported in it's result.
+ */
+public class BatchRunner {
+    private final ExecutorService executor;
+    private final int threads;
+    private final boolean ownExecutor;
+
+    /**
+     * Creates a runner with a thread for every available processor.
+     */
+    public BatchRunner() {
+        this( Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates a runner with it's own pool of daemon threads.
+     *
+     * @param threads The amount of threads
+     */
+    public BatchRunner( int threads ) {
+        if( threads < 1 )
+            throw new IllegalArgumentException( "Need at least one thread" );
+        this.threads = threads;
+        executor = Executors.newFixedThreadPool( threads, new WorkerFactory() );
+        ownExecutor = true;
+    }
+
+    /**
+     * Creates a runner that runs jobs on an existing executor, which is not shut down by the runner.
+     *
+     * @param executor The executor
+     * @param threads  The parallelism of the executor, for reporting
+     */
+    public BatchRunner( ExecutorService executor, int threads ) {
+        this.executor = executor;
+        this.threads = threads;
+        ownExecutor = false;
+    }
+
+    /**
+     * Runs a batch of jobs, waiting until all jobs are done.
+     *
+     * @return The report, with results in the order of the jobs
+     * @throws InterruptedException When interrupted while waiting
+     */
+    public BatchReport run( List<BatchJob> jobs ) throws InterruptedException {
+        long start = System.nanoTime();
+
+        List<Future<BatchResult>> futures = new ArrayList<>( jobs.size() );
+        for( BatchJob job : jobs ) {
+            futures.add( executor.submit( () -> runJob( job ) ) );
+        }
+
+        List<BatchResult> results = new ArrayList<>( jobs.size() );
+        for( Future<BatchResult> future : futures ) {
+            try {
+                results.add( future.get() );
+            } catch( ExecutionException exc ) {
+                // runJob catches exceptions, so this is an error
+                Throwable cause = exc.getCause();
+                if( cause instanceof Error )
+                    throw (Error) cause;
+                throw new IllegalStateException( cause );
+            }
+        }
+
+        return new BatchReport( results, System.nanoTime() - start, threads );
+    }
+
+    /**
+     * Stops the threads of this runner, when it created it's own threads.
+     */
+    public void shutdown() {
+        if( ownExecutor )
+            executor.shutdown();
+    }
+
+    /**
+     * Runs a single job on the current thread.
+     */
+    public static BatchResult runJob( BatchJob job ) {
+        World world;
+        try {
+            world = job.scenario.build( job.seed );
+            world.init();
+        } catch( RuntimeException exc ) {
+            return new BatchResult( job, 0, 0, 0, exc );
+        }
+
+        int ticks = 0;
+        long start = System.nanoTime();
+        try {
+            for( ; ticks < job.ticks; ticks ++ ) {
+                world.tick( job.timeStep );
+            }
+        } catch( RuntimeException exc ) {
+            return new BatchResult( job, ticks, System.nanoTime() - start, world.checksum(), exc );
+        }
+        return new BatchResult( job, ticks, System.nanoTime() - start, world.checksum(), null );
+    }
+
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread( Runnable task ) {
+            Thread thread = new Thread( task, "regulus-batch-" + count.getAndIncrement() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.regulus.batch;
+
+import net.regulus.simulation.World;
+
+/**
+ * Describes how to build a world for a batch run. Scenarios are built on the threads of the {@link BatchRunner}, so a
+ * scenario that is run more than once must build a new world every time.
+ */
+@FunctionalInterface
+public interface IScenario {
+    /**
+     * Builds the world of this scenario. The world does not need to be initialized.
+     *
+     * @param seed The seed of the run, for scenarios with random variations
+     */
+    World build( long seed );
+}
@@ -1,5 +1,6 @@
 package net.regulus.collider;
 
+import net.regulus.geom.AABB;
 import net.regulus.geom.Projection;
 import net.regulus.geom.Vec2;
 
@@ -13,10 +14,10 @@ public class BarCollider extends SimpleCollider {
         area = Double.POSITIVE_INFINITY;
         inertiaFactor = Double.POSITIVE_INFINITY;
         center.set( 0, 0 );
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
         box.set( Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY );
-        normal.setPolar( 1, getGlobalRotation() );
+        normal.set( direction );
     }
 
     public void setWidth( double width ) {
@@ -28,6 +29,7 @@ public class BarCollider extends SimpleCollider {
         return width;
     }
 
+    @Override
     public boolean containsPoint( Vec2 point ) {
         proj.baseVector.set( normal );
         point.sub( center, proj.projected );
@@ -35,6 +37,18 @@ public class BarCollider extends SimpleCollider {
         return proj.tangentLength >= - width / 2 && proj.tangentLength <= width / 2;
     }
 
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        // Project the box onto the normal, relative to the center line of the bar
+        double cx = ( box.min.x + box.max.x ) / 2 - center.x;
+        double cy = ( box.min.y + box.max.y ) / 2 - center.y;
+        double hx = ( box.max.x - box.min.x ) / 2;
+        double hy = ( box.max.y - box.min.y ) / 2;
+        double dist = Math.abs( normal.x * cx + normal.y * cy );
+        double extent = Math.abs( normal.x ) * hx + Math.abs( normal.y ) * hy;
+        return dist - extent <= width / 2;
+    }
+
     public Vec2 getNormal( Vec2 v ) {
         return Vec2.put( v, normal );
     }
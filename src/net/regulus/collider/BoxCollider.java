@@ -41,13 +41,14 @@ public class BoxCollider extends PolygonalCollider {
         vertices.add( width / 2, - height / 2 );
         vertices.add( width / 2, height / 2 );
         vertices.add( - width / 2, height / 2 );
+        recomputeLocalVerts();
         recomputeGlobalVerts();
     }
 
     @Override
     protected void recompute() {
         recomputeGlobalVerts();
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
         area = width * height;
 
@@ -1,5 +1,6 @@
 package net.regulus.collider;
 
+import net.regulus.geom.AABB;
 import net.regulus.geom.Vec2;
 
 public class CapsuleCollider extends SimpleCollider {
@@ -12,10 +13,10 @@ public class CapsuleCollider extends SimpleCollider {
     protected void recompute() {
         area = Math.PI * radius * radius + length * radius * 2;
         inertiaFactor = capsuleI( length, radius );
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
-        left.set( - length / 2, 0 ).rotate( globalRotation, left ).add( center, left );
-        right.set( length / 2, 0 ).rotate( globalRotation, right ).add( center, right );
+        transform.mul( - length / 2, 0, left );
+        transform.mul( length / 2, 0, right );
         box.set( left, right ).abs( box ).grow( radius, box );
     }
 
@@ -67,4 +68,67 @@ public class CapsuleCollider extends SimpleCollider {
     public Vec2 getRight( Vec2 out ) {
         return Vec2.put( out, right );
     }
+
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        return segmentDistSq( point.x, point.y ) <= radius * radius;
+    }
+
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        if( ! AABB.overlap( this.box, box ) )
+            return false;
+        if( segmentCrossesBox( box ) )
+            return true;
+
+        // The rig does not touch the box, so the nearest points are an end of the rig or a corner of the box
+        double rr = radius * radius;
+        return boxDistSq( box, left ) <= rr
+            || boxDistSq( box, right ) <= rr
+            || segmentDistSq( box.min.x, box.min.y ) <= rr
+            || segmentDistSq( box.max.x, box.min.y ) <= rr
+            || segmentDistSq( box.max.x, box.max.y ) <= rr
+            || segmentDistSq( box.min.x, box.max.y ) <= rr;
+    }
+
+    private double segmentDistSq( double x, double y ) {
+        double ux = right.x - left.x, uy = right.y - left.y;
+        double px = x - left.x, py = y - left.y;
+        double uu = ux * ux + uy * uy;
+        double t = uu == 0 ? 0 : Math.max( 0, Math.min( 1, ( px * ux + py * uy ) / uu ) );
+        double dx = px - ux * t, dy = py - uy * t;
+        return dx * dx + dy * dy;
+    }
+
+    private static double boxDistSq( AABB box, Vec2 p ) {
+        double dx = p.x - Math.max( box.min.x, Math.min( p.x, box.max.x ) );
+        double dy = p.y - Math.max( box.min.y, Math.min( p.y, box.max.y ) );
+        return dx * dx + dy * dy;
+    }
+
+    private boolean segmentCrossesBox( AABB box ) {
+        // Clip the rig against the slabs of the box (Liang-Barsky)
+        double lower = 0, upper = 1;
+        double dx = right.x - left.x, dy = right.y - left.y;
+
+        if( dx == 0 ) {
+            if( left.x < box.min.x || left.x > box.max.x )
+                return false;
+        } else {
+            double t1 = ( box.min.x - left.x ) / dx, t2 = ( box.max.x - left.x ) / dx;
+            lower = Math.max( lower, Math.min( t1, t2 ) );
+            upper = Math.min( upper, Math.max( t1, t2 ) );
+        }
+
+        if( dy == 0 ) {
+            if( left.y < box.min.y || left.y > box.max.y )
+                return false;
+        } else {
+            double t1 = ( box.min.y - left.y ) / dy, t2 = ( box.max.y - left.y ) / dy;
+            lower = Math.max( lower, Math.min( t1, t2 ) );
+            upper = Math.min( upper, Math.max( t1, t2 ) );
+        }
+
+        return lower <= upper;
+    }
 }
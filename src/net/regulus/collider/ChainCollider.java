@@ -0,0 +1,600 @@
+package net.regulus.collider;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+import net.regulus.detection.sat.SurfaceContacts;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * A chain of connected line segments, meant for the outlines of static terrain. A chain is either open, or a loop in
+ * which the last vertex connects back to the first. Any amount of segments is one collider, so a large terrain needs
+ * neither an infinite plane nor a body per piece.
+ * <p>
+ * Chains are one-sided: the solid side of a segment is on it's right, and it's normal points to the left. Terrain drawn
+ * from left to right thus faces up, and a loop around a solid area runs clockwise. Behind every segment, a strip as
+ * deep as the thickness of the chain is solid, so that shapes that sink into the terrain are still pushed out.
+ * <p>
+ * The segments are kept in a bounding volume hierarchy over their strips, built once in the local space of the body, so
+ * that a collision only visits the segments under the other collider. Contacts with the ends of segments, where a
+ * shape would catch on the seam with the next segment, are replaced by contacts with their faces, based on the
+ * directions of the neighbouring segments, see {@link net.regulus.detection.sat.ChainSAT}.
+ */
+public class ChainCollider implements ICollider {
+    /** The id that represents 'no node' or 'no segment' */
+    public static final int NULL = - 1;
+
+    private final double[] vertexX;
+    private final double[] vertexY;
+    private final boolean loop;
+    private final double thickness;
+    private final int segmentCount;
+
+    /** Per segment: the unit direction and the length */
+    private final double[] dirX;
+    private final double[] dirY;
+    private final double[] length;
+
+    // The tree, with nodes stored in flat arrays like the ChildTree. Every node has an index lower than it's parent
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final int[] child1;
+    private final int[] child2;
+    private final int[] leaves;
+    private int nodeCount;
+    private final int root;
+
+    private final Transform transform = Transform.identity();
+    private final AABB box = new AABB();
+    private final Vec2 tmp = new Vec2();
+
+    /** Scratch space of the narrow phase, reused for every collider tested against this chain */
+    private final SurfaceContacts contacts = new SurfaceContacts();
+
+    /** Polygons covering the strips of segments, created when they are first needed */
+    private final PolygonCollider[] pieces;
+
+    /**
+     * Creates a chain through a list of local vertices.
+     *
+     * @param xy        The coordinates of the vertices, alternating x and y
+     * @param loop      Whether the last vertex connects back to the first
+     * @param thickness The depth of the solid strip behind every segment
+     */
+    public ChainCollider( double[] xy, boolean loop, double thickness ) {
+        int n = xy.length / 2;
+        if( xy.length % 2 != 0 )
+            throw new IllegalArgumentException( "Odd amount of coordinates" );
+        if( n < ( loop ? 3 : 2 ) )
+            throw new IllegalArgumentException( loop ? "A loop needs at least 3 vertices" : "A chain needs at least 2 vertices" );
+        if( ! ( thickness > 0 ) || ! Double.isFinite( thickness ) )
+            throw new IllegalArgumentException( "Thickness must be positive" );
+
+        this.loop = loop;
+        this.thickness = thickness;
+        vertexX = new double[ n ];
+        vertexY = new double[ n ];
+        for( int i = 0; i < n; i++ ) {
+            vertexX[ i ] = xy[ i * 2 ];
+            vertexY[ i ] = xy[ i * 2 + 1 ];
+            if( ! Double.isFinite( vertexX[ i ] ) || ! Double.isFinite( vertexY[ i ] ) )
+                throw new IllegalArgumentException( "Vertex " + i + " is not finite" );
+        }
+
+        segmentCount = loop ? n : n - 1;
+        dirX = new double[ segmentCount ];
+        dirY = new double[ segmentCount ];
+        length = new double[ segmentCount ];
+        for( int i = 0; i < segmentCount; i++ ) {
+            int j = i + 1 == n ? 0 : i + 1;
+            double dx = vertexX[ j ] - vertexX[ i ], dy = vertexY[ j ] - vertexY[ i ];
+            double len = Math.sqrt( dx * dx + dy * dy );
+            if( len == 0 )
+                throw new IllegalArgumentException( "Segment " + i + " has no length" );
+            dirX[ i ] = dx / len;
+            dirY[ i ] = dy / len;
+            length[ i ] = len;
+        }
+
+        int nodes = segmentCount * 2 - 1;
+        minX = new double[ nodes ];
+        minY = new double[ nodes ];
+        maxX = new double[ nodes ];
+        maxY = new double[ nodes ];
+        child1 = new int[ nodes ];
+        child2 = new int[ nodes ];
+        leaves = new int[ nodes ];
+
+        int[] order = new int[ segmentCount ];
+        double[] centers = new double[ segmentCount * 2 ];
+        for( int i = 0; i < segmentCount; i++ ) {
+            order[ i ] = i;
+            centers[ i * 2 ] = ( vertexX[ i ] + vertexX[ end( i ) ] ) / 2;
+            centers[ i * 2 + 1 ] = ( vertexY[ i ] + vertexY[ end( i ) ] ) / 2;
+        }
+        root = build( order, centers, 0, segmentCount );
+
+        pieces = new PolygonCollider[ segmentCount ];
+        recomputeBox();
+    }
+
+    /**
+     * Builds a subtree over a range of segments by splitting it at the median center along the longest axis.
+     *
+     * @return The root of the subtree
+     */
+    private int build( int[] order, double[] centers, int from, int to ) {
+        if( to - from == 1 ) {
+            int node = nodeCount ++;
+            int s = order[ from ];
+            leaves[ node ] = s;
+            child1[ node ] = NULL;
+            child2[ node ] = NULL;
+
+            // The box covers the strip behind the segment
+            int e = end( s );
+            double nx = - dirY[ s ] * thickness, ny = dirX[ s ] * thickness;
+            minX[ node ] = Math.min( Math.min( vertexX[ s ], vertexX[ e ] ), Math.min( vertexX[ s ], vertexX[ e ] ) - nx );
+            minY[ node ] = Math.min( Math.min( vertexY[ s ], vertexY[ e ] ), Math.min( vertexY[ s ], vertexY[ e ] ) - ny );
+            maxX[ node ] = Math.max( Math.max( vertexX[ s ], vertexX[ e ] ), Math.max( vertexX[ s ], vertexX[ e ] ) - nx );
+            maxY[ node ] = Math.max( Math.max( vertexY[ s ], vertexY[ e ] ), Math.max( vertexY[ s ], vertexY[ e ] ) - ny );
+            return node;
+        }
+
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for( int i = from; i < to; i++ ) {
+            double x = centers[ order[ i ] * 2 ];
+            double y = centers[ order[ i ] * 2 + 1 ];
+            loX = Math.min( loX, x );
+            loY = Math.min( loY, y );
+            hiX = Math.max( hiX, x );
+            hiY = Math.max( hiY, y );
+        }
+        int axis = hiX - loX >= hiY - loY ? 0 : 1;
+
+        int mid = ( from + to ) >>> 1;
+        select( order, centers, axis, from, to - 1, mid );
+        int c1 = build( order, centers, from, mid );
+        int c2 = build( order, centers, mid, to );
+
+        int node = nodeCount ++;
+        leaves[ node ] = NULL;
+        child1[ node ] = c1;
+        child2[ node ] = c2;
+        minX[ node ] = Math.min( minX[ c1 ], minX[ c2 ] );
+        minY[ node ] = Math.min( minY[ c1 ], minY[ c2 ] );
+        maxX[ node ] = Math.max( maxX[ c1 ], maxX[ c2 ] );
+        maxY[ node ] = Math.max( maxY[ c1 ], maxY[ c2 ] );
+        return node;
+    }
+
+    /**
+     * Partially sorts a range of segments by their center, so that the segment at the specified index is the one that
+     * would be there when fully sorted, with no larger centers before it and no smaller centers after it.
+     */
+    private static void select( int[] order, double[] centers, int axis, int lo, int hi, int index ) {
+        while( lo < hi ) {
+            double pivot = centers[ order[ lo + hi >>> 1 ] * 2 + axis ];
+            int i = lo, j = hi;
+            while( i <= j ) {
+                while( centers[ order[ i ] * 2 + axis ] < pivot )
+                    i ++;
+                while( centers[ order[ j ] * 2 + axis ] > pivot )
+                    j --;
+                if( i <= j ) {
+                    int swap = order[ i ];
+                    order[ i ] = order[ j ];
+                    order[ j ] = swap;
+                    i ++;
+                    j --;
+                }
+            }
+            if( index <= j ) {
+                hi = j;
+            } else if( index >= i ) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    public double getThickness() {
+        return thickness;
+    }
+
+    public int getVertexCount() {
+        return vertexX.length;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * Returns a local vertex.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getVertex( int index, Vec2 out ) {
+        if( index < 0 || index >= vertexX.length )
+            throw new IndexOutOfBoundsException( "Vertex " + index + " out of range" );
+        return Vec2.put( out, vertexX[ index ], vertexY[ index ] );
+    }
+
+    /**
+     * Returns the coordinates of the local vertices, alternating x and y.
+     *
+     * @param out The output array. When {@code null} or too short, a new array is created.
+     */
+    public double[] getVertices( double[] out ) {
+        int n = vertexX.length;
+        if( out == null || out.length < n * 2 )
+            out = new double[ n * 2 ];
+        for( int i = 0; i < n; i++ ) {
+            out[ i * 2 ] = vertexX[ i ];
+            out[ i * 2 + 1 ] = vertexY[ i ];
+        }
+        return out;
+    }
+
+    /**
+     * Checks whether the local vertices of this chain equal a list of coordinates laid out like the ones of {@link
+     * #getVertices}. The list may be longer than needed.
+     */
+    public boolean hasVertices( double[] xy ) {
+        int n = vertexX.length;
+        if( xy.length < n * 2 )
+            return false;
+        for( int i = 0; i < n; i++ ) {
+            if( xy[ i * 2 ] != vertexX[ i ] || xy[ i * 2 + 1 ] != vertexY[ i ] )
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the vertex at which a segment ends, segment {@code i} starts at vertex {@code i}.
+     */
+    public int end( int segment ) {
+        return segment + 1 == vertexX.length ? 0 : segment + 1;
+    }
+
+    /**
+     * Returns the segment before a segment, or {@link #NULL} at the start of an open chain.
+     */
+    public int previous( int segment ) {
+        if( segment > 0 )
+            return segment - 1;
+        return loop ? segmentCount - 1 : NULL;
+    }
+
+    /**
+     * Returns the segment after a segment, or {@link #NULL} at the end of an open chain.
+     */
+    public int next( int segment ) {
+        if( segment < segmentCount - 1 )
+            return segment + 1;
+        return loop ? 0 : NULL;
+    }
+
+    /**
+     * Returns the local unit direction of a segment, from it's start to it's end.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getDirection( int segment, Vec2 out ) {
+        return Vec2.put( out, dirX[ segment ], dirY[ segment ] );
+    }
+
+    /**
+     * Returns the local unit normal of a segment, which points away from the solid side.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getNormal( int segment, Vec2 out ) {
+        return Vec2.put( out, - dirY[ segment ], dirX[ segment ] );
+    }
+
+    public double getLength( int segment ) {
+        return length[ segment ];
+    }
+
+    /**
+     * Returns the scratch space used to collide other colliders with this chain.
+     */
+    public SurfaceContacts getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Returns the body transform, which maps local coordinates to global coordinates.
+     *
+     * @param out The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform getBodyTransform( Transform out ) {
+        return Transform.put( out, transform );
+    }
+
+    /**
+     * Computes the local box that covers a global box.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB toLocal( AABB global, AABB out ) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            tmp.set( ( i & 1 ) == 0 ? global.min.x : global.max.x, ( i & 2 ) == 0 ? global.min.y : global.max.y );
+            transform.mulInverse( tmp, tmp );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Calls the consumer for every segment whose strip has a box that overlaps a local box.
+     */
+    public void forEachSegment( AABB local, IntConsumer consumer ) {
+        forEachSegment( root, local, consumer );
+    }
+
+    private void forEachSegment( int node, AABB local, IntConsumer consumer ) {
+        if( ! overlaps( node, local ) )
+            return;
+        if( child1[ node ] == NULL ) {
+            consumer.accept( leaves[ node ] );
+        } else {
+            forEachSegment( child1[ node ], local, consumer );
+            forEachSegment( child2[ node ], local, consumer );
+        }
+    }
+
+    /**
+     * Returns the root node of the tree.
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns whether a node is a leaf, which holds a single segment.
+     */
+    public boolean isLeaf( int node ) {
+        return child1[ node ] == NULL;
+    }
+
+    public int getChild1( int node ) {
+        return child1[ node ];
+    }
+
+    public int getChild2( int node ) {
+        return child2[ node ];
+    }
+
+    /**
+     * Returns the segment of a leaf, or {@link #NULL} when the node is not a leaf.
+     */
+    public int getSegment( int node ) {
+        return leaves[ node ];
+    }
+
+    /**
+     * Returns the local box of a node.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB getNodeBox( int node, AABB out ) {
+        return AABB.put( out, minX[ node ], minY[ node ], maxX[ node ], maxY[ node ] );
+    }
+
+    /**
+     * Checks whether the local box of a node overlaps a local box.
+     */
+    public boolean overlaps( int node, AABB local ) {
+        return minX[ node ] <= local.max.x && maxX[ node ] >= local.min.x
+            && minY[ node ] <= local.max.y && maxY[ node ] >= local.min.y;
+    }
+
+    /**
+     * Returns a polygon covering the strip behind a segment. The polygon has no body transform of it's own: it's
+     * vertices are global. Polygons are cached until this chain moves, so they must not be modified.
+     */
+    public PolygonCollider getPiece( int segment ) {
+        PolygonCollider piece = pieces[ segment ];
+        if( piece == null ) {
+            int e = end( segment );
+            double nx = - dirY[ segment ] * thickness, ny = dirX[ segment ] * thickness;
+            double[] xy = {
+                vertexX[ segment ], vertexY[ segment ],
+                vertexX[ e ], vertexY[ e ],
+                vertexX[ e ] - nx, vertexY[ e ] - ny,
+                vertexX[ segment ] - nx, vertexY[ segment ] - ny
+            };
+            ICollider.PolygonBuilder builder = ICollider.polygon();
+            for( int i = 0; i < 8; i += 2 ) {
+                transform.mul( xy[ i ], xy[ i + 1 ], tmp );
+                builder.add( tmp );
+            }
+            piece = builder.build();
+            pieces[ segment ] = piece;
+        }
+        return piece;
+    }
+
+    @Override
+    public boolean isCompound() {
+        return false;
+    }
+
+    /**
+     * Returns the box covering all segments and their strips.
+     */
+    @Override
+    public AABB getBox( AABB out ) {
+        return AABB.put( out, box );
+    }
+
+    @Override
+    public void setBodyTransform( Transform transform ) {
+        if( transform.tx == this.transform.tx && transform.ty == this.transform.ty && transform.angle == this.transform.angle )
+            return;
+
+        this.transform.set( transform );
+        recomputeBox();
+        Arrays.fill( pieces, null );
+    }
+
+    private void recomputeBox() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            transform.mul(
+                ( i & 1 ) == 0 ? this.minX[ root ] : this.maxX[ root ],
+                ( i & 2 ) == 0 ? this.minY[ root ] : this.maxY[ root ],
+                tmp
+            );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        box.set( minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Checks whether a point lies in the strip behind any segment.
+     */
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        Vec2 local = transform.mulInverse( point, null );
+        return containsPoint( root, local.x, local.y );
+    }
+
+    private boolean containsPoint( int node, double x, double y ) {
+        if( minX[ node ] > x || maxX[ node ] < x || minY[ node ] > y || maxY[ node ] < y )
+            return false;
+        if( child1[ node ] != NULL )
+            return containsPoint( child1[ node ], x, y ) || containsPoint( child2[ node ], x, y );
+
+        int s = leaves[ node ];
+        double px = x - vertexX[ s ], py = y - vertexY[ s ];
+        double along = px * dirX[ s ] + py * dirY[ s ];
+        double above = py * dirX[ s ] - px * dirY[ s ];
+        return along >= 0 && along <= length[ s ] && above <= 0 && above >= - thickness;
+    }
+
+    /**
+     * Checks whether a global box overlaps the strip behind any segment.
+     */
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        if( ! AABB.overlap( this.box, box ) )
+            return false;
+
+        // The corners of the box in local space, which form a rotated rectangle
+        double[] corners = new double[ 8 ];
+        for( int i = 0; i < 4; i++ ) {
+            tmp.set( i == 0 || i == 3 ? box.min.x : box.max.x, i < 2 ? box.min.y : box.max.y );
+            transform.mulInverse( tmp, tmp );
+            corners[ i * 2 ] = tmp.x;
+            corners[ i * 2 + 1 ] = tmp.y;
+        }
+        return overlapsBox( root, toLocal( box, null ), corners );
+    }
+
+    private boolean overlapsBox( int node, AABB local, double[] corners ) {
+        if( ! overlaps( node, local ) )
+            return false;
+        if( child1[ node ] != NULL )
+            return overlapsBox( child1[ node ], local, corners ) || overlapsBox( child2[ node ], local, corners );
+
+        // Separating axes: the direction and normal of the segment, and the global axes
+        int s = leaves[ node ];
+        double c = transform.cos, sn = transform.sin;
+        return ! separates( s, dirX[ s ], dirY[ s ], corners )
+            && ! separates( s, - dirY[ s ], dirX[ s ], corners )
+            && ! separates( s, c, - sn, corners )
+            && ! separates( s, sn, c, corners );
+    }
+
+    /**
+     * Checks whether an axis separates the strip of a segment from a rectangle given by it's local corners.
+     */
+    private boolean separates( int s, double ax, double ay, double[] corners ) {
+        int e = end( s );
+        double nx = - dirY[ s ] * thickness, ny = dirX[ s ] * thickness;
+        double p0 = vertexX[ s ] * ax + vertexY[ s ] * ay;
+        double p1 = vertexX[ e ] * ax + vertexY[ e ] * ay;
+        double back = - ( nx * ax + ny * ay );
+        double lo = Math.min( Math.min( p0, p1 ), Math.min( p0, p1 ) + back );
+        double hi = Math.max( Math.max( p0, p1 ), Math.max( p0, p1 ) + back );
+
+        double boxLo = Double.POSITIVE_INFINITY, boxHi = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 8; i += 2 ) {
+            double p = corners[ i ] * ax + corners[ i + 1 ] * ay;
+            boxLo = Math.min( boxLo, p );
+            boxHi = Math.max( boxHi, p );
+        }
+        return boxHi < lo || boxLo > hi;
+    }
+
+    /**
+     * Returns the total area of the strips, which is the length of the chain times it's thickness.
+     */
+    public double getArea() {
+        double sum = 0;
+        for( int i = 0; i < segmentCount; i++ ) {
+            sum += length[ i ];
+        }
+        return sum * thickness;
+    }
+
+    @Override
+    public double computeMass( double density ) {
+        return getArea() * density;
+    }
+
+    @Override
+    public double computeInertia( double density ) {
+        return inertiaFactor() * density;
+    }
+
+    @Override
+    public double computeDensityFromInertia( double inertia ) {
+        return inertia / inertiaFactor();
+    }
+
+    @Override
+    public double computeDensityFromMass( double mass ) {
+        return mass / getArea();
+    }
+
+    /**
+     * Computes the inertia per unit of density, around the body origin, by adding the inertia of every strip.
+     */
+    private double inertiaFactor() {
+        double sum = 0;
+        for( int i = 0; i < segmentCount; i++ ) {
+            int e = end( i );
+            double len = length[ i ];
+            double area = len * thickness;
+            double x = ( vertexX[ i ] + vertexX[ e ] ) / 2 + dirY[ i ] * thickness / 2;
+            double y = ( vertexY[ i ] + vertexY[ e ] ) / 2 - dirX[ i ] * thickness / 2;
+            sum += area * ( ( len * len + thickness * thickness ) / 12 + x * x + y * y );
+        }
+        return sum;
+    }
+}
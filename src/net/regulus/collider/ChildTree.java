@@ -0,0 +1,275 @@
+package net.regulus.collider;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.regulus.geom.AABB;
+
+/**
+ * A static bounding volume hierarchy over the children of a {@link CompoundCollider}. The children of a compound don't
+ * move relative to each other, so the shape of the tree is built once, when the children change, and only the boxes of
+ * the nodes are refitted when the compound moves. Refitting uses the exact boxes of the children, so the boxes are as
+ * tight as a tree of that shape allows.
+ * <p>
+ * Children with an unbounded box, like planes and bars, can't be put in the tree and are kept in a separate list
+ * instead. Like the {@link net.regulus.detection.broadphase.AABBTree}, nodes are stored in flat arrays and identified
+ * by their index. Every node has an index lower than it's parent.
+ */
+public final class ChildTree {
+    /** The id that represents 'no node' */
+    public static final int NULL = - 1;
+
+    private SimpleCollider[] children = new SimpleCollider[ 0 ];
+    private int childCount;
+
+    private double[] minX = new double[ 0 ];
+    private double[] minY = new double[ 0 ];
+    private double[] maxX = new double[ 0 ];
+    private double[] maxY = new double[ 0 ];
+    private int[] child1 = new int[ 0 ];
+    private int[] child2 = new int[ 0 ];
+    private SimpleCollider[] leaves = new SimpleCollider[ 0 ];
+    private int nodeCount;
+    private int root = NULL;
+
+    private SimpleCollider[] unbounded = new SimpleCollider[ 0 ];
+    private int unboundedCount;
+
+    private int[] order = new int[ 0 ];
+    private double[] centers = new double[ 0 ];
+    private final AABB box = new AABB();
+
+    ChildTree() {
+    }
+
+    /**
+     * Checks whether the children of the compound are no longer the ones this tree was built for.
+     */
+    boolean isStale( List<SimpleCollider> colliders ) {
+        int size = colliders.size();
+        if( size != childCount )
+            return true;
+        for( int i = 0; i < size; i++ ) {
+            if( colliders.get( i ) != children[ i ] )
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rebuilds the tree for the current boxes of the specified children.
+     */
+    void build( List<SimpleCollider> colliders ) {
+        int size = colliders.size();
+        if( children.length < size ) {
+            children = new SimpleCollider[ size ];
+            unbounded = new SimpleCollider[ size ];
+            order = new int[ size ];
+            centers = new double[ size * 2 ];
+            leaves = new SimpleCollider[ size * 2 ];
+            minX = new double[ size * 2 ];
+            minY = new double[ size * 2 ];
+            maxX = new double[ size * 2 ];
+            maxY = new double[ size * 2 ];
+            child1 = new int[ size * 2 ];
+            child2 = new int[ size * 2 ];
+        }
+        if( childCount > size )
+            Arrays.fill( children, size, childCount, null );
+        Arrays.fill( leaves, 0, nodeCount, null );
+        Arrays.fill( unbounded, 0, unboundedCount, null );
+
+        childCount = size;
+        unboundedCount = 0;
+        int bounded = 0;
+        for( int i = 0; i < size; i++ ) {
+            SimpleCollider child = colliders.get( i );
+            children[ i ] = child;
+
+            child.getBox( box );
+            if( ! isFinite( box ) ) {
+                unbounded[ unboundedCount ++ ] = child;
+                continue;
+            }
+            centers[ i * 2 ] = ( box.min.x + box.max.x ) / 2;
+            centers[ i * 2 + 1 ] = ( box.min.y + box.max.y ) / 2;
+            order[ bounded ++ ] = i;
+        }
+
+        nodeCount = 0;
+        root = bounded == 0 ? NULL : build( 0, bounded );
+        refit();
+    }
+
+    /**
+     * Builds a subtree over a range of {@link #order} by splitting it at the median center along the longest axis.
+     *
+     * @return The root of the subtree
+     */
+    private int build( int from, int to ) {
+        if( to - from == 1 ) {
+            int node = nodeCount ++;
+            leaves[ node ] = children[ order[ from ] ];
+            child1[ node ] = NULL;
+            child2[ node ] = NULL;
+            return node;
+        }
+
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for( int i = from; i < to; i++ ) {
+            double x = centers[ order[ i ] * 2 ];
+            double y = centers[ order[ i ] * 2 + 1 ];
+            loX = Math.min( loX, x );
+            loY = Math.min( loY, y );
+            hiX = Math.max( hiX, x );
+            hiY = Math.max( hiY, y );
+        }
+        int axis = hiX - loX >= hiY - loY ? 0 : 1;
+
+        // Insertion sort, compounds have few children
+        for( int i = from + 1; i < to; i++ ) {
+            int child = order[ i ];
+            double c = centers[ child * 2 + axis ];
+            int j = i - 1;
+            while( j >= from && centers[ order[ j ] * 2 + axis ] > c ) {
+                order[ j + 1 ] = order[ j ];
+                j --;
+            }
+            order[ j + 1 ] = child;
+        }
+
+        int mid = ( from + to ) >>> 1;
+        int c1 = build( from, mid );
+        int c2 = build( mid, to );
+
+        int node = nodeCount ++;
+        leaves[ node ] = null;
+        child1[ node ] = c1;
+        child2[ node ] = c2;
+        return node;
+    }
+
+    /**
+     * Updates the boxes of all nodes to the current boxes of the children.
+     */
+    void refit() {
+        for( int node = 0; node < nodeCount; node++ ) {
+            SimpleCollider leaf = leaves[ node ];
+            if( leaf != null ) {
+                leaf.getBox( box );
+                minX[ node ] = box.min.x;
+                minY[ node ] = box.min.y;
+                maxX[ node ] = box.max.x;
+                maxY[ node ] = box.max.y;
+            } else {
+                int c1 = child1[ node ], c2 = child2[ node ];
+                minX[ node ] = Math.min( minX[ c1 ], minX[ c2 ] );
+                minY[ node ] = Math.min( minY[ c1 ], minY[ c2 ] );
+                maxX[ node ] = Math.max( maxX[ c1 ], maxX[ c2 ] );
+                maxY[ node ] = Math.max( maxY[ c1 ], maxY[ c2 ] );
+            }
+        }
+    }
+
+    /**
+     * Puts the box covering all children in the specified output box.
+     */
+    AABB getTotalBox( AABB out ) {
+        if( root != NULL ) {
+            out.set( minX[ root ], minY[ root ], maxX[ root ], maxY[ root ] );
+        } else if( unboundedCount == 0 ) {
+            out.set( 0, 0, 0, 0 );
+            return out;
+        } else {
+            unbounded[ 0 ].getBox( out );
+        }
+        for( int i = 0; i < unboundedCount; i++ ) {
+            unbounded[ i ].getBox( box );
+            AABB.unite( out, box, out );
+        }
+        return out;
+    }
+
+    /**
+     * Returns the root node, or {@link #NULL} when no child has a bounded box.
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns whether a node is a leaf, which holds a single child.
+     */
+    public boolean isLeaf( int node ) {
+        return child1[ node ] == NULL;
+    }
+
+    public int getChild1( int node ) {
+        return child1[ node ];
+    }
+
+    public int getChild2( int node ) {
+        return child2[ node ];
+    }
+
+    /**
+     * Returns the child collider of a leaf, or {@code null} when the node is not a leaf.
+     */
+    public SimpleCollider getCollider( int node ) {
+        return leaves[ node ];
+    }
+
+    /**
+     * Returns the box of a node.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB getBox( int node, AABB out ) {
+        return AABB.put( out, minX[ node ], minY[ node ], maxX[ node ], maxY[ node ] );
+    }
+
+    /**
+     * Returns the perimeter of the box of a node, which is a measure for how large the node is.
+     */
+    public double getPerimeter( int node ) {
+        return maxX[ node ] - minX[ node ] + maxY[ node ] - minY[ node ];
+    }
+
+    /**
+     * Checks whether the box of a node overlaps a box.
+     */
+    public boolean overlaps( int node, AABB box ) {
+        return minX[ node ] <= box.max.x && maxX[ node ] >= box.min.x
+            && minY[ node ] <= box.max.y && maxY[ node ] >= box.min.y;
+    }
+
+    /**
+     * Checks whether the box of a node overlaps the box of a node of another tree.
+     */
+    public boolean overlaps( int node, ChildTree other, int otherNode ) {
+        return minX[ node ] <= other.maxX[ otherNode ] && maxX[ node ] >= other.minX[ otherNode ]
+            && minY[ node ] <= other.maxY[ otherNode ] && maxY[ node ] >= other.minY[ otherNode ];
+    }
+
+    /**
+     * Returns the amount of children with an unbounded box, which are not in the tree.
+     */
+    public int getUnboundedCount() {
+        return unboundedCount;
+    }
+
+    /**
+     * Returns a child with an unbounded box.
+     */
+    public SimpleCollider getUnbounded( int index ) {
+        if( index < 0 || index >= unboundedCount )
+            throw new IndexOutOfBoundsException( "Unbounded child " + index + " out of range" );
+        return unbounded[ index ];
+    }
+
+    private static boolean isFinite( AABB box ) {
+        return Double.isFinite( box.min.x ) && Double.isFinite( box.min.y )
+            && Double.isFinite( box.max.x ) && Double.isFinite( box.max.y );
+    }
+}
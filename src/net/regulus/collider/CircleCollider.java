@@ -1,5 +1,8 @@
 package net.regulus.collider;
 
+import net.regulus.geom.AABB;
+import net.regulus.geom.Vec2;
+
 public class CircleCollider extends SimpleCollider {
     protected double radius;
 
@@ -7,7 +10,7 @@ public class CircleCollider extends SimpleCollider {
     protected void recompute() {
         area = Math.PI * radius * radius;
         inertiaFactor = area * radius * radius;
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
         box.setCenterSize( center, radius * 2, radius * 2 );
     }
@@ -20,4 +23,19 @@ public class CircleCollider extends SimpleCollider {
     public double getRadius() {
         return radius;
     }
+
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        double dx = point.x - center.x;
+        double dy = point.y - center.y;
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        // Distance from the center to the nearest point of the box
+        double dx = center.x - Math.max( box.min.x, Math.min( center.x, box.max.x ) );
+        double dy = center.y - Math.max( box.min.y, Math.min( center.y, box.max.y ) );
+        return dx * dx + dy * dy <= radius * radius;
+    }
 }
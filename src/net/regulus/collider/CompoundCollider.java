@@ -4,39 +4,104 @@ import java.util.ArrayList;
 import java.util.List;
 
 import net.regulus.geom.AABB;
-import net.regulus.geom.Mat3;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
 
 public class CompoundCollider implements ICollider {
     public final List<SimpleCollider> colliders = new ArrayList<>();
 
+    private final ChildTree tree = new ChildTree();
+    private final AABB box = new AABB();
+    private final AABB nodeBox = new AABB();
+
     @Override
     public boolean isCompound() {
         return true;
     }
 
+    /**
+     * Returns the box covering all children. The box is cached, and only recomputed when the body transform is set or
+     * when the children change.
+     */
     @Override
     public AABB getBox( AABB out ) {
-        if( out == null )
-            out = new AABB();
-        boolean set = false;
-        AABB a = new AABB();
-        for( SimpleCollider collider : colliders ) {
-            collider.getBox( a );
-            if( ! set ) {
-                out.set( a );
-                set = true;
-            } else {
-                AABB.unite( out, a, out );
-            }
-        }
-        return out;
+        update();
+        return AABB.put( out, box );
     }
 
     @Override
-    public void setBodyMatrix( Mat3 matrix ) {
+    public void setBodyTransform( Transform transform ) {
         for( SimpleCollider c : colliders ) {
-            c.setBodyMatrix( matrix );
+            c.setBodyTransform( transform );
+        }
+        if( tree.isStale( colliders ) ) {
+            tree.build( colliders );
+        } else {
+            tree.refit();
+        }
+        tree.getTotalBox( box );
+    }
+
+    /**
+     * Returns the bounding volume hierarchy over the children of this compound, which is up to date with the current
+     * children.
+     */
+    public ChildTree getTree() {
+        update();
+        return tree;
+    }
+
+    /**
+     * Recomputes the tree and the box of this compound. This must be called after changing the shape or offset of a
+     * child directly, changes to {@link #colliders} and the body transform are detected automatically.
+     */
+    public void refit() {
+        tree.build( colliders );
+        tree.getTotalBox( box );
+    }
+
+    private void update() {
+        if( tree.isStale( colliders ) ) {
+            refit();
+        }
+    }
+
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        update();
+        for( int i = 0, l = tree.getUnboundedCount(); i < l; i++ ) {
+            if( tree.getUnbounded( i ).containsPoint( point ) )
+                return true;
+        }
+        return tree.getRoot() != ChildTree.NULL && containsPoint( tree.getRoot(), point );
+    }
+
+    private boolean containsPoint( int node, Vec2 point ) {
+        if( tree.getBox( node, nodeBox ).contains( point ) ) {
+            if( tree.isLeaf( node ) )
+                return tree.getCollider( node ).containsPoint( point );
+            return containsPoint( tree.getChild1( node ), point ) || containsPoint( tree.getChild2( node ), point );
+        }
+        return false;
+    }
+
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        update();
+        for( int i = 0, l = tree.getUnboundedCount(); i < l; i++ ) {
+            if( tree.getUnbounded( i ).overlapsBox( box ) )
+                return true;
+        }
+        return tree.getRoot() != ChildTree.NULL && overlapsBox( tree.getRoot(), box );
+    }
+
+    private boolean overlapsBox( int node, AABB box ) {
+        if( tree.overlaps( node, box ) ) {
+            if( tree.isLeaf( node ) )
+                return tree.getCollider( node ).overlapsBox( box );
+            return overlapsBox( tree.getChild1( node ), box ) || overlapsBox( tree.getChild2( node ), box );
         }
+        return false;
     }
 
     @Override
@@ -0,0 +1,506 @@
+package net.regulus.collider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decomposes simple polygons, which may be concave, into convex pieces. Two decompositions are computed, and the one
+ * with the fewest pieces is returned:
+ * <ul>
+ * <li>The polygon is triangulated by ear clipping, after which the Hertel-Mehlhorn algorithm removes every diagonal
+ * whose removal keeps both adjacent pieces convex. This gives at most four times the minimum amount of pieces.</li>
+ * <li>Bayazit's algorithm splits the polygon at it's reflex vertices, which often gives fewer pieces, but has no such
+ * bound and may add vertices where a split ends on an edge. It can fail on awkward polygons, in which case only the
+ * first decomposition is used.</li>
+ * </ul>
+ * Since Bayazit's result is only taken when it has fewer pieces, the returned decomposition still has at most four
+ * times the minimum amount of pieces.
+ * <p>
+ * Decompositions are cached by the vertices of the polygon, so that colliders of the same outline reuse the
+ * decomposition. The cache is thread safe and keeps the most recently used decompositions.
+ */
+final class ConvexDecomposition {
+    private static final int CACHE_SIZE = 256;
+    private static final double EPSILON = 1e-12;
+    private static final int MAX_SPLIT_DEPTH = 100;
+
+    private static final Map<Key, double[][]> CACHE = new LinkedHashMap<>( 16, 0.75f, true ) {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Key, double[][]> eldest ) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private ConvexDecomposition() {
+    }
+
+    /**
+     * Decomposes a polygon into convex pieces.
+     *
+     * @param xy The coordinates of the vertices, alternating x and y, in either winding order
+     * @return The pieces, each with the coordinates of it's vertices in counterclockwise order. These arrays are shared
+     *     by the cache and must not be modified.
+     * @throws IllegalArgumentException When the polygon has less than 3 vertices or is not simple
+     */
+    static double[][] decompose( double[] xy ) {
+        Key key = new Key( xy );
+        synchronized( CACHE ) {
+            double[][] pieces = CACHE.get( key );
+            if( pieces != null )
+                return pieces;
+        }
+
+        double[][] pieces = compute( xy );
+        synchronized( CACHE ) {
+            CACHE.put( key, pieces );
+        }
+        return pieces;
+    }
+
+    private static double[][] compute( double[] input ) {
+        double[] xy = clean( input );
+        int n = xy.length / 2;
+        if( n < 3 )
+            throw new IllegalArgumentException( "Polygon has no area" );
+        checkSimple( xy, n );
+
+        List<int[]> pieces = triangulate( xy, n );
+        merge( xy, pieces );
+        double[][] out = new double[ pieces.size() ][];
+        for( int i = 0; i < out.length; i++ ) {
+            int[] piece = pieces.get( i );
+            double[] coords = new double[ piece.length * 2 ];
+            for( int j = 0; j < piece.length; j++ ) {
+                coords[ j * 2 ] = xy[ piece[ j ] * 2 ];
+                coords[ j * 2 + 1 ] = xy[ piece[ j ] * 2 + 1 ];
+            }
+            out[ i ] = coords;
+        }
+
+        // Bayazit's algorithm often finds fewer pieces, but it's less robust: when it fails the triangulation is used
+        List<double[]> split = new ArrayList<>();
+        if( split( xy, split, 0 ) && split.size() < out.length )
+            return split.toArray( new double[ 0 ][] );
+        return out;
+    }
+
+    /**
+     * Removes repeated and collinear vertices and puts the vertices in counterclockwise order.
+     */
+    private static double[] clean( double[] input ) {
+        int n = input.length / 2;
+        double[] xy = new double[ n * 2 ];
+        int size = 0;
+        for( int i = 0; i < n; i++ ) {
+            double x = input[ i * 2 ], y = input[ i * 2 + 1 ];
+            if( size > 0 && x == xy[ size * 2 - 2 ] && y == xy[ size * 2 - 1 ] )
+                continue;
+            xy[ size * 2 ] = x;
+            xy[ size * 2 + 1 ] = y;
+            size ++;
+        }
+        while( size > 1 && xy[ 0 ] == xy[ size * 2 - 2 ] && xy[ 1 ] == xy[ size * 2 - 1 ] ) {
+            size --;
+        }
+
+        // Removing a vertex can make it's neighbour collinear, so repeat until nothing changes
+        boolean removed = true;
+        while( removed && size >= 3 ) {
+            removed = false;
+            for( int i = 0; i < size && size >= 3; i++ ) {
+                int p = ( i + size - 1 ) % size, q = ( i + 1 ) % size;
+                if( Math.abs( cross( xy, p, i, q ) ) <= EPSILON * scale( xy, p, i, q ) ) {
+                    System.arraycopy( xy, i * 2 + 2, xy, i * 2, ( size - i - 1 ) * 2 );
+                    size --;
+                    removed = true;
+                }
+            }
+        }
+        xy = Arrays.copyOf( xy, size * 2 );
+
+        double area = 0;
+        for( int i = 0; i < size; i++ ) {
+            int j = ( i + 1 ) % size;
+            area += xy[ i * 2 ] * xy[ j * 2 + 1 ] - xy[ j * 2 ] * xy[ i * 2 + 1 ];
+        }
+        if( area < 0 ) {
+            for( int i = 0, j = size - 1; i < j; i++, j-- ) {
+                double x = xy[ i * 2 ], y = xy[ i * 2 + 1 ];
+                xy[ i * 2 ] = xy[ j * 2 ];
+                xy[ i * 2 + 1 ] = xy[ j * 2 + 1 ];
+                xy[ j * 2 ] = x;
+                xy[ j * 2 + 1 ] = y;
+            }
+        }
+        return xy;
+    }
+
+    /**
+     * Checks that no two edges that aren't neighbours touch or cross.
+     */
+    private static void checkSimple( double[] xy, int n ) {
+        for( int i = 0; i < n; i++ ) {
+            int i2 = ( i + 1 ) % n;
+            for( int j = i + 2; j < n; j++ ) {
+                int j2 = ( j + 1 ) % n;
+                if( j2 == i )
+                    continue;
+                if( touches( xy, i, i2, j, j2 ) )
+                    throw new IllegalArgumentException( "Polygon is not simple, edges " + i + " and " + j + " cross" );
+            }
+        }
+    }
+
+    /**
+     * Checks whether the segments {@code a -> b} and {@code c -> d} have any point in common.
+     */
+    private static boolean touches( double[] xy, int a, int b, int c, int d ) {
+        double d1 = cross( xy, a, b, c ), d2 = cross( xy, a, b, d );
+        double d3 = cross( xy, c, d, a ), d4 = cross( xy, c, d, b );
+        if( ( d1 > 0 && d2 < 0 || d1 < 0 && d2 > 0 ) && ( d3 > 0 && d4 < 0 || d3 < 0 && d4 > 0 ) )
+            return true;
+        return d1 == 0 && between( xy, a, b, c ) || d2 == 0 && between( xy, a, b, d )
+            || d3 == 0 && between( xy, c, d, a ) || d4 == 0 && between( xy, c, d, b );
+    }
+
+    /**
+     * Checks whether a point that is collinear with a segment lies on the segment.
+     */
+    private static boolean between( double[] xy, int a, int b, int p ) {
+        double px = xy[ p * 2 ], py = xy[ p * 2 + 1 ];
+        return px >= Math.min( xy[ a * 2 ], xy[ b * 2 ] ) && px <= Math.max( xy[ a * 2 ], xy[ b * 2 ] )
+            && py >= Math.min( xy[ a * 2 + 1 ], xy[ b * 2 + 1 ] ) && py <= Math.max( xy[ a * 2 + 1 ], xy[ b * 2 + 1 ] );
+    }
+
+    /**
+     * Decomposes a counterclockwise polygon with Bayazit's algorithm: the polygon is split at it's first reflex vertex,
+     * towards the closest vertex it can see in the region beyond the vertex where the split removes the reflex angle,
+     * or towards a new point in the middle of that region when it contains no vertex. Both halves are then split
+     * recursively until no reflex vertices remain.
+     *
+     * @return Whether the decomposition succeeded
+     */
+    private static boolean split( double[] xy, List<double[]> out, int level ) {
+        int n = xy.length / 2;
+        if( n < 3 )
+            return true;
+        if( level > MAX_SPLIT_DEPTH )
+            return false;
+
+        for( int i = 0; i < n; i++ ) {
+            if( cross( xy, wrap( i - 1, n ), i, wrap( i + 1, n ) ) >= 0 )
+                continue;
+
+            // Extend the edges at the reflex vertex into the polygon, and find the closest edges they hit
+            double lowerDist = Double.POSITIVE_INFINITY, upperDist = Double.POSITIVE_INFINITY;
+            double lowerX = 0, lowerY = 0, upperX = 0, upperY = 0;
+            int lowerIndex = 0, upperIndex = 0;
+            int prev = wrap( i - 1, n ), next = wrap( i + 1, n );
+            for( int j = 0; j < n; j++ ) {
+                int jPrev = wrap( j - 1, n ), jNext = wrap( j + 1, n );
+                if( area( xy, prev, i, j ) > 0 && area( xy, prev, i, jPrev ) <= 0 ) {
+                    double[] p = intersect( xy, prev, i, j, jPrev );
+                    if( p != null && area( xy, next, i, p[ 0 ], p[ 1 ] ) < 0 ) {
+                        double d = distSq( xy, i, p[ 0 ], p[ 1 ] );
+                        if( d < lowerDist ) {
+                            lowerDist = d;
+                            lowerX = p[ 0 ];
+                            lowerY = p[ 1 ];
+                            lowerIndex = j;
+                        }
+                    }
+                }
+                if( area( xy, next, i, jNext ) > 0 && area( xy, next, i, j ) <= 0 ) {
+                    double[] p = intersect( xy, next, i, j, jNext );
+                    if( p != null && area( xy, prev, i, p[ 0 ], p[ 1 ] ) > 0 ) {
+                        double d = distSq( xy, i, p[ 0 ], p[ 1 ] );
+                        if( d < upperDist ) {
+                            upperDist = d;
+                            upperX = p[ 0 ];
+                            upperY = p[ 1 ];
+                            upperIndex = j;
+                        }
+                    }
+                }
+            }
+            if( lowerDist == Double.POSITIVE_INFINITY || upperDist == Double.POSITIVE_INFINITY )
+                return false;
+
+            double[] lower, upper;
+            if( lowerIndex == ( upperIndex + 1 ) % n ) {
+                // No vertex in range, split towards a new point halfway between the hit points
+                double px = ( lowerX + upperX ) / 2, py = ( lowerY + upperY ) / 2;
+                lower = range( xy, i, upperIndex, px, py );
+                upper = range( xy, lowerIndex, i, px, py );
+            } else {
+                if( lowerIndex > upperIndex )
+                    upperIndex += n;
+                int closest = - 1;
+                double closestDist = Double.POSITIVE_INFINITY;
+                for( int j = lowerIndex; j <= upperIndex; j++ ) {
+                    int k = j % n;
+                    if( area( xy, prev, i, k ) >= 0 && area( xy, next, i, k ) <= 0 ) {
+                        double d = distSq( xy, i, xy[ k * 2 ], xy[ k * 2 + 1 ] );
+                        if( d < closestDist && canSee( xy, i, k ) ) {
+                            closestDist = d;
+                            closest = k;
+                        }
+                    }
+                }
+                if( closest < 0 )
+                    return false;
+                lower = range( xy, i, closest, Double.NaN, Double.NaN );
+                upper = range( xy, closest, i, Double.NaN, Double.NaN );
+            }
+            if( lower.length >= xy.length || upper.length >= xy.length )
+                return false;
+            return split( lower, out, level + 1 ) && split( upper, out, level + 1 );
+        }
+
+        out.add( xy );
+        return true;
+    }
+
+    /**
+     * Copies the vertices from one index round to another, inclusive, optionally followed by an extra point.
+     */
+    private static double[] range( double[] xy, int from, int to, double x, double y ) {
+        int n = xy.length / 2;
+        int count = ( to - from + n ) % n + 1;
+        boolean extra = ! Double.isNaN( x );
+        double[] out = new double[ ( count + ( extra ? 1 : 0 ) ) * 2 ];
+        for( int k = 0; k < count; k++ ) {
+            int j = ( from + k ) % n;
+            out[ k * 2 ] = xy[ j * 2 ];
+            out[ k * 2 + 1 ] = xy[ j * 2 + 1 ];
+        }
+        if( extra ) {
+            out[ count * 2 ] = x;
+            out[ count * 2 + 1 ] = y;
+        }
+        return out;
+    }
+
+    /**
+     * Checks whether the segment between two vertices crosses no edge, other than the edges at those vertices.
+     */
+    private static boolean canSee( double[] xy, int a, int b ) {
+        int n = xy.length / 2;
+        for( int i = 0; i < n; i++ ) {
+            int i2 = ( i + 1 ) % n;
+            if( i == a || i == b || i2 == a || i2 == b )
+                continue;
+            if( touches( xy, a, b, i, i2 ) )
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Intersects the line through vertices {@code a} and {@code b} with the line through {@code c} and {@code d}.
+     *
+     * @return The intersection, or {@code null} when the lines are parallel
+     */
+    private static double[] intersect( double[] xy, int a, int b, int c, int d ) {
+        double a1 = xy[ b * 2 + 1 ] - xy[ a * 2 + 1 ], b1 = xy[ a * 2 ] - xy[ b * 2 ];
+        double c1 = a1 * xy[ a * 2 ] + b1 * xy[ a * 2 + 1 ];
+        double a2 = xy[ d * 2 + 1 ] - xy[ c * 2 + 1 ], b2 = xy[ c * 2 ] - xy[ d * 2 ];
+        double c2 = a2 * xy[ c * 2 ] + b2 * xy[ c * 2 + 1 ];
+        double det = a1 * b2 - a2 * b1;
+        if( det == 0 )
+            return null;
+        return new double[] { ( b2 * c1 - b1 * c2 ) / det, ( a1 * c2 - a2 * c1 ) / det };
+    }
+
+    /**
+     * Computes twice the signed area of a triangle, which is positive when {@code c} lies left of {@code a -> b}.
+     */
+    private static double area( double[] xy, int a, int b, int c ) {
+        return area( xy, a, b, xy[ c * 2 ], xy[ c * 2 + 1 ] );
+    }
+
+    private static double area( double[] xy, int a, int b, double cx, double cy ) {
+        double ax = xy[ a * 2 ], ay = xy[ a * 2 + 1 ];
+        return ( xy[ b * 2 ] - ax ) * ( cy - ay ) - ( cx - ax ) * ( xy[ b * 2 + 1 ] - ay );
+    }
+
+    private static double distSq( double[] xy, int a, double x, double y ) {
+        double dx = xy[ a * 2 ] - x, dy = xy[ a * 2 + 1 ] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static int wrap( int i, int n ) {
+        return ( i % n + n ) % n;
+    }
+
+    /**
+     * Triangulates a counterclockwise polygon by ear clipping.
+     */
+    private static List<int[]> triangulate( double[] xy, int n ) {
+        List<int[]> triangles = new ArrayList<>( n - 2 );
+        int[] next = new int[ n ];
+        int[] prev = new int[ n ];
+        for( int i = 0; i < n; i++ ) {
+            next[ i ] = ( i + 1 ) % n;
+            prev[ i ] = ( i + n - 1 ) % n;
+        }
+
+        int remaining = n;
+        int v = 0;
+        int failed = 0;
+        while( remaining > 3 ) {
+            int p = prev[ v ], q = next[ v ];
+            double turn = cross( xy, p, v, q );
+
+            boolean clip = false;
+            boolean collinear = Math.abs( turn ) <= EPSILON * scale( xy, p, v, q );
+            if( collinear ) {
+                // A vertex on a straight line adds no area, it can be dropped without a triangle
+                clip = true;
+            } else if( turn > 0 && isEar( xy, prev, next, p, v, q ) ) {
+                triangles.add( new int[] { p, v, q } );
+                clip = true;
+            }
+
+            if( clip ) {
+                next[ p ] = q;
+                prev[ q ] = p;
+                remaining --;
+                failed = 0;
+                v = p;
+            } else {
+                v = q;
+                if( ++ failed > remaining )
+                    throw new IllegalArgumentException( "Polygon is not simple" );
+            }
+        }
+
+        int p = prev[ v ], q = next[ v ];
+        if( Math.abs( cross( xy, p, v, q ) ) > EPSILON * scale( xy, p, v, q ) ) {
+            triangles.add( new int[] { p, v, q } );
+        }
+        if( triangles.isEmpty() )
+            throw new IllegalArgumentException( "Polygon has no area" );
+        return triangles;
+    }
+
+    /**
+     * Checks whether no remaining vertex lies inside or on the triangle of a convex vertex and it's neighbours.
+     */
+    private static boolean isEar( double[] xy, int[] prev, int[] next, int p, int v, int q ) {
+        for( int r = next[ q ]; r != p; r = next[ r ] ) {
+            // Vertices at the same position as a corner are copies of it, they don't block the ear
+            if( same( xy, r, p ) || same( xy, r, v ) || same( xy, r, q ) )
+                continue;
+            if( cross( xy, p, v, r ) >= 0 && cross( xy, v, q, r ) >= 0 && cross( xy, q, p, r ) >= 0 )
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Merges adjacent pieces as long as the merged piece is convex (Hertel-Mehlhorn).
+     */
+    private static void merge( double[] xy, List<int[]> pieces ) {
+        boolean merged = true;
+        while( merged ) {
+            merged = false;
+            for( int i = 0; i < pieces.size() && ! merged; i++ ) {
+                for( int j = i + 1; j < pieces.size() && ! merged; j++ ) {
+                    int[] union = union( xy, pieces.get( i ), pieces.get( j ) );
+                    if( union != null ) {
+                        pieces.set( i, union );
+                        pieces.remove( j );
+                        merged = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins two pieces along a shared edge, when they share one and the result is convex.
+     *
+     * @return The joined piece, or {@code null} when the pieces can't be joined
+     */
+    private static int[] union( double[] xy, int[] a, int[] b ) {
+        int na = a.length, nb = b.length;
+        for( int i = 0; i < na; i++ ) {
+            int from = a[ i ], to = a[ ( i + 1 ) % na ];
+            for( int j = 0; j < nb; j++ ) {
+                // Both pieces are counterclockwise, so the shared edge runs the other way in the other piece
+                if( b[ j ] != to || b[ ( j + 1 ) % nb ] != from )
+                    continue;
+
+                int[] out = new int[ na + nb - 2 ];
+                int k = 0;
+                // Walk piece A from the end of the edge round to it's start, then piece B from the start round to the end
+                for( int s = 1; s <= na; s++ ) {
+                    out[ k ++ ] = a[ ( i + s ) % na ];
+                }
+                for( int s = 2; s < nb; s++ ) {
+                    out[ k ++ ] = b[ ( j + s ) % nb ];
+                }
+                return isConvex( xy, out ) ? out : null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isConvex( double[] xy, int[] piece ) {
+        int n = piece.length;
+        for( int i = 0; i < n; i++ ) {
+            int p = piece[ ( i + n - 1 ) % n ], v = piece[ i ], q = piece[ ( i + 1 ) % n ];
+            if( cross( xy, p, v, q ) < - EPSILON * scale( xy, p, v, q ) )
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the cross product of the edges {@code a -> b} and {@code b -> c}, which is positive when the path turns
+     * counterclockwise at {@code b}.
+     */
+    private static double cross( double[] xy, int a, int b, int c ) {
+        double ux = xy[ b * 2 ] - xy[ a * 2 ], uy = xy[ b * 2 + 1 ] - xy[ a * 2 + 1 ];
+        double vx = xy[ c * 2 ] - xy[ b * 2 ], vy = xy[ c * 2 + 1 ] - xy[ b * 2 + 1 ];
+        return ux * vy - uy * vx;
+    }
+
+    /**
+     * Returns the magnitude of the cross product of three vertices, to make tolerances independent of the size of the
+     * polygon.
+     */
+    private static double scale( double[] xy, int a, int b, int c ) {
+        double ux = xy[ b * 2 ] - xy[ a * 2 ], uy = xy[ b * 2 + 1 ] - xy[ a * 2 + 1 ];
+        double vx = xy[ c * 2 ] - xy[ b * 2 ], vy = xy[ c * 2 + 1 ] - xy[ b * 2 + 1 ];
+        return Math.sqrt( ( ux * ux + uy * uy ) * ( vx * vx + vy * vy ) );
+    }
+
+    private static boolean same( double[] xy, int a, int b ) {
+        return xy[ a * 2 ] == xy[ b * 2 ] && xy[ a * 2 + 1 ] == xy[ b * 2 + 1 ];
+    }
+
+    private static final class Key {
+        private final double[] xy;
+        private final int hash;
+
+        Key( double[] xy ) {
+            this.xy = xy.clone();
+            hash = Arrays.hashCode( xy );
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            return obj instanceof Key && Arrays.equals( xy, ( (Key) obj ).xy );
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package net.regulus.collider;
+
+import java.util.Arrays;
+
+import net.regulus.detection.sat.SurfaceContacts;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Terrain given by heights at evenly spaced samples, meant for the ground of side-scrolling levels. Sample {@code i}
+ * lies at local {@code (i * spacing, heights[i])}, and the surface runs in straight segments between samples.
+ * <p>
+ * The terrain is solid below the surface. Every column between two samples is covered by a piece that reaches from the
+ * surface down to the thickness below the lowest of both samples, so that shapes that sink into the terrain are still
+ * pushed out. Like chains, the surface is one-sided and contacts at the seams between columns are handled through the
+ * directions of the neighbouring columns, see {@link net.regulus.detection.sat.HeightfieldSAT}.
+ * <p>
+ * The columns under a shape are found directly from the x coordinates of it's box, without any tree. Heights can be
+ * changed at any time, for example to deform the terrain.
+ */
+public class HeightfieldCollider implements ICollider {
+    private final double[] heights;
+    private final double spacing;
+    private final double thickness;
+
+    private final Transform transform = Transform.identity();
+    private final AABB localBox = new AABB();
+    private final AABB box = new AABB();
+    private final Vec2 tmp = new Vec2();
+
+    /** Scratch space of the narrow phase, reused for every collider tested against this heightfield */
+    private final SurfaceContacts contacts = new SurfaceContacts();
+
+    /** Polygons covering the columns, created when they are first needed */
+    private final PolygonCollider[] pieces;
+
+    /**
+     * @param heights   The heights of the samples, at least two
+     * @param spacing   The horizontal distance between samples
+     * @param thickness The depth of the columns below the lowest of their samples
+     */
+    public HeightfieldCollider( double[] heights, double spacing, double thickness ) {
+        if( heights.length < 2 )
+            throw new IllegalArgumentException( "A heightfield needs at least 2 samples" );
+        if( ! ( spacing > 0 ) || ! Double.isFinite( spacing ) )
+            throw new IllegalArgumentException( "Spacing must be positive" );
+        if( ! ( thickness > 0 ) || ! Double.isFinite( thickness ) )
+            throw new IllegalArgumentException( "Thickness must be positive" );
+
+        this.heights = new double[ heights.length ];
+        this.spacing = spacing;
+        this.thickness = thickness;
+        this.pieces = new PolygonCollider[ heights.length - 1 ];
+        setHeights( heights );
+    }
+
+    public int getSampleCount() {
+        return heights.length;
+    }
+
+    /**
+     * Returns the amount of columns, which is one less than the amount of samples.
+     */
+    public int getColumnCount() {
+        return heights.length - 1;
+    }
+
+    public double getSpacing() {
+        return spacing;
+    }
+
+    public double getThickness() {
+        return thickness;
+    }
+
+    public double getHeight( int sample ) {
+        checkSample( sample );
+        return heights[ sample ];
+    }
+
+    /**
+     * Changes the height of a sample. This recomputes the box of the heightfield, so for many samples at once {@link
+     * #setHeights} is faster.
+     */
+    public void setHeight( int sample, double height ) {
+        checkSample( sample );
+        checkHeight( sample, height );
+        heights[ sample ] = height;
+        if( sample > 0 )
+            pieces[ sample - 1 ] = null;
+        if( sample < pieces.length )
+            pieces[ sample ] = null;
+        recomputeBox();
+    }
+
+    /**
+     * Returns the heights of all samples.
+     *
+     * @param out The output array. When {@code null} or too short, a new array is created.
+     */
+    public double[] getHeights( double[] out ) {
+        if( out == null || out.length < heights.length )
+            out = new double[ heights.length ];
+        System.arraycopy( heights, 0, out, 0, heights.length );
+        return out;
+    }
+
+    /**
+     * Replaces the heights of all samples. The array may be longer than needed.
+     */
+    public void setHeights( double[] heights ) {
+        if( heights.length < this.heights.length )
+            throw new IllegalArgumentException( "Expected " + this.heights.length + " heights, got " + heights.length );
+        for( int i = 0; i < this.heights.length; i++ ) {
+            checkHeight( i, heights[ i ] );
+        }
+        System.arraycopy( heights, 0, this.heights, 0, this.heights.length );
+        Arrays.fill( pieces, null );
+        recomputeBox();
+    }
+
+    /**
+     * Checks whether the heights of this heightfield equal a list of heights. The list may be longer than needed.
+     */
+    public boolean hasHeights( double[] heights ) {
+        int n = this.heights.length;
+        return heights.length >= n && Arrays.equals( this.heights, 0, n, heights, 0, n );
+    }
+
+    /**
+     * Returns the column containing a local x coordinate, which may lie outside the heightfield.
+     */
+    public int column( double x ) {
+        return (int) Math.max( Integer.MIN_VALUE / 2, Math.min( Integer.MAX_VALUE / 2, Math.floor( x / spacing ) ) );
+    }
+
+    /**
+     * Returns the local height of the surface at a local x coordinate, or {@code NaN} outside the heightfield.
+     */
+    public double heightAt( double x ) {
+        if( ! ( x >= 0 && x <= ( heights.length - 1 ) * spacing ) )
+            return Double.NaN;
+        int c = Math.min( column( x ), heights.length - 2 );
+        double t = x / spacing - c;
+        return heights[ c ] + ( heights[ c + 1 ] - heights[ c ] ) * t;
+    }
+
+    /**
+     * Returns the local y coordinate of the bottom of a column.
+     */
+    public double getBottom( int column ) {
+        checkColumn( column );
+        return Math.min( heights[ column ], heights[ column + 1 ] ) - thickness;
+    }
+
+    /**
+     * Returns the local unit direction of the surface of a column, from left to right.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getDirection( int column, Vec2 out ) {
+        checkColumn( column );
+        double dy = heights[ column + 1 ] - heights[ column ];
+        double len = Math.sqrt( spacing * spacing + dy * dy );
+        return Vec2.put( out, spacing / len, dy / len );
+    }
+
+    /**
+     * Returns the local unit normal of the surface of a column, which points out of the terrain.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getNormal( int column, Vec2 out ) {
+        out = getDirection( column, out );
+        return out.perp( out );
+    }
+
+    /**
+     * Returns the length of the surface of a column.
+     */
+    public double getLength( int column ) {
+        checkColumn( column );
+        double dy = heights[ column + 1 ] - heights[ column ];
+        return Math.sqrt( spacing * spacing + dy * dy );
+    }
+
+    /**
+     * Returns the scratch space used to collide other colliders with this heightfield.
+     */
+    public SurfaceContacts getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Returns the body transform, which maps local coordinates to global coordinates.
+     *
+     * @param out The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform getBodyTransform( Transform out ) {
+        return Transform.put( out, transform );
+    }
+
+    /**
+     * Computes the local box that covers a global box.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB toLocal( AABB global, AABB out ) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            tmp.set( ( i & 1 ) == 0 ? global.min.x : global.max.x, ( i & 2 ) == 0 ? global.min.y : global.max.y );
+            transform.mulInverse( tmp, tmp );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Checks whether the piece of a column may overlap a local box, by comparing the box with the vertical extent of
+     * the column. The horizontal extent is not checked.
+     */
+    public boolean mayOverlap( int column, AABB local ) {
+        double top = Math.max( heights[ column ], heights[ column + 1 ] );
+        return local.min.y <= top && local.max.y >= getBottom( column );
+    }
+
+    /**
+     * Returns a polygon covering a column, from the surface down to the bottom of the column. The polygon has no body
+     * transform of it's own: it's vertices are global. Polygons are cached until this heightfield moves or the heights
+     * of the column change, so they must not be modified.
+     */
+    public PolygonCollider getPiece( int column ) {
+        checkColumn( column );
+        PolygonCollider piece = pieces[ column ];
+        if( piece == null ) {
+            double x0 = column * spacing, x1 = x0 + spacing;
+            double bottom = getBottom( column );
+            ICollider.PolygonBuilder builder = ICollider.polygon();
+            builder.add( transform.mul( x0, heights[ column ], tmp ) );
+            builder.add( transform.mul( x1, heights[ column + 1 ], tmp ) );
+            builder.add( transform.mul( x1, bottom, tmp ) );
+            builder.add( transform.mul( x0, bottom, tmp ) );
+            piece = builder.build();
+            pieces[ column ] = piece;
+        }
+        return piece;
+    }
+
+    @Override
+    public boolean isCompound() {
+        return false;
+    }
+
+    /**
+     * Returns the box covering all columns.
+     */
+    @Override
+    public AABB getBox( AABB out ) {
+        return AABB.put( out, box );
+    }
+
+    @Override
+    public void setBodyTransform( Transform transform ) {
+        if( transform.tx == this.transform.tx && transform.ty == this.transform.ty && transform.angle == this.transform.angle )
+            return;
+
+        this.transform.set( transform );
+        recomputeGlobalBox();
+        Arrays.fill( pieces, null );
+    }
+
+    private void recomputeBox() {
+        double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( double height : heights ) {
+            minY = Math.min( minY, height );
+            maxY = Math.max( maxY, height );
+        }
+        localBox.set( 0, minY - thickness, ( heights.length - 1 ) * spacing, maxY );
+        recomputeGlobalBox();
+    }
+
+    private void recomputeGlobalBox() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            transform.mul(
+                ( i & 1 ) == 0 ? localBox.min.x : localBox.max.x,
+                ( i & 2 ) == 0 ? localBox.min.y : localBox.max.y,
+                tmp
+            );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        box.set( minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Checks whether a point lies in the terrain, between the surface and the bottom of the column below it.
+     */
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        transform.mulInverse( point, tmp );
+        double surface = heightAt( tmp.x );
+        if( ! ( tmp.y <= surface ) )
+            return false;
+
+        // Points on the boundary between two columns lie in both
+        int c = Math.min( column( tmp.x ), heights.length - 2 );
+        if( tmp.y >= getBottom( c ) )
+            return true;
+        return c > 0 && tmp.x == c * spacing && tmp.y >= getBottom( c - 1 );
+    }
+
+    /**
+     * Checks whether a global box overlaps the piece of any column.
+     */
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        if( ! AABB.overlap( this.box, box ) )
+            return false;
+
+        // The corners of the box in local space, which form a rotated rectangle
+        double[] corners = new double[ 8 ];
+        for( int i = 0; i < 4; i++ ) {
+            tmp.set( i == 0 || i == 3 ? box.min.x : box.max.x, i < 2 ? box.min.y : box.max.y );
+            transform.mulInverse( tmp, tmp );
+            corners[ i * 2 ] = tmp.x;
+            corners[ i * 2 + 1 ] = tmp.y;
+        }
+
+        AABB local = toLocal( box, null );
+        int c0 = Math.max( column( local.min.x ), 0 );
+        int c1 = Math.min( column( local.max.x ), heights.length - 2 );
+        if( local.min.x == c0 * spacing && c0 > 0 )
+            c0 --; // Touching the right side of the column before
+        for( int c = c0; c <= c1; c++ ) {
+            if( mayOverlap( c, local ) && overlapsColumn( c, corners ) )
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a rectangle, given by it's local corners, overlaps the piece of a column. The separating axes are
+     * the local axes, the normal of the surface and the global axes.
+     */
+    private boolean overlapsColumn( int column, double[] corners ) {
+        double dy = heights[ column + 1 ] - heights[ column ];
+        return ! separates( column, 1, 0, corners )
+            && ! separates( column, 0, 1, corners )
+            && ! separates( column, - dy, spacing, corners )
+            && ! separates( column, transform.cos, - transform.sin, corners )
+            && ! separates( column, transform.sin, transform.cos, corners );
+    }
+
+    private boolean separates( int column, double ax, double ay, double[] corners ) {
+        double x0 = column * spacing, x1 = x0 + spacing;
+        double bottom = getBottom( column );
+        double a = x0 * ax + heights[ column ] * ay;
+        double b = x1 * ax + heights[ column + 1 ] * ay;
+        double c = x1 * ax + bottom * ay;
+        double d = x0 * ax + bottom * ay;
+        double lo = Math.min( Math.min( a, b ), Math.min( c, d ) );
+        double hi = Math.max( Math.max( a, b ), Math.max( c, d ) );
+
+        double boxLo = Double.POSITIVE_INFINITY, boxHi = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 8; i += 2 ) {
+            double p = corners[ i ] * ax + corners[ i + 1 ] * ay;
+            boxLo = Math.min( boxLo, p );
+            boxHi = Math.max( boxHi, p );
+        }
+        return boxHi < lo || boxLo > hi;
+    }
+
+    /**
+     * Returns the total area of the columns.
+     */
+    public double getArea() {
+        double sum = 0;
+        for( int c = 0; c < heights.length - 1; c++ ) {
+            double h0 = heights[ c ], h1 = heights[ c + 1 ];
+            sum += ( ( h0 + h1 ) / 2 - Math.min( h0, h1 ) + thickness ) * spacing;
+        }
+        return sum;
+    }
+
+    @Override
+    public double computeMass( double density ) {
+        return getArea() * density;
+    }
+
+    @Override
+    public double computeInertia( double density ) {
+        return inertiaFactor() * density;
+    }
+
+    @Override
+    public double computeDensityFromInertia( double inertia ) {
+        return inertia / inertiaFactor();
+    }
+
+    @Override
+    public double computeDensityFromMass( double mass ) {
+        return mass / getArea();
+    }
+
+    /**
+     * Computes the inertia per unit of density, around the body origin, by adding the inertia of every column.
+     */
+    private double inertiaFactor() {
+        double sum = 0;
+        double[] x = new double[ 4 ], y = new double[ 4 ];
+        for( int c = 0; c < heights.length - 1; c++ ) {
+            double bottom = getBottom( c );
+            x[ 0 ] = c * spacing;
+            y[ 0 ] = bottom;
+            x[ 1 ] = x[ 0 ] + spacing;
+            y[ 1 ] = bottom;
+            x[ 2 ] = x[ 1 ];
+            y[ 2 ] = heights[ c + 1 ];
+            x[ 3 ] = x[ 0 ];
+            y[ 3 ] = heights[ c ];
+
+            // The polygon inertia around the origin, with the vertices in counterclockwise order
+            for( int i = 0; i < 4; i++ ) {
+                int j = ( i + 1 ) % 4;
+                double cross = x[ i ] * y[ j ] - x[ j ] * y[ i ];
+                sum += cross * ( x[ i ] * x[ i ] + x[ i ] * x[ j ] + x[ j ] * x[ j ] + y[ i ] * y[ i ] + y[ i ] * y[ j ] + y[ j ] * y[ j ] ) / 12;
+            }
+        }
+        return sum;
+    }
+
+    private void checkSample( int sample ) {
+        if( sample < 0 || sample >= heights.length )
+            throw new IndexOutOfBoundsException( "Sample " + sample + " out of range" );
+    }
+
+    private void checkColumn( int column ) {
+        if( column < 0 || column >= heights.length - 1 )
+            throw new IndexOutOfBoundsException( "Column " + column + " out of range" );
+    }
+
+    private static void checkHeight( int sample, double height ) {
+        if( ! Double.isFinite( height ) )
+            throw new IllegalArgumentException( "Height of sample " + sample + " is not finite" );
+    }
+}
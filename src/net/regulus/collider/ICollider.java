@@ -1,17 +1,28 @@
 package net.regulus.collider;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import net.regulus.geom.AABB;
-import net.regulus.geom.Mat3;
+import net.regulus.geom.Transform;
 import net.regulus.geom.Vec2;
 import net.regulus.geom.VectorList;
 
 public interface ICollider {
     boolean isCompound();
     AABB getBox( AABB out );
-    void setBodyMatrix( Mat3 matrix );
+    void setBodyTransform( Transform transform );
+
+    /**
+     * Checks whether a global point lies inside this collider. Points on the boundary are inside.
+     */
+    boolean containsPoint( Vec2 point );
+
+    /**
+     * Checks whether this collider overlaps a global box. Shapes that touch the box overlap it.
+     */
+    boolean overlapsBox( AABB box );
 
     double computeMass( double density );
     double computeInertia( double density );
@@ -50,6 +61,18 @@ public interface ICollider {
         return new CompoundBuilder();
     }
 
+    static TileMapBuilder tileMap() {
+        return new TileMapBuilder();
+    }
+
+    static ChainBuilder chain() {
+        return new ChainBuilder();
+    }
+
+    static HeightfieldBuilder heightfield() {
+        return new HeightfieldBuilder();
+    }
+
     abstract class SimpleBuilder<Coll extends SimpleCollider, This extends SimpleBuilder<Coll, This>> {
         protected final Vec2 offset = new Vec2();
         protected double rotationOffset;
@@ -96,7 +119,7 @@ public interface ICollider {
             coll.offset.set( offset );
             coll.rotationOffset = rotationOffset;
             coll.radius = radius;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recompute();
             return coll;
         }
@@ -126,7 +149,7 @@ public interface ICollider {
             coll.rotationOffset = rotationOffset;
             coll.radius = radius;
             coll.length = length;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recompute();
             return coll;
         }
@@ -162,7 +185,7 @@ public interface ICollider {
             coll.rotationOffset = rotationOffset;
             coll.width = width;
             coll.height = height;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recomputeVertices();
             coll.recompute();
             return coll;
@@ -193,7 +216,7 @@ public interface ICollider {
             coll.rotationOffset = rotationOffset;
             coll.radius = radius;
             coll.sides = sides;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recomputeVertices();
             coll.recompute();
             return coll;
@@ -202,6 +225,8 @@ public interface ICollider {
 
     class PolygonBuilder extends SimpleBuilder<PolygonCollider, PolygonBuilder> {
         private final VectorList vertices = new VectorList();
+        private double tolerance = - 1;
+        private int hullVertices;
 
         private PolygonBuilder() {
         }
@@ -231,21 +256,92 @@ public interface ICollider {
             return this;
         }
 
+        /**
+         * Simplifies the polygon before building it, by removing (nearly) collinear vertices and then applying the
+         * Ramer-Douglas-Peucker algorithm. No vertex removed by the latter lies farther than the tolerance from the
+         * simplified outline.
+         *
+         * @param tolerance The maximum error, or 0 to only remove collinear vertices
+         */
+        public PolygonBuilder simplify( double tolerance ) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Replaces the polygon by it's convex hull before building it. Building fails with an {@link
+         * IllegalArgumentException} when the vertices are collinear, so that the hull has no area.
+         */
+        public PolygonBuilder convexHull() {
+            return convexHull( Integer.MAX_VALUE );
+        }
+
+        /**
+         * Replaces the polygon by it's convex hull before building it. When the hull has more vertices than allowed,
+         * the corners that add the least area are cut off.
+         *
+         * @param maxVertices The maximum amount of vertices of the hull, at least 3
+         */
+        public PolygonBuilder convexHull( int maxVertices ) {
+            if( maxVertices < 3 )
+                throw new IllegalArgumentException( "A convex hull needs at least 3 vertices" );
+            hullVertices = maxVertices;
+            return this;
+        }
+
+        /**
+         * Returns the coordinates of the vertices, alternating x and y, after simplification.
+         */
+        private double[] simplifiedVertices() {
+            int size = vertices.size();
+            double[] xy = new double[ size * 2 ];
+            Vec2 v = new Vec2();
+            for( int i = 0; i < size; i++ ) {
+                vertices.get( i, v );
+                xy[ i * 2 ] = v.x;
+                xy[ i * 2 + 1 ] = v.y;
+            }
+
+            if( tolerance >= 0 )
+                xy = PolygonSimplifier.removeCollinear( xy );
+            if( tolerance > 0 )
+                xy = PolygonSimplifier.simplify( xy, tolerance );
+            if( hullVertices > 0 )
+                xy = PolygonSimplifier.convexHull( xy, hullVertices );
+            return xy;
+        }
+
         @Override
         public PolygonCollider build() {
             PolygonCollider coll = new PolygonCollider();
             coll.offset.set( offset );
             coll.rotationOffset = rotationOffset;
-            Vec2 v = new Vec2();
-            for( Vec2.IContext ctx : vertices ) {
-                ctx.get( v );
-                coll.unorderedVertices.add( v );
+            double[] xy = simplifiedVertices();
+            for( int i = 0; i < xy.length; i += 2 ) {
+                coll.unorderedVertices.add( xy[ i ], xy[ i + 1 ] );
             }
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recomputeVertices();
             coll.recompute();
             return coll;
         }
+
+        /**
+         * Builds a polygon that may be concave, by decomposing it into convex polygons. The pieces share the offset and
+         * rotation offset of this builder, so that together they cover the same area as the polygon. The decomposition
+         * is cached, so building the same outline again does not decompose it again. The polygon is simplified before
+         * it is decomposed, which usually gives fewer pieces.
+         *
+         * @throws IllegalArgumentException When the polygon is not simple, i.e. when it's edges cross
+         */
+        public CompoundCollider buildConcave() {
+            CompoundCollider coll = new CompoundCollider();
+            for( double[] piece : ConvexDecomposition.decompose( simplifiedVertices() ) ) {
+                PolygonBuilder builder = new PolygonBuilder().offset( offset ).rotationOff( rotationOffset );
+                coll.colliders.add( builder.add( piece ).build() );
+            }
+            return coll;
+        }
     }
 
     class BarBuilder extends SimpleBuilder<BarCollider, BarBuilder> {
@@ -265,7 +361,7 @@ public interface ICollider {
             coll.offset.set( offset );
             coll.rotationOffset = rotationOffset;
             coll.width = width;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recompute();
             return coll;
         }
@@ -281,7 +377,7 @@ public interface ICollider {
             PlaneCollider coll = new PlaneCollider();
             coll.offset.set( offset );
             coll.rotationOffset = rotationOffset;
-            coll.recomputeMatrix();
+            coll.recomputeTransform();
             coll.recompute();
             return coll;
         }
@@ -310,4 +406,159 @@ public interface ICollider {
             return coll;
         }
     }
+
+    class TileMapBuilder {
+        private int columns;
+        private int rows;
+        private double cellSize = 1;
+        private final List<int[]> fills = new ArrayList<>();
+
+        private TileMapBuilder() {
+        }
+
+        public TileMapBuilder size( int columns, int rows ) {
+            this.columns = columns;
+            this.rows = rows;
+            return this;
+        }
+
+        public TileMapBuilder cellSize( double size ) {
+            cellSize = size;
+            return this;
+        }
+
+        public TileMapBuilder solid( int column, int row ) {
+            return fill( column, row, 1, 1 );
+        }
+
+        public TileMapBuilder fill( int column, int row, int columns, int rows ) {
+            fills.add( new int[] { column, row, columns, rows } );
+            return this;
+        }
+
+        /**
+         * Adds a row of cells from a string, where {@code '#'} is a solid cell and any other character an empty cell.
+         */
+        public TileMapBuilder row( int row, String cells ) {
+            for( int i = 0; i < cells.length(); i++ ) {
+                if( cells.charAt( i ) == '#' )
+                    solid( i, row );
+            }
+            return this;
+        }
+
+        public TileMapCollider build() {
+            TileMapCollider coll = new TileMapCollider( columns, rows, cellSize );
+            for( int[] fill : fills ) {
+                coll.fill( fill[ 0 ], fill[ 1 ], fill[ 2 ], fill[ 3 ], true );
+            }
+            return coll;
+        }
+    }
+
+    class ChainBuilder {
+        private final VectorList vertices = new VectorList();
+        private boolean loop;
+        private double thickness = 1;
+
+        private ChainBuilder() {
+        }
+
+        public ChainBuilder add( double x, double y ) {
+            vertices.add( x, y );
+            return this;
+        }
+
+        public ChainBuilder add( Vec2 v ) {
+            vertices.add( v );
+            return this;
+        }
+
+        public ChainBuilder add( double... values ) {
+            int s = values.length;
+            for( int i = 0; i < s; i += 2 ) {
+                vertices.add( values[ i ], values[ i + 1 ] );
+            }
+            return this;
+        }
+
+        public ChainBuilder add( Vec2... values ) {
+            for( Vec2 value : values ) {
+                vertices.add( value );
+            }
+            return this;
+        }
+
+        /**
+         * Connects the last vertex back to the first.
+         */
+        public ChainBuilder loop() {
+            loop = true;
+            return this;
+        }
+
+        /**
+         * Sets the depth of the solid strip behind every segment.
+         */
+        public ChainBuilder thickness( double thickness ) {
+            this.thickness = thickness;
+            return this;
+        }
+
+        public ChainCollider build() {
+            int size = vertices.size();
+            double[] xy = new double[ size * 2 ];
+            Vec2 v = new Vec2();
+            for( int i = 0; i < size; i++ ) {
+                vertices.get( i, v );
+                xy[ i * 2 ] = v.x;
+                xy[ i * 2 + 1 ] = v.y;
+            }
+            return new ChainCollider( xy, loop, thickness );
+        }
+    }
+
+    class HeightfieldBuilder {
+        private double[] heights = new double[ 16 ];
+        private int size;
+        private double spacing = 1;
+        private double thickness = 1;
+
+        private HeightfieldBuilder() {
+        }
+
+        public HeightfieldBuilder add( double height ) {
+            if( size == heights.length )
+                heights = Arrays.copyOf( heights, size * 2 );
+            heights[ size ++ ] = height;
+            return this;
+        }
+
+        public HeightfieldBuilder add( double... values ) {
+            for( double value : values ) {
+                add( value );
+            }
+            return this;
+        }
+
+        /**
+         * Sets the horizontal distance between samples.
+         */
+        public HeightfieldBuilder spacing( double spacing ) {
+            this.spacing = spacing;
+            return this;
+        }
+
+        /**
+         * Sets the depth of the columns below the lowest of their samples.
+         */
+        public HeightfieldBuilder thickness( double thickness ) {
+            this.thickness = thickness;
+            return this;
+        }
+
+        public HeightfieldCollider build() {
+            return new HeightfieldCollider( Arrays.copyOf( heights, size ), spacing, thickness );
+        }
+    }
 }
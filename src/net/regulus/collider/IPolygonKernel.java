@@ -0,0 +1,40 @@
+package net.regulus.collider;
+
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+
+/**
+ * Runs the inner loops over the vertices of a {@link PolygonalCollider}, which are stored as separate arrays of x and
+ * y coordinates. All kernels compute exactly the same results, so the choice of kernel does not affect the simulation.
+ */
+public interface IPolygonKernel {
+    /**
+     * Transforms vertices, like {@link Transform#mul(double, double, net.regulus.geom.Vec2)}.
+     *
+     * @param x     The x coordinates of the vertices
+     * @param y     The y coordinates of the vertices
+     * @param count The amount of vertices
+     * @param outX  The array to put the transformed x coordinates in, which may be {@code x}
+     * @param outY  The array to put the transformed y coordinates in, which may be {@code y}
+     */
+    void transform( double[] x, double[] y, int count, Transform transform, double[] outX, double[] outY );
+
+    /**
+     * Computes the edges of a polygon, where edge {@code i} goes from vertex {@code i} to the next vertex, and the last
+     * edge goes back to the first vertex.
+     *
+     * @param x     The x coordinates of the vertices
+     * @param y     The y coordinates of the vertices
+     * @param count The amount of vertices
+     * @param outX  The array to put the x coordinates of the edges in
+     * @param outY  The array to put the y coordinates of the edges in
+     */
+    void edges( double[] x, double[] y, int count, double[] outX, double[] outY );
+
+    /**
+     * Computes the box around vertices.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    AABB bounds( double[] x, double[] y, int count, AABB out );
+}
@@ -1,5 +1,6 @@
 package net.regulus.collider;
 
+import net.regulus.geom.AABB;
 import net.regulus.geom.Projection;
 import net.regulus.geom.Vec2;
 
@@ -12,12 +13,13 @@ public class PlaneCollider extends SimpleCollider {
         area = Double.POSITIVE_INFINITY;
         inertiaFactor = Double.POSITIVE_INFINITY;
         center.set( 0, 0 );
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
         box.set( Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY );
         normal.set( direction );
     }
 
+    @Override
     public boolean containsPoint( Vec2 point ) {
         proj.baseVector.set( normal );
         point.sub( center, proj.projected );
@@ -25,6 +27,14 @@ public class PlaneCollider extends SimpleCollider {
         return proj.tangentLength <= 0;
     }
 
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        // The corner of the box that lies deepest below the plane
+        double x = normal.x > 0 ? box.min.x : box.max.x;
+        double y = normal.y > 0 ? box.min.y : box.max.y;
+        return normal.x * ( x - center.x ) + normal.y * ( y - center.y ) <= 0;
+    }
+
     public Vec2 getNormal( Vec2 v ) {
         return Vec2.put( v, normal );
     }
@@ -96,5 +96,6 @@ public class PolygonCollider extends PolygonalCollider {
                 vertices.add( tmp1 );
             }
         }
+        recomputeLocalVerts();
     }
 }
@@ -0,0 +1,49 @@
+package net.regulus.collider;
+
+/**
+ * Selects the {@link IPolygonKernel} used by {@link PolygonalCollider}s. The Vector API kernel is used when the {@code
+ * jdk.incubator.vector} module is present (for example when running with {@code --add-modules jdk.incubator.vector}),
+ * otherwise the scalar kernel is used. Setting the system property {@code regulus.simd} to {@code false} forces the
+ * scalar kernel.
+ */
+public final class PolygonKernels {
+    private static final IPolygonKernel KERNEL = select();
+
+    private PolygonKernels() {
+    }
+
+    /**
+     * Returns the kernel used by polygon colliders.
+     */
+    public static IPolygonKernel get() {
+        return KERNEL;
+    }
+
+    /**
+     * Returns the scalar kernel, which is always available.
+     */
+    public static IPolygonKernel scalar() {
+        return ScalarPolygonKernel.INSTANCE;
+    }
+
+    /**
+     * Returns true when polygon colliders use the Vector API.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != ScalarPolygonKernel.INSTANCE;
+    }
+
+    private static IPolygonKernel select() {
+        if( ! Boolean.parseBoolean( System.getProperty( "regulus.simd", "true" ) ) )
+            return ScalarPolygonKernel.INSTANCE;
+        if( ! ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isPresent() )
+            return ScalarPolygonKernel.INSTANCE;
+
+        try {
+            // Only touch the vector kernel now, loading it without the module present would fail
+            return VectorPolygonKernel.INSTANCE;
+        } catch( LinkageError ignored ) {
+        }
+        return ScalarPolygonKernel.INSTANCE;
+    }
+}
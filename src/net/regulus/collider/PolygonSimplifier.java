@@ -0,0 +1,221 @@
+package net.regulus.collider;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the amount of vertices of polygons, since the cost of collision detection between polygons grows with the
+ * amount of vertices. Polygons are passed as arrays with the coordinates of the vertices, alternating x and y, and the
+ * simplified polygon is returned in a new array. Polygons never get less than 3 vertices.
+ */
+final class PolygonSimplifier {
+    /** The sine of the largest angle between two edges for which their shared vertex is considered collinear */
+    static final double COLLINEAR_SINE = 1e-6;
+
+    private PolygonSimplifier() {
+    }
+
+    /**
+     * Removes vertices where the outline goes straight on, or turns back on itself. A vertex is removed when the sine
+     * of the angle between it's edges is below {@link #COLLINEAR_SINE}, which does not depend on the size of the
+     * polygon.
+     */
+    static double[] removeCollinear( double[] xy ) {
+        xy = xy.clone();
+        int size = xy.length / 2;
+        boolean removed = true;
+        while( removed && size > 3 ) {
+            removed = false;
+            for( int i = 0; i < size && size > 3; i++ ) {
+                int p = ( i + size - 1 ) % size, q = ( i + 1 ) % size;
+                double ux = xy[ i * 2 ] - xy[ p * 2 ], uy = xy[ i * 2 + 1 ] - xy[ p * 2 + 1 ];
+                double vx = xy[ q * 2 ] - xy[ i * 2 ], vy = xy[ q * 2 + 1 ] - xy[ i * 2 + 1 ];
+                double cross = ux * vy - uy * vx;
+                if( Math.abs( cross ) <= COLLINEAR_SINE * Math.sqrt( ( ux * ux + uy * uy ) * ( vx * vx + vy * vy ) ) ) {
+                    System.arraycopy( xy, i * 2 + 2, xy, i * 2, ( size - i - 1 ) * 2 );
+                    size --;
+                    removed = true;
+                }
+            }
+        }
+        return Arrays.copyOf( xy, size * 2 );
+    }
+
+    /**
+     * Simplifies a polygon with the Ramer-Douglas-Peucker algorithm. The outline is cut in two chains at the first
+     * vertex and the vertex farthest from it, and each chain is simplified such that no removed vertex lies farther
+     * than the tolerance from the simplified chain.
+     *
+     * @param tolerance The maximum distance of a removed vertex from the simplified outline
+     */
+    static double[] simplify( double[] xy, double tolerance ) {
+        int n = xy.length / 2;
+        if( n <= 3 )
+            return xy.clone();
+
+        int far = 0;
+        double farDist = - 1;
+        for( int i = 1; i < n; i++ ) {
+            double dx = xy[ i * 2 ] - xy[ 0 ], dy = xy[ i * 2 + 1 ] - xy[ 1 ];
+            double d = dx * dx + dy * dy;
+            if( d > farDist ) {
+                farDist = d;
+                far = i;
+            }
+        }
+
+        boolean[] keep = new boolean[ n + 1 ];
+        keep[ 0 ] = true;
+        keep[ far ] = true;
+        simplify( xy, n, 0, far, tolerance, keep );
+        simplify( xy, n, far, n, tolerance, keep );
+
+        int count = 0;
+        for( int i = 0; i < n; i++ ) {
+            if( keep[ i ] )
+                count ++;
+        }
+        if( count < 3 ) {
+            // Everything lies within the tolerance of the line between the anchors, keep the farthest vertex from it
+            // so that the polygon keeps some area
+            int best = - 1;
+            double bestDist = - 1;
+            for( int i = 0; i < n; i++ ) {
+                double d = lineDistance( xy, i, 0, far );
+                if( ! keep[ i ] && d > bestDist ) {
+                    bestDist = d;
+                    best = i;
+                }
+            }
+            keep[ best ] = true;
+            count ++;
+        }
+
+        double[] out = new double[ count * 2 ];
+        for( int i = 0, k = 0; i < n; i++ ) {
+            if( keep[ i ] ) {
+                out[ k ++ ] = xy[ i * 2 ];
+                out[ k ++ ] = xy[ i * 2 + 1 ];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Simplifies the chain between two kept vertices. The end index may be {@code n}, which refers to vertex 0.
+     */
+    private static void simplify( double[] xy, int n, int from, int to, double tolerance, boolean[] keep ) {
+        if( to - from < 2 )
+            return;
+
+        int far = - 1;
+        double farDist = - 1;
+        for( int i = from + 1; i < to; i++ ) {
+            double d = segmentDistance( xy, i, from, to % n );
+            if( d > farDist ) {
+                farDist = d;
+                far = i;
+            }
+        }
+        if( farDist <= tolerance )
+            return;
+
+        keep[ far ] = true;
+        simplify( xy, n, from, far, tolerance, keep );
+        simplify( xy, n, far, to, tolerance, keep );
+    }
+
+    /**
+     * Computes the convex hull of a polygon, in counterclockwise order, with Andrew's monotone chain algorithm. When
+     * the hull has more vertices than allowed, the vertices whose triangle with their neighbours has the least area
+     * are removed one by one. This keeps the hull convex, but the removed corners are cut off.
+     *
+     * @param maxVertices The maximum amount of vertices of the hull, at least 3
+     * @throws IllegalArgumentException When the points are collinear, so that the hull has no area
+     */
+    static double[] convexHull( double[] xy, int maxVertices ) {
+        if( maxVertices < 3 )
+            throw new IllegalArgumentException( "A convex hull needs at least 3 vertices" );
+        int n = xy.length / 2;
+        Integer[] order = new Integer[ n ];
+        for( int i = 0; i < n; i++ ) {
+            order[ i ] = i;
+        }
+        Arrays.sort( order, ( a, b ) -> {
+            int c = Double.compare( xy[ a * 2 ], xy[ b * 2 ] );
+            return c != 0 ? c : Double.compare( xy[ a * 2 + 1 ], xy[ b * 2 + 1 ] );
+        } );
+
+        int[] hull = new int[ n * 2 ];
+        int size = 0;
+        for( int i = 0; i < n; i++ ) {
+            while( size >= 2 && cross( xy, hull[ size - 2 ], hull[ size - 1 ], order[ i ] ) <= 0 ) {
+                size --;
+            }
+            hull[ size ++ ] = order[ i ];
+        }
+        for( int i = n - 2, lower = size + 1; i >= 0; i-- ) {
+            while( size >= lower && cross( xy, hull[ size - 2 ], hull[ size - 1 ], order[ i ] ) <= 0 ) {
+                size --;
+            }
+            hull[ size ++ ] = order[ i ];
+        }
+        // The last vertex is the first one again
+        size --;
+        if( size < 3 )
+            throw new IllegalArgumentException( "points are collinear, hull has no area" );
+
+        while( size > maxVertices ) {
+            int least = 0;
+            double leastArea = Double.POSITIVE_INFINITY;
+            for( int i = 0; i < size; i++ ) {
+                int p = hull[ ( i + size - 1 ) % size ], q = hull[ ( i + 1 ) % size ];
+                double area = cross( xy, p, hull[ i ], q );
+                if( area < leastArea ) {
+                    leastArea = area;
+                    least = i;
+                }
+            }
+            System.arraycopy( hull, least + 1, hull, least, size - least - 1 );
+            size --;
+        }
+
+        double[] out = new double[ size * 2 ];
+        for( int i = 0; i < size; i++ ) {
+            out[ i * 2 ] = xy[ hull[ i ] * 2 ];
+            out[ i * 2 + 1 ] = xy[ hull[ i ] * 2 + 1 ];
+        }
+        return out;
+    }
+
+    /**
+     * Computes the cross product of {@code b - a} and {@code c - a}, which is positive when {@code c} lies left of
+     * {@code a -> b}.
+     */
+    private static double cross( double[] xy, int a, int b, int c ) {
+        double ax = xy[ a * 2 ], ay = xy[ a * 2 + 1 ];
+        return ( xy[ b * 2 ] - ax ) * ( xy[ c * 2 + 1 ] - ay ) - ( xy[ b * 2 + 1 ] - ay ) * ( xy[ c * 2 ] - ax );
+    }
+
+    /**
+     * Computes the distance of a vertex to the line through two other vertices.
+     */
+    private static double lineDistance( double[] xy, int p, int a, int b ) {
+        double dx = xy[ b * 2 ] - xy[ a * 2 ], dy = xy[ b * 2 + 1 ] - xy[ a * 2 + 1 ];
+        double len = Math.sqrt( dx * dx + dy * dy );
+        if( len == 0 )
+            return Math.hypot( xy[ p * 2 ] - xy[ a * 2 ], xy[ p * 2 + 1 ] - xy[ a * 2 + 1 ] );
+        return Math.abs( cross( xy, a, b, p ) ) / len;
+    }
+
+    /**
+     * Computes the distance of a vertex to the segment between two other vertices.
+     */
+    private static double segmentDistance( double[] xy, int p, int a, int b ) {
+        double ax = xy[ a * 2 ], ay = xy[ a * 2 + 1 ];
+        double dx = xy[ b * 2 ] - ax, dy = xy[ b * 2 + 1 ] - ay;
+        double px = xy[ p * 2 ] - ax, py = xy[ p * 2 + 1 ] - ay;
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq == 0 ? 0 : Math.max( 0, Math.min( 1, ( px * dx + py * dy ) / lenSq ) );
+        return Math.hypot( px - t * dx, py - t * dy );
+    }
+}
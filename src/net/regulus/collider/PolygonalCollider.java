@@ -1,5 +1,6 @@
 package net.regulus.collider;
 
+import net.regulus.geom.AABB;
 import net.regulus.geom.MathUtil;
 import net.regulus.geom.Vec2;
 import net.regulus.geom.VectorCollection;
@@ -10,6 +11,22 @@ public abstract class PolygonalCollider extends SimpleCollider {
     protected final VectorList globalVertices = new VectorList();
     protected final VectorList satAxes = new VectorList();
 
+    /** The local vertices as flat arrays, updated by {@link #recomputeLocalVerts()}, for the {@link IPolygonKernel} */
+    private double[] localX = new double[ 0 ];
+    private double[] localY = new double[ 0 ];
+    private int localCount;
+
+    /** The global vertices and the edges leaving them, as flat arrays for {@link #extremeVertex} and the kernel */
+    private double[] globalX = new double[ 0 ];
+    private double[] globalY = new double[ 0 ];
+    private double[] edgeX = new double[ 0 ];
+    private double[] edgeY = new double[ 0 ];
+
+    /** Polygons up to this amount of vertices are searched linearly, which is faster than a binary search for them */
+    private static final int LINEAR_SEARCH_LIMIT = 8;
+
+    private final IPolygonKernel kernel = PolygonKernels.get();
+
     private final Vec2[] tmp = {
         new Vec2(),
         new Vec2(),
@@ -28,17 +45,137 @@ public abstract class PolygonalCollider extends SimpleCollider {
         }
     }
 
-    protected void recomputeGlobalVerts() {
+    /**
+     * Copies the local vertices to the flat arrays used by the kernel. Subclasses must call this after they change
+     * {@link #vertices}.
+     */
+    protected void recomputeLocalVerts() {
         Vec2 temp = tmp[ 0 ];
 
-        globalVertices.clear();
-
         int l = vertices.size();
+        if( localX.length < l ) {
+            localX = new double[ l ];
+            localY = new double[ l ];
+            globalX = new double[ l ];
+            globalY = new double[ l ];
+            edgeX = new double[ l ];
+            edgeY = new double[ l ];
+        }
         for( int i = 0; i < l; i++ ) {
             vertices.get( i, temp );
-            matrix.mul( temp, temp );
-            globalVertices.add( temp );
+            localX[ i ] = temp.x;
+            localY[ i ] = temp.y;
+        }
+        localCount = l;
+    }
+
+    protected void recomputeGlobalVerts() {
+        if( localCount != vertices.size() )
+            recomputeLocalVerts();
+
+        int l = localCount;
+        kernel.transform( localX, localY, l, transform, globalX, globalY );
+        kernel.edges( globalX, globalY, l, edgeX, edgeY );
+
+        if( globalVertices.size() == l ) {
+            for( int i = 0; i < l; i++ ) {
+                globalVertices.set( i, globalX[ i ], globalY[ i ] );
+            }
+        } else {
+            globalVertices.clear();
+            for( int i = 0; i < l; i++ ) {
+                globalVertices.add( globalX[ i ], globalY[ i ] );
+            }
+        }
+    }
+
+    /**
+     * Finds the global vertex that lies furthest in a direction, which is the vertex with the largest dot product with
+     * the direction. This takes logarithmic time in the amount of vertices, using that the vertices are in
+     * counterclockwise order: the edges turn counterclockwise, so their angles from the first edge increase, and the
+     * extreme vertex is where the edges turn past the tangent of the direction. When multiple vertices lie equally far,
+     * any of them may be returned.
+     *
+     * @param dx The x-coordinate of the direction
+     * @param dy The y-coordinate of the direction
+     * @return The index of the vertex in {@link #getGlobal()}
+     */
+    public int extremeVertex( double dx, double dy ) {
+        int n = globalVertices.size();
+        if( n <= LINEAR_SEARCH_LIMIT ) {
+            int best = 0;
+            double bestDot = Double.NEGATIVE_INFINITY;
+            for( int i = 0; i < n; i++ ) {
+                double dot = globalX[ i ] * dx + globalY[ i ] * dy;
+                if( dot > bestDot ) {
+                    bestDot = dot;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        double e0x = edgeX[ 0 ], e0y = edgeY[ 0 ];
+        double tx = - dy, ty = dx;
+        boolean tFirstHalf = firstHalf( e0x, e0y, tx, ty );
+
+        // Find the first edge that turned further than the tangent, the first edge never did
+        int lo = 1, hi = n;
+        while( lo < hi ) {
+            int mid = lo + hi >>> 1;
+            double ex = edgeX[ mid ], ey = edgeY[ mid ];
+            boolean eFirstHalf = firstHalf( e0x, e0y, ex, ey );
+            boolean after = eFirstHalf == tFirstHalf ? tx * ey - ty * ex > 0 : tFirstHalf;
+            if( after ) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo == n ? 0 : lo;
+    }
+
+    /**
+     * Returns the largest dot product of a global vertex with a direction, which is the upper end of the projection of
+     * this polygon on the direction.
+     */
+    public double maxProjection( double dx, double dy ) {
+        int n = globalVertices.size();
+        if( n <= LINEAR_SEARCH_LIMIT ) {
+            double max = Double.NEGATIVE_INFINITY;
+            for( int i = 0; i < n; i++ ) {
+                max = Math.max( globalX[ i ] * dx + globalY[ i ] * dy, max );
+            }
+            return max;
+        }
+        int i = extremeVertex( dx, dy );
+        return globalX[ i ] * dx + globalY[ i ] * dy;
+    }
+
+    /**
+     * Returns the smallest dot product of a global vertex with a direction, which is the lower end of the projection
+     * of this polygon on the direction.
+     */
+    public double minProjection( double dx, double dy ) {
+        int n = globalVertices.size();
+        if( n <= LINEAR_SEARCH_LIMIT ) {
+            double min = Double.POSITIVE_INFINITY;
+            for( int i = 0; i < n; i++ ) {
+                min = Math.min( globalX[ i ] * dx + globalY[ i ] * dy, min );
+            }
+            return min;
         }
+        int i = extremeVertex( - dx, - dy );
+        return globalX[ i ] * dx + globalY[ i ] * dy;
+    }
+
+    /**
+     * Checks whether a vector lies in the first half turn counterclockwise from a reference vector, including the
+     * reference direction itself.
+     */
+    private static boolean firstHalf( double rx, double ry, double x, double y ) {
+        double cross = rx * y - ry * x;
+        return cross > 0 || cross == 0 && rx * x + ry * y > 0;
     }
 
     protected void recomputeSATAxes( Looper looper ) {
@@ -98,10 +235,6 @@ public abstract class PolygonalCollider extends SimpleCollider {
 
         center.set( 0, 0 );
         centerOfMass.set( 0, 0 );
-        double minX = Double.POSITIVE_INFINITY,
-            minY = Double.POSITIVE_INFINITY,
-            maxX = Double.NEGATIVE_INFINITY,
-            maxY = Double.NEGATIVE_INFINITY;
 
         looper.goTo( 0 );
         int i = 0, l = globalVertices.size();
@@ -120,11 +253,6 @@ public abstract class PolygonalCollider extends SimpleCollider {
                 centerOfMass
             );
 
-            minX = Math.min( curr.x, minX );
-            minY = Math.min( curr.y, minY );
-            maxX = Math.max( curr.x, maxX );
-            maxY = Math.max( curr.y, maxY );
-
             looper.forward();
             i ++;
         }
@@ -132,31 +260,11 @@ public abstract class PolygonalCollider extends SimpleCollider {
         this.area = Math.abs( area / 2 );
         center.div( vertices.size(), center );
         centerOfMass.div( 6 * this.area, centerOfMass );
-        box.set( minX, minY, maxX, maxY );
+        kernel.bounds( globalX, globalY, l, box );
     }
 
     protected void recomputeBox( Looper looper ) {
-        Vec2 curr = tmp[ 0 ];
-        double minX = Double.POSITIVE_INFINITY,
-            minY = Double.POSITIVE_INFINITY,
-            maxX = Double.NEGATIVE_INFINITY,
-            maxY = Double.NEGATIVE_INFINITY;
-
-        looper.goTo( 0 );
-        int i = 0, l = globalVertices.size();
-        while( i < l ) {
-            looper.currGlobal( curr );
-
-            minX = Math.min( curr.x, minX );
-            minY = Math.min( curr.y, minY );
-            maxX = Math.max( curr.x, maxX );
-            maxY = Math.max( curr.y, maxY );
-
-            looper.forward();
-            i ++;
-        }
-
-        box.set( minX, minY, maxX, maxY );
+        kernel.bounds( globalX, globalY, globalVertices.size(), box );
     }
 
 
@@ -172,6 +280,53 @@ public abstract class PolygonalCollider extends SimpleCollider {
         return satAxes.collection;
     }
 
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        int size = globalVertices.size();
+        if( size < 3 || ! box.contains( point ) )
+            return false;
+
+        Vec2 curr = tmp[ 0 ];
+        Vec2 next = tmp[ 1 ];
+
+        // Vertices are in counterclockwise order, so the point must be on the left of every edge
+        globalVertices.get( size - 1, curr );
+        for( int i = 0; i < size; i++ ) {
+            globalVertices.get( i, next );
+            double cross = ( next.x - curr.x ) * ( point.y - curr.y ) - ( next.y - curr.y ) * ( point.x - curr.x );
+            if( cross < 0 )
+                return false;
+            curr.set( next );
+        }
+        return true;
+    }
+
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        int size = globalVertices.size();
+        if( size < 3 || ! AABB.overlap( this.box, box ) )
+            return false;
+
+        Vec2 curr = tmp[ 0 ];
+        Vec2 next = tmp[ 1 ];
+
+        // The axes of the box are tested by the box overlap above, only the edge normals remain
+        globalVertices.get( size - 1, curr );
+        for( int i = 0; i < size; i++ ) {
+            globalVertices.get( i, next );
+            double nx = next.y - curr.y;
+            double ny = curr.x - next.x;
+
+            // The corner of the box that lies deepest behind this edge
+            double x = nx > 0 ? box.min.x : box.max.x;
+            double y = ny > 0 ? box.min.y : box.max.y;
+            if( nx * ( x - curr.x ) + ny * ( y - curr.y ) > 0 )
+                return false;
+            curr.set( next );
+        }
+        return true;
+    }
+
     public Looper looper() {
         return new Looper( this );
     }
@@ -30,21 +30,23 @@ public class RegularPolyCollider extends PolygonalCollider {
 
     protected void recomputeVertices() {
         vertices.clear();
+        // Shapes are often built outside of a tick, so always use StrictMath to get the same vertices everywhere
         for( int i = 0; i < sides; i++ ) {
             double prog = ( i / (float) sides ) * 2 * Math.PI;
-            double x = Math.cos( prog ) * radius;
-            double y = Math.sin( prog ) * radius;
+            double x = StrictMath.cos( prog ) * radius;
+            double y = StrictMath.sin( prog ) * radius;
             vertices.add( x, y );
         }
+        recomputeLocalVerts();
         recomputeGlobalVerts();
     }
 
     @Override
     protected void recompute() {
         recomputeGlobalVerts();
-        matrix.mul( 0, 0, center );
+        transform.mul( 0, 0, center );
         centerOfMass.set( center );
-        area = radius * radius * sides * Math.sin( 2 * Math.PI / sides ) * 0.5;
+        area = radius * radius * sides * StrictMath.sin( 2 * Math.PI / sides ) * 0.5;
 
         Looper looper = looper();
         recomputeSATAxes( looper );
@@ -0,0 +1,49 @@
+package net.regulus.collider;
+
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+
+/**
+ * The plain Java implementation of {@link IPolygonKernel}, used when the Vector API is not available.
+ */
+final class ScalarPolygonKernel implements IPolygonKernel {
+    static final ScalarPolygonKernel INSTANCE = new ScalarPolygonKernel();
+
+    private ScalarPolygonKernel() {
+    }
+
+    @Override
+    public void transform( double[] x, double[] y, int count, Transform transform, double[] outX, double[] outY ) {
+        double cos = transform.cos, sin = transform.sin, tx = transform.tx, ty = transform.ty;
+        for( int i = 0; i < count; i++ ) {
+            double vx = x[ i ], vy = y[ i ];
+            outX[ i ] = cos * vx - sin * vy + tx;
+            outY[ i ] = sin * vx + cos * vy + ty;
+        }
+    }
+
+    @Override
+    public void edges( double[] x, double[] y, int count, double[] outX, double[] outY ) {
+        for( int i = 0; i < count - 1; i++ ) {
+            outX[ i ] = x[ i + 1 ] - x[ i ];
+            outY[ i ] = y[ i + 1 ] - y[ i ];
+        }
+        if( count > 0 ) {
+            outX[ count - 1 ] = x[ 0 ] - x[ count - 1 ];
+            outY[ count - 1 ] = y[ 0 ] - y[ count - 1 ];
+        }
+    }
+
+    @Override
+    public AABB bounds( double[] x, double[] y, int count, AABB out ) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < count; i++ ) {
+            minX = Math.min( x[ i ], minX );
+            minY = Math.min( y[ i ], minY );
+            maxX = Math.max( x[ i ], maxX );
+            maxY = Math.max( y[ i ], maxY );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+}
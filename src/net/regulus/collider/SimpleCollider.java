@@ -1,8 +1,8 @@
 package net.regulus.collider;
 
 import net.regulus.geom.AABB;
-import net.regulus.geom.Mat2;
 import net.regulus.geom.Mat3;
+import net.regulus.geom.Transform;
 import net.regulus.geom.Vec2;
 
 public abstract class SimpleCollider implements ICollider {
@@ -10,11 +10,12 @@ public abstract class SimpleCollider implements ICollider {
     protected double rotationOffset;
     protected double inertiaFactor;
 
-    protected final Mat3 matrix = Mat3.identity();
-    protected final Mat3 bodyMatrix = Mat3.identity();
-    protected final Mat2 linearTransforms = Mat2.identity();
-    protected final Vec2 direction = new Vec2();
-    protected double globalRotation;
+    /** The transform from local to global space, which is the body transform followed by the local transform */
+    protected final Transform transform = Transform.identity();
+    protected final Transform bodyTransform = Transform.identity();
+    /** The offset and rotation offset, the sine and cosine are only computed when the offsets change */
+    protected final Transform localTransform = Transform.identity();
+    protected final Vec2 direction = new Vec2( 1, 0 );
 
     protected final Vec2 center = new Vec2();
     protected final Vec2 centerOfMass = new Vec2();
@@ -27,19 +28,19 @@ public abstract class SimpleCollider implements ICollider {
 
     public void setOffset( Vec2 off ) {
         offset.set( off );
-        recomputeMatrix();
+        recomputeTransform();
         recompute();
     }
 
     public void setOffset( double x, double y ) {
         offset.set( x, y );
-        recomputeMatrix();
+        recomputeTransform();
         recompute();
     }
 
     public void setRotationOffset( double rotationOffset ) {
         this.rotationOffset = rotationOffset;
-        recomputeMatrix();
+        recomputeTransform();
         recompute();
     }
 
@@ -48,15 +49,18 @@ public abstract class SimpleCollider implements ICollider {
     }
 
     @Override
-    public void setBodyMatrix( Mat3 bodyMatrix ) {
-        this.bodyMatrix.set( bodyMatrix );
-        recomputeMatrix();
+    public void setBodyTransform( Transform bodyTransform ) {
+        this.bodyTransform.set( bodyTransform );
+        updateTransform();
         recompute();
     }
 
+    public Transform getGlobalTransform( Transform out ) {
+        return Transform.put( out, transform );
+    }
 
     public Mat3 getGlobalMatrix( Mat3 out ) {
-        return Mat3.put( out, matrix );
+        return transform.getMatrix( out );
     }
 
     public Vec2 getCenter( Vec2 out ) {
@@ -77,19 +81,21 @@ public abstract class SimpleCollider implements ICollider {
     }
 
 
-    protected void recomputeMatrix() {
-        matrix.setIdentity().mul( bodyMatrix, matrix )
-              .translate( offset, matrix )
-              .rotateCCW( rotationOffset, matrix );
-        matrix.getLinearTransform( linearTransforms );
+    /**
+     * Recomputes the local transform after the offsets changed, and the global transform along with it.
+     */
+    protected void recomputeTransform() {
+        localTransform.set( offset, rotationOffset );
+        updateTransform();
+    }
 
-        direction.set( 1, 0 );
-        linearTransforms.mul( direction, direction );
-        globalRotation = direction.dir();
+    private void updateTransform() {
+        bodyTransform.mul( localTransform, transform );
+        transform.getDirection( direction );
     }
 
     public double getGlobalRotation() {
-        return globalRotation;
+        return transform.angle;
     }
 
     public Vec2 getDirection( Vec2 out ) {
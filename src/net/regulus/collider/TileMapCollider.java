@@ -0,0 +1,498 @@
+package net.regulus.collider;
+
+import java.util.Arrays;
+
+import net.regulus.detection.sat.TileMapContacts;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * A grid of square cells that are either solid or empty, meant for static levels built from tiles. The cells are stored
+ * as a bitset, one row after another, so a large level takes one bit per cell instead of a body per tile.
+ * <p>
+ * The grid lies in the local space of the body, with the lower left corner of cell {@code (0, 0)} at the body origin.
+ * Columns go along the local x axis and rows along the local y axis, so cell {@code (column, row)} covers {@code
+ * [column * cellSize, (column + 1) * cellSize]} by {@code [row * cellSize, (row + 1) * cellSize]}.
+ * <p>
+ * Collisions don't test every tile. Instead, the solid cells under the other collider are merged into as few rectangles
+ * as possible, see {@link #forEachRectangle}, so that there are no seams between tiles for shapes to catch on.
+ */
+public class TileMapCollider implements ICollider {
+    /** The maximum amount of cached pieces, the cache is cleared when it grows beyond this */
+    public static final int MAX_PIECES = 4096;
+    /** The amount of slots of the piece table, twice the amount of pieces so that probe sequences stay short */
+    private static final int PIECE_SLOTS = MAX_PIECES * 2;
+
+    private final int columns;
+    private final int rows;
+    private final double cellSize;
+
+    /** The amount of words of each row */
+    private final int stride;
+    private final long[] cells;
+    private int solidCount;
+
+    private final Transform transform = Transform.identity();
+    private final AABB box = new AABB();
+    private final Vec2 tmp = new Vec2();
+
+    /** Scratch space of the narrow phase, reused for every collider tested against this tile map */
+    private final TileMapContacts contacts = new TileMapContacts();
+
+    // Boxes of merged rectangles, in an open addressing table with linear probing. Each slot is keyed by four ints:
+    // the lower left cell and the size in cells. The table is allocated when the first piece is cached.
+    private int[] pieceKeys;
+    private BoxCollider[] pieceBoxes;
+    private int pieceCount;
+
+    // Scratch space of forEachRectangle: the open rectangles of the previous row, as start column, end column and
+    // start row
+    private int[] open = new int[ 0 ];
+    private int[] next = new int[ 0 ];
+
+    public TileMapCollider( int columns, int rows, double cellSize ) {
+        if( columns <= 0 || rows <= 0 )
+            throw new IllegalArgumentException( "Tile map must have at least one column and row" );
+        if( ! ( cellSize > 0 ) || ! Double.isFinite( cellSize ) )
+            throw new IllegalArgumentException( "Cell size must be positive" );
+
+        this.columns = columns;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.stride = columns + 63 >> 6;
+        this.cells = new long[ stride * rows ];
+        recomputeBox();
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the amount of solid cells.
+     */
+    public int getSolidCount() {
+        return solidCount;
+    }
+
+    /**
+     * Checks whether a cell is solid. Cells outside the grid are empty.
+     */
+    public boolean isSolid( int column, int row ) {
+        if( column < 0 || column >= columns || row < 0 || row >= rows )
+            return false;
+        return ( cells[ row * stride + ( column >> 6 ) ] & 1L << column ) != 0;
+    }
+
+    public void setSolid( int column, int row, boolean solid ) {
+        checkCell( column, row );
+        int index = row * stride + ( column >> 6 );
+        long bit = 1L << column;
+        if( ( ( cells[ index ] & bit ) != 0 ) != solid ) {
+            cells[ index ] ^= bit;
+            solidCount += solid ? 1 : - 1;
+            clearPieces();
+        }
+    }
+
+    /**
+     * Makes a rectangle of cells solid or empty.
+     */
+    public void fill( int column, int row, int columns, int rows, boolean solid ) {
+        checkCell( column, row );
+        checkCell( column + columns - 1, row + rows - 1 );
+        for( int r = row; r < row + rows; r++ ) {
+            for( int c = column; c < column + columns; c++ ) {
+                setSolid( c, r, solid );
+            }
+        }
+    }
+
+    /**
+     * Returns the bitset of cells. Each row takes {@code (columns + 63) / 64} words, and bit {@code column % 64} of word
+     * {@code column / 64} of a row is set when that cell is solid.
+     *
+     * @param out The output words. When {@code null} or too short, a new array is created.
+     */
+    public long[] getCells( long[] out ) {
+        if( out == null || out.length < cells.length )
+            out = new long[ cells.length ];
+        System.arraycopy( cells, 0, out, 0, cells.length );
+        return out;
+    }
+
+    /**
+     * Replaces all cells by a bitset laid out like the one of {@link #getCells}.
+     */
+    public void setCells( long[] words ) {
+        if( words.length < cells.length )
+            throw new IllegalArgumentException( "Expected " + cells.length + " words, got " + words.length );
+
+        solidCount = 0;
+        long last = columns % 64 == 0 ? - 1L : ( 1L << columns % 64 ) - 1;
+        for( int i = 0; i < cells.length; i++ ) {
+            // Bits beyond the last column are not cells
+            long word = i % stride == stride - 1 ? words[ i ] & last : words[ i ];
+            cells[ i ] = word;
+            solidCount += Long.bitCount( word );
+        }
+        clearPieces();
+    }
+
+    /**
+     * Checks whether the cells of this tile map equal a bitset laid out like the one of {@link #getCells}.
+     */
+    public boolean hasCells( long[] words ) {
+        return words.length >= cells.length && Arrays.equals( cells, 0, cells.length, words, 0, cells.length );
+    }
+
+    /**
+     * Returns the column containing a local x coordinate, which may lie outside the grid.
+     */
+    public int column( double x ) {
+        return (int) Math.max( Integer.MIN_VALUE / 2, Math.min( Integer.MAX_VALUE / 2, Math.floor( x / cellSize ) ) );
+    }
+
+    /**
+     * Returns the row containing a local y coordinate, which may lie outside the grid.
+     */
+    public int row( double y ) {
+        return (int) Math.max( Integer.MIN_VALUE / 2, Math.min( Integer.MAX_VALUE / 2, Math.floor( y / cellSize ) ) );
+    }
+
+    /**
+     * Returns the scratch space used to collide other colliders with this tile map.
+     */
+    public TileMapContacts getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Returns the body transform, which maps local grid coordinates to global coordinates.
+     *
+     * @param out The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform getBodyTransform( Transform out ) {
+        return Transform.put( out, transform );
+    }
+
+    /**
+     * Computes the local box that covers a global box.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB toLocal( AABB global, AABB out ) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            tmp.set( ( i & 1 ) == 0 ? global.min.x : global.max.x, ( i & 2 ) == 0 ? global.min.y : global.max.y );
+            transform.mulInverse( tmp, tmp );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Merges the solid cells within a range of cells into rectangles, and calls the consumer for every rectangle. Solid
+     * cells in a row are merged into runs, and runs that span the same columns in consecutive rows are merged into one
+     * rectangle. The range is clipped to the grid.
+     * <p>
+     * Runs are not cut off by the range: they extend over the whole row, so that the same cells give the same
+     * rectangles for every range that only differs in columns, and {@linkplain #getPiece pieces} are reused.
+     * Rectangles are still cut off at the first and last row of the range.
+     */
+    public void forEachRectangle( int column, int row, int columns, int rows, IRectangleConsumer consumer ) {
+        int c0 = Math.max( column, 0 ), c1 = Math.min( column + columns, this.columns );
+        int r0 = Math.max( row, 0 ), r1 = Math.min( row + rows, this.rows );
+        if( c0 >= c1 || r0 >= r1 )
+            return;
+
+        int capacity = ( c1 - c0 + 1 ) / 2 * 3 + 3;
+        if( open.length < capacity ) {
+            open = new int[ capacity ];
+            next = new int[ capacity ];
+        }
+
+        int openCount = 0;
+        for( int r = r0; r < r1; r++ ) {
+            int nextCount = 0;
+            int o = 0;
+            int c = c0;
+            while( ( c = nextSolid( r, c, c1 ) ) < c1 ) {
+                int end = nextEmpty( r, c, this.columns );
+                if( c == c0 ) {
+                    c = runStart( r, c );
+                }
+
+                // Close the open rectangles that end before this run, they can't continue
+                while( o < openCount && open[ o * 3 ] < c ) {
+                    emit( open, o, r, consumer );
+                    o ++;
+                }
+
+                if( o < openCount && open[ o * 3 ] == c && open[ o * 3 + 1 ] == end ) {
+                    next[ nextCount * 3 ] = c;
+                    next[ nextCount * 3 + 1 ] = end;
+                    next[ nextCount * 3 + 2 ] = open[ o * 3 + 2 ];
+                    o ++;
+                } else {
+                    next[ nextCount * 3 ] = c;
+                    next[ nextCount * 3 + 1 ] = end;
+                    next[ nextCount * 3 + 2 ] = r;
+                }
+                nextCount ++;
+                c = end;
+            }
+            while( o < openCount ) {
+                emit( open, o, r, consumer );
+                o ++;
+            }
+
+            int[] swap = open;
+            open = next;
+            next = swap;
+            openCount = nextCount;
+        }
+        for( int o = 0; o < openCount; o++ ) {
+            emit( open, o, r1, consumer );
+        }
+    }
+
+    /**
+     * Returns a box covering a rectangle of cells, like the ones of {@link #forEachRectangle}. The box has no body
+     * transform of it's own: it is placed globally by it's offsets. Boxes are cached until this tile map moves or it's
+     * cells change, so they must not be modified. Only boxes that are not cached yet are allocated.
+     */
+    public BoxCollider getPiece( int column, int row, int columns, int rows ) {
+        if( pieceBoxes == null ) {
+            pieceKeys = new int[ PIECE_SLOTS * 4 ];
+            pieceBoxes = new BoxCollider[ PIECE_SLOTS ];
+        }
+
+        int slot = pieceSlot( column, row, columns, rows );
+        for( ; pieceBoxes[ slot ] != null; slot = slot + 1 & PIECE_SLOTS - 1 ) {
+            int k = slot * 4;
+            if( pieceKeys[ k ] == column && pieceKeys[ k + 1 ] == row && pieceKeys[ k + 2 ] == columns && pieceKeys[ k + 3 ] == rows )
+                return pieceBoxes[ slot ];
+        }
+        if( pieceCount >= MAX_PIECES ) {
+            clearPieces();
+            slot = pieceSlot( column, row, columns, rows );
+        }
+
+        double width = columns * cellSize, height = rows * cellSize;
+        transform.mul( ( column + columns / 2.0 ) * cellSize, ( row + rows / 2.0 ) * cellSize, tmp );
+        BoxCollider piece = ICollider.box().offset( tmp ).rotationOff( transform.angle ).size( width, height ).build();
+        int k = slot * 4;
+        pieceKeys[ k ] = column;
+        pieceKeys[ k + 1 ] = row;
+        pieceKeys[ k + 2 ] = columns;
+        pieceKeys[ k + 3 ] = rows;
+        pieceBoxes[ slot ] = piece;
+        pieceCount ++;
+        return piece;
+    }
+
+    /**
+     * Returns the first slot of the piece table to probe for a rectangle.
+     */
+    private static int pieceSlot( int column, int row, int columns, int rows ) {
+        int hash = ( ( column * 31 + row ) * 31 + columns ) * 31 + rows;
+        hash *= 0x9E3779B9;
+        return ( hash ^ hash >>> 16 ) & PIECE_SLOTS - 1;
+    }
+
+    private void clearPieces() {
+        if( pieceCount > 0 ) {
+            Arrays.fill( pieceBoxes, null );
+            pieceCount = 0;
+        }
+    }
+
+    private static void emit( int[] rects, int index, int endRow, IRectangleConsumer consumer ) {
+        int start = rects[ index * 3 ];
+        int row = rects[ index * 3 + 2 ];
+        consumer.accept( start, row, rects[ index * 3 + 1 ] - start, endRow - row );
+    }
+
+    /**
+     * Returns the first solid column in a row, from a column up to an end column, or the end column when there is none.
+     */
+    private int nextSolid( int row, int column, int end ) {
+        int base = row * stride;
+        while( column < end ) {
+            long word = cells[ base + ( column >> 6 ) ] >>> column;
+            if( word == 0 ) {
+                column = ( column | 63 ) + 1;
+            } else {
+                return Math.min( column + Long.numberOfTrailingZeros( word ), end );
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the first column of the run of solid cells that contains a solid column, which may lie before it.
+     */
+    private int runStart( int row, int column ) {
+        int base = row * stride;
+        while( column > 0 ) {
+            // The cells before the column within it's word, with the cell just before it as the highest bit
+            int before = column - 1;
+            long word = ~ cells[ base + ( before >> 6 ) ] << 63 - ( before & 63 );
+            if( word == 0 ) {
+                column = before & ~ 63;
+            } else {
+                return column - Long.numberOfLeadingZeros( word );
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the first empty column in a row, from a column up to an end column, or the end column when there is none.
+     */
+    private int nextEmpty( int row, int column, int end ) {
+        int base = row * stride;
+        while( column < end ) {
+            long word = ~ cells[ base + ( column >> 6 ) ] >>> column;
+            if( word == 0 ) {
+                column = ( column | 63 ) + 1;
+            } else {
+                return Math.min( column + Long.numberOfTrailingZeros( word ), end );
+            }
+        }
+        return end;
+    }
+
+    @Override
+    public boolean isCompound() {
+        return false;
+    }
+
+    /**
+     * Returns the box covering the whole grid, including empty cells.
+     */
+    @Override
+    public AABB getBox( AABB out ) {
+        return AABB.put( out, box );
+    }
+
+    @Override
+    public void setBodyTransform( Transform transform ) {
+        if( transform.tx == this.transform.tx && transform.ty == this.transform.ty && transform.angle == this.transform.angle )
+            return;
+
+        this.transform.set( transform );
+        recomputeBox();
+        clearPieces();
+    }
+
+    private void recomputeBox() {
+        double w = columns * cellSize, h = rows * cellSize;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < 4; i++ ) {
+            transform.mul( ( i & 1 ) == 0 ? 0 : w, ( i & 2 ) == 0 ? 0 : h, tmp );
+            minX = Math.min( minX, tmp.x );
+            minY = Math.min( minY, tmp.y );
+            maxX = Math.max( maxX, tmp.x );
+            maxY = Math.max( maxY, tmp.y );
+        }
+        box.set( minX, minY, maxX, maxY );
+    }
+
+    @Override
+    public boolean containsPoint( Vec2 point ) {
+        transform.mulInverse( point, tmp );
+        int c = column( tmp.x ), r = row( tmp.y );
+        if( isSolid( c, r ) )
+            return true;
+
+        // Points on the boundary are inside, so also check the cells that the point touches
+        boolean onX = tmp.x == c * cellSize, onY = tmp.y == r * cellSize;
+        return onX && isSolid( c - 1, r ) || onY && isSolid( c, r - 1 ) || onX && onY && isSolid( c - 1, r - 1 );
+    }
+
+    /**
+     * Checks whether any solid cell overlaps the local box covering a global box. For rotated tile maps, this local box
+     * is larger than the global box, so solid cells near the corners of the global box may overlap it falsely.
+     */
+    @Override
+    public boolean overlapsBox( AABB box ) {
+        AABB local = toLocal( box, null );
+        int c0 = Math.max( column( local.min.x - cellSize * 1E-9 ), 0 );
+        int c1 = Math.min( column( local.max.x + cellSize * 1E-9 ) + 1, columns );
+        int r0 = Math.max( row( local.min.y - cellSize * 1E-9 ), 0 );
+        int r1 = Math.min( row( local.max.y + cellSize * 1E-9 ) + 1, rows );
+        for( int r = r0; r < r1; r++ ) {
+            if( nextSolid( r, c0, c1 ) < c1 )
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public double computeMass( double density ) {
+        return solidCount * cellSize * cellSize * density;
+    }
+
+    @Override
+    public double computeInertia( double density ) {
+        return inertiaFactor() * density;
+    }
+
+    @Override
+    public double computeDensityFromInertia( double inertia ) {
+        return inertia / inertiaFactor();
+    }
+
+    @Override
+    public double computeDensityFromMass( double mass ) {
+        return mass / ( solidCount * cellSize * cellSize );
+    }
+
+    /**
+     * Computes the inertia per unit of density, around the body origin, by adding the inertia of every solid cell.
+     */
+    private double inertiaFactor() {
+        double area = cellSize * cellSize;
+        double sum = 0;
+        for( int r = 0; r < rows; r++ ) {
+            double y = ( r + 0.5 ) * cellSize;
+            for( int c = nextSolid( r, 0, columns ); c < columns; c = nextSolid( r, c + 1, columns ) ) {
+                double x = ( c + 0.5 ) * cellSize;
+                sum += area * ( area / 6 + x * x + y * y );
+            }
+        }
+        return sum;
+    }
+
+    private void checkCell( int column, int row ) {
+        if( column < 0 || column >= columns || row < 0 || row >= rows )
+            throw new IndexOutOfBoundsException( "Cell (" + column + ", " + row + ") out of range" );
+    }
+
+    /**
+     * Receives the rectangles of {@link #forEachRectangle}.
+     */
+    @FunctionalInterface
+    public interface IRectangleConsumer {
+        /**
+         * Accepts a rectangle of solid cells, given by it's lower left cell and it's size in cells.
+         */
+        void accept( int column, int row, int columns, int rows );
+    }
+}
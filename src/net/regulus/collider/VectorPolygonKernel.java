@@ -0,0 +1,91 @@
+package net.regulus.collider;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * The Vector API implementation of {@link IPolygonKernel}, which processes as many vertices at once as fit in a vector
+ * register, and the remaining vertices one by one. It does the same operations in the same order as the {@link
+ * ScalarPolygonKernel} and does not fuse multiplications and additions, so that it's results are exactly equal.
+ * Reductions over few vertices are left to the scalar kernel, since reducing the lanes of a vector costs more than the
+ * vector saves for them. This class must only be loaded when the {@code jdk.incubator.vector} module is present, see
+ * {@link PolygonKernels}.
+ */
+final class VectorPolygonKernel implements IPolygonKernel {
+    static final VectorPolygonKernel INSTANCE = new VectorPolygonKernel();
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /** Reductions over less vertices than this are done by the scalar kernel */
+    private static final int MIN_REDUCTION_COUNT = SPECIES.length() * 2;
+
+    private VectorPolygonKernel() {
+    }
+
+    @Override
+    public void transform( double[] x, double[] y, int count, Transform transform, double[] outX, double[] outY ) {
+        double cos = transform.cos, sin = transform.sin, tx = transform.tx, ty = transform.ty;
+        int i = 0;
+        for( int bound = SPECIES.loopBound( count ); i < bound; i += SPECIES.length() ) {
+            DoubleVector vx = DoubleVector.fromArray( SPECIES, x, i );
+            DoubleVector vy = DoubleVector.fromArray( SPECIES, y, i );
+            vx.mul( cos ).sub( vy.mul( sin ) ).add( tx ).intoArray( outX, i );
+            vx.mul( sin ).add( vy.mul( cos ) ).add( ty ).intoArray( outY, i );
+        }
+        for( ; i < count; i++ ) {
+            double vx = x[ i ], vy = y[ i ];
+            outX[ i ] = cos * vx - sin * vy + tx;
+            outY[ i ] = sin * vx + cos * vy + ty;
+        }
+    }
+
+    @Override
+    public void edges( double[] x, double[] y, int count, double[] outX, double[] outY ) {
+        int i = 0;
+        // The next vertex of the last vertex in a vector must exist, the closing edge is done separately
+        for( int bound = SPECIES.loopBound( count - 1 ); i < bound; i += SPECIES.length() ) {
+            DoubleVector.fromArray( SPECIES, x, i + 1 ).sub( DoubleVector.fromArray( SPECIES, x, i ) ).intoArray( outX, i );
+            DoubleVector.fromArray( SPECIES, y, i + 1 ).sub( DoubleVector.fromArray( SPECIES, y, i ) ).intoArray( outY, i );
+        }
+        for( ; i < count - 1; i++ ) {
+            outX[ i ] = x[ i + 1 ] - x[ i ];
+            outY[ i ] = y[ i + 1 ] - y[ i ];
+        }
+        if( count > 0 ) {
+            outX[ count - 1 ] = x[ 0 ] - x[ count - 1 ];
+            outY[ count - 1 ] = y[ 0 ] - y[ count - 1 ];
+        }
+    }
+
+    @Override
+    public AABB bounds( double[] x, double[] y, int count, AABB out ) {
+        if( count < MIN_REDUCTION_COUNT )
+            return ScalarPolygonKernel.INSTANCE.bounds( x, y, count, out );
+
+        DoubleVector loX = DoubleVector.broadcast( SPECIES, Double.POSITIVE_INFINITY ), loY = loX;
+        DoubleVector hiX = DoubleVector.broadcast( SPECIES, Double.NEGATIVE_INFINITY ), hiY = hiX;
+        int i = 0;
+        for( int bound = SPECIES.loopBound( count ); i < bound; i += SPECIES.length() ) {
+            DoubleVector vx = DoubleVector.fromArray( SPECIES, x, i );
+            DoubleVector vy = DoubleVector.fromArray( SPECIES, y, i );
+            loX = loX.min( vx );
+            loY = loY.min( vy );
+            hiX = hiX.max( vx );
+            hiY = hiY.max( vy );
+        }
+        double minX = loX.reduceLanes( MIN ), minY = loY.reduceLanes( MIN );
+        double maxX = hiX.reduceLanes( MAX ), maxY = hiY.reduceLanes( MAX );
+        for( ; i < count; i++ ) {
+            minX = Math.min( x[ i ], minX );
+            minY = Math.min( y[ i ], minY );
+            maxX = Math.max( x[ i ], maxX );
+            maxY = Math.max( y[ i ], maxY );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+}
@@ -0,0 +1,543 @@
+package net.regulus.detection.broadphase;
+
+import java.util.Arrays;
+
+import net.regulus.geom.AABB;
+
+/**
+ * A dynamic bounding volume hierarchy over axis-aligned bounding boxes. Every leaf of the tree is a proxy that holds a
+ * 'fat' box, which is the box it was inserted with grown by a fixed margin. A proxy only needs to be reinserted when its
+ * actual box leaves its fat box, which keeps updates cheap for slow-moving objects. The tree is kept balanced using
+ * AVL-like rotations.
+ * <p>
+ * Nodes are stored in flat arrays and identified by their index, so that traversals don't chase object references.
+ * Boxes inserted into this tree must be finite.
+ */
+public class AABBTree {
+    /** The id that represents 'no node' */
+    public static final int NULL = - 1;
+
+    private final double margin;
+
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int[] parent; // Doubles as 'next' pointer for nodes in the free list
+    private int[] child1;
+    private int[] child2;
+    private int[] height;
+    private Object[] data;
+
+    private int capacity;
+    private int proxyCount;
+    private int root = NULL;
+    private int freeList = NULL;
+
+    private int[] stack = new int[ 64 ];
+
+    /**
+     * Creates an empty tree.
+     *
+     * @param margin The amount by which inserted boxes are grown along each axis
+     */
+    public AABBTree( double margin ) {
+        this.margin = margin;
+        allocate( 16 );
+    }
+
+    /**
+     * Inserts a new proxy into this tree.
+     *
+     * @param box  The initial box of the proxy
+     * @param data The user data attached to the proxy
+     * @return The id of the created proxy
+     */
+    public int createProxy( AABB box, Object data ) {
+        int proxy = allocateNode();
+        setFat( proxy, box );
+        this.data[ proxy ] = data;
+        height[ proxy ] = 0;
+        insertLeaf( proxy );
+        proxyCount ++;
+        return proxy;
+    }
+
+    /**
+     * Removes a proxy from this tree.
+     *
+     * @param proxy The id of the proxy to remove
+     */
+    public void destroyProxy( int proxy ) {
+        checkProxy( proxy );
+        removeLeaf( proxy );
+        freeNode( proxy );
+        proxyCount --;
+    }
+
+    /**
+     * Updates the box of a proxy. The proxy is only reinserted when the new box is not contained in its fat box.
+     *
+     * @param proxy The id of the proxy to move
+     * @param box   The new box of the proxy
+     * @return True when the proxy was reinserted
+     */
+    public boolean moveProxy( int proxy, AABB box ) {
+        checkProxy( proxy );
+        if( minX[ proxy ] <= box.min.x && minY[ proxy ] <= box.min.y
+                && maxX[ proxy ] >= box.max.x && maxY[ proxy ] >= box.max.y ) {
+            return false;
+        }
+
+        removeLeaf( proxy );
+        setFat( proxy, box );
+        insertLeaf( proxy );
+        return true;
+    }
+
+    /**
+     * Returns the user data of a proxy.
+     */
+    public Object getData( int proxy ) {
+        checkProxy( proxy );
+        return data[ proxy ];
+    }
+
+    /**
+     * Returns the fat box of a proxy, putting it in the specified output AABB.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB getFatBox( int proxy, AABB out ) {
+        checkProxy( proxy );
+        return AABB.put( out, minX[ proxy ], minY[ proxy ], maxX[ proxy ], maxY[ proxy ] );
+    }
+
+    /**
+     * Returns the amount of proxies in this tree.
+     */
+    public int size() {
+        return proxyCount;
+    }
+
+    /**
+     * Returns the height of this tree, which is zero for a tree with only one proxy, and -1 for an empty tree.
+     */
+    public int getHeight() {
+        return root == NULL ? - 1 : height[ root ];
+    }
+
+    /**
+     * Visits all proxies whose fat box overlaps the specified box.
+     *
+     * @param box      The box to query
+     * @param callback The callback, which is called for every overlapping proxy
+     */
+    public void query( AABB box, ITreeCallback callback ) {
+        query( box.min.x, box.min.y, box.max.x, box.max.y, callback );
+    }
+
+    /**
+     * Visits all proxies whose fat box overlaps the specified box.
+     *
+     * @param callback The callback, which is called for every overlapping proxy
+     */
+    public void query( double qMinX, double qMinY, double qMaxX, double qMaxY, ITreeCallback callback ) {
+        if( root == NULL )
+            return;
+
+        int sp = 0;
+        stack[ sp ++ ] = root;
+        while( sp > 0 ) {
+            int node = stack[ -- sp ];
+            if( minX[ node ] > qMaxX || maxX[ node ] < qMinX || minY[ node ] > qMaxY || maxY[ node ] < qMinY ) {
+                continue;
+            }
+
+            if( child1[ node ] == NULL ) {
+                if( ! callback.visit( node ) ) {
+                    return;
+                }
+            } else {
+                sp = push( sp, child1[ node ], child2[ node ] );
+            }
+        }
+    }
+
+    /**
+     * Visits all proxies whose fat box is hit by the specified segment, which goes from {@code (x1, y1)} to {@code (x2,
+     * y2)}. The callback returns the maximum fraction along the segment that remains interesting: returning a smaller
+     * fraction than the one passed clips the segment, returning zero stops the traversal.
+     *
+     * @param maxFraction The initial fraction of the segment to consider
+     * @param callback    The callback, which is called for every proxy hit by the segment
+     */
+    public void raycast( double x1, double y1, double x2, double y2, double maxFraction, ITreeRaycastCallback callback ) {
+        if( root == NULL )
+            return;
+
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double len = Math.sqrt( dx * dx + dy * dy );
+        if( len == 0 )
+            return;
+
+        // Axis perpendicular to the segment, used as separating axis
+        double vx = - dy / len;
+        double vy = dx / len;
+        double avx = Math.abs( vx );
+        double avy = Math.abs( vy );
+
+        double ex = x1 + maxFraction * dx;
+        double ey = y1 + maxFraction * dy;
+        double sMinX = Math.min( x1, ex ), sMinY = Math.min( y1, ey );
+        double sMaxX = Math.max( x1, ex ), sMaxY = Math.max( y1, ey );
+
+        int sp = 0;
+        stack[ sp ++ ] = root;
+        while( sp > 0 ) {
+            int node = stack[ -- sp ];
+            if( minX[ node ] > sMaxX || maxX[ node ] < sMinX || minY[ node ] > sMaxY || maxY[ node ] < sMinY ) {
+                continue;
+            }
+
+            double hx = ( maxX[ node ] - minX[ node ] ) / 2;
+            double hy = ( maxY[ node ] - minY[ node ] ) / 2;
+            double cx = minX[ node ] + hx;
+            double cy = minY[ node ] + hy;
+            double separation = Math.abs( vx * ( x1 - cx ) + vy * ( y1 - cy ) ) - ( avx * hx + avy * hy );
+            if( separation > 0 ) {
+                continue;
+            }
+
+            if( child1[ node ] == NULL ) {
+                double value = callback.visit( node, maxFraction );
+                if( value <= 0 ) {
+                    return;
+                }
+                if( value < maxFraction ) {
+                    maxFraction = value;
+                    ex = x1 + maxFraction * dx;
+                    ey = y1 + maxFraction * dy;
+                    sMinX = Math.min( x1, ex );
+                    sMinY = Math.min( y1, ey );
+                    sMaxX = Math.max( x1, ex );
+                    sMaxY = Math.max( y1, ey );
+                }
+            } else {
+                sp = push( sp, child1[ node ], child2[ node ] );
+            }
+        }
+    }
+
+    private int push( int sp, int a, int b ) {
+        if( sp + 2 > stack.length ) {
+            stack = Arrays.copyOf( stack, stack.length * 2 );
+        }
+        stack[ sp ++ ] = a;
+        stack[ sp ++ ] = b;
+        return sp;
+    }
+
+    private void checkProxy( int proxy ) {
+        if( proxy < 0 || proxy >= capacity || height[ proxy ] != 0 ) {
+            throw new IllegalArgumentException( "Not a proxy: " + proxy );
+        }
+    }
+
+    private void setFat( int node, AABB box ) {
+        minX[ node ] = box.min.x - margin;
+        minY[ node ] = box.min.y - margin;
+        maxX[ node ] = box.max.x + margin;
+        maxY[ node ] = box.max.y + margin;
+    }
+
+    private void allocate( int newCapacity ) {
+        int old = capacity;
+        if( old == 0 ) {
+            minX = new double[ newCapacity ];
+            minY = new double[ newCapacity ];
+            maxX = new double[ newCapacity ];
+            maxY = new double[ newCapacity ];
+            parent = new int[ newCapacity ];
+            child1 = new int[ newCapacity ];
+            child2 = new int[ newCapacity ];
+            height = new int[ newCapacity ];
+            data = new Object[ newCapacity ];
+        } else {
+            minX = Arrays.copyOf( minX, newCapacity );
+            minY = Arrays.copyOf( minY, newCapacity );
+            maxX = Arrays.copyOf( maxX, newCapacity );
+            maxY = Arrays.copyOf( maxY, newCapacity );
+            parent = Arrays.copyOf( parent, newCapacity );
+            child1 = Arrays.copyOf( child1, newCapacity );
+            child2 = Arrays.copyOf( child2, newCapacity );
+            height = Arrays.copyOf( height, newCapacity );
+            data = Arrays.copyOf( data, newCapacity );
+        }
+        capacity = newCapacity;
+
+        // Chain the new nodes into the free list
+        for( int i = old; i < newCapacity; i++ ) {
+            parent[ i ] = i + 1 < newCapacity ? i + 1 : freeList;
+            height[ i ] = - 1;
+        }
+        freeList = old;
+    }
+
+    private int allocateNode() {
+        if( freeList == NULL ) {
+            allocate( capacity * 2 );
+        }
+        int node = freeList;
+        freeList = parent[ node ];
+        parent[ node ] = NULL;
+        child1[ node ] = NULL;
+        child2[ node ] = NULL;
+        height[ node ] = 0;
+        data[ node ] = null;
+        return node;
+    }
+
+    private void freeNode( int node ) {
+        parent[ node ] = freeList;
+        height[ node ] = - 1;
+        data[ node ] = null;
+        freeList = node;
+    }
+
+    private static double perimeter( double x0, double y0, double x1, double y1 ) {
+        return 2 * ( x1 - x0 + y1 - y0 );
+    }
+
+    private double perimeter( int node ) {
+        return perimeter( minX[ node ], minY[ node ], maxX[ node ], maxY[ node ] );
+    }
+
+    private double unionPerimeter( int a, int b ) {
+        return perimeter(
+            Math.min( minX[ a ], minX[ b ] ), Math.min( minY[ a ], minY[ b ] ),
+            Math.max( maxX[ a ], maxX[ b ] ), Math.max( maxY[ a ], maxY[ b ] )
+        );
+    }
+
+    private void unite( int a, int b, int out ) {
+        double x0 = Math.min( minX[ a ], minX[ b ] );
+        double y0 = Math.min( minY[ a ], minY[ b ] );
+        double x1 = Math.max( maxX[ a ], maxX[ b ] );
+        double y1 = Math.max( maxY[ a ], maxY[ b ] );
+        minX[ out ] = x0;
+        minY[ out ] = y0;
+        maxX[ out ] = x1;
+        maxY[ out ] = y1;
+    }
+
+    private void insertLeaf( int leaf ) {
+        if( root == NULL ) {
+            root = leaf;
+            parent[ root ] = NULL;
+            return;
+        }
+
+        // Find the best sibling using the surface area heuristic (perimeter in 2D)
+        int index = root;
+        while( child1[ index ] != NULL ) {
+            int c1 = child1[ index ];
+            int c2 = child2[ index ];
+
+            double area = perimeter( index );
+            double combinedArea = unionPerimeter( index, leaf );
+
+            // Cost of creating a new parent for this node and the new leaf
+            double cost = 2 * combinedArea;
+
+            // Minimum cost of pushing the leaf further down the tree
+            double inheritanceCost = 2 * ( combinedArea - area );
+
+            double cost1 = descendCost( c1, leaf ) + inheritanceCost;
+            double cost2 = descendCost( c2, leaf ) + inheritanceCost;
+
+            if( cost < cost1 && cost < cost2 ) {
+                break;
+            }
+
+            index = cost1 < cost2 ? c1 : c2;
+        }
+
+        int sibling = index;
+
+        // Create a new parent
+        int oldParent = parent[ sibling ];
+        int newParent = allocateNode();
+        parent[ newParent ] = oldParent;
+        unite( leaf, sibling, newParent );
+        height[ newParent ] = height[ sibling ] + 1;
+
+        if( oldParent != NULL ) {
+            if( child1[ oldParent ] == sibling ) {
+                child1[ oldParent ] = newParent;
+            } else {
+                child2[ oldParent ] = newParent;
+            }
+        } else {
+            root = newParent;
+        }
+        child1[ newParent ] = sibling;
+        child2[ newParent ] = leaf;
+        parent[ sibling ] = newParent;
+        parent[ leaf ] = newParent;
+
+        refit( parent[ leaf ] );
+    }
+
+    private double descendCost( int child, int leaf ) {
+        double combined = unionPerimeter( child, leaf );
+        if( child1[ child ] == NULL ) {
+            return combined;
+        }
+        return combined - perimeter( child );
+    }
+
+    private void removeLeaf( int leaf ) {
+        if( leaf == root ) {
+            root = NULL;
+            return;
+        }
+
+        int par = parent[ leaf ];
+        int grandParent = parent[ par ];
+        int sibling = child1[ par ] == leaf ? child2[ par ] : child1[ par ];
+
+        if( grandParent != NULL ) {
+            // Destroy parent and connect sibling to grand parent
+            if( child1[ grandParent ] == par ) {
+                child1[ grandParent ] = sibling;
+            } else {
+                child2[ grandParent ] = sibling;
+            }
+            parent[ sibling ] = grandParent;
+            freeNode( par );
+
+            refit( grandParent );
+        } else {
+            root = sibling;
+            parent[ sibling ] = NULL;
+            freeNode( par );
+        }
+    }
+
+    /**
+     * Walks from the specified node up to the root, balancing and fixing heights and boxes.
+     */
+    private void refit( int index ) {
+        while( index != NULL ) {
+            index = balance( index );
+
+            int c1 = child1[ index ];
+            int c2 = child2[ index ];
+
+            height[ index ] = 1 + Math.max( height[ c1 ], height[ c2 ] );
+            unite( c1, c2, index );
+
+            index = parent[ index ];
+        }
+    }
+
+    /**
+     * Performs a left or right rotation if node A is imbalanced.
+     *
+     * @return The new root index of the rotated subtree
+     */
+    private int balance( int iA ) {
+        if( child1[ iA ] == NULL || height[ iA ] < 2 ) {
+            return iA;
+        }
+
+        int iB = child1[ iA ];
+        int iC = child2[ iA ];
+
+        int bal = height[ iC ] - height[ iB ];
+
+        // Rotate C up
+        if( bal > 1 ) {
+            int iF = child1[ iC ];
+            int iG = child2[ iC ];
+
+            // Swap A and C
+            child1[ iC ] = iA;
+            parent[ iC ] = parent[ iA ];
+            parent[ iA ] = iC;
+
+            replaceChild( parent[ iC ], iA, iC );
+
+            if( height[ iF ] > height[ iG ] ) {
+                child2[ iC ] = iF;
+                child2[ iA ] = iG;
+                parent[ iG ] = iA;
+                unite( iB, iG, iA );
+                unite( iA, iF, iC );
+
+                height[ iA ] = 1 + Math.max( height[ iB ], height[ iG ] );
+                height[ iC ] = 1 + Math.max( height[ iA ], height[ iF ] );
+            } else {
+                child2[ iC ] = iG;
+                child2[ iA ] = iF;
+                parent[ iF ] = iA;
+                unite( iB, iF, iA );
+                unite( iA, iG, iC );
+
+                height[ iA ] = 1 + Math.max( height[ iB ], height[ iF ] );
+                height[ iC ] = 1 + Math.max( height[ iA ], height[ iG ] );
+            }
+
+            return iC;
+        }
+
+        // Rotate B up
+        if( bal < - 1 ) {
+            int iD = child1[ iB ];
+            int iE = child2[ iB ];
+
+            // Swap A and B
+            child1[ iB ] = iA;
+            parent[ iB ] = parent[ iA ];
+            parent[ iA ] = iB;
+
+            replaceChild( parent[ iB ], iA, iB );
+
+            if( height[ iD ] > height[ iE ] ) {
+                child2[ iB ] = iD;
+                child1[ iA ] = iE;
+                parent[ iE ] = iA;
+                unite( iC, iE, iA );
+                unite( iA, iD, iB );
+
+                height[ iA ] = 1 + Math.max( height[ iC ], height[ iE ] );
+                height[ iB ] = 1 + Math.max( height[ iA ], height[ iD ] );
+            } else {
+                child2[ iB ] = iE;
+                child1[ iA ] = iD;
+                parent[ iD ] = iA;
+                unite( iC, iD, iA );
+                unite( iA, iE, iB );
+
+                height[ iA ] = 1 + Math.max( height[ iC ], height[ iD ] );
+                height[ iB ] = 1 + Math.max( height[ iA ], height[ iE ] );
+            }
+
+            return iB;
+        }
+
+        return iA;
+    }
+
+    private void replaceChild( int par, int oldChild, int newChild ) {
+        if( par == NULL ) {
+            root = newChild;
+        } else if( child1[ par ] == oldChild ) {
+            child1[ par ] = newChild;
+        } else {
+            child2[ par ] = newChild;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.regulus.detection.broadphase;
+
+import java.util.Arrays;
+
+import net.regulus.geom.AABB;
+
+/**
+ * A list of boxes stored as four arrays of bounds, so that one box can be tested against all of them at once by an
+ * {@link IBoxKernel}. The result of such a test is a bitmask with a bit for every box, which is iterated like this:
+ * <pre>{@code
+ * masks = batch.overlaps( box, masks );
+ * for( int w = 0, words = BoxBatch.words( batch.size() ); w < words; w++ ) {
+ *     for( long bits = masks[ w ]; bits != 0; bits &= bits - 1 ) {
+ *         int index = w << 6 | Long.numberOfTrailingZeros( bits );
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ * Boxes are usually stored at the index of the object they belong to. Objects without a box get an empty box, which
+ * overlaps nothing.
+ */
+public final class BoxBatch {
+    private double[] minX = new double[ 0 ];
+    private double[] minY = new double[ 0 ];
+    private double[] maxX = new double[ 0 ];
+    private double[] maxY = new double[ 0 ];
+    private int size;
+
+    private final IBoxKernel kernel;
+
+    /**
+     * Creates an empty batch that uses the {@linkplain BoxKernels#get() default kernel}.
+     */
+    public BoxBatch() {
+        this( BoxKernels.get() );
+    }
+
+    /**
+     * Creates an empty batch that uses the specified kernel.
+     */
+    public BoxBatch( IBoxKernel kernel ) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Returns the amount of words of a bitmask over the specified amount of boxes.
+     */
+    public static int words( int count ) {
+        return count + 63 >> 6;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the amount of boxes. Boxes that are added by this have undefined bounds until they are set.
+     */
+    public void resize( int size ) {
+        if( minX.length < size ) {
+            int capacity = Math.max( size, minX.length * 2 );
+            minX = Arrays.copyOf( minX, capacity );
+            minY = Arrays.copyOf( minY, capacity );
+            maxX = Arrays.copyOf( maxX, capacity );
+            maxY = Arrays.copyOf( maxY, capacity );
+        }
+        this.size = size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a box at the end of this batch.
+     *
+     * @return The index of the box
+     */
+    public int add( AABB box ) {
+        int index = size;
+        resize( size + 1 );
+        set( index, box );
+        return index;
+    }
+
+    public void set( int index, AABB box ) {
+        checkIndex( index );
+        minX[ index ] = box.min.x;
+        minY[ index ] = box.min.y;
+        maxX[ index ] = box.max.x;
+        maxY[ index ] = box.max.y;
+    }
+
+    /**
+     * Sets a box to the empty box, which overlaps nothing, not even infinite boxes.
+     */
+    public void setEmpty( int index ) {
+        checkIndex( index );
+        // Every comparison with NaN fails
+        minX[ index ] = Double.NaN;
+        minY[ index ] = Double.NaN;
+        maxX[ index ] = Double.NaN;
+        maxY[ index ] = Double.NaN;
+    }
+
+    /**
+     * Returns a box of this batch.
+     *
+     * @param out The output AABB. When {@code null}, a new AABB is created.
+     */
+    public AABB get( int index, AABB out ) {
+        checkIndex( index );
+        return AABB.put( out, minX[ index ], minY[ index ], maxX[ index ], maxY[ index ] );
+    }
+
+    /**
+     * Checks whether a box of this batch overlaps another box of this batch.
+     */
+    public boolean overlaps( int a, int b ) {
+        checkIndex( a );
+        checkIndex( b );
+        return minX[ a ] <= maxX[ b ] && maxX[ a ] >= minX[ b ] && minY[ a ] <= maxY[ b ] && maxY[ a ] >= minY[ b ];
+    }
+
+    /**
+     * Tests a box against all boxes of this batch at once.
+     *
+     * @param out The output words. When {@code null} or too short, a new array is created.
+     * @return The bitmask of boxes that overlap the specified box, see {@link BoxBatch}
+     */
+    public long[] overlaps( AABB box, long[] out ) {
+        return overlaps( box.min.x, box.min.y, box.max.x, box.max.y, out );
+    }
+
+    /**
+     * Tests a box, given by it's bounds, against all boxes of this batch at once.
+     *
+     * @param out The output words. When {@code null} or too short, a new array is created.
+     * @return The bitmask of boxes that overlap the specified box, see {@link BoxBatch}
+     */
+    public long[] overlaps( double qMinX, double qMinY, double qMaxX, double qMaxY, long[] out ) {
+        int words = words( size );
+        if( out == null || out.length < words )
+            out = new long[ Math.max( words, 1 ) ];
+        kernel.overlaps( minX, minY, maxX, maxY, size, qMinX, qMinY, qMaxX, qMaxY, out );
+        return out;
+    }
+
+    private void checkIndex( int index ) {
+        if( index < 0 || index >= size )
+            throw new IndexOutOfBoundsException( "Box " + index + " out of range" );
+    }
+}
@@ -0,0 +1,50 @@
+package net.regulus.detection.broadphase;
+
+/**
+ * Selects the {@link IBoxKernel} used by {@link BoxBatch}es. The Vector API kernel is used when the {@code
+ * jdk.incubator.vector} module is present (for example when running with {@code --add-modules jdk.incubator.vector}),
+ * otherwise the scalar kernel is used. Setting the system property {@code regulus.simd} to {@code false} forces the
+ * scalar kernel.
+ */
+public final class BoxKernels {
+    private static final IBoxKernel KERNEL = select();
+
+    private BoxKernels() {
+    }
+
+    /**
+     * Returns the kernel used by box batches.
+     */
+    public static IBoxKernel get() {
+        return KERNEL;
+    }
+
+    /**
+     * Returns the scalar kernel, which is always available.
+     */
+    public static IBoxKernel scalar() {
+        return ScalarBoxKernel.INSTANCE;
+    }
+
+    /**
+     * Returns true when box batches use the Vector API.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != ScalarBoxKernel.INSTANCE;
+    }
+
+    private static IBoxKernel select() {
+        if( ! Boolean.parseBoolean( System.getProperty( "regulus.simd", "true" ) ) )
+            return ScalarBoxKernel.INSTANCE;
+        if( ! ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isPresent() )
+            return ScalarBoxKernel.INSTANCE;
+
+        try {
+            // Only touch the vector kernel now, loading it without the module present would fail
+            if( VectorBoxKernel.fits() )
+                return VectorBoxKernel.INSTANCE;
+        } catch( LinkageError ignored ) {
+        }
+        return ScalarBoxKernel.INSTANCE;
+    }
+}
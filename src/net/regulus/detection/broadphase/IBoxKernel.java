@@ -0,0 +1,18 @@
+package net.regulus.detection.broadphase;
+
+/**
+ * Tests one box against many boxes at once, for a {@link BoxBatch}. The boxes are stored as separate arrays of their
+ * bounds, and the result is a bitmask: bit {@code i % 64} of word {@code i / 64} is set when box {@code i} overlaps the
+ * query box. Boxes that touch overlap, like in {@link net.regulus.geom.AABB#overlap}.
+ */
+public interface IBoxKernel {
+    /**
+     * Tests a query box against boxes, setting the bits of the overlapping boxes and clearing all other bits of the
+     * words that cover them.
+     *
+     * @param count The amount of boxes
+     * @param masks The output words, at least {@link BoxBatch#words(int)} of the count
+     */
+    void overlaps( double[] minX, double[] minY, double[] maxX, double[] maxY, int count,
+                   double qMinX, double qMinY, double qMaxX, double qMaxY, long[] masks );
+}
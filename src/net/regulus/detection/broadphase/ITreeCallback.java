@@ -0,0 +1,12 @@
+package net.regulus.detection.broadphase;
+
+@FunctionalInterface
+public interface ITreeCallback {
+    /**
+     * Called for every proxy found by a query.
+     *
+     * @param proxy The id of the found proxy
+     * @return True to continue the query, false to stop it
+     */
+    boolean visit( int proxy );
+}
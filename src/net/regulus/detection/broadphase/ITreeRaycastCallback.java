@@ -0,0 +1,14 @@
+package net.regulus.detection.broadphase;
+
+@FunctionalInterface
+public interface ITreeRaycastCallback {
+    /**
+     * Called for every proxy whose box is hit by a ray.
+     *
+     * @param proxy       The id of the hit proxy
+     * @param maxFraction The fraction of the ray that is currently considered
+     * @return The new maximum fraction: {@code maxFraction} to continue unchanged, a smaller value to clip the ray, or
+     *     zero to stop the traversal
+     */
+    double visit( int proxy, double maxFraction );
+}
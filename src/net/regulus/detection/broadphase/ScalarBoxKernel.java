@@ -0,0 +1,24 @@
+package net.regulus.detection.broadphase;
+
+/**
+ * The plain Java implementation of {@link IBoxKernel}, used when the Vector API is not available.
+ */
+final class ScalarBoxKernel implements IBoxKernel {
+    static final ScalarBoxKernel INSTANCE = new ScalarBoxKernel();
+
+    private ScalarBoxKernel() {
+    }
+
+    @Override
+    public void overlaps( double[] minX, double[] minY, double[] maxX, double[] maxY, int count,
+                          double qMinX, double qMinY, double qMaxX, double qMaxY, long[] masks ) {
+        for( int w = 0, words = BoxBatch.words( count ); w < words; w++ ) {
+            long word = 0;
+            for( int i = w << 6, end = Math.min( count, i + 64 ), bit = 0; i < end; i++, bit++ ) {
+                if( minX[ i ] <= qMaxX && maxX[ i ] >= qMinX && minY[ i ] <= qMaxY && maxY[ i ] >= qMinY )
+                    word |= 1L << bit;
+            }
+            masks[ w ] = word;
+        }
+    }
+}
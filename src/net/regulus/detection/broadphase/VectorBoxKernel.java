@@ -0,0 +1,72 @@
+package net.regulus.detection.broadphase;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * The Vector API implementation of {@link IBoxKernel}, which tests as many boxes at once as fit in a vector register.
+ * Each lane picks the bit of it's box from a table when it's box overlaps, and the picked bits are combined into a word
+ * once every 64 boxes. This class must only be loaded when the {@code jdk.incubator.vector} module is present, see
+ * {@link BoxKernels}.
+ */
+final class VectorBoxKernel implements IBoxKernel {
+    static final VectorBoxKernel INSTANCE = new VectorBoxKernel();
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // Bit i of a word, stored as the double with the same bits so that it can be blended by a double mask
+    private static final double[] BITS = new double[ 64 ];
+
+    static {
+        for( int i = 0; i < 64; i++ ) {
+            BITS[ i ] = Double.longBitsToDouble( 1L << i );
+        }
+    }
+
+    private VectorBoxKernel() {
+    }
+
+    static boolean fits() {
+        // Whole vectors must fill whole words
+        return 64 % SPECIES.length() == 0;
+    }
+
+    @Override
+    public void overlaps( double[] minX, double[] minY, double[] maxX, double[] maxY, int count,
+                          double qMinX, double qMinY, double qMaxX, double qMaxY, long[] masks ) {
+        DoubleVector vMinX = DoubleVector.broadcast( SPECIES, qMinX );
+        DoubleVector vMinY = DoubleVector.broadcast( SPECIES, qMinY );
+        DoubleVector vMaxX = DoubleVector.broadcast( SPECIES, qMaxX );
+        DoubleVector vMaxY = DoubleVector.broadcast( SPECIES, qMaxY );
+        DoubleVector zero = DoubleVector.zero( SPECIES );
+        LongVector none = zero.reinterpretAsLongs();
+
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound( count );
+        int i = 0;
+        LongVector bits = none;
+        for( ; i < bound; i += lanes ) {
+            VectorMask<Double> hit = DoubleVector.fromArray( SPECIES, minX, i ).compare( LE, vMaxX )
+                                                 .and( DoubleVector.fromArray( SPECIES, maxX, i ).compare( GE, vMinX ) )
+                                                 .and( DoubleVector.fromArray( SPECIES, minY, i ).compare( LE, vMaxY ) )
+                                                 .and( DoubleVector.fromArray( SPECIES, maxY, i ).compare( GE, vMinY ) );
+            bits = bits.or( zero.blend( DoubleVector.fromArray( SPECIES, BITS, i & 63 ), hit ).reinterpretAsLongs() );
+            if( ( ( i + lanes ) & 63 ) == 0 ) {
+                masks[ i >> 6 ] = bits.reduceLanes( OR );
+                bits = none;
+            }
+        }
+
+        long word = bits.reduceLanes( OR );
+        for( ; i < count; i++ ) {
+            if( minX[ i ] <= qMaxX && maxX[ i ] >= qMinX && minY[ i ] <= qMaxY && maxY[ i ] >= qMinY )
+                word |= 1L << ( i & 63 );
+        }
+        if( ( count & 63 ) != 0 )
+            masks[ count >> 6 ] = word;
+    }
+}
@@ -0,0 +1,39 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.BarCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Vec2;
+
+public final class BarRaycast {
+    private BarRaycast() {
+    }
+
+    public static boolean cast( BarCollider a, Line ray, RaycastResult out ) {
+        Vec2 normal = a.getNormal( null );
+        Vec2 center = a.getCenter( null );
+        double radius = a.getWidth() / 2;
+
+        Vec2 rel = ray.pointA.sub( center, null );
+        double startDist = rel.dot( normal );
+        if( startDist >= - radius && startDist <= radius )
+            return false; // Starts inside the bar
+
+        Vec2 dir = ray.edge( rel );
+        double dot = dir.dot( normal );
+
+        // Select the side of the bar the ray starts on
+        double signum = startDist > 0 ? 1 : - 1;
+        if( dot * signum >= 0 )
+            return false; // Parallel or pointing away
+
+        double t = ( radius * signum - startDist ) / dot;
+        if( t > 1 )
+            return false;
+
+        out.fraction = t;
+        ray.interpolate( t, out.point );
+        normal.mul( signum, out.normal );
+        out.collider = a;
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.LineDistance;
+import net.regulus.geom.LineIntersection;
+import net.regulus.geom.Vec2;
+
+public final class CapsuleRaycast {
+    private CapsuleRaycast() {
+    }
+
+    public static boolean cast( CapsuleCollider a, Line ray, RaycastResult out ) {
+        Line rig = new Line();
+        a.getLeft( rig.pointA );
+        a.getRight( rig.pointB );
+        double radius = a.getRadius();
+
+        LineDistance ld = new LineDistance( ray.pointA, rig );
+        if( ld.distance <= radius )
+            return false; // Starts inside
+
+        RaycastResult tmp = new RaycastResult();
+        double best = Double.POSITIVE_INFINITY;
+
+        // Both end caps
+        if( CircleRaycast.cast( rig.pointA.x, rig.pointA.y, radius, ray, tmp ) && tmp.fraction < best ) {
+            best = tmp.fraction;
+            out.set( tmp );
+        }
+        if( CircleRaycast.cast( rig.pointB.x, rig.pointB.y, radius, ray, tmp ) && tmp.fraction < best ) {
+            best = tmp.fraction;
+            out.set( tmp );
+        }
+
+        // Both sides: the rig, offset by the radius along it's normal
+        Vec2 rigNormal = rig.edge( null ).perp( null ).norm( null );
+        Vec2 dir = ray.edge( null );
+        Vec2 offset = new Vec2();
+        LineIntersection isc = new LineIntersection();
+        isc.lineA.set( ray );
+        for( int side = - 1; side <= 1; side += 2 ) {
+            if( dir.dot( rigNormal ) * side >= 0 )
+                continue; // Only hit the side facing the ray
+
+            rigNormal.mul( radius * side, offset );
+            rig.pointA.add( offset, isc.lineB.pointA );
+            rig.pointB.add( offset, isc.lineB.pointB );
+            isc.intersect();
+
+            if( isc.segA() && isc.segB() && isc.uA < best ) {
+                best = isc.uA;
+                out.fraction = isc.uA;
+                out.point.set( isc.intersection );
+                rigNormal.mul( side, out.normal );
+            }
+        }
+
+        if( best > 1 )
+            return false;
+
+        out.collider = a;
+        return true;
+    }
+}
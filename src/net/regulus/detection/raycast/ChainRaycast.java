@@ -0,0 +1,107 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.ChainCollider;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Line;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Casts rays against chains by descending the tree of the chain, skipping nodes that the ray misses or only reaches
+ * after the nearest hit found so far. Chains are one-sided, so rays only hit segments from the front.
+ */
+public final class ChainRaycast {
+    private ChainRaycast() {
+    }
+
+    public static boolean cast( ChainCollider a, Line ray, RaycastResult out ) {
+        if( a.containsPoint( ray.pointA ) )
+            return false; // Starts inside the chain
+
+        Transform transform = a.getBodyTransform( null );
+        Vec2 origin = transform.mulInverse( ray.pointA, null );
+        Vec2 end = transform.mulInverse( ray.pointB, null );
+        Hit hit = new Hit( origin.x, origin.y, end.x - origin.x, end.y - origin.y );
+        descend( a, a.getRoot(), hit );
+        if( hit.segment == ChainCollider.NULL )
+            return false;
+
+        out.fraction = hit.fraction;
+        ray.interpolate( hit.fraction, out.point );
+        a.getNormal( hit.segment, out.normal );
+        transform.rotate( out.normal, out.normal );
+        out.collider = null;
+        return true;
+    }
+
+    private static void descend( ChainCollider a, int node, Hit hit ) {
+        if( ! a.isLeaf( node ) ) {
+            if( hit.reaches( a, node ) ) {
+                descend( a, a.getChild1( node ), hit );
+                descend( a, a.getChild2( node ), hit );
+            }
+            return;
+        }
+
+        int segment = a.getSegment( node );
+        Vec2 start = a.getVertex( segment, hit.start );
+        Vec2 edge = a.getDirection( segment, hit.edge ).mul( a.getLength( segment ), hit.edge );
+
+        // Only rays going against the normal hit the front of the segment
+        double denom = hit.dx * edge.y - hit.dy * edge.x;
+        if( denom <= 0 )
+            return;
+
+        double ox = start.x - hit.ox, oy = start.y - hit.oy;
+        double t = ( ox * edge.y - oy * edge.x ) / denom;
+        double u = ( ox * hit.dy - oy * hit.dx ) / denom;
+        if( t >= 0 && t <= hit.fraction && u >= 0 && u <= 1 ) {
+            hit.fraction = t;
+            hit.segment = segment;
+        }
+    }
+
+    /**
+     * The local ray and the nearest hit found so far.
+     */
+    private static final class Hit {
+        final double ox, oy, dx, dy;
+        double fraction = 1;
+        int segment = ChainCollider.NULL;
+        final Vec2 start = new Vec2();
+        final Vec2 edge = new Vec2();
+        private final AABB box = new AABB();
+
+        Hit( double ox, double oy, double dx, double dy ) {
+            this.ox = ox;
+            this.oy = oy;
+            this.dx = dx;
+            this.dy = dy;
+        }
+
+        /**
+         * Checks whether the ray enters the box of a node before the nearest hit.
+         */
+        boolean reaches( ChainCollider a, int node ) {
+            a.getNodeBox( node, box );
+            double lower = 0, upper = fraction;
+            if( dx == 0 ) {
+                if( ox < box.min.x || ox > box.max.x )
+                    return false;
+            } else {
+                double t1 = ( box.min.x - ox ) / dx, t2 = ( box.max.x - ox ) / dx;
+                lower = Math.max( lower, Math.min( t1, t2 ) );
+                upper = Math.min( upper, Math.max( t1, t2 ) );
+            }
+            if( dy == 0 ) {
+                if( oy < box.min.y || oy > box.max.y )
+                    return false;
+            } else {
+                double t1 = ( box.min.y - oy ) / dy, t2 = ( box.max.y - oy ) / dy;
+                lower = Math.max( lower, Math.min( t1, t2 ) );
+                upper = Math.min( upper, Math.max( t1, t2 ) );
+            }
+            return lower <= upper;
+        }
+    }
+}
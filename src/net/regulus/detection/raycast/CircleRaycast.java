@@ -0,0 +1,52 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.CircleCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Vec2;
+
+public final class CircleRaycast {
+    private CircleRaycast() {
+    }
+
+    public static boolean cast( CircleCollider a, Line ray, RaycastResult out ) {
+        Vec2 center = a.getCenter( null );
+        if( cast( center.x, center.y, a.getRadius(), ray, out ) ) {
+            out.collider = a;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Casts a ray against a circle given by it's center and radius. Rays starting inside the circle never hit.
+     */
+    public static boolean cast( double cx, double cy, double radius, Line ray, RaycastResult out ) {
+        double ox = ray.pointA.x, oy = ray.pointA.y;
+        double dx = ray.pointB.x - ox, dy = ray.pointB.y - oy;
+
+        // Solve |o + t * d - c|^2 = r^2 for t
+        double mx = ox - cx, my = oy - cy;
+        double c = mx * mx + my * my - radius * radius;
+        if( c < 0 )
+            return false; // Starts inside
+
+        double b = mx * dx + my * dy;
+        if( b > 0 )
+            return false; // Points away
+
+        double dd = dx * dx + dy * dy;
+        double disc = b * b - dd * c;
+        if( disc < 0 || dd == 0 )
+            return false;
+
+        double t = ( - b - Math.sqrt( disc ) ) / dd;
+        if( t < 0 || t > 1 )
+            return false;
+
+        out.fraction = t;
+        out.point.set( ox + dx * t, oy + dy * t );
+        out.normal.set( out.point.x - cx, out.point.y - cy ).norm( out.normal );
+        out.collider = null;
+        return true;
+    }
+}
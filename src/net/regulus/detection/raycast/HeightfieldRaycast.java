@@ -0,0 +1,58 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Casts rays against heightfields by walking the columns that the ray passes, in the order the ray passes them, so
+ * that the first hit is the nearest. Heightfields are one-sided, so rays only hit the surface from above.
+ */
+public final class HeightfieldRaycast {
+    private HeightfieldRaycast() {
+    }
+
+    public static boolean cast( HeightfieldCollider a, Line ray, RaycastResult out ) {
+        if( a.containsPoint( ray.pointA ) )
+            return false; // Starts inside the heightfield
+
+        Transform transform = a.getBodyTransform( null );
+        Vec2 origin = transform.mulInverse( ray.pointA, null );
+        Vec2 end = transform.mulInverse( ray.pointB, null );
+        double dx = end.x - origin.x, dy = end.y - origin.y;
+
+        int last = a.getColumnCount() - 1;
+        int from = a.column( dx < 0 ? end.x : origin.x );
+        int to = a.column( dx < 0 ? origin.x : end.x );
+        from = Math.max( from, 0 );
+        to = Math.min( to, last );
+        if( from > to )
+            return false;
+
+        double spacing = a.getSpacing();
+        int step = dx < 0 ? - 1 : 1;
+        for( int c = dx < 0 ? to : from; c >= from && c <= to; c += step ) {
+            double x0 = c * spacing, y0 = a.getHeight( c );
+            double ex = spacing, ey = a.getHeight( c + 1 ) - y0;
+
+            // Only rays going against the normal hit the surface from above
+            double denom = dx * ey - dy * ex;
+            if( denom <= 0 )
+                continue;
+
+            double ox = x0 - origin.x, oy = y0 - origin.y;
+            double t = ( ox * ey - oy * ex ) / denom;
+            double u = ( ox * dy - oy * dx ) / denom;
+            if( t >= 0 && t <= 1 && u >= 0 && u <= 1 ) {
+                out.fraction = t;
+                ray.interpolate( t, out.point );
+                a.getNormal( c, out.normal );
+                transform.rotate( out.normal, out.normal );
+                out.collider = null;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package net.regulus.detection.raycast;
+
+/**
+ * Tests all rays of a {@link RayPacket} against a single shape at once. Kernels write, for every lane of the packet, the
+ * fraction where the ray enters the shape into {@link RayPacket#t}, and the unit normal at that point into {@link
+ * RayPacket#tnx} and {@link RayPacket#tny}. Lanes that miss the shape, or that start inside it, get a fraction of
+ * {@link Double#POSITIVE_INFINITY}.
+ */
+public interface IRayKernel {
+    /**
+     * Casts the rays of a packet against a circle.
+     */
+    void circle( RayPacket packet, double cx, double cy, double radius );
+
+    /**
+     * Casts the rays of a packet against a convex polygon, given by it's global vertices in counterclockwise order.
+     *
+     * @param x     The x coordinates of the vertices
+     * @param y     The y coordinates of the vertices
+     * @param count The amount of vertices
+     */
+    void polygon( RayPacket packet, double[] x, double[] y, int count );
+}
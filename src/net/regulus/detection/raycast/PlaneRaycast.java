@@ -0,0 +1,35 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.PlaneCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Vec2;
+
+public final class PlaneRaycast {
+    private PlaneRaycast() {
+    }
+
+    public static boolean cast( PlaneCollider a, Line ray, RaycastResult out ) {
+        Vec2 normal = a.getNormal( null );
+        Vec2 center = a.getCenter( null );
+
+        Vec2 rel = ray.pointA.sub( center, null );
+        double startDist = rel.dot( normal );
+        if( startDist <= 0 )
+            return false; // Starts behind the plane
+
+        Vec2 dir = ray.edge( rel );
+        double dot = dir.dot( normal );
+        if( dot >= 0 )
+            return false; // Parallel or pointing away
+
+        double t = - startDist / dot;
+        if( t > 1 )
+            return false;
+
+        out.fraction = t;
+        ray.interpolate( t, out.point );
+        out.normal.set( normal );
+        out.collider = a;
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Vec2;
+import net.regulus.geom.VectorCollection;
+
+public final class PolygonRaycast {
+    private PolygonRaycast() {
+    }
+
+    public static boolean cast( PolygonalCollider a, Line ray, RaycastResult out ) {
+        VectorCollection global = a.getGlobal();
+        int size = global.size();
+        if( size < 3 )
+            return false;
+
+        Vec2 dir = ray.edge( null );
+        Vec2 curr = new Vec2(), next = new Vec2(), normal = new Vec2(), rel = new Vec2(), hitNormal = new Vec2();
+
+        // Clip the ray against the half-plane of every edge (Cyrus-Beck). Vertices are in counterclockwise order, so
+        // the clockwise perpendicular of an edge points outwards.
+        double lower = 0, upper = 1;
+        int index = - 1;
+
+        global.get( size - 1, curr );
+        for( int i = 0; i < size; i++ ) {
+            global.get( i, next );
+            next.sub( curr, normal ).invPerp( normal );
+
+            double numerator = curr.sub( ray.pointA, rel ).dot( normal );
+            double denominator = dir.dot( normal );
+
+            if( denominator == 0 ) {
+                if( numerator < 0 )
+                    return false; // Parallel and outside of this edge
+            } else if( denominator < 0 && numerator < lower * denominator ) {
+                // Entering this half-plane
+                lower = numerator / denominator;
+                index = i;
+                hitNormal.set( normal );
+            } else if( denominator > 0 && numerator < upper * denominator ) {
+                // Leaving this half-plane
+                upper = numerator / denominator;
+            }
+
+            if( upper < lower )
+                return false;
+
+            curr.set( next );
+        }
+
+        if( index < 0 )
+            return false; // Starts inside
+
+        out.fraction = lower;
+        ray.interpolate( lower, out.point );
+        hitNormal.norm( out.normal );
+        out.collider = a;
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package net.regulus.detection.raycast;
+
+/**
+ * Selects the {@link IRayKernel} used by {@link RayPacket}s. The Vector API kernel is used when the {@code
+ * jdk.incubator.vector} module is present (for example when running with {@code --add-modules jdk.incubator.vector}),
+ * otherwise the scalar kernel is used. Setting the system property {@code regulus.simd} to {@code false} forces the
+ * scalar kernel.
+ */
+public final class RayKernels {
+    private static final IRayKernel KERNEL = select();
+
+    private RayKernels() {
+    }
+
+    /**
+     * Returns the kernel used for packet raycasts.
+     */
+    public static IRayKernel get() {
+        return KERNEL;
+    }
+
+    /**
+     * Returns the scalar kernel, which is always available.
+     */
+    public static IRayKernel scalar() {
+        return ScalarRayKernel.INSTANCE;
+    }
+
+    /**
+     * Returns true when packet raycasts use the Vector API.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != ScalarRayKernel.INSTANCE;
+    }
+
+    private static IRayKernel select() {
+        if( ! Boolean.parseBoolean( System.getProperty( "regulus.simd", "true" ) ) )
+            return ScalarRayKernel.INSTANCE;
+        if( ! ModuleLayer.boot().findModule( "jdk.incubator.vector" ).isPresent() )
+            return ScalarRayKernel.INSTANCE;
+
+        try {
+            // Only touch the vector kernel now, loading it without the module present would fail
+            if( VectorRayKernel.fits() )
+                return VectorRayKernel.INSTANCE;
+        } catch( LinkageError ignored ) {
+        }
+        return ScalarRayKernel.INSTANCE;
+    }
+}
@@ -0,0 +1,289 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.CompoundCollider;
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Line;
+import net.regulus.geom.Vec2;
+import net.regulus.geom.VectorCollection;
+
+/**
+ * A group of rays that are cast together. Rays are stored as separate arrays of coordinates, one lane per ray, so that
+ * an {@link IRayKernel} can test several rays against a shape with a single instruction. Each lane keeps the nearest
+ * hit found so far, so casting the packet against a series of colliders finds the nearest hit of every ray.
+ * <p>
+ * Rays are segments from {@code (ox, oy)} to {@code (ox + dx, oy + dy)}, and hits are expressed as a fraction along
+ * that segment. Rays that start inside a collider do not hit that collider. Unused lanes have a zero direction and
+ * never hit anything.
+ */
+public final class RayPacket {
+    /** The amount of lanes in a packet, which is a multiple of every common vector size */
+    public static final int SIZE = 16;
+
+    public final double[] ox = new double[ SIZE ];
+    public final double[] oy = new double[ SIZE ];
+    public final double[] dx = new double[ SIZE ];
+    public final double[] dy = new double[ SIZE ];
+
+    /** The fraction of the nearest hit per lane, or {@link Double#POSITIVE_INFINITY} when the ray hit nothing */
+    public final double[] fraction = new double[ SIZE ];
+    /** The x coordinate of the unit surface normal of the nearest hit per lane */
+    public final double[] normalX = new double[ SIZE ];
+    /** The y coordinate of the unit surface normal of the nearest hit per lane */
+    public final double[] normalY = new double[ SIZE ];
+    /** The simple collider of the nearest hit per lane, or {@code null} when the hit collider is not simple */
+    public final SimpleCollider[] collider = new SimpleCollider[ SIZE ];
+    /** The user data passed along with the collider of the nearest hit per lane */
+    public final Object[] data = new Object[ SIZE ];
+
+    // Kernel output, merged into the nearest hits after each shape
+    final double[] t = new double[ SIZE ];
+    final double[] tnx = new double[ SIZE ];
+    final double[] tny = new double[ SIZE ];
+
+    private final IRayKernel kernel;
+    private int count;
+
+    private double[] vertsX = new double[ 16 ];
+    private double[] vertsY = new double[ 16 ];
+    private final Vec2 tmp = new Vec2();
+    private final Vec2 tmp2 = new Vec2();
+    private final double[] bestT = new double[ SIZE ];
+    private final double[] bestNX = new double[ SIZE ];
+    private final double[] bestNY = new double[ SIZE ];
+    private final Line ray = new Line();
+    private final RaycastResult result = new RaycastResult();
+
+    /**
+     * Creates a packet that uses the best available kernel.
+     */
+    public RayPacket() {
+        this( RayKernels.get() );
+    }
+
+    public RayPacket( IRayKernel kernel ) {
+        this.kernel = kernel;
+        clear();
+    }
+
+    /**
+     * Removes all rays and hits from this packet.
+     */
+    public void clear() {
+        for( int i = 0; i < SIZE; i++ ) {
+            ox[ i ] = oy[ i ] = dx[ i ] = dy[ i ] = 0;
+            fraction[ i ] = Double.POSITIVE_INFINITY;
+            collider[ i ] = null;
+            data[ i ] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Adds a ray to this packet.
+     *
+     * @return The lane of the added ray
+     * @throws IllegalStateException When this packet is full
+     */
+    public int add( double ox, double oy, double dx, double dy ) {
+        if( count == SIZE ) {
+            throw new IllegalStateException( "Packet is full" );
+        }
+        int lane = count ++;
+        this.ox[ lane ] = ox;
+        this.oy[ lane ] = oy;
+        this.dx[ lane ] = dx;
+        this.dy[ lane ] = dy;
+        return lane;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns true when the ray in the specified lane hit something.
+     */
+    public boolean hit( int lane ) {
+        return fraction[ lane ] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Computes the global point of the nearest hit in the specified lane.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getPoint( int lane, Vec2 out ) {
+        double t = fraction[ lane ];
+        return Vec2.put( out, ox[ lane ] + dx[ lane ] * t, oy[ lane ] + dy[ lane ] * t );
+    }
+
+    /**
+     * Computes the box that wraps all rays of this packet, where rays that hit something are cut off at their nearest
+     * hit. Only colliders overlapping this box can give nearer hits.
+     *
+     * @param out The output box. When {@code null}, a new box is created.
+     */
+    public AABB getBox( AABB out ) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for( int i = 0; i < count; i++ ) {
+            double t = Math.min( fraction[ i ], 1 );
+            double ex = ox[ i ] + dx[ i ] * t, ey = oy[ i ] + dy[ i ] * t;
+            minX = Math.min( minX, Math.min( ox[ i ], ex ) );
+            minY = Math.min( minY, Math.min( oy[ i ], ey ) );
+            maxX = Math.max( maxX, Math.max( ox[ i ], ex ) );
+            maxY = Math.max( maxY, Math.max( oy[ i ], ey ) );
+        }
+        return AABB.put( out, minX, minY, maxX, maxY );
+    }
+
+    /**
+     * Casts all rays of this packet against a collider, keeping the hits that are nearer than the hits found so far.
+     * Circles, capsules and polygons are tested by the kernel, other colliders one ray at a time.
+     *
+     * @param c    The collider to cast against
+     * @param data User data to store along with hits on this collider
+     * @return True when any ray found a nearer hit
+     */
+    public boolean cast( ICollider c, Object data ) {
+        if( c instanceof CompoundCollider ) {
+            boolean hit = false;
+            for( SimpleCollider child : ( (CompoundCollider) c ).colliders ) {
+                hit |= cast( child, data );
+            }
+            return hit;
+        } else if( c instanceof CircleCollider ) {
+            CircleCollider circle = (CircleCollider) c;
+            circle.getCenter( tmp );
+            kernel.circle( this, tmp.x, tmp.y, circle.getRadius() );
+            return merge( circle, data );
+        } else if( c instanceof CapsuleCollider ) {
+            castCapsule( (CapsuleCollider) c );
+            return merge( (SimpleCollider) c, data );
+        } else if( c instanceof PolygonalCollider ) {
+            PolygonalCollider polygon = (PolygonalCollider) c;
+            if( loadVertices( polygon.getGlobal() ) ) {
+                kernel.polygon( this, vertsX, vertsY, polygon.getGlobal().size() );
+                return merge( polygon, data );
+            }
+        } else if( c instanceof SimpleCollider ) {
+            castScalar( c );
+            return merge( (SimpleCollider) c, data );
+        } else if( c instanceof TileMapCollider || c instanceof ChainCollider || c instanceof HeightfieldCollider ) {
+            castScalar( c );
+            return merge( null, data );
+        }
+        return false;
+    }
+
+    private void castCapsule( CapsuleCollider c ) {
+        Vec2 left = c.getLeft( tmp );
+        Vec2 right = c.getRight( tmp2 );
+        double radius = c.getRadius();
+
+        // A capsule is the union of it's end caps and the rectangle between them
+        kernel.circle( this, left.x, left.y, radius );
+        System.arraycopy( t, 0, bestT, 0, SIZE );
+        System.arraycopy( tnx, 0, bestNX, 0, SIZE );
+        System.arraycopy( tny, 0, bestNY, 0, SIZE );
+
+        kernel.circle( this, right.x, right.y, radius );
+        keepNearest();
+
+        double ux = right.x - left.x, uy = right.y - left.y;
+        double len = Math.sqrt( ux * ux + uy * uy );
+        if( len > 0 ) {
+            double nx = - uy / len * radius, ny = ux / len * radius;
+            vertsX[ 0 ] = left.x - nx;
+            vertsY[ 0 ] = left.y - ny;
+            vertsX[ 1 ] = right.x - nx;
+            vertsY[ 1 ] = right.y - ny;
+            vertsX[ 2 ] = right.x + nx;
+            vertsY[ 2 ] = right.y + ny;
+            vertsX[ 3 ] = left.x + nx;
+            vertsY[ 3 ] = left.y + ny;
+            kernel.polygon( this, vertsX, vertsY, 4 );
+            keepNearest();
+        }
+
+        double rr = radius * radius;
+        for( int i = 0; i < SIZE; i++ ) {
+            t[ i ] = bestT[ i ];
+            tnx[ i ] = bestNX[ i ];
+            tny[ i ] = bestNY[ i ];
+
+            // Rays starting inside one part may still enter another part, but they start inside the capsule
+            double px = ox[ i ] - left.x, py = oy[ i ] - left.y;
+            double along = len == 0 ? 0 : Math.max( 0, Math.min( len * len, px * ux + py * uy ) ) / ( len * len );
+            double ex = px - ux * along, ey = py - uy * along;
+            if( ex * ex + ey * ey <= rr ) {
+                t[ i ] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    private void keepNearest() {
+        for( int i = 0; i < SIZE; i++ ) {
+            if( t[ i ] < bestT[ i ] ) {
+                bestT[ i ] = t[ i ];
+                bestNX[ i ] = tnx[ i ];
+                bestNY[ i ] = tny[ i ];
+            }
+        }
+    }
+
+    private boolean loadVertices( VectorCollection global ) {
+        int size = global.size();
+        if( size < 3 )
+            return false;
+        if( size > vertsX.length ) {
+            vertsX = new double[ size ];
+            vertsY = new double[ size ];
+        }
+        for( int i = 0; i < size; i++ ) {
+            global.get( i, tmp );
+            vertsX[ i ] = tmp.x;
+            vertsY[ i ] = tmp.y;
+        }
+        return true;
+    }
+
+    private void castScalar( ICollider c ) {
+        for( int i = 0; i < SIZE; i++ ) {
+            t[ i ] = Double.POSITIVE_INFINITY;
+            if( i >= count || dx[ i ] == 0 && dy[ i ] == 0 )
+                continue;
+
+            ray.pointA.set( ox[ i ], oy[ i ] );
+            ray.pointB.set( ox[ i ] + dx[ i ], oy[ i ] + dy[ i ] );
+            if( Raycast.cast( c, ray, result ) ) {
+                t[ i ] = result.fraction;
+                tnx[ i ] = result.normal.x;
+                tny[ i ] = result.normal.y;
+            }
+        }
+    }
+
+    private boolean merge( SimpleCollider c, Object data ) {
+        boolean hit = false;
+        for( int i = 0; i < count; i++ ) {
+            if( t[ i ] < fraction[ i ] ) {
+                fraction[ i ] = t[ i ];
+                normalX[ i ] = tnx[ i ];
+                normalY[ i ] = tny[ i ];
+                collider[ i ] = c;
+                this.data[ i ] = data;
+                hit = true;
+            }
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,49 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.*;
+import net.regulus.geom.Line;
+
+public final class Raycast {
+    private Raycast() {
+    }
+
+    /**
+     * Casts a ray against a collider, finding the first point where the ray enters it. Rays that start inside a
+     * collider do not hit that collider.
+     *
+     * @param a   The collider to cast against
+     * @param ray The ray, going from {@code pointA} to {@code pointB}
+     * @param out The result, which is only modified when the ray hits
+     * @return True when the ray hits the collider
+     */
+    public static boolean cast( ICollider a, Line ray, RaycastResult out ) {
+        if( a instanceof CompoundCollider ) {
+            RaycastResult tmp = new RaycastResult();
+            boolean hit = false;
+            for( SimpleCollider c : ( (CompoundCollider) a ).colliders ) {
+                if( cast( c, ray, tmp ) && ( ! hit || tmp.fraction < out.fraction ) ) {
+                    out.set( tmp );
+                    hit = true;
+                }
+            }
+            return hit;
+        } else if( a instanceof PolygonalCollider ) {
+            return PolygonRaycast.cast( (PolygonalCollider) a, ray, out );
+        } else if( a instanceof CircleCollider ) {
+            return CircleRaycast.cast( (CircleCollider) a, ray, out );
+        } else if( a instanceof CapsuleCollider ) {
+            return CapsuleRaycast.cast( (CapsuleCollider) a, ray, out );
+        } else if( a instanceof PlaneCollider ) {
+            return PlaneRaycast.cast( (PlaneCollider) a, ray, out );
+        } else if( a instanceof BarCollider ) {
+            return BarRaycast.cast( (BarCollider) a, ray, out );
+        } else if( a instanceof TileMapCollider ) {
+            return TileMapRaycast.cast( (TileMapCollider) a, ray, out );
+        } else if( a instanceof ChainCollider ) {
+            return ChainRaycast.cast( (ChainCollider) a, ray, out );
+        } else if( a instanceof HeightfieldCollider ) {
+            return HeightfieldRaycast.cast( (HeightfieldCollider) a, ray, out );
+        }
+        return false;
+    }
+}
@@ -0,0 +1,35 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.SimpleCollider;
+import net.regulus.geom.Vec2;
+
+/**
+ * Represents the result of casting a ray or shape against a collider. The ray is described by a {@link
+ * net.regulus.geom.Line}, going from {@code pointA} to {@code pointB}, and hits are expressed as a fraction along that
+ * line.
+ */
+public class RaycastResult {
+    /** The fraction along the ray where the hit occurs, between 0 and 1 */
+    public double fraction;
+    /** The global hit point, on the surface of the hit collider */
+    public final Vec2 point = new Vec2();
+    /** The surface normal at the hit point, pointing out of the hit collider */
+    public final Vec2 normal = new Vec2();
+    /** The simple collider that was hit, or {@code null} when unknown */
+    public SimpleCollider collider;
+
+    public RaycastResult() {
+    }
+
+    public RaycastResult( RaycastResult other ) {
+        set( other );
+    }
+
+    public RaycastResult set( RaycastResult other ) {
+        fraction = other.fraction;
+        point.set( other.point );
+        normal.set( other.normal );
+        collider = other.collider;
+        return this;
+    }
+}
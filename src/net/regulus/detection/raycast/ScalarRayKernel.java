@@ -0,0 +1,82 @@
+package net.regulus.detection.raycast;
+
+/**
+ * The plain Java implementation of {@link IRayKernel}, used when the Vector API is not available.
+ */
+final class ScalarRayKernel implements IRayKernel {
+    static final ScalarRayKernel INSTANCE = new ScalarRayKernel();
+
+    private ScalarRayKernel() {
+    }
+
+    @Override
+    public void circle( RayPacket packet, double cx, double cy, double radius ) {
+        for( int i = 0; i < RayPacket.SIZE; i++ ) {
+            double dx = packet.dx[ i ], dy = packet.dy[ i ];
+            double mx = packet.ox[ i ] - cx, my = packet.oy[ i ] - cy;
+
+            double c = mx * mx + my * my - radius * radius;
+            double b = mx * dx + my * dy;
+            double dd = dx * dx + dy * dy;
+            double disc = b * b - dd * c;
+
+            double t = Double.POSITIVE_INFINITY;
+            if( c >= 0 && b <= 0 && disc >= 0 && dd > 0 ) {
+                double s = ( - b - Math.sqrt( disc ) ) / dd;
+                if( s >= 0 && s <= 1 ) {
+                    t = s;
+                }
+            }
+
+            packet.t[ i ] = t;
+            packet.tnx[ i ] = ( mx + dx * t ) / radius;
+            packet.tny[ i ] = ( my + dy * t ) / radius;
+        }
+    }
+
+    @Override
+    public void polygon( RayPacket packet, double[] x, double[] y, int count ) {
+        for( int i = 0; i < RayPacket.SIZE; i++ ) {
+            double ox = packet.ox[ i ], oy = packet.oy[ i ];
+            double dx = packet.dx[ i ], dy = packet.dy[ i ];
+
+            // Same clipping as PolygonRaycast, see there
+            double lower = 0, upper = 1;
+            double hnx = 0, hny = 0;
+            boolean entered = false, alive = true;
+
+            double cx = x[ count - 1 ], cy = y[ count - 1 ];
+            for( int j = 0; j < count && alive; j++ ) {
+                double nx = y[ j ] - cy;
+                double ny = cx - x[ j ];
+
+                double num = nx * ( cx - ox ) + ny * ( cy - oy );
+                double den = nx * dx + ny * dy;
+
+                if( den == 0 ) {
+                    alive = num >= 0;
+                } else if( den < 0 && num < lower * den ) {
+                    lower = num / den;
+                    hnx = nx;
+                    hny = ny;
+                    entered = true;
+                } else if( den > 0 && num < upper * den ) {
+                    upper = num / den;
+                }
+                alive &= upper >= lower;
+
+                cx = x[ j ];
+                cy = y[ j ];
+            }
+
+            if( alive && entered ) {
+                double len = Math.sqrt( hnx * hnx + hny * hny );
+                packet.t[ i ] = lower;
+                packet.tnx[ i ] = hnx / len;
+                packet.tny[ i ] = hny / len;
+            } else {
+                packet.t[ i ] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package net.regulus.detection.raycast;
+
+import java.util.function.IntConsumer;
+
+import net.regulus.collider.BarCollider;
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.CompoundCollider;
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.collider.PlaneCollider;
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.detection.sat.SAT;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Sweeps a collider along a translation and finds the first fraction of that translation where it touches another
+ * collider. The sweep advances the shape in steps no larger than half of it's smallest extent, so that consecutive
+ * positions overlap and no collider is stepped over, and then narrows down the time of impact by bisection. Overlap is
+ * tested with {@link SAT}, so every pair of colliders that {@link SAT} supports can be swept.
+ * <p>
+ * Only the part of the sweep where the box of the shape overlaps the box of the target is stepped, so the amount of
+ * steps grows with the distance that the shape travels along the target, relative to the size of the shape. That
+ * amount is bounded in three ways:
+ * <ul>
+ * <li>Planes and bars only separate from the shape along their normal, so the fractions where the shape touches them
+ * are computed directly from the projection of the shape on that normal.</li>
+ * <li>Tile maps, chains and heightfields are only stepped where the shape passes one of their pieces under the box of
+ * the whole sweep, rather than everywhere within their box covering the whole level.</li>
+ * <li>Other sweeps take at most {@link #MAX_STEPS} steps. Beyond that, steps grow larger than half of the shape, so a
+ * very small shape that travels very far along a target can step over a corner of it.</li>
+ * </ul>
+ * <p>
+ * The swept shape is moved by setting it's body transform. After casting, the shape is left at the start position.
+ */
+public class ShapeCast {
+    /** The amount of bisection steps used to refine the time of impact */
+    public static final int BISECTION_STEPS = 20;
+    /** The maximum amount of steps used to find the first overlap with a target */
+    public static final int MAX_STEPS = 256;
+    private final Transform transform = new Transform();
+    private final AABB box = new AABB();
+    private final AABB targetBox = new AABB();
+    private final AABB region = new AABB();
+    private final Vec2 normal = new Vec2();
+    private final Vec2 point = new Vec2();
+    private final Probe probe = new Probe();
+    private final RaycastResult tmp = new RaycastResult();
+    private final RaycastResult pieceResult = new RaycastResult();
+    private final TileMapCollider.IRectangleConsumer rectangleSweep = this::sweepRectangle;
+    private final IntConsumer segmentSweep = this::sweepSegment;
+
+    private ICollider shape;
+    private double startX, startY, transX, transY;
+    private double projMin, projMax;
+
+    // State of a terrain sweep: the terrain and the best hit so far
+    private ICollider terrain;
+    private RaycastResult terrainOut;
+    private boolean terrainHit;
+
+    /**
+     * Sweeps a shape against a target collider.
+     *
+     * @param shape       The shape to sweep, which must have a finite bounding box
+     * @param position    The start position of the shape
+     * @param rotation    The rotation of the shape during the sweep
+     * @param translation The translation to sweep along
+     * @param target      The collider to sweep against
+     * @param out         The result, which is only modified when the shape hits the target
+     * @return True when the shape hits the target
+     */
+    public boolean cast( ICollider shape, Vec2 position, double rotation, Vec2 translation, ICollider target, RaycastResult out ) {
+        this.shape = shape;
+        startX = position.x;
+        startY = position.y;
+        transform.setRotation( rotation );
+        transX = translation.x;
+        transY = translation.y;
+
+        boolean hit = false;
+        if( target instanceof CompoundCollider ) {
+            for( SimpleCollider c : ( (CompoundCollider) target ).colliders ) {
+                if( sweep( c, tmp ) && ( ! hit || tmp.fraction < out.fraction ) ) {
+                    out.set( tmp );
+                    hit = true;
+                }
+            }
+        } else {
+            hit = sweep( target, out );
+        }
+
+        place( 0 );
+        return hit;
+    }
+
+    /**
+     * Computes the box covering a shape over the whole sweep. Like {@link #cast}, this leaves the shape at the start
+     * position.
+     *
+     * @param out The box to write to
+     * @return The {@code out} box
+     */
+    public AABB sweptBox( ICollider shape, Vec2 position, double rotation, Vec2 translation, AABB out ) {
+        this.shape = shape;
+        startX = position.x;
+        startY = position.y;
+        transform.setRotation( rotation );
+        transX = translation.x;
+        transY = translation.y;
+
+        place( 1 );
+        shape.getBox( box );
+        place( 0 );
+        shape.getBox( out );
+        return AABB.unite( out, box, out );
+    }
+
+    private boolean sweep( ICollider target, RaycastResult out ) {
+        place( 0 );
+        shape.getBox( box );
+        double width = box.max.x - box.min.x;
+        double height = box.max.y - box.min.y;
+        if( ! Double.isFinite( width ) || ! Double.isFinite( height ) ) {
+            throw new IllegalArgumentException( "Can't sweep unbounded shape" );
+        }
+
+        if( overlaps( target ) ) {
+            finish( target, 0, out );
+            return true;
+        }
+
+        if( target instanceof TileMapCollider || target instanceof ChainCollider || target instanceof HeightfieldCollider )
+            return sweepTerrain( target, out );
+        if( ! ( target instanceof PlaneCollider || target instanceof BarCollider ) ) {
+            target.getBox( targetBox );
+            return sweepBox( target, targetBox, 1, out );
+        }
+
+        // The exact fractions of contact along the normal, the middle of which is sampled by two steps
+        double lo, hi;
+        if( target instanceof BarCollider ) {
+            ( (BarCollider) target ).getNormal( normal );
+            hi = ( (BarCollider) target ).getWidth() / 2;
+            lo = - hi;
+        } else {
+            ( (PlaneCollider) target ).getNormal( normal );
+            lo = Double.NEGATIVE_INFINITY;
+            hi = 0;
+        }
+        double offset = ( (SimpleCollider) target ).getCenter( point ).dot( normal );
+        double move = normal.dot( transX, transY );
+        project( shape, normal.x, normal.y );
+        double enter = Math.max( 0, entry( projMin - offset, projMax - offset, move, lo, hi ) );
+        double exit = Math.min( 1, exit( projMin - offset, projMax - offset, move, lo, hi ) );
+        return enter <= exit && advance( target, enter, exit, 2, out );
+    }
+
+    /**
+     * Sweeps the shape against a target, only stepping where the moving box of the shape overlaps a box, up to a
+     * fraction of the translation. The box of the shape at the start must be in {@link #box}.
+     */
+    private boolean sweepBox( ICollider target, AABB bounds, double end, RaycastResult out ) {
+        // The fractions where the moving box overlaps the bounds, outside of which there is no contact
+        double enter = 0, exit = end;
+        enter = Math.max( enter, entry( box.min.x, box.max.x, transX, bounds.min.x, bounds.max.x ) );
+        enter = Math.max( enter, entry( box.min.y, box.max.y, transY, bounds.min.y, bounds.max.y ) );
+        exit = Math.min( exit, exit( box.min.x, box.max.x, transX, bounds.min.x, bounds.max.x ) );
+        exit = Math.min( exit, exit( box.min.y, box.max.y, transY, bounds.min.y, bounds.max.y ) );
+        if( ! ( enter <= exit ) )
+            return false;
+
+        double step = Math.max( Math.min( box.max.x - box.min.x, box.max.y - box.min.y ) / 2, 1E-3 );
+        double length = Math.sqrt( transX * transX + transY * transY ) * ( exit - enter );
+        int steps = (int) Math.min( Math.max( Math.ceil( length / step ), 1 ), MAX_STEPS );
+        return advance( target, enter, exit, steps, out );
+    }
+
+    /**
+     * Advances the shape from one fraction to another in a number of steps, and narrows down the first step where it
+     * overlaps the target by bisection.
+     */
+    private boolean advance( ICollider target, double enter, double exit, int steps, RaycastResult out ) {
+        double lo = enter;
+        for( int i = 0; i <= steps; i++ ) {
+            double hi = enter + ( exit - enter ) * i / steps;
+            place( hi );
+            if( overlaps( target ) ) {
+                for( int j = 0; j < BISECTION_STEPS; j++ ) {
+                    double mid = ( lo + hi ) / 2;
+                    place( mid );
+                    if( overlaps( target ) ) {
+                        hi = mid;
+                    } else {
+                        lo = mid;
+                    }
+                }
+
+                place( hi );
+                overlaps( target );
+                finish( target, lo, out );
+                return true;
+            }
+            lo = hi;
+        }
+        return false;
+    }
+
+    /**
+     * Sweeps the shape against a tile map, chain or heightfield, stepping only where it passes the pieces under the
+     * box of the whole sweep, and only up to the best hit so far. Overlap is still tested against the terrain as a
+     * whole, so that the seams between pieces are handled like in collisions.
+     */
+    private boolean sweepTerrain( ICollider target, RaycastResult out ) {
+        place( 1 );
+        shape.getBox( region );
+        AABB.unite( region, box, region );
+
+        terrain = target;
+        terrainOut = out;
+        terrainHit = false;
+        if( target instanceof TileMapCollider ) {
+            TileMapCollider map = (TileMapCollider) target;
+            AABB local = map.toLocal( region, region );
+            // One cell of margin, like the tile map collision test
+            int c0 = map.column( local.min.x ) - 1, r0 = map.row( local.min.y ) - 1;
+            int c1 = map.column( local.max.x ) + 2, r1 = map.row( local.max.y ) + 2;
+            map.forEachRectangle( c0, r0, c1 - c0, r1 - r0, rectangleSweep );
+        } else if( target instanceof ChainCollider ) {
+            ChainCollider chain = (ChainCollider) target;
+            chain.forEachSegment( chain.toLocal( region, region ), segmentSweep );
+        } else {
+            HeightfieldCollider field = (HeightfieldCollider) target;
+            AABB local = field.toLocal( region, region );
+            int c0 = Math.max( field.column( local.min.x ), 0 );
+            int c1 = Math.min( field.column( local.max.x ), field.getColumnCount() - 1 );
+            for( int c = c0; c <= c1; c++ ) {
+                if( field.mayOverlap( c, local ) ) {
+                    sweepPiece( field.getPiece( c ) );
+                }
+            }
+        }
+        terrain = null;
+        terrainOut = null;
+        return terrainHit;
+    }
+
+    private void sweepRectangle( int column, int row, int columns, int rows ) {
+        sweepPiece( ( (TileMapCollider) terrain ).getPiece( column, row, columns, rows ) );
+    }
+
+    private void sweepSegment( int segment ) {
+        sweepPiece( ( (ChainCollider) terrain ).getPiece( segment ) );
+    }
+
+    private void sweepPiece( SimpleCollider piece ) {
+        double end = terrainHit ? terrainOut.fraction : 1;
+        if( ! sweepBox( terrain, piece.getBox( targetBox ), end, pieceResult ) || terrainHit && pieceResult.fraction >= end )
+            return;
+        terrainOut.set( pieceResult );
+        terrainHit = true;
+    }
+
+    /**
+     * Projects the shape onto an axis, storing the extent in {@link #projMin} and {@link #projMax}. Shapes other than
+     * circles, capsules, polygons and their compounds are projected by their box.
+     */
+    private void project( ICollider collider, double nx, double ny ) {
+        if( collider instanceof CompoundCollider ) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for( SimpleCollider c : ( (CompoundCollider) collider ).colliders ) {
+                project( c, nx, ny );
+                min = Math.min( min, projMin );
+                max = Math.max( max, projMax );
+            }
+            projMin = min;
+            projMax = max;
+        } else if( collider instanceof PolygonalCollider ) {
+            projMin = ( (PolygonalCollider) collider ).minProjection( nx, ny );
+            projMax = ( (PolygonalCollider) collider ).maxProjection( nx, ny );
+        } else if( collider instanceof CircleCollider ) {
+            double c = ( (CircleCollider) collider ).getCenter( point ).dot( nx, ny );
+            double radius = ( (CircleCollider) collider ).getRadius();
+            projMin = c - radius;
+            projMax = c + radius;
+        } else if( collider instanceof CapsuleCollider ) {
+            double a = ( (CapsuleCollider) collider ).getLeft( point ).dot( nx, ny );
+            double b = ( (CapsuleCollider) collider ).getRight( point ).dot( nx, ny );
+            double radius = ( (CapsuleCollider) collider ).getRadius();
+            projMin = Math.min( a, b ) - radius;
+            projMax = Math.max( a, b ) + radius;
+        } else {
+            collider.getBox( targetBox );
+            projMin = Math.min( targetBox.min.x * nx, targetBox.max.x * nx ) + Math.min( targetBox.min.y * ny, targetBox.max.y * ny );
+            projMax = Math.max( targetBox.min.x * nx, targetBox.max.x * nx ) + Math.max( targetBox.min.y * ny, targetBox.max.y * ny );
+        }
+    }
+
+    /**
+     * Returns the fraction where an interval moving along an axis starts to overlap a fixed interval.
+     */
+    private static double entry( double min, double max, double move, double targetMin, double targetMax ) {
+        if( move > 0 )
+            return ( targetMin - max ) / move;
+        if( move < 0 )
+            return ( targetMax - min ) / move;
+        return min <= targetMax && max >= targetMin ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the fraction where an interval moving along an axis stops overlapping a fixed interval.
+     */
+    private static double exit( double min, double max, double move, double targetMin, double targetMax ) {
+        if( move > 0 )
+            return ( targetMax - min ) / move;
+        if( move < 0 )
+            return ( targetMin - max ) / move;
+        return min <= targetMax && max >= targetMin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    private void finish( ICollider target, double fraction, RaycastResult out ) {
+        out.fraction = fraction;
+        out.normal.set( probe.normal );
+        out.point.set( probe.point );
+        out.collider = target instanceof SimpleCollider ? (SimpleCollider) target : null;
+    }
+
+    private void place( double fraction ) {
+        // The rotation does not change during the sweep, so it's sine and cosine are computed once in cast
+        transform.setTranslation( startX + transX * fraction, startY + transY * fraction );
+        shape.setBodyTransform( transform );
+    }
+
+    private boolean overlaps( ICollider target ) {
+        probe.hit = false;
+        probe.point.set( Double.NaN, Double.NaN );
+        SAT.collide( shape, target, probe );
+        return probe.hit;
+    }
+
+    private static class Probe implements ICollisionCollector {
+        boolean hit;
+        final Vec2 normal = new Vec2();
+        final Vec2 point = new Vec2();
+
+        @Override
+        public void addCollision( CollisionPrimer primer ) {
+            // Some SAT routines report a primer before it's points are known, so keep the latest values
+            hit = true;
+            // Normals point from the target towards the swept shape
+            normal.set( primer.normal );
+            if( ! primer.collisionB.isEmpty() ) {
+                primer.collisionB.get( 0, point );
+            }
+        }
+    }
+}
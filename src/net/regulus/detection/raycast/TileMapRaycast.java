@@ -0,0 +1,94 @@
+package net.regulus.detection.raycast;
+
+import net.regulus.collider.TileMapCollider;
+import net.regulus.geom.Line;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Casts rays against tile maps by walking the cells that the ray passes through, in order, until it enters a solid
+ * cell. Only the cells along the ray are visited, so the cost does not depend on the size of the tile map.
+ */
+public final class TileMapRaycast {
+    private TileMapRaycast() {
+    }
+
+    public static boolean cast( TileMapCollider a, Line ray, RaycastResult out ) {
+        Transform transform = a.getBodyTransform( null );
+        Vec2 origin = transform.mulInverse( ray.pointA, null );
+        Vec2 end = transform.mulInverse( ray.pointB, null );
+        double dx = end.x - origin.x, dy = end.y - origin.y;
+        double size = a.getCellSize();
+
+        if( a.isSolid( a.column( origin.x ), a.row( origin.y ) ) )
+            return false; // Starts inside the tile map
+
+        // Clip the ray to the grid, remembering which side it enters through
+        double enter = 0, exit = 1;
+        boolean enterX = false;
+        double width = a.getColumns() * size, height = a.getRows() * size;
+        if( dx == 0 ) {
+            if( origin.x < 0 || origin.x > width )
+                return false;
+        } else {
+            double t1 = - origin.x / dx, t2 = ( width - origin.x ) / dx;
+            double lo = Math.min( t1, t2 ), hi = Math.max( t1, t2 );
+            if( lo > enter ) {
+                enter = lo;
+                enterX = true;
+            }
+            exit = Math.min( exit, hi );
+        }
+        if( dy == 0 ) {
+            if( origin.y < 0 || origin.y > height )
+                return false;
+        } else {
+            double t1 = - origin.y / dy, t2 = ( height - origin.y ) / dy;
+            double lo = Math.min( t1, t2 ), hi = Math.max( t1, t2 );
+            if( lo > enter ) {
+                enter = lo;
+                enterX = false;
+            }
+            exit = Math.min( exit, hi );
+        }
+        if( enter > exit )
+            return false;
+
+        int stepX = dx > 0 ? 1 : - 1;
+        int stepY = dy > 0 ? 1 : - 1;
+        int column = Math.max( 0, Math.min( a.getColumns() - 1, a.column( origin.x + dx * enter ) ) );
+        int row = Math.max( 0, Math.min( a.getRows() - 1, a.row( origin.y + dy * enter ) ) );
+
+        double nextX = dx == 0 ? Double.POSITIVE_INFINITY : ( ( column + ( dx > 0 ? 1 : 0 ) ) * size - origin.x ) / dx;
+        double nextY = dy == 0 ? Double.POSITIVE_INFINITY : ( ( row + ( dy > 0 ? 1 : 0 ) ) * size - origin.y ) / dy;
+        double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : size / Math.abs( dx );
+        double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : size / Math.abs( dy );
+
+        // The side through which the current cell was entered, as a local normal
+        double nx = enterX ? - stepX : 0, ny = enterX ? 0 : - stepY;
+        double t = enter;
+        while( ! a.isSolid( column, row ) ) {
+            if( nextX < nextY ) {
+                t = nextX;
+                nextX += deltaX;
+                column += stepX;
+                nx = - stepX;
+                ny = 0;
+            } else {
+                t = nextY;
+                nextY += deltaY;
+                row += stepY;
+                nx = 0;
+                ny = - stepY;
+            }
+            if( t > exit || column < 0 || column >= a.getColumns() || row < 0 || row >= a.getRows() )
+                return false;
+        }
+
+        out.fraction = t;
+        ray.interpolate( t, out.point );
+        transform.rotate( nx, ny, out.normal );
+        out.collider = null;
+        return true;
+    }
+}
@@ -0,0 +1,122 @@
+package net.regulus.detection.raycast;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * The Vector API implementation of {@link IRayKernel}, which tests as many rays at once as fit in a vector register.
+ * This class must only be loaded when the {@code jdk.incubator.vector} module is present, see {@link RayKernels}.
+ */
+final class VectorRayKernel implements IRayKernel {
+    static final VectorRayKernel INSTANCE = new VectorRayKernel();
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorRayKernel() {
+    }
+
+    static boolean fits() {
+        // The packet is processed in whole vectors
+        return RayPacket.SIZE % SPECIES.length() == 0;
+    }
+
+    @Override
+    public void circle( RayPacket packet, double cx, double cy, double radius ) {
+        DoubleVector inf = DoubleVector.broadcast( SPECIES, Double.POSITIVE_INFINITY );
+        double rr = radius * radius;
+
+        for( int i = 0; i < RayPacket.SIZE; i += SPECIES.length() ) {
+            DoubleVector dx = DoubleVector.fromArray( SPECIES, packet.dx, i );
+            DoubleVector dy = DoubleVector.fromArray( SPECIES, packet.dy, i );
+            DoubleVector mx = DoubleVector.fromArray( SPECIES, packet.ox, i ).sub( cx );
+            DoubleVector my = DoubleVector.fromArray( SPECIES, packet.oy, i ).sub( cy );
+
+            DoubleVector c = mx.fma( mx, my.mul( my ) ).sub( rr );
+            DoubleVector b = mx.fma( dx, my.mul( dy ) );
+            DoubleVector dd = dx.fma( dx, dy.mul( dy ) );
+            DoubleVector disc = b.fma( b, dd.mul( c ).neg() );
+
+            VectorMask<Double> hit = c.compare( GE, 0 )
+                                      .and( b.compare( LE, 0 ) )
+                                      .and( disc.compare( GE, 0 ) )
+                                      .and( dd.compare( GT, 0 ) );
+            if( ! hit.anyTrue() ) {
+                inf.intoArray( packet.t, i );
+                continue;
+            }
+
+            DoubleVector t = b.neg().sub( disc.max( 0 ).sqrt() ).div( dd );
+            hit = hit.and( t.compare( GE, 0 ) ).and( t.compare( LE, 1 ) );
+            t = inf.blend( t, hit );
+
+            t.intoArray( packet.t, i );
+            // The hit point relative to the center, divided by the radius
+            dx.fma( t, mx ).div( radius ).intoArray( packet.tnx, i );
+            dy.fma( t, my ).div( radius ).intoArray( packet.tny, i );
+        }
+    }
+
+    @Override
+    public void polygon( RayPacket packet, double[] x, double[] y, int count ) {
+        DoubleVector inf = DoubleVector.broadcast( SPECIES, Double.POSITIVE_INFINITY );
+        DoubleVector zero = DoubleVector.zero( SPECIES );
+
+        for( int i = 0; i < RayPacket.SIZE; i += SPECIES.length() ) {
+            DoubleVector ox = DoubleVector.fromArray( SPECIES, packet.ox, i );
+            DoubleVector oy = DoubleVector.fromArray( SPECIES, packet.oy, i );
+            DoubleVector dx = DoubleVector.fromArray( SPECIES, packet.dx, i );
+            DoubleVector dy = DoubleVector.fromArray( SPECIES, packet.dy, i );
+
+            // Same clipping as PolygonRaycast, see there
+            DoubleVector lower = zero;
+            DoubleVector upper = DoubleVector.broadcast( SPECIES, 1 );
+            DoubleVector hnx = zero, hny = zero;
+            VectorMask<Double> entered = SPECIES.maskAll( false );
+            VectorMask<Double> alive = SPECIES.maskAll( true );
+
+            double cx = x[ count - 1 ], cy = y[ count - 1 ];
+            for( int j = 0; j < count; j++ ) {
+                double nx = y[ j ] - cy;
+                double ny = cx - x[ j ];
+                double nc = nx * cx + ny * cy;
+
+                DoubleVector num = ox.mul( - nx ).sub( oy.mul( ny ) ).add( nc );
+                DoubleVector den = dx.mul( nx ).add( dy.mul( ny ) );
+
+                VectorMask<Double> parallel = den.compare( EQ, 0 );
+                alive = alive.andNot( parallel.and( num.compare( LT, 0 ) ) );
+
+                DoubleVector s = num.div( den );
+                VectorMask<Double> entering = den.compare( LT, 0 ).and( s.compare( GT, lower ) );
+                VectorMask<Double> leaving = den.compare( GT, 0 ).and( s.compare( LT, upper ) );
+
+                lower = lower.blend( s, entering );
+                hnx = hnx.blend( nx, entering );
+                hny = hny.blend( ny, entering );
+                entered = entered.or( entering );
+                upper = upper.blend( s, leaving );
+
+                alive = alive.and( upper.compare( GE, lower ) );
+                if( ! alive.anyTrue() )
+                    break;
+
+                cx = x[ j ];
+                cy = y[ j ];
+            }
+
+            VectorMask<Double> hit = alive.and( entered );
+            if( ! hit.anyTrue() ) {
+                inf.intoArray( packet.t, i );
+                continue;
+            }
+
+            DoubleVector len = hnx.fma( hnx, hny.mul( hny ) ).sqrt();
+            inf.blend( lower, hit ).intoArray( packet.t, i );
+            hnx.div( len ).intoArray( packet.tnx, i );
+            hny.div( len ).intoArray( packet.tny, i );
+        }
+    }
+}
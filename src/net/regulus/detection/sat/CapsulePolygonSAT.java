@@ -69,19 +69,18 @@ public final class CapsulePolygonSAT {
         Vec2 closerPoint = new Vec2();
         VectorList satAxes = new VectorList();
 
-        // 1: All the different polygon axes
+        // 1: All the different polygon axes, which the polygon already computed
+        VectorCollection polygonAxes = b.getSATAxes();
+        for( int i = 0; i < polygonAxes.size(); i++ ) {
+            satAxes.add( polygonAxes.get( i, edgeV ) );
+        }
+
         for( int i = 0; i < size; i++ ) {
             looper.goTo( i );
             looper.currGlobal( curr );
             looper.nextGlobal( next );
             edge.set( curr, next );
 
-            next.sub( curr, edgeV ).perp( edgeV ).norm( edgeV );
-
-            if( ! contains( satAxes, edgeV, v1 ) ) {
-                satAxes.add( edgeV );
-            }
-
             ld.line.set( edge );
             ld.point.set( rig.pointA );
             ld.compute();
@@ -131,19 +130,8 @@ public final class CapsulePolygonSAT {
             double mina = Math.min( d1, d2 ) - radius;
             double maxa = Math.max( d1, d2 ) + radius;
 
-            double minb = Double.POSITIVE_INFINITY;
-            double maxb = Double.NEGATIVE_INFINITY;
-
-            for( int j = 0; j < size; j++ ) {
-                looper.goTo( j );
-                looper.currGlobal( curr );
-                double dot = curr.dot( axis );
-
-                if( dot < minb )
-                    minb = dot;
-                if( dot > maxb )
-                    maxb = dot;
-            }
+            double minb = b.minProjection( axis.x, axis.y );
+            double maxb = b.maxProjection( axis.x, axis.y );
 
             int od = overlapDirection( mina, maxa, minb, maxb );
             if( od == 0 ) {
@@ -177,20 +165,9 @@ public final class CapsulePolygonSAT {
             primer.collisionB.add( dist.line.interpolate( dist.u, v1 ) );
         } else {
             // Second or third case... We need the best edge for both cases so before jumping into one of them:
-            int bestEdgeIndex = - 1;
-            double highestDot = Double.NEGATIVE_INFINITY;
+            int bestEdgeIndex = b.extremeVertex( normal.x, normal.y );
             Vec2 prev = new Vec2();
 
-            for( int i = 0; i < size; i++ ) {
-                looper.goTo( i );
-                looper.currGlobal( curr );
-                double dot = curr.dot( normal );
-                if( dot > highestDot ) {
-                    highestDot = dot;
-                    bestEdgeIndex = i;
-                }
-            }
-
             Line bestEdge;
             looper.goTo( bestEdgeIndex );
             looper.currGlobal( curr );
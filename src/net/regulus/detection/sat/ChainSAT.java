@@ -0,0 +1,67 @@
+package net.regulus.detection.sat;
+
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.geom.AABB;
+
+/**
+ * Collides circles, capsules and polygons with chains. Only the segments whose strips lie under the box of the other
+ * collider are visited, found through the tree of the chain. Each strip is tested like a polygon, and contacts at the
+ * seams between segments are handled by {@link SurfaceContacts}.
+ */
+public final class ChainSAT {
+    private ChainSAT() {
+    }
+
+    public static void collide( SimpleCollider a, ChainCollider b, ICollisionCollector collector ) {
+        collide( a, b, collector, false );
+    }
+
+    public static void collide( ChainCollider a, SimpleCollider b, ICollisionCollector collector ) {
+        collide( b, a, collector, true );
+    }
+
+    /**
+     * Tests a simple collider against a chain.
+     *
+     * @param flip Whether the chain is the first collider of the pair, in which case the primers are inverted
+     */
+    private static void collide( SimpleCollider a, ChainCollider b, ICollisionCollector collector, boolean flip ) {
+        if( ! ( a instanceof PolygonalCollider || a instanceof CircleCollider || a instanceof CapsuleCollider ) )
+            return;
+
+        SurfaceContacts contacts = b.getContacts();
+        AABB box = contacts.begin( a, b.getThickness(), flip, collector );
+        b.getBodyTransform( contacts.transform );
+        b.toLocal( box, contacts.region );
+        collide( b, b.getRoot(), contacts );
+    }
+
+    /**
+     * Descends the tree of a chain, testing the segments whose strips overlap the region of the contacts.
+     */
+    private static void collide( ChainCollider b, int node, SurfaceContacts contacts ) {
+        if( ! b.overlaps( node, contacts.region ) )
+            return;
+        if( ! b.isLeaf( node ) ) {
+            collide( b, b.getChild1( node ), contacts );
+            collide( b, b.getChild2( node ), contacts );
+            return;
+        }
+
+        int segment = b.getSegment( node );
+        int p = b.previous( segment ), n = b.next( segment );
+        contacts.collide(
+            b.getPiece( segment ),
+            b.getVertex( segment, contacts.start ),
+            b.getDirection( segment, contacts.dir ),
+            b.getLength( segment ),
+            p == ChainCollider.NULL ? null : b.getDirection( p, contacts.previous ),
+            n == ChainCollider.NULL ? null : b.getDirection( n, contacts.next )
+        );
+    }
+}
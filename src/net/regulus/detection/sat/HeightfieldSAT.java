@@ -0,0 +1,61 @@
+package net.regulus.detection.sat;
+
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.geom.AABB;
+
+/**
+ * Collides circles, capsules and polygons with heightfields. The columns under the box of the other collider are found
+ * directly from the x coordinates of the box. Each column is tested like a polygon, and contacts at the seams between
+ * columns are handled by {@link SurfaceContacts}.
+ */
+public final class HeightfieldSAT {
+    private HeightfieldSAT() {
+    }
+
+    public static void collide( SimpleCollider a, HeightfieldCollider b, ICollisionCollector collector ) {
+        collide( a, b, collector, false );
+    }
+
+    public static void collide( HeightfieldCollider a, SimpleCollider b, ICollisionCollector collector ) {
+        collide( b, a, collector, true );
+    }
+
+    /**
+     * Tests a simple collider against a heightfield.
+     *
+     * @param flip Whether the heightfield is the first collider of the pair, in which case the primers are inverted
+     */
+    private static void collide( SimpleCollider a, HeightfieldCollider b, ICollisionCollector collector, boolean flip ) {
+        if( ! ( a instanceof PolygonalCollider || a instanceof CircleCollider || a instanceof CapsuleCollider ) )
+            return;
+
+        SurfaceContacts contacts = b.getContacts();
+        AABB box = contacts.begin( a, b.getThickness(), flip, collector );
+        AABB region = b.toLocal( box, contacts.region );
+        int last = b.getColumnCount() - 1;
+        int c0 = Math.max( b.column( region.min.x ), 0 );
+        int c1 = Math.min( b.column( region.max.x ), last );
+        if( c0 > c1 )
+            return;
+
+        b.getBodyTransform( contacts.transform );
+        double spacing = b.getSpacing();
+        for( int c = c0; c <= c1; c++ ) {
+            if( ! b.mayOverlap( c, region ) )
+                continue;
+            contacts.collide(
+                b.getPiece( c ),
+                contacts.start.set( c * spacing, b.getHeight( c ) ),
+                b.getDirection( c, contacts.dir ),
+                b.getLength( c ),
+                c == 0 ? null : b.getDirection( c - 1, contacts.previous ),
+                c == last ? null : b.getDirection( c + 1, contacts.next )
+            );
+        }
+    }
+}
@@ -18,19 +18,9 @@ public final class PolygonBarSAT {
 
         Vec2 normal = b.getNormal( null ), curr = new Vec2(), next = new Vec2(), prev = new Vec2();
         Vec2 centerB = b.getCenter( null );
-        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
-
-        int size = a.getGlobal().size();
-
-        for( int i = 0; i < size; i++ ) {
-            looper.goTo( i );
-            looper.currGlobal( curr ).sub( centerB, curr );
-
-            double dot = curr.dot( normal );
-            if( dot < min )
-                min = dot;
-            if( dot > max ) max = dot;
-        }
+        double offset = centerB.dot( normal );
+        double min = a.minProjection( normal.x, normal.y ) - offset;
+        double max = a.maxProjection( normal.x, normal.y ) - offset;
 
         if( min > radius || max < -radius )
             return; // Separating axis
@@ -49,18 +39,7 @@ public final class PolygonBarSAT {
         primer.penetrationDepth = depth;
 
         normal.neg( normal );
-        double largestDot = Double.NEGATIVE_INFINITY;
-        int bestEdgeIndex = - 1;
-        for( int i = 0; i < size; i++ ) {
-            looper.goTo( i );
-            looper.currGlobal( curr );
-
-            double dot = curr.dot( normal );
-            if( dot > largestDot ) {
-                largestDot = dot;
-                bestEdgeIndex = i;
-            }
-        }
+        int bestEdgeIndex = a.extremeVertex( normal.x, normal.y );
 
         Line bestEdge;
         looper.goTo( bestEdgeIndex );
@@ -17,18 +17,7 @@ public final class PolygonPlaneSAT {
 
         Vec2 normal = b.getNormal( null ), curr = new Vec2(), next = new Vec2(), prev = new Vec2();
         Vec2 centerB = b.getCenter( null );
-        double min = Double.POSITIVE_INFINITY;
-
-        int size = a.getGlobal().size();
-
-        for( int i = 0; i < size; i++ ) {
-            looper.goTo( i );
-            looper.currGlobal( curr ).sub( centerB, curr );
-
-            double dot = curr.dot( normal );
-            if( dot < min )
-                min = dot;
-        }
+        double min = a.minProjection( normal.x, normal.y ) - centerB.dot( normal );
 
         if( min > 0 )
             return;
@@ -38,18 +27,7 @@ public final class PolygonPlaneSAT {
         primer.penetrationDepth = - min;
 
         normal.neg( normal );
-        double max = Double.NEGATIVE_INFINITY;
-        int bestEdgeIndex = - 1;
-        for( int i = 0; i < size; i++ ) {
-            looper.goTo( i );
-            looper.currGlobal( curr );
-
-            double dot = curr.dot( normal );
-            if( dot > max ) {
-                max = dot;
-                bestEdgeIndex = i;
-            }
-        }
+        int bestEdgeIndex = a.extremeVertex( normal.x, normal.y );
 
         Line bestEdge;
         looper.goTo( bestEdgeIndex );
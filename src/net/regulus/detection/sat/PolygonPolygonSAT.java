@@ -9,16 +9,6 @@ public final class PolygonPolygonSAT {
     private PolygonPolygonSAT() {
     }
 
-    private static boolean contains( VectorList satAxes, Vec2 axis, Vec2 use ) {
-        for( int i = 0; i < satAxes.size(); i++ ) {
-            satAxes.get( i, use );
-            if( MathUtil.equal( axis.cross( use ), 0 ) ) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private static int overlapDirection( double minA, double maxA, double minB, double maxB ) {
         if( minA <= maxB && minB <= maxA ) {
             if( maxA - minB <= maxB - minA ) {
@@ -41,81 +31,30 @@ public final class PolygonPolygonSAT {
     public static void collide( PolygonalCollider a, PolygonalCollider b, ICollisionCollector collector ) {
         PolygonalCollider.Looper looperA = a.looper();
         PolygonalCollider.Looper looperB = b.looper();
-        int sizeA = a.getGlobal().size();
-        int sizeB = b.getGlobal().size();
-
-        int maxSize = Math.max( sizeA, sizeB );
-
-        VectorList satAxes = new VectorList();
 
         Vec2 curr = new Vec2(), next = new Vec2(), axis = new Vec2(), use = new Vec2();
 
-        // Collect SAT-axes
-        for( int i = 0; i < sizeA; i++ ) {
-            looperA.goTo( i );
-            looperA.currGlobal( curr );
-            looperA.nextGlobal( next );
-            next.sub( curr, axis ).perp( axis ).norm( axis );
-            if( ! contains( satAxes, axis, use ) ) {
-                satAxes.add( axis );
-            }
-        }
-
-        for( int i = 0; i < sizeB; i++ ) {
-            looperB.goTo( i );
-            looperB.currGlobal( curr );
-            looperB.nextGlobal( next );
+        // The SAT axes of both polygons, without duplicates within each polygon. An axis shared by both polygons is
+        // projected twice, which gives the same overlap, so the first one is kept like when duplicates are removed.
+        VectorCollection axesA = a.getSATAxes();
+        VectorCollection axesB = b.getSATAxes();
+        int sizeAxesA = axesA.size();
 
-            next.sub( curr, axis ).perp( axis ).norm( axis );
-            if( ! contains( satAxes, axis, use ) ) {
-                satAxes.add( axis );
-            }
-        }
-
-
-        // Project polygons on SAT axes
-        Projection proj = new Projection();
-
-        int axesAmount = satAxes.size();
+        int axesAmount = sizeAxesA + axesB.size();
         double smallestOverlap = Double.POSITIVE_INFINITY;
         Vec2 normal = new Vec2();
         for( int i = 0; i < axesAmount; i++ ) {
-            satAxes.get( i, axis );
-
-            double minA = Double.POSITIVE_INFINITY;
-            double maxA = Double.NEGATIVE_INFINITY;
-            double minB = Double.POSITIVE_INFINITY;
-            double maxB = Double.NEGATIVE_INFINITY;
-
-            proj.baseVector.set( axis );
-            for( int j = 0; j < maxSize; j++ ) {
-                if( j < sizeA ) {
-                    looperA.goTo( j );
-                    looperA.currGlobal( curr );
-                    proj.projected.set( curr );
-                    proj.project();
-
-                    double tl = proj.tangentLength;
-                    if( tl < minA )
-                        minA = tl;
-                    if( tl > maxA )
-                        maxA = tl;
-                }
-
-                if( j < sizeB ) {
-                    looperB.goTo( j );
-                    looperB.currGlobal( curr );
-                    proj.projected.set( curr );
-                    proj.project();
-
-                    double tl = proj.tangentLength;
-                    if( tl < minB )
-                        minB = tl;
-                    if( tl > maxB )
-                        maxB = tl;
-                }
+            if( i < sizeAxesA ) {
+                axesA.get( i, axis );
+            } else {
+                axesB.get( i - sizeAxesA, axis );
             }
 
+            double minA = a.minProjection( axis.x, axis.y );
+            double maxA = a.maxProjection( axis.x, axis.y );
+            double minB = b.minProjection( axis.x, axis.y );
+            double maxB = b.maxProjection( axis.x, axis.y );
+
             int overlapDir = overlapDirection( minA, maxA, minB, maxB );
             if( overlapDir == 0 ) {
                 // Separating axis found: no overlap
@@ -137,21 +76,12 @@ public final class PolygonPolygonSAT {
 
 
         // Find best edge for A
-        int bestEdgeIndexA = - 1, bestEdgeIndexB = - 1;
-        double dotA = Double.NEGATIVE_INFINITY, dotB = Double.NEGATIVE_INFINITY;
+        int bestEdgeIndexA, bestEdgeIndexB;
         Vec2 prev = new Vec2();
 
         normal.neg( normal );
 
-        for( int i = 0; i < sizeA; i++ ) {
-            looperA.goTo( i );
-            looperA.currGlobal( curr );
-            double dot = curr.dot( normal );
-            if( dot > dotA ) {
-                dotA = dot;
-                bestEdgeIndexA = i;
-            }
-        }
+        bestEdgeIndexA = a.extremeVertex( normal.x, normal.y );
 
         Line bestEdgeA;
         looperA.goTo( bestEdgeIndexA );
@@ -170,15 +100,7 @@ public final class PolygonPolygonSAT {
         // Find best edge for B
         normal.neg( normal );
 
-        for( int i = 0; i < sizeB; i++ ) {
-            looperB.goTo( i );
-            looperB.currGlobal( curr );
-            double dot = curr.dot( normal );
-            if( dot > dotB ) {
-                dotB = dot;
-                bestEdgeIndexB = i;
-            }
-        }
+        bestEdgeIndexB = b.extremeVertex( normal.x, normal.y );
 
         Line bestEdgeB;
         looperB.goTo( bestEdgeIndexB );
@@ -202,8 +124,8 @@ public final class PolygonPolygonSAT {
         int amount = 2;
         LineIntersection isc = new LineIntersection();
 
-        dotA = Math.abs( bestEdgeA.edge( axis ).dot( normal ) );
-        dotB = Math.abs( bestEdgeB.edge( axis ).dot( normal ) );
+        double dotA = Math.abs( bestEdgeA.edge( axis ).dot( normal ) );
+        double dotB = Math.abs( bestEdgeB.edge( axis ).dot( normal ) );
 
         if( dotA <= dotB ) {
             ref = bestEdgeA;
@@ -1,5 +1,7 @@
 package net.regulus.detection.sat;
 
+import java.util.List;
+
 import net.regulus.detection.ICollisionCollector;
 import net.regulus.collider.*;
 import net.regulus.geom.AABB;
@@ -17,20 +19,141 @@ public final class SAT {
         }
 
         if( a instanceof CompoundCollider && b instanceof CompoundCollider ) {
-            for( SimpleCollider c1 : ( (CompoundCollider) a ).colliders ) {
-                for( SimpleCollider c2 : ( (CompoundCollider) b ).colliders ) {
-                    collide( c1, c2, collector );
-                }
-            }
+            collideCompounds( (CompoundCollider) a, (CompoundCollider) b, collector );
         } else if( a instanceof CompoundCollider && b instanceof SimpleCollider ) {
-            for( SimpleCollider c1 : ( (CompoundCollider) a ).colliders ) {
-                collide( c1, b, collector );
+            ChildTree tree = ( (CompoundCollider) a ).getTree();
+            for( int i = 0, l = tree.getUnboundedCount(); i < l; i++ ) {
+                collideSimple( tree.getUnbounded( i ), (SimpleCollider) b, collector );
             }
+            if( tree.getRoot() != ChildTree.NULL )
+                descend( tree, tree.getRoot(), (SimpleCollider) b, boxB, false, collector );
         } else if( a instanceof SimpleCollider && b instanceof CompoundCollider ) {
-            for( SimpleCollider c2 : ( (CompoundCollider) b ).colliders ) {
-                collide( a, c2, collector );
+            ChildTree tree = ( (CompoundCollider) b ).getTree();
+            for( int i = 0, l = tree.getUnboundedCount(); i < l; i++ ) {
+                collideSimple( (SimpleCollider) a, tree.getUnbounded( i ), collector );
+            }
+            if( tree.getRoot() != ChildTree.NULL )
+                descend( tree, tree.getRoot(), (SimpleCollider) a, boxA, true, collector );
+        } else if( a instanceof SimpleCollider && b instanceof SimpleCollider ) {
+            collideSimple( (SimpleCollider) a, (SimpleCollider) b, collector );
+        } else if( isTerrain( b ) && ! isTerrain( a ) ) {
+            // Two terrain colliders never collide, they are meant to be static
+            for( SimpleCollider child : children( a ) ) {
+                collideTerrain( child, b, collector );
             }
-        }  else if( a instanceof PolygonalCollider ) {
+        } else if( isTerrain( a ) && ! isTerrain( b ) ) {
+            for( SimpleCollider child : children( b ) ) {
+                collideTerrain( a, child, collector );
+            }
+        }
+    }
+
+    /**
+     * Checks whether a collider is a terrain collider, which is neither simple nor compound.
+     */
+    private static boolean isTerrain( ICollider collider ) {
+        return collider instanceof TileMapCollider || collider instanceof ChainCollider || collider instanceof HeightfieldCollider;
+    }
+
+    private static void collideTerrain( SimpleCollider a, ICollider b, ICollisionCollector collector ) {
+        if( b instanceof TileMapCollider ) {
+            TileMapSAT.collide( a, (TileMapCollider) b, collector );
+        } else if( b instanceof ChainCollider ) {
+            ChainSAT.collide( a, (ChainCollider) b, collector );
+        } else if( b instanceof HeightfieldCollider ) {
+            HeightfieldSAT.collide( a, (HeightfieldCollider) b, collector );
+        }
+    }
+
+    private static void collideTerrain( ICollider a, SimpleCollider b, ICollisionCollector collector ) {
+        if( a instanceof TileMapCollider ) {
+            TileMapSAT.collide( (TileMapCollider) a, b, collector );
+        } else if( a instanceof ChainCollider ) {
+            ChainSAT.collide( (ChainCollider) a, b, collector );
+        } else if( a instanceof HeightfieldCollider ) {
+            HeightfieldSAT.collide( (HeightfieldCollider) a, b, collector );
+        }
+    }
+
+    /**
+     * Returns the children of a compound, or the collider itself when it is simple.
+     */
+    private static List<SimpleCollider> children( ICollider collider ) {
+        if( collider instanceof CompoundCollider )
+            return ( (CompoundCollider) collider ).colliders;
+        if( collider instanceof SimpleCollider )
+            return List.of( (SimpleCollider) collider );
+        return List.of();
+    }
+
+    /**
+     * Tests two compounds by descending both child trees at once, so that only pairs of children with overlapping boxes
+     * are tested.
+     */
+    private static void collideCompounds( CompoundCollider a, CompoundCollider b, ICollisionCollector collector ) {
+        ChildTree treeA = a.getTree();
+        ChildTree treeB = b.getTree();
+
+        // Unbounded children overlap everything, test them against the whole other compound
+        for( int i = 0, l = treeA.getUnboundedCount(); i < l; i++ ) {
+            collide( treeA.getUnbounded( i ), b, collector );
+        }
+        if( treeA.getRoot() == ChildTree.NULL )
+            return;
+
+        AABB box = new AABB();
+        for( int i = 0, l = treeB.getUnboundedCount(); i < l; i++ ) {
+            SimpleCollider child = treeB.getUnbounded( i );
+            descend( treeA, treeA.getRoot(), child, child.getBox( box ), false, collector );
+        }
+        if( treeB.getRoot() != ChildTree.NULL )
+            descend( treeA, treeA.getRoot(), treeB, treeB.getRoot(), collector );
+    }
+
+    private static void descend( ChildTree treeA, int nodeA, ChildTree treeB, int nodeB, ICollisionCollector collector ) {
+        if( ! treeA.overlaps( nodeA, treeB, nodeB ) )
+            return;
+
+        boolean leafA = treeA.isLeaf( nodeA );
+        boolean leafB = treeB.isLeaf( nodeB );
+        if( leafA && leafB ) {
+            collideSimple( treeA.getCollider( nodeA ), treeB.getCollider( nodeB ), collector );
+        } else if( leafB || ! leafA && treeA.getPerimeter( nodeA ) >= treeB.getPerimeter( nodeB ) ) {
+            // Descend the larger node, so that both trees shrink at a similar pace
+            descend( treeA, treeA.getChild1( nodeA ), treeB, nodeB, collector );
+            descend( treeA, treeA.getChild2( nodeA ), treeB, nodeB, collector );
+        } else {
+            descend( treeA, nodeA, treeB, treeB.getChild1( nodeB ), collector );
+            descend( treeA, nodeA, treeB, treeB.getChild2( nodeB ), collector );
+        }
+    }
+
+    /**
+     * Tests a simple collider against the children of a tree that overlap it's box.
+     *
+     * @param first Whether the simple collider is the first collider of the pair
+     */
+    private static void descend( ChildTree tree, int node, SimpleCollider other, AABB box, boolean first, ICollisionCollector collector ) {
+        if( ! tree.overlaps( node, box ) )
+            return;
+
+        if( tree.isLeaf( node ) ) {
+            if( first ) {
+                collideSimple( other, tree.getCollider( node ), collector );
+            } else {
+                collideSimple( tree.getCollider( node ), other, collector );
+            }
+        } else {
+            descend( tree, tree.getChild1( node ), other, box, first, collector );
+            descend( tree, tree.getChild2( node ), other, box, first, collector );
+        }
+    }
+
+    /**
+     * Tests two simple colliders, without testing their boxes first.
+     */
+    static void collideSimple( SimpleCollider a, SimpleCollider b, ICollisionCollector collector ) {
+        if( a instanceof PolygonalCollider ) {
             if( b instanceof PolygonalCollider ) {
                 PolygonPolygonSAT.collide( (PolygonalCollider) a, (PolygonalCollider) b, collector );
             } else if( b instanceof CircleCollider ) {
@@ -0,0 +1,205 @@
+package net.regulus.detection.sat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.regulus.collider.PlaneCollider;
+import net.regulus.collider.PolygonCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.geom.AABB;
+import net.regulus.geom.MathUtil;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Generates the contacts between a simple collider and the segments of a one-sided surface, like a chain or a
+ * heightfield. The surface is solid on the right of it's segments, and behind every segment it is covered by a convex
+ * piece, which is tested like a polygon.
+ * <p>
+ * A shape sliding over a surface can hit the end of the piece of the next segment, which would stop it at a seam that
+ * is not there. This is solved like ghost vertices: the neighbouring segments decide which contact normals a segment
+ * may produce, see {@link #isAdmissible}. Contacts with other normals are replaced by a contact along the normal of the
+ * segment, see {@link #collideFace}.
+ * <p>
+ * Every chain and heightfield keeps one instance as scratch space, so that colliding with them allocates nothing. The
+ * instance is set up for a pair with {@link #begin}.
+ */
+public final class SurfaceContacts {
+    /** Tolerance on the components of unit vectors, so that normals along a segment are not rejected by round-off */
+    private static final double TOLERANCE = 1E-6;
+
+    private SimpleCollider collider;
+    private double thickness;
+    private boolean flip;
+    private ICollisionCollector collector;
+
+    /** The body transform of the surface, which maps the local segments to global space */
+    final Transform transform = new Transform();
+    /** The box of the collider, in the local space of the surface */
+    final AABB region = new AABB();
+    /** Scratch vectors for the segments that are passed to {@link #collide} */
+    final Vec2 start = new Vec2(), dir = new Vec2(), previous = new Vec2(), next = new Vec2();
+
+    private final AABB box = new AABB();
+    private final PlaneCollider plane = new PlaneCollider();
+    private final Transform faceTransform = new Transform();
+    private final List<CollisionPrimer> primers = new ArrayList<>();
+    private final List<CollisionPrimer> facePrimers = new ArrayList<>( 1 );
+    private final ICollisionCollector primerList = primers::add;
+    private final ICollisionCollector facePrimerList = facePrimers::add;
+    private final Vec2 globalStart = new Vec2(), globalDir = new Vec2(), globalNormal = new Vec2();
+    private final Vec2 pointA = new Vec2(), pointB = new Vec2();
+
+    /**
+     * Sets up the contacts for a pair. The {@link #transform} and {@link #region} are left to the caller, who knows the
+     * surface.
+     *
+     * @param collider  The collider to test against the surface
+     * @param thickness The depth of the pieces below the segments, contacts that are deeper are dropped
+     * @param flip      Whether the surface is the first collider of the pair, in which case the primers are inverted
+     * @param collector The collector that receives the contacts
+     * @return The box of the collider, in global space
+     */
+    AABB begin( SimpleCollider collider, double thickness, boolean flip, ICollisionCollector collector ) {
+        this.collider = collider;
+        this.thickness = thickness;
+        this.flip = flip;
+        this.collector = collector;
+        return collider.getBox( box );
+    }
+
+    /**
+     * Tests the collider against the piece of a segment. All vectors are local.
+     *
+     * @param piece    The global piece behind the segment
+     * @param start    The start of the segment
+     * @param dir      The unit direction of the segment
+     * @param length   The length of the segment
+     * @param previous The unit direction of the segment before it, or {@code null} when there is none
+     * @param next     The unit direction of the segment after it, or {@code null} when there is none
+     */
+    void collide( PolygonCollider piece, Vec2 start, Vec2 dir, double length, Vec2 previous, Vec2 next ) {
+        // Some tests fill in the contact points after adding the primer, so primers are only checked afterwards
+        primers.clear();
+        SAT.collideSimple( collider, piece, primerList );
+
+        boolean kept = false;
+        for( int i = 0, l = primers.size(); i < l; i++ ) {
+            CollisionPrimer primer = primers.get( i );
+
+            // Polygon tests add the same primer twice, which must be checked and inverted only once
+            if( i == 0 || primer != primers.get( i - 1 ) ) {
+                // The normal points from the surface to the other collider, rotate it into the local space
+                Vec2 n = primer.normal;
+                double nx = n.x * transform.cos + n.y * transform.sin;
+                double ny = n.y * transform.cos - n.x * transform.sin;
+
+                kept = isAdmissible( nx, ny, dir, previous, next );
+                if( ! kept ) {
+                    CollisionPrimer face = collideFace( start, dir, length );
+                    if( face != null )
+                        collector.addCollision( flip ? face.invert() : face );
+                } else if( flip ) {
+                    primer.invert();
+                }
+            }
+            if( kept )
+                collector.addCollision( primer );
+        }
+    }
+
+    /**
+     * Replaces a contact with a normal that a segment may not produce, by a contact along the normal of the segment.
+     * The collider is tested against the line of the segment, and contact points beyond the ends of the segment are
+     * dropped. This keeps contacts with the face of a segment when the separating axis of the other collider leans
+     * towards a concave corner, like a box lying across a few short segments at the bottom of a valley.
+     *
+     * @return The contact, or {@code null} when no contact point lies along the segment or when the collider lies
+     *     deeper than the piece behind the segment
+     */
+    private CollisionPrimer collideFace( Vec2 localStart, Vec2 localDir, double length ) {
+        transform.mul( localStart, globalStart );
+        transform.rotate( localDir, globalDir );
+        globalDir.perp( globalNormal );
+
+        // The plane is placed from the normal of the segment directly, the angle is only kept for consistency
+        double nx = - localDir.y, ny = localDir.x;
+        Transform.put( faceTransform, nx, ny, localStart.x, localStart.y, MathUtil.atan2( ny, nx ) );
+        transform.mul( faceTransform, faceTransform );
+        plane.setBodyTransform( faceTransform );
+
+        facePrimers.clear();
+        SAT.collideSimple( collider, plane, facePrimerList );
+        if( facePrimers.isEmpty() )
+            return null;
+
+        CollisionPrimer primer = facePrimers.get( 0 );
+        CollisionPrimer face = new CollisionPrimer();
+        face.normal.set( primer.normal );
+        double depth = Double.NEGATIVE_INFINITY;
+        for( int i = 0, l = primer.collisionB.size(); i < l; i++ ) {
+            primer.collisionA.get( i, pointA );
+            primer.collisionB.get( i, pointB );
+            double along = ( pointB.x - globalStart.x ) * globalDir.x + ( pointB.y - globalStart.y ) * globalDir.y;
+            if( along < 0 || along > length )
+                continue;
+            face.collisionA.add( pointA );
+            face.collisionB.add( pointB );
+            depth = Math.max( depth, ( pointB.x - pointA.x ) * globalNormal.x + ( pointB.y - pointA.y ) * globalNormal.y );
+        }
+        if( face.collisionA.size() == 0 || depth > thickness )
+            return null;
+        face.penetrationDepth = depth;
+        return face;
+    }
+
+    /**
+     * Checks whether a segment of a surface may produce a contact with a normal, given the directions of the segments
+     * around it. Normals along the normal of the segment are always admissible. Normals that lean towards an end of
+     * the segment are only admissible when:
+     * <ul>
+     * <li>there is no segment beyond that end, so the end is exposed; or</li>
+     * <li>the surface is convex at that end, and the normal lies between the normals of both segments, closer to the
+     * normal of this segment. The segment after the vertex wins ties, so that exactly one of both segments keeps a
+     * contact at a corner.</li>
+     * </ul>
+     * Where the surface is flat or concave, the end of a segment lies inside the surface and any contact leaning towards
+     * it is a ghost contact.
+     *
+     * @param nx       The x-coordinate of the unit normal, pointing away from the surface
+     * @param ny       The y-coordinate of the unit normal, pointing away from the surface
+     * @param dir      The unit direction of the segment
+     * @param previous The unit direction of the segment before it, or {@code null} when there is none
+     * @param next     The unit direction of the segment after it, or {@code null} when there is none
+     */
+    static boolean isAdmissible( double nx, double ny, Vec2 dir, Vec2 previous, Vec2 next ) {
+        double along = nx * dir.x + ny * dir.y;
+        double above = ny * dir.x - nx * dir.y;
+
+        if( along < - TOLERANCE ) {
+            if( previous == null )
+                return above >= - TOLERANCE;
+
+            // Convex when the surface turns clockwise at the start of the segment
+            if( previous.x * dir.y - previous.y * dir.x >= 0 )
+                return false;
+            // A normal that leans past the normal of the previous segment points back along that segment
+            double abovePrevious = ny * previous.x - nx * previous.y;
+            double alongPrevious = nx * previous.x + ny * previous.y;
+            return alongPrevious >= - TOLERANCE && above >= abovePrevious;
+        }
+        if( along > TOLERANCE ) {
+            if( next == null )
+                return above >= - TOLERANCE;
+
+            if( dir.x * next.y - dir.y * next.x >= 0 )
+                return false;
+            double aboveNext = ny * next.x - nx * next.y;
+            double alongNext = nx * next.x + ny * next.y;
+            return alongNext <= TOLERANCE && above > aboveNext;
+        }
+        return above > 0;
+    }
+}
@@ -0,0 +1,39 @@
+package net.regulus.detection.sat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.regulus.collider.SimpleCollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * The state of a collision between a simple collider and a tile map, see {@link TileMapSAT}. Every tile map keeps one
+ * instance as scratch space, so that colliding with it allocates nothing. The instance receives the rectangles of the
+ * tile map and tests them against the collider.
+ */
+public final class TileMapContacts implements TileMapCollider.IRectangleConsumer {
+    TileMapCollider map;
+    SimpleCollider collider;
+    boolean flip;
+    ICollisionCollector collector;
+
+    /** The body transform of the tile map */
+    final Transform transform = new Transform();
+    /** The box of the collider, in global space */
+    final AABB box = new AABB();
+    /** The box of the collider, in the local space of the tile map */
+    final AABB region = new AABB();
+    final Vec2 point = new Vec2();
+    final List<CollisionPrimer> primers = new ArrayList<>();
+    final ICollisionCollector primerList = primers::add;
+
+    @Override
+    public void accept( int column, int row, int columns, int rows ) {
+        TileMapSAT.collideRectangle( this, column, row, columns, rows );
+    }
+}
@@ -0,0 +1,126 @@
+package net.regulus.detection.sat;
+
+import java.util.List;
+
+import net.regulus.collider.BoxCollider;
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.PolygonalCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.ICollisionCollector;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Transform;
+import net.regulus.geom.Vec2;
+
+/**
+ * Collides circles, capsules and polygons with tile maps. Only the cells under the box of the other collider are
+ * visited: the solid cells there are merged into rectangles, which are tested like boxes.
+ * <p>
+ * Rectangles still meet at seams, where a collider can hit the side of one rectangle that is covered by the next one. A
+ * contact whose normal points out of such a covered side is dropped, as the side is inside the tile map.
+ */
+public final class TileMapSAT {
+    private TileMapSAT() {
+    }
+
+    public static void collide( SimpleCollider a, TileMapCollider b, ICollisionCollector collector ) {
+        collide( a, b, collector, false );
+    }
+
+    public static void collide( TileMapCollider a, SimpleCollider b, ICollisionCollector collector ) {
+        collide( b, a, collector, true );
+    }
+
+    /**
+     * Tests a simple collider against a tile map.
+     *
+     * @param flip Whether the tile map is the first collider of the pair, in which case the primers are inverted
+     */
+    private static void collide( SimpleCollider a, TileMapCollider b, ICollisionCollector collector, boolean flip ) {
+        if( ! ( a instanceof PolygonalCollider || a instanceof CircleCollider || a instanceof CapsuleCollider ) )
+            return;
+
+        TileMapContacts contacts = b.getContacts();
+        contacts.map = b;
+        contacts.collider = a;
+        contacts.flip = flip;
+        contacts.collector = collector;
+        b.getBodyTransform( contacts.transform );
+        AABB region = b.toLocal( a.getBox( contacts.box ), contacts.region );
+
+        // One cell of margin, so that rectangles are not cut off where the collider can touch them
+        int c0 = b.column( region.min.x ) - 1, r0 = b.row( region.min.y ) - 1;
+        int c1 = b.column( region.max.x ) + 2, r1 = b.row( region.max.y ) + 2;
+        b.forEachRectangle( c0, r0, c1 - c0, r1 - r0, contacts );
+    }
+
+    /**
+     * Tests the collider of a collision against a rectangle of solid cells.
+     */
+    static void collideRectangle( TileMapContacts contacts, int column, int row, int columns, int rows ) {
+        TileMapCollider b = contacts.map;
+        BoxCollider piece = b.getPiece( column, row, columns, rows );
+
+        // Some tests fill in the contact points after adding the primer, so primers are only checked afterwards
+        List<CollisionPrimer> primers = contacts.primers;
+        primers.clear();
+        SAT.collideSimple( contacts.collider, piece, contacts.primerList );
+
+        boolean kept = false;
+        for( int i = 0, l = primers.size(); i < l; i++ ) {
+            CollisionPrimer primer = primers.get( i );
+
+            // Polygon tests add the same primer twice, which must be checked and inverted only once
+            if( i == 0 || primer != primers.get( i - 1 ) ) {
+                kept = ! isCovered( b, contacts.transform, column, row, columns, rows, primer, contacts.point );
+                if( kept && contacts.flip )
+                    primer.invert();
+            }
+            if( kept )
+                contacts.collector.addCollision( primer );
+        }
+    }
+
+    /**
+     * Checks whether the side of a rectangle that a contact normal points out of is covered by solid cells at the
+     * contact points.
+     */
+    private static boolean isCovered( TileMapCollider map, Transform transform, int column, int row, int columns, int rows, CollisionPrimer primer, Vec2 point ) {
+        // The normal points from the tile map to the other collider, rotate it into the local space of the tile map
+        Vec2 normal = primer.normal;
+        double nx = normal.x * transform.cos + normal.y * transform.sin;
+        double ny = normal.y * transform.cos - normal.x * transform.sin;
+
+        boolean horizontal = Math.abs( nx ) >= Math.abs( ny );
+        int beyond = horizontal
+                     ? nx > 0 ? column + columns : column - 1
+                     : ny > 0 ? row + rows : row - 1;
+
+        int points = primer.collisionB.size();
+        if( points == 0 ) {
+            // Without contact points, the whole side must be covered
+            int length = horizontal ? rows : columns;
+            for( int i = 0; i < length; i++ ) {
+                if( horizontal ? ! map.isSolid( beyond, row + i ) : ! map.isSolid( column + i, beyond ) )
+                    return false;
+            }
+            return true;
+        }
+
+        for( int i = 0; i < points; i++ ) {
+            transform.mulInverse( primer.collisionB.get( i, point ), point );
+            if( horizontal ) {
+                int r = Math.max( row, Math.min( row + rows - 1, map.row( point.y ) ) );
+                if( ! map.isSolid( beyond, r ) )
+                    return false;
+            } else {
+                int c = Math.max( column, Math.min( column + columns - 1, map.column( point.x ) ) );
+                if( ! map.isSolid( c, beyond ) )
+                    return false;
+            }
+        }
+        return true;
+    }
+}
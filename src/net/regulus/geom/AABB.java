@@ -181,6 +181,15 @@ public class AABB {
         return a.min.x <= b.max.x && a.max.x >= b.min.x && a.min.y <= b.max.y && a.max.y >= b.min.y;
     }
 
+    /**
+     * Checks whether this AABB contains the specified point, including points on it's boundary.
+     * @return True when the point is inside.
+     */
+    public boolean contains( Vec2 point ) {
+        notnull( point );
+        return point.x >= min.x && point.x <= max.x && point.y >= min.y && point.y <= max.y;
+    }
+
     /**
      * Utility function to put a specific value into an output AABB, creating a new one when necessary.
      */
@@ -206,4 +215,9 @@ public class AABB {
         if( b == null )
             throw new NullPointerException( "Null AABB" );
     }
+
+    private static void notnull( Vec2 v ) {
+        if( v == null )
+            throw new NullPointerException( "Null vector" );
+    }
 }
@@ -1,6 +1,8 @@
 package net.regulus.geom;
 
 import static java.lang.Math.*;
+import static net.regulus.geom.MathUtil.cos;
+import static net.regulus.geom.MathUtil.sin;
 
 /**
  * Represents a 2 by 2 matrix. 2x2 matrices are used for linear transformations to shapes and vectors. The fields of
@@ -3,6 +3,8 @@ package net.regulus.geom;
 import java.util.Objects;
 
 import static java.lang.Math.*;
+import static net.regulus.geom.MathUtil.cos;
+import static net.regulus.geom.MathUtil.sin;
 
 public class Mat3 {
     public double m00;
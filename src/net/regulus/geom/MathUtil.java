@@ -1,5 +1,7 @@
 package net.regulus.geom;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public final class MathUtil {
     /**
      * Threshold for considering something 'zero'. E.g. a double that lies closer to zero than this value may be
@@ -11,6 +13,11 @@ public final class MathUtil {
     public static final double SQRT_2 = 1.4142135623730950488;
     public static final double HALF_SQRT_2 = SQRT_2 / 2.0;
 
+    /** Whether the current thread uses StrictMath, see {@link #setStrictMath} */
+    private static final ThreadLocal<boolean[]> STRICT = ThreadLocal.withInitial( () -> new boolean[ 1 ] );
+    /** The amount of threads that use StrictMath */
+    private static final AtomicInteger STRICT_THREADS = new AtomicInteger();
+
     private MathUtil() {
         throw new UnsupportedOperationException( "No MathUtil instances for you!" );
     }
@@ -98,4 +105,54 @@ public final class MathUtil {
     public static double pythagoreanSolve( double a, double b ) {
         return Math.sqrt( a * a + b * b );
     }
+
+    /**
+     * Sets whether trigonometric functions use {@link StrictMath} instead of {@link Math} on the current thread. {@link
+     * Math} may use intrinsics that give different results on different platforms and JVMs, {@link StrictMath} always
+     * gives the same results, but is slower. Other floating point arithmetic, including {@link Math#sqrt}, is always
+     * reproducible.
+     * <p>
+     * Deterministic worlds switch this on for the thread that ticks them while they run, and switch it back
+     * afterwards, so other threads are not affected. Code that builds a deterministic world from angles can switch
+     * it on as well.
+     *
+     * @see net.regulus.simulation.World#setDeterministic
+     */
+    public static void setStrictMath( boolean strict ) {
+        boolean[] flag = STRICT.get();
+        if( flag[ 0 ] == strict )
+            return;
+        flag[ 0 ] = strict;
+        if( strict ) {
+            STRICT_THREADS.incrementAndGet();
+        } else {
+            STRICT_THREADS.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether trigonometric functions use {@link StrictMath} on the current thread.
+     *
+     * @see #setStrictMath
+     */
+    public static boolean isStrictMath() {
+        // Skip the thread local while no thread is strict, which is the common case
+        return STRICT_THREADS.get() != 0 && STRICT.get()[ 0 ];
+    }
+
+    public static double sin( double a ) {
+        return isStrictMath() ? StrictMath.sin( a ) : Math.sin( a );
+    }
+
+    public static double cos( double a ) {
+        return isStrictMath() ? StrictMath.cos( a ) : Math.cos( a );
+    }
+
+    public static double acos( double a ) {
+        return isStrictMath() ? StrictMath.acos( a ) : Math.acos( a );
+    }
+
+    public static double atan2( double y, double x ) {
+        return isStrictMath() ? StrictMath.atan2( y, x ) : Math.atan2( y, x );
+    }
 }
@@ -0,0 +1,266 @@
+package net.regulus.geom;
+
+/**
+ * Represents a rigid transform in 2D space: a rotation followed by a translation. The sine and cosine of the rotation
+ * are computed once when the rotation is set, so that applying and composing transforms only needs a few
+ * multiply-adds, where a {@link Mat3} needs a full matrix product. The angle is kept along with it, so that it does not
+ * need to be derived from the sine and cosine.
+ */
+public class Transform {
+    /** The cosine of the rotation */
+    public double cos = 1;
+    /** The sine of the rotation */
+    public double sin;
+    /** The x-coordinate of the translation */
+    public double tx;
+    /** The y-coordinate of the translation */
+    public double ty;
+    /** The rotation, in radians counterclockwise */
+    public double angle;
+
+    /**
+     * Constructs an identity transform.
+     */
+    public Transform() {
+
+    }
+
+    /**
+     * Constructs a transform with specified translation and rotation.
+     *
+     * @param x     The x-coordinate of the translation
+     * @param y     The y-coordinate of the translation
+     * @param angle The rotation, in radians counterclockwise
+     */
+    public Transform( double x, double y, double angle ) {
+        set( x, y, angle );
+    }
+
+    /**
+     * Constructs a transform by copying from another.
+     *
+     * @param other The transform to copy from
+     */
+    public Transform( Transform other ) {
+        set( other );
+    }
+
+    /**
+     * Constructs an identity transform.
+     */
+    public static Transform identity() {
+        return new Transform();
+    }
+
+    /**
+     * Sets this transform to identity.
+     */
+    public Transform setIdentity() {
+        cos = 1;
+        sin = 0;
+        tx = 0;
+        ty = 0;
+        angle = 0;
+        return this;
+    }
+
+    /**
+     * Sets this transform to specified translation and rotation, computing the sine and cosine of the rotation.
+     *
+     * @param x     The x-coordinate of the translation
+     * @param y     The y-coordinate of the translation
+     * @param angle The rotation, in radians counterclockwise
+     */
+    public Transform set( double x, double y, double angle ) {
+        tx = x;
+        ty = y;
+        setRotation( angle );
+        return this;
+    }
+
+    /**
+     * Sets this transform to specified translation and rotation, computing the sine and cosine of the rotation.
+     *
+     * @param translation The translation
+     * @param angle       The rotation, in radians counterclockwise
+     */
+    public Transform set( Vec2 translation, double angle ) {
+        return set( translation.x, translation.y, angle );
+    }
+
+    /**
+     * Copies values from another transform into this instance.
+     *
+     * @param other The transform to copy from
+     */
+    public Transform set( Transform other ) {
+        cos = other.cos;
+        sin = other.sin;
+        tx = other.tx;
+        ty = other.ty;
+        angle = other.angle;
+        return this;
+    }
+
+    /**
+     * Sets the rotation of this transform, computing it's sine and cosine, and keeping the translation.
+     *
+     * @param angle The rotation, in radians counterclockwise
+     */
+    public Transform setRotation( double angle ) {
+        this.angle = angle;
+        cos = MathUtil.cos( angle );
+        sin = MathUtil.sin( angle );
+        return this;
+    }
+
+    /**
+     * Sets the translation of this transform, keeping the rotation.
+     */
+    public Transform setTranslation( double x, double y ) {
+        tx = x;
+        ty = y;
+        return this;
+    }
+
+    /**
+     * Composes this transform with another, putting the result in the specified output transform. The result first
+     * applies the other transform and then this transform, like the matrix product {@code this * other}.
+     *
+     * @param other The transform to apply first
+     * @param out   The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform mul( Transform other, Transform out ) {
+        double c = cos * other.cos - sin * other.sin;
+        double s = sin * other.cos + cos * other.sin;
+        double x = cos * other.tx - sin * other.ty + tx;
+        double y = sin * other.tx + cos * other.ty + ty;
+        return put( out, c, s, x, y, angle + other.angle );
+    }
+
+    /**
+     * Computes the inverse of this transform, putting the result in the specified output transform.
+     *
+     * @param out The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform invert( Transform out ) {
+        double x = - cos * tx - sin * ty;
+        double y = sin * tx - cos * ty;
+        return put( out, cos, - sin, x, y, - angle );
+    }
+
+    /**
+     * Transforms a point, putting the result in the specified output vector.
+     *
+     * @param v   The point to transform
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 mul( Vec2 v, Vec2 out ) {
+        return mul( v.x, v.y, out );
+    }
+
+    /**
+     * Transforms a point, putting the result in the specified output vector.
+     *
+     * @param x   The x-coordinate of the point to transform
+     * @param y   The y-coordinate of the point to transform
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 mul( double x, double y, Vec2 out ) {
+        return Vec2.put( out, cos * x - sin * y + tx, sin * x + cos * y + ty );
+    }
+
+    /**
+     * Rotates a vector, without translating it, putting the result in the specified output vector.
+     *
+     * @param v   The vector to rotate
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 rotate( Vec2 v, Vec2 out ) {
+        return rotate( v.x, v.y, out );
+    }
+
+    /**
+     * Rotates a vector, without translating it, putting the result in the specified output vector.
+     *
+     * @param x   The x-coordinate of the vector to rotate
+     * @param y   The y-coordinate of the vector to rotate
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 rotate( double x, double y, Vec2 out ) {
+        return Vec2.put( out, cos * x - sin * y, sin * x + cos * y );
+    }
+
+    /**
+     * Transforms a point by the inverse of this transform, putting the result in the specified output vector.
+     *
+     * @param v   The point to transform
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 mulInverse( Vec2 v, Vec2 out ) {
+        double x = v.x - tx;
+        double y = v.y - ty;
+        return Vec2.put( out, cos * x + sin * y, cos * y - sin * x );
+    }
+
+    /**
+     * Returns the translation of this transform.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getTranslation( Vec2 out ) {
+        return Vec2.put( out, tx, ty );
+    }
+
+    /**
+     * Returns the direction of the x-axis after rotation, which is {@code (cos, sin)}.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getDirection( Vec2 out ) {
+        return Vec2.put( out, cos, sin );
+    }
+
+    /**
+     * Converts this transform to a matrix.
+     *
+     * @param out The output matrix. When {@code null}, a new matrix is created.
+     */
+    public Mat3 getMatrix( Mat3 out ) {
+        return Mat3.put(
+            out,
+            cos, - sin, tx,
+            sin, cos, ty,
+            0, 0, 1
+        );
+    }
+
+    /**
+     * Utility function to put a specific value into an output transform, creating a new one when necessary.
+     */
+    public static Transform put( Transform out, double cos, double sin, double tx, double ty, double angle ) {
+        if( out == null )
+            out = new Transform();
+        out.cos = cos;
+        out.sin = sin;
+        out.tx = tx;
+        out.ty = ty;
+        out.angle = angle;
+        return out;
+    }
+
+    /**
+     * Utility function to put a specific value into an output transform, creating a new one when necessary.
+     */
+    public static Transform put( Transform out, Transform transform ) {
+        if( out == null )
+            out = new Transform();
+        out.set( transform );
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return "Transform(" + tx + ", " + ty + ", " + angle + ")";
+    }
+}
@@ -86,8 +86,8 @@ public class Vec2 implements Cloneable {
      * @return A new vector with the specified polar coordinates as initial value, converted to cartesian coordinates.
      */
     public static Vec2 fromPolar( double mag, double dir ) {
-        double x = Math.cos( dir ) * mag;
-        double y = Math.sin( dir ) * mag;
+        double x = MathUtil.cos( dir ) * mag;
+        double y = MathUtil.sin( dir ) * mag;
         return new Vec2( x, y );
     }
 
@@ -143,8 +143,8 @@ public class Vec2 implements Cloneable {
     }
 
     public Vec2 setPolar( double mag, double dir ) {
-        x = Math.cos( dir ) * mag;
-        y = Math.sin( dir ) * mag;
+        x = MathUtil.cos( dir ) * mag;
+        y = MathUtil.sin( dir ) * mag;
         return this;
     }
 
@@ -286,6 +286,19 @@ public class Vec2 implements Cloneable {
     }
 
 
+    /**
+     * Linearly interpolates between this vector and another vector, putting the resulting value in the specified output
+     * vector.
+     *
+     * @param other The vector to interpolate to
+     * @param t     The interpolation factor: 0 gives this vector, 1 gives the other vector
+     * @param out   The resulting vector instance. When {@code null}, a new instance is created.
+     */
+    public Vec2 lerp( Vec2 other, double t, Vec2 out ) {
+        notnull( other );
+        return put( out, x + ( other.x - x ) * t, y + ( other.y - y ) * t );
+    }
+
     /**
      * Returns the dot product of this vector and the vector represented by the specified x and y coordinates.
      *
@@ -385,7 +398,7 @@ public class Vec2 implements Cloneable {
      * @return The direction of this vector.
      */
     public double dir() {
-        return Math.atan2( y, x );
+        return MathUtil.atan2( y, x );
     }
 
     /**
@@ -446,7 +459,7 @@ public class Vec2 implements Cloneable {
      * @return The angle, in radians, between this vector and the specified vector
      */
     public double angle( double x, double y ) {
-        return Math.acos( dot( x, y ) );
+        return MathUtil.acos( dot( x, y ) );
     }
 
     /**
@@ -457,7 +470,7 @@ public class Vec2 implements Cloneable {
      */
     public double angle( Vec2 v ) {
         notnull( v );
-        return Math.acos( dot( v ) / ( mag() * v.mag() ) );
+        return MathUtil.acos( dot( v ) / ( mag() * v.mag() ) );
     }
 
     /**
@@ -517,8 +530,8 @@ public class Vec2 implements Cloneable {
      * @see #rotate(double, double, Vec2)
      */
     public Vec2 rotate( double angle, Vec2 out ) {
-        double sin = Math.sin( angle );
-        double cos = Math.cos( angle );
+        double sin = MathUtil.sin( angle );
+        double cos = MathUtil.cos( angle );
         return put( out, cos * x - sin * y, sin * x + cos * y );
     }
 
@@ -0,0 +1,44 @@
+package net.regulus.replay;
+
+import java.nio.file.Path;
+
+/**
+ * The files of a replay. A replay is a directory with an index file and segment files. The index starts with a header
+ * and then has a long per tick, holding the segment number in the high 32 bits and the offset in that segment in the
+ * low 32 bits. A tick record in a segment is laid out as:
+ * <pre>
+ * body count     int
+ * input length   int
+ * input          bytes
+ * per body:      position x, position y and rotation as doubles</pre>
+ * Everything is little-endian.
+ */
+final class ReplayFiles {
+    static final int MAGIC = 0x52474C52; // 'RGLR'
+    static final int VERSION = 1;
+
+    /** The header of the index: magic, version, tick count */
+    static final int HEADER_SIZE = 16;
+    static final int COUNT_OFFSET = 8;
+
+    /** The amount of index entries that are mapped at once */
+    static final int INDEX_CHUNK = 1 << 16;
+
+    static final int RECORD_HEADER = 8;
+    static final int BODY_SIZE = 24;
+
+    private ReplayFiles() {
+    }
+
+    static Path index( Path dir ) {
+        return dir.resolve( "index.bin" );
+    }
+
+    static Path segment( Path dir, int segment ) {
+        return dir.resolve( String.format( "segment-%06d.bin", segment ) );
+    }
+
+    static long indexOffset( long tick ) {
+        return HEADER_SIZE + tick * 8;
+    }
+}
@@ -0,0 +1,222 @@
+package net.regulus.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+import net.regulus.geom.Vec2;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Plays a replay written by a {@link ReplayRecorder}. The player can {@linkplain #seek seek} to any tick in constant
+ * time through the index of the replay, and then reads the transforms and input of that tick. Replays can be played
+ * while they are still being recorded: {@link #refresh} picks up newly recorded ticks.
+ */
+public class ReplayPlayer implements Closeable {
+    private final Path dir;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer header;
+    private long ticks;
+
+    private MappedByteBuffer index;
+    private long indexChunk = - 1;
+
+    private MappedByteBuffer segment;
+    private int segmentNumber = - 1;
+
+    private long tick = - 1;
+    private int offset;
+    private int bodyCount;
+    private int inputLength;
+
+    /**
+     * Opens a replay.
+     *
+     * @param dir The directory of the replay
+     * @throws IOException When the replay can't be read or is not a replay
+     */
+    public ReplayPlayer( Path dir ) throws IOException {
+        this.dir = dir;
+        indexChannel = FileChannel.open( ReplayFiles.index( dir ), READ );
+        if( indexChannel.size() < ReplayFiles.HEADER_SIZE ) {
+            indexChannel.close();
+            throw new IOException( "Not a replay: " + dir );
+        }
+        header = indexChannel.map( FileChannel.MapMode.READ_ONLY, 0, ReplayFiles.HEADER_SIZE );
+        header.order( ByteOrder.LITTLE_ENDIAN );
+        if( header.getInt( 0 ) != ReplayFiles.MAGIC ) {
+            indexChannel.close();
+            throw new IOException( "Not a replay: " + dir );
+        }
+        if( header.getInt( 4 ) != ReplayFiles.VERSION ) {
+            indexChannel.close();
+            throw new IOException( "Unsupported replay version: " + header.getInt( 4 ) );
+        }
+        refresh();
+    }
+
+    /**
+     * Updates the amount of ticks, for replays that are still being recorded.
+     *
+     * @return The amount of ticks
+     */
+    public long refresh() {
+        ticks = header.getLong( ReplayFiles.COUNT_OFFSET );
+        return ticks;
+    }
+
+    /**
+     * Returns the amount of ticks in the replay, as of the last {@link #refresh}.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the index of the current tick, or -1 before the first seek.
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Moves to a tick.
+     *
+     * @param tick The index of the tick
+     * @throws IndexOutOfBoundsException When the tick is not in the replay
+     */
+    public void seek( long tick ) throws IOException {
+        if( tick < 0 || tick >= ticks )
+            throw new IndexOutOfBoundsException( "Tick " + tick + " not in replay of " + ticks + " ticks" );
+
+        long entry = indexEntries( tick ).getLong( (int) ( tick % ReplayFiles.INDEX_CHUNK ) * 8 );
+        int seg = (int) ( entry >>> 32 );
+        if( seg != segmentNumber ) {
+            try( FileChannel channel = FileChannel.open( ReplayFiles.segment( dir, seg ), READ ) ) {
+                segment = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            }
+            segment.order( ByteOrder.LITTLE_ENDIAN );
+            segmentNumber = seg;
+        }
+
+        offset = (int) entry;
+        bodyCount = segment.getInt( offset );
+        inputLength = segment.getInt( offset + 4 );
+        this.tick = tick;
+    }
+
+    /**
+     * Moves to the next tick.
+     *
+     * @return False when there is no next tick
+     */
+    public boolean next() throws IOException {
+        if( tick + 1 >= ticks )
+            return false;
+        seek( tick + 1 );
+        return true;
+    }
+
+    /**
+     * Returns the amount of bodies in the current tick.
+     */
+    public int getBodyCount() {
+        checkTick();
+        return bodyCount;
+    }
+
+    /**
+     * Returns the length of the input of the current tick.
+     */
+    public int getInputLength() {
+        checkTick();
+        return inputLength;
+    }
+
+    /**
+     * Copies the input of the current tick into a buffer, advancing it's position.
+     *
+     * @throws java.nio.BufferOverflowException When the input does not fit
+     */
+    public void getInput( ByteBuffer out ) {
+        checkTick();
+        int start = offset + ReplayFiles.RECORD_HEADER;
+        out.put( segment.slice( start, inputLength ) );
+    }
+
+    /**
+     * Returns the position of a body in the current tick.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getPosition( int body, Vec2 out ) {
+        int at = bodyOffset( body );
+        return Vec2.put( out, segment.getDouble( at ), segment.getDouble( at + 8 ) );
+    }
+
+    /**
+     * Returns the rotation of a body in the current tick.
+     */
+    public double getRotation( int body ) {
+        return segment.getDouble( bodyOffset( body ) + 16 );
+    }
+
+    /**
+     * Sets the position and rotation of the bodies of a world to the current tick. Bodies that are not in the tick are
+     * left as they are. The bodies are prepared, so that their colliders are placed, and their previous position and
+     * rotation are set to the tick as well, so that interpolation does not blend with the state from before. To render
+     * the world, no tick is needed after this.
+     */
+    public void apply( World world ) {
+        checkTick();
+        List<Body> bodies = world.bodies;
+        int n = Math.min( bodyCount, bodies.size() );
+        for( int i = 0; i < n; i++ ) {
+            Body body = bodies.get( i );
+            getPosition( i, body.position );
+            body.rotation = getRotation( i );
+            body.previousPosition.set( body.position );
+            body.previousRotation = body.rotation;
+            body.prepare();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        index = null;
+        indexChannel.close();
+    }
+
+    private int bodyOffset( int body ) {
+        checkTick();
+        if( body < 0 || body >= bodyCount )
+            throw new IndexOutOfBoundsException( "Body " + body + " out of range" );
+        return offset + ReplayFiles.RECORD_HEADER + inputLength + body * ReplayFiles.BODY_SIZE;
+    }
+
+    private void checkTick() {
+        if( tick < 0 )
+            throw new IllegalStateException( "No tick, seek first" );
+    }
+
+    private MappedByteBuffer indexEntries( long tick ) throws IOException {
+        long chunk = tick / ReplayFiles.INDEX_CHUNK;
+        if( chunk != indexChunk ) {
+            long start = ReplayFiles.indexOffset( chunk * ReplayFiles.INDEX_CHUNK );
+            long length = Math.min( ReplayFiles.INDEX_CHUNK * 8L, indexChannel.size() - start );
+            index = indexChannel.map( FileChannel.MapMode.READ_ONLY, start, length );
+            index.order( ByteOrder.LITTLE_ENDIAN );
+            indexChunk = chunk;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,190 @@
+package net.regulus.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Records the transforms of all bodies of a world after every tick, along with arbitrary input data, into memory-mapped
+ * files. Records are appended to a segment file that is mapped as a whole; when the segment is full, the next segment
+ * is mapped. Data is written to disk by the OS, or explicitly with {@link #flush}. Recording a tick is a copy of the
+ * body transforms into mapped memory, so it does not allocate and adds little to a tick, and since the data lives in
+ * the page cache rather than on the heap, replays can be hours long. Use {@link ReplayPlayer} to read a replay.
+ * <p>
+ * A recorder is not thread safe, and should record on the thread that ticks the world.
+ */
+public class ReplayRecorder implements Closeable {
+    /** The default size of segments, 64 MiB */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer header;
+
+    private MappedByteBuffer index;
+    private long indexChunk = - 1;
+
+    private MappedByteBuffer segment;
+    private int segmentNumber = - 1;
+
+    private long ticks;
+
+    /**
+     * Creates a recorder that writes to a directory, using segments of {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @param dir The directory, which is created when it does not exist. Existing replay files are overwritten.
+     */
+    public ReplayRecorder( Path dir ) throws IOException {
+        this( dir, DEFAULT_SEGMENT_SIZE );
+    }
+
+    /**
+     * Creates a recorder that writes to a directory.
+     *
+     * @param dir         The directory, which is created when it does not exist. Existing replay files are
+     *                    overwritten.
+     * @param segmentSize The size of segment files. Ticks that don't fit in a segment get a larger segment of their own.
+     */
+    public ReplayRecorder( Path dir, int segmentSize ) throws IOException {
+        if( segmentSize < ReplayFiles.RECORD_HEADER )
+            throw new IllegalArgumentException( "Segment size too small" );
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories( dir );
+        indexChannel = FileChannel.open( ReplayFiles.index( dir ), CREATE, READ, WRITE, TRUNCATE_EXISTING );
+        header = indexChannel.map( FileChannel.MapMode.READ_WRITE, 0, ReplayFiles.HEADER_SIZE );
+        header.order( ByteOrder.LITTLE_ENDIAN );
+        header.putInt( 0, ReplayFiles.MAGIC );
+        header.putInt( 4, ReplayFiles.VERSION );
+        header.putLong( ReplayFiles.COUNT_OFFSET, 0 );
+    }
+
+    /**
+     * Returns the amount of ticks recorded so far.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Records the current transforms of the bodies of a world, without input.
+     *
+     * @return The index of the recorded tick
+     */
+    public long record( World world ) throws IOException {
+        return record( world, null );
+    }
+
+    /**
+     * Records the current transforms of the bodies of a world, along with input data.
+     *
+     * @param input The input of the tick, from it's position to it's limit. The position of the buffer is not changed.
+     *              When {@code null}, no input is recorded.
+     * @return The index of the recorded tick
+     */
+    public long record( World world, ByteBuffer input ) throws IOException {
+        List<Body> bodies = world.bodies;
+        int count = bodies.size();
+        int inputLength = input == null ? 0 : input.remaining();
+        long size = ReplayFiles.RECORD_HEADER + inputLength + (long) count * ReplayFiles.BODY_SIZE;
+        if( size > Integer.MAX_VALUE )
+            throw new IllegalArgumentException( "Tick too large to record" );
+
+        if( segment == null || segment.remaining() < size ) {
+            nextSegment( (int) size );
+        }
+
+        int offset = segment.position();
+        segment.putInt( count );
+        segment.putInt( inputLength );
+        if( input != null ) {
+            segment.put( input.duplicate() );
+        }
+        for( int i = 0; i < count; i++ ) {
+            Body body = bodies.get( i );
+            segment.putDouble( body.position.x );
+            segment.putDouble( body.position.y );
+            segment.putDouble( body.rotation );
+        }
+
+        long tick = ticks;
+        indexEntries( tick ).putLong( (int) ( tick % ReplayFiles.INDEX_CHUNK ) * 8, (long) segmentNumber << 32 | offset );
+        ticks ++;
+        // Publish the tick only after it's written, so that a crashed recording is still readable up to the last tick
+        header.putLong( ReplayFiles.COUNT_OFFSET, ticks );
+        return tick;
+    }
+
+    /**
+     * Writes all recorded ticks to disk, blocking until done. Only the current segment is forced, the OS has been
+     * writing back earlier segments since they were filled.
+     */
+    public void flush() {
+        if( segment != null )
+            segment.force();
+        if( index != null )
+            index.force();
+        header.force();
+    }
+
+    /**
+     * Flushes and closes the recorder. The last segment and the index are cut down to the data written into them, as
+     * they were mapped at their full size. Mapped memory is released when it's garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        if( segment != null ) {
+            try( FileChannel channel = FileChannel.open( ReplayFiles.segment( dir, segmentNumber ), WRITE ) ) {
+                truncate( channel, segment.position() );
+            }
+        }
+        truncate( indexChannel, ReplayFiles.indexOffset( ticks ) );
+        segment = null;
+        index = null;
+        indexChannel.close();
+    }
+
+    private static void truncate( FileChannel channel, long size ) {
+        try {
+            channel.truncate( size );
+        } catch( IOException e ) {
+            // Some systems don't allow truncating a file that is still mapped, the file then keeps it's mapped size,
+            // which readers handle just as well
+        }
+    }
+
+    private void nextSegment( int minSize ) throws IOException {
+        // Full segments are not forced: the OS writes them back without blocking the tick thread
+        segmentNumber ++;
+        try( FileChannel channel = FileChannel.open( ReplayFiles.segment( dir, segmentNumber ), CREATE, READ, WRITE, TRUNCATE_EXISTING ) ) {
+            // The mapping stays valid after the channel is closed
+            segment = channel.map( FileChannel.MapMode.READ_WRITE, 0, Math.max( segmentSize, minSize ) );
+        }
+        segment.order( ByteOrder.LITTLE_ENDIAN );
+    }
+
+    private MappedByteBuffer indexEntries( long tick ) throws IOException {
+        long chunk = tick / ReplayFiles.INDEX_CHUNK;
+        if( chunk != indexChunk ) {
+            long start = ReplayFiles.indexOffset( chunk * ReplayFiles.INDEX_CHUNK );
+            index = indexChannel.map( FileChannel.MapMode.READ_WRITE, start, ReplayFiles.INDEX_CHUNK * 8L );
+            index.order( ByteOrder.LITTLE_ENDIAN );
+            indexChunk = chunk;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,67 @@
+package net.regulus.replication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values written by a {@link BitWriter}.
+ */
+final class BitReader {
+    private ByteBuffer buf;
+    private long bits;
+    private int count;
+
+    void begin( ByteBuffer buf ) {
+        this.buf = buf;
+        bits = 0;
+        count = 0;
+    }
+
+    /**
+     * Reads a value of a specific amount of bits, between 0 and 32.
+     */
+    int read( int n ) {
+        while( count < n ) {
+            bits = bits << 8 | buf.get() & 0xFF;
+            count += 8;
+        }
+        count -= n;
+        return (int) ( bits >>> count & ( 1L << n ) - 1 );
+    }
+
+    /**
+     * Returns the amount of bits that are left to read.
+     */
+    long remaining() {
+        return buf.remaining() * 8L + count;
+    }
+
+    boolean readBit() {
+        return read( 1 ) != 0;
+    }
+
+    int readUnsigned() {
+        switch( read( 2 ) ) {
+            case 0:
+                return read( 4 );
+            case 1:
+                return read( 8 );
+            case 2:
+                return read( 16 );
+            default:
+                return read( 32 );
+        }
+    }
+
+    int readSigned() {
+        int value = readUnsigned();
+        return value >>> 1 ^ - ( value & 1 );
+    }
+
+    /**
+     * Skips the padding of the last byte.
+     */
+    void end() {
+        count = 0;
+        buf = null;
+    }
+}
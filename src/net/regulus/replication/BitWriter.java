@@ -0,0 +1,75 @@
+package net.regulus.replication;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes values of arbitrary bit lengths to a byte buffer, most significant bit first.
+ */
+final class BitWriter {
+    private ByteBuffer buf;
+    private long bits;
+    private int count;
+
+    void begin( ByteBuffer buf ) {
+        this.buf = buf;
+        bits = 0;
+        count = 0;
+    }
+
+    /**
+     * Writes the lowest bits of a value.
+     *
+     * @param value The value to write
+     * @param n     The amount of bits, between 0 and 32
+     */
+    void write( int value, int n ) {
+        bits = bits << n | value & ( 1L << n ) - 1;
+        count += n;
+        while( count >= 8 ) {
+            count -= 8;
+            buf.put( (byte) ( bits >>> count ) );
+        }
+    }
+
+    void writeBit( boolean bit ) {
+        write( bit ? 1 : 0, 1 );
+    }
+
+    /**
+     * Writes an unsigned value in a variable amount of bits: a two bit size class, followed by 4, 8, 16 or 32 bits.
+     */
+    void writeUnsigned( int value ) {
+        if( ( value & ~ 0xF ) == 0 ) {
+            write( 0, 2 );
+            write( value, 4 );
+        } else if( ( value & ~ 0xFF ) == 0 ) {
+            write( 1, 2 );
+            write( value, 8 );
+        } else if( ( value & ~ 0xFFFF ) == 0 ) {
+            write( 2, 2 );
+            write( value, 16 );
+        } else {
+            write( 3, 2 );
+            write( value, 32 );
+        }
+    }
+
+    /**
+     * Writes a signed value in a variable amount of bits, using zigzag encoding so that small negative values are small
+     * too.
+     */
+    void writeSigned( int value ) {
+        writeUnsigned( value << 1 ^ value >> 31 );
+    }
+
+    /**
+     * Writes the remaining bits, padding the last byte with zeros.
+     */
+    void end() {
+        if( count > 0 ) {
+            buf.put( (byte) ( bits << 8 - count ) );
+            count = 0;
+        }
+        buf = null;
+    }
+}
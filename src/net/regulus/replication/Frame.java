@@ -0,0 +1,60 @@
+package net.regulus.replication;
+
+import java.util.List;
+
+import net.regulus.simulation.Body;
+
+/**
+ * The quantized state of all bodies at a sequence number. Each body has {@link #FIELDS} values: position x and y,
+ * rotation, velocity x and y and rotation velocity.
+ */
+final class Frame {
+    static final int FIELDS = 6;
+    static final int NO_SEQUENCE = - 1;
+
+    int sequence = NO_SEQUENCE;
+    int count;
+    int[] values = new int[ 0 ];
+
+    void resize( int count ) {
+        int size = Math.multiplyExact( count, FIELDS );
+        if( values.length < size ) {
+            int[] grown = new int[ Math.max( size, values.length * 2 ) ];
+            System.arraycopy( values, 0, grown, 0, values.length );
+            values = grown;
+        }
+        this.count = count;
+    }
+
+    void quantize( List<Body> bodies, Quantization q ) {
+        int n = bodies.size();
+        resize( n );
+        for( int i = 0; i < n; i++ ) {
+            Body body = bodies.get( i );
+            int o = i * FIELDS;
+            values[ o ] = Quantization.quantize( body.position.x, q.positionStep );
+            values[ o + 1 ] = Quantization.quantize( body.position.y, q.positionStep );
+            values[ o + 2 ] = Quantization.quantize( body.rotation, q.rotationStep );
+            values[ o + 3 ] = Quantization.quantize( body.velocity.x, q.velocityStep );
+            values[ o + 4 ] = Quantization.quantize( body.velocity.y, q.velocityStep );
+            values[ o + 5 ] = Quantization.quantize( body.rotationVelo, q.rotationVeloStep );
+        }
+    }
+
+    /**
+     * Returns a value, or zero when the body is not in this frame.
+     */
+    int get( int body, int field ) {
+        return body < count ? values[ body * FIELDS + field ] : 0;
+    }
+
+    /**
+     * Finds the frame with a sequence number in a ring of frames.
+     */
+    static Frame find( Frame[] ring, int sequence ) {
+        if( sequence == NO_SEQUENCE )
+            return null;
+        Frame frame = ring[ Math.floorMod( sequence, ring.length ) ];
+        return frame.sequence == sequence ? frame : null;
+    }
+}
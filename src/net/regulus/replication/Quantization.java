@@ -0,0 +1,36 @@
+package net.regulus.replication;
+
+/**
+ * The precision with which body state is replicated. Values are sent as whole multiples of their step, so the step is
+ * both the precision of a value and the smallest change of it that is replicated. Encoder and decoder must use the same
+ * quantization. Quantized values are 32-bit, so a value can be at most about two billion steps from zero.
+ */
+public class Quantization {
+    /** The step of positions, 1/1024 units by default */
+    public double positionStep = 1 / 1024D;
+    /** The step of rotations, 1/65536 of a turn by default */
+    public double rotationStep = Math.PI * 2 / 65536;
+    /** The step of velocities, 1/1024 units per second by default */
+    public double velocityStep = 1 / 1024D;
+    /** The step of rotation velocities, 1/65536 of a turn per second by default */
+    public double rotationVeloStep = Math.PI * 2 / 65536;
+
+    /**
+     * Quantizes a value, clamping it to the range of a quantized value. NaN quantizes to zero.
+     */
+    public static int quantize( double value, double step ) {
+        long q = Math.round( value / step );
+        if( q > Integer.MAX_VALUE )
+            return Integer.MAX_VALUE;
+        if( q < Integer.MIN_VALUE )
+            return Integer.MIN_VALUE;
+        return (int) q;
+    }
+
+    /**
+     * Converts a quantized value back to a value.
+     */
+    public static double dequantize( int value, double step ) {
+        return value * step;
+    }
+}
@@ -0,0 +1,192 @@
+package net.regulus.replication;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import net.regulus.geom.Vec2;
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+/**
+ * Decodes packets written by a {@link ReplicationEncoder}. The decoder remembers recently decoded packets, so that
+ * packets that are encoded relative to them can be decoded. After decoding, the sequence number of the packet should be
+ * acknowledged to the encoder.
+ */
+public class ReplicationDecoder {
+    /** The least amount of bits of a changed body: the smallest index gap and the field mask */
+    private static final int MIN_CHANGE_BITS = 6 + Frame.FIELDS;
+    private final Quantization quantization;
+    private final Frame[] frames;
+    private final BitReader reader = new BitReader();
+    private Frame current;
+
+    /**
+     * Constructs a decoder with the default quantization, that remembers the last 32 packets.
+     */
+    public ReplicationDecoder() {
+        this( new Quantization(), 32 );
+    }
+
+    /**
+     * Constructs a decoder.
+     *
+     * @param quantization The quantization, which must be the same as the quantization of the encoder
+     * @param history      The amount of recent packets to remember, which should be at least the history of the
+     *                     encoder
+     */
+    public ReplicationDecoder( Quantization quantization, int history ) {
+        if( history < 1 )
+            throw new IllegalArgumentException( "History must be at least 1" );
+        this.quantization = quantization;
+        frames = new Frame[ history ];
+        for( int i = 0; i < history; i++ ) {
+            frames[ i ] = new Frame();
+        }
+    }
+
+    /**
+     * Decodes a packet, making it the current state of this decoder.
+     *
+     * @param in The buffer to read the packet from, starting at it's position
+     * @return The sequence number of the packet, to acknowledge to the encoder
+     * @throws IllegalStateException    When the baseline of the packet is no longer remembered, in which case the
+     *                                  packet is dropped and the encoder should be {@linkplain ReplicationEncoder#reset
+     *                                  reset}
+     * @throws IllegalArgumentException When the packet is malformed or truncated, or has more than {@link
+     *                                  ReplicationEncoder#MAX_BODIES} bodies
+     */
+    public int decode( ByteBuffer in ) {
+        reader.begin( in );
+        try {
+            return read();
+        } catch( BufferUnderflowException e ) {
+            throw new IllegalArgumentException( "Truncated packet", e );
+        } finally {
+            reader.end();
+        }
+    }
+
+    private int read() {
+        int seq = reader.read( 32 );
+        int baselineSeq = reader.read( 32 );
+
+        Frame baseline = Frame.find( frames, baselineSeq );
+        if( baselineSeq != Frame.NO_SEQUENCE && baseline == null )
+            throw new IllegalStateException( "Unknown baseline: " + baselineSeq );
+
+        Frame frame = frames[ Math.floorMod( seq, frames.length ) ];
+        if( frame == baseline )
+            throw new IllegalArgumentException( "Packet " + seq + " is encoded relative to itself" );
+
+        // The counts are checked before anything is allocated for them: every change takes at least a gap and a mask
+        int count = reader.readUnsigned();
+        int changes = reader.readUnsigned();
+        if( count < 0 || count > ReplicationEncoder.MAX_BODIES || changes < 0 || changes > count
+            || (long) changes * MIN_CHANGE_BITS > reader.remaining() )
+            throw new IllegalArgumentException( "Malformed packet" );
+
+        frame.sequence = Frame.NO_SEQUENCE;
+        frame.resize( count );
+        int[] values = frame.values;
+        for( int i = 0; i < count; i++ ) {
+            for( int f = 0; f < Frame.FIELDS; f++ ) {
+                values[ i * Frame.FIELDS + f ] = baseline == null ? 0 : baseline.get( i, f );
+            }
+        }
+
+        int index = - 1;
+        for( int c = 0; c < changes; c++ ) {
+            index += reader.readUnsigned() + 1;
+            if( index < 0 || index >= count )
+                throw new IllegalArgumentException( "Malformed packet" );
+
+            int mask = reader.read( Frame.FIELDS );
+            for( int f = 0; f < Frame.FIELDS; f++ ) {
+                if( ( mask & 1 << f ) != 0 ) {
+                    values[ index * Frame.FIELDS + f ] += reader.readSigned();
+                }
+            }
+        }
+
+        frame.sequence = seq;
+        current = frame;
+        return seq;
+    }
+
+    /**
+     * Returns the amount of bodies in the current state, which is zero before the first packet is decoded.
+     */
+    public int size() {
+        return current == null ? 0 : current.count;
+    }
+
+    /**
+     * Returns the sequence number of the current state, or -1 before the first packet is decoded.
+     */
+    public int getSequence() {
+        return current == null ? Frame.NO_SEQUENCE : current.sequence;
+    }
+
+    /**
+     * Returns the position of a body in the current state.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getPosition( int body, Vec2 out ) {
+        return Vec2.put(
+            out,
+            Quantization.dequantize( value( body, 0 ), quantization.positionStep ),
+            Quantization.dequantize( value( body, 1 ), quantization.positionStep )
+        );
+    }
+
+    /**
+     * Returns the rotation of a body in the current state.
+     */
+    public double getRotation( int body ) {
+        return Quantization.dequantize( value( body, 2 ), quantization.rotationStep );
+    }
+
+    /**
+     * Returns the velocity of a body in the current state.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getVelocity( int body, Vec2 out ) {
+        return Vec2.put(
+            out,
+            Quantization.dequantize( value( body, 3 ), quantization.velocityStep ),
+            Quantization.dequantize( value( body, 4 ), quantization.velocityStep )
+        );
+    }
+
+    /**
+     * Returns the rotation velocity of a body in the current state.
+     */
+    public double getRotationVelo( int body ) {
+        return Quantization.dequantize( value( body, 5 ), quantization.rotationVeloStep );
+    }
+
+    /**
+     * Sets the position, rotation, velocity and rotation velocity of the bodies of a world to the current state. Bodies
+     * that are not in the current state are left as they are.
+     */
+    public void apply( World world ) {
+        List<Body> bodies = world.bodies;
+        int n = Math.min( size(), bodies.size() );
+        for( int i = 0; i < n; i++ ) {
+            Body body = bodies.get( i );
+            getPosition( i, body.position );
+            body.rotation = getRotation( i );
+            getVelocity( i, body.velocity );
+            body.rotationVelo = getRotationVelo( i );
+        }
+    }
+
+    private int value( int body, int field ) {
+        if( body < 0 || body >= size() )
+            throw new IndexOutOfBoundsException( "Body " + body + " out of range" );
+        return current.values[ body * Frame.FIELDS + field ];
+    }
+}
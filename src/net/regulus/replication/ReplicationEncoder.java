@@ -0,0 +1,158 @@
+package net.regulus.replication;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import net.regulus.simulation.Body;
+import net.regulus.simulation.World;
+
+/**
+ * Encodes the state of the bodies of a world into compact packets for network replication. Each packet is encoded
+ * relative to the latest packet the receiver {@linkplain #acknowledge acknowledged}, the baseline, and only contains the
+ * bodies whose position, rotation, velocity or rotation velocity changed by at least one {@linkplain Quantization
+ * quantization step} since that baseline. Resting and static bodies therefore cost almost nothing. When there is no
+ * usable baseline, the packet contains all bodies.
+ * <p>
+ * Bodies are identified by their index in {@link World#bodies}, so the receiver's world must have the same bodies in
+ * the same order. A packet is laid out as a bit stream:
+ * <pre>
+ * sequence       32 bits
+ * baseline       32 bits, -1 when there is no baseline
+ * body count     variable, at most {@link #MAX_BODIES}
+ * changed count  variable
+ * per changed body:
+ *   index gap    variable, the distance to the previous changed body
+ *   field mask   6 bits, one per changed field
+ *   per field:   variable, the signed difference with the baseline</pre>
+ * Variable values use a two bit size class followed by 4, 8, 16 or 32 bits.
+ */
+public class ReplicationEncoder {
+    /** The maximum amount of bodies in a packet, which bounds the memory a decoder allocates for a packet */
+    public static final int MAX_BODIES = 1 << 20;
+
+    private final Quantization quantization;
+    private final Frame[] frames;
+    private final BitWriter writer = new BitWriter();
+    private int[] changed = new int[ 0 ];
+    private int sequence;
+    private int acknowledged = Frame.NO_SEQUENCE;
+
+    /**
+     * Constructs an encoder with the default quantization, that remembers the last 32 packets as baselines.
+     */
+    public ReplicationEncoder() {
+        this( new Quantization(), 32 );
+    }
+
+    /**
+     * Constructs an encoder.
+     *
+     * @param quantization The quantization, which must be the same as the quantization of the decoder
+     * @param history      The amount of recent packets that can be used as baselines. Acknowledgements of older
+     *                     packets are too late, and cause a full packet to be sent.
+     */
+    public ReplicationEncoder( Quantization quantization, int history ) {
+        if( history < 1 )
+            throw new IllegalArgumentException( "History must be at least 1" );
+        this.quantization = quantization;
+        frames = new Frame[ history ];
+        for( int i = 0; i < history; i++ ) {
+            frames[ i ] = new Frame();
+        }
+    }
+
+    /**
+     * Marks a packet as received by the receiver, so that it can be used as baseline for the next packets. Packets
+     * older than the latest acknowledged packet are ignored.
+     *
+     * @param sequence The sequence number of the packet, as returned by {@link #encode}
+     */
+    public void acknowledge( int sequence ) {
+        if( acknowledged == Frame.NO_SEQUENCE || sequence - acknowledged > 0 ) {
+            acknowledged = sequence;
+        }
+    }
+
+    /**
+     * Forgets all acknowledgements, so that the next packet contains all bodies.
+     */
+    public void reset() {
+        acknowledged = Frame.NO_SEQUENCE;
+    }
+
+    /**
+     * Encodes the current state of the bodies of a world into a packet.
+     *
+     * @param world The world to encode
+     * @param out   The buffer to write the packet to, starting at it's position
+     * @return The sequence number of the packet, which the receiver acknowledges
+     * @throws java.nio.BufferOverflowException When the packet does not fit in the buffer
+     * @throws IllegalArgumentException         When the world has more than {@link #MAX_BODIES} bodies
+     */
+    public int encode( World world, ByteBuffer out ) {
+        List<Body> bodies = world.bodies;
+        if( bodies.size() > MAX_BODIES )
+            throw new IllegalArgumentException( "Can't encode more than " + MAX_BODIES + " bodies" );
+        int seq = sequence ++;
+        if( seq == Frame.NO_SEQUENCE ) {
+            seq = sequence ++;
+        }
+
+        Frame baseline = Frame.find( frames, acknowledged );
+        Frame frame = frames[ Math.floorMod( seq, frames.length ) ];
+        if( frame == baseline ) {
+            // The baseline is as old as the history, and would be overwritten
+            baseline = null;
+        }
+        frame.sequence = seq;
+        frame.quantize( bodies, quantization );
+
+        int count = frame.count;
+        if( changed.length < count ) {
+            changed = new int[ Math.max( count, changed.length * 2 ) ];
+        }
+        int changes = 0;
+        for( int i = 0; i < count; i++ ) {
+            if( mask( frame, baseline, i ) != 0 ) {
+                changed[ changes ++ ] = i;
+            }
+        }
+
+        writer.begin( out );
+        writer.write( seq, 32 );
+        writer.write( baseline == null ? Frame.NO_SEQUENCE : baseline.sequence, 32 );
+        writer.writeUnsigned( count );
+        writer.writeUnsigned( changes );
+
+        int previous = - 1;
+        for( int c = 0; c < changes; c++ ) {
+            int i = changed[ c ];
+            writer.writeUnsigned( i - previous - 1 );
+            previous = i;
+
+            int mask = mask( frame, baseline, i );
+            writer.write( mask, Frame.FIELDS );
+            for( int f = 0; f < Frame.FIELDS; f++ ) {
+                if( ( mask & 1 << f ) != 0 ) {
+                    writer.writeSigned( frame.get( i, f ) - base( baseline, i, f ) );
+                }
+            }
+        }
+        writer.end();
+        return seq;
+    }
+
+    private static int mask( Frame frame, Frame baseline, int body ) {
+        int mask = 0;
+        for( int f = 0; f < Frame.FIELDS; f++ ) {
+            if( frame.get( body, f ) != base( baseline, body, f ) ) {
+                mask |= 1 << f;
+            }
+        }
+        return mask;
+    }
+
+    private static int base( Frame baseline, int body, int field ) {
+        return baseline == null ? 0 : baseline.get( body, field );
+    }
+}
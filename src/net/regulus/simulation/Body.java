@@ -6,8 +6,9 @@ import net.regulus.collider.CircleCollider;
 import net.regulus.collider.CompoundCollider;
 import net.regulus.collider.ICollider;
 import net.regulus.collider.SimpleCollider;
-import net.regulus.geom.Mat3;
+import net.regulus.detection.broadphase.AABBTree;
 import net.regulus.geom.MathUtil;
+import net.regulus.geom.Transform;
 import net.regulus.geom.Vec2;
 
 public class Body {
@@ -17,12 +18,17 @@ public class Body {
     public final Vec2 totalImpulse = new Vec2();
     public final Vec2 totalCorrection = new Vec2();
 
+    /** The position of this body at the start of the last tick */
+    public final Vec2 previousPosition = new Vec2();
+
     protected ICollider collider;
 
     public double rotation;
     public double rotationVelo;
     public double rotationTotalImpulse;
     public double rotationTotalCorrection;
+    /** The rotation of this body at the start of the last tick */
+    public double previousRotation;
 
     public final Mass mass = new Mass( this );
 
@@ -34,36 +40,92 @@ public class Body {
     public double dynamicFriction = 0.08;
     public double surfaceVelo = 0;
 
-    private final Mat3 matrix = new Mat3();
+    /**
+     * Whether this body is a bullet. Bullets are fast bodies that must not tunnel through other bodies: when a bullet
+     * moves far in a single tick, it is swept along it's motion and stopped at the first body it would pass through.
+     */
+    public boolean bullet;
+
+    private final Transform transform = new Transform();
     private final Vec2 v = new Vec2();
 
+    int index = - 1;
+    int proxy = AABBTree.NULL;
+
     public ICollider getCollider() {
         return collider;
     }
 
+    /**
+     * Returns the index of this body in the body list of it's world, as of the last tick. This is -1 when the body has
+     * never been ticked by a world.
+     */
+    public int getIndex() {
+        return index;
+    }
+
     public void setCollider( ICollider collider ) {
         this.collider = collider;
         mass.recompute();
     }
 
+    /**
+     * Returns the transform of this body as of the last time it was prepared.
+     *
+     * @param out The output transform. When {@code null}, a new transform is created.
+     */
+    public Transform getTransform( Transform out ) {
+        return Transform.put( out, transform );
+    }
+
     public void prepare() {
-        matrix.setIdentity()
-              .translate( position, matrix )
-              .rotateCCW( rotation, matrix );
+        transform.set( position, rotation );
 
         if( collider != null ) {
-            collider.setBodyMatrix( matrix );
+            collider.setBodyTransform( transform );
         }
 
         positionalVel.set( 0, 0 );
     }
 
+    /**
+     * Interpolates between the position of this body at the start and at the end of the last tick.
+     *
+     * @param alpha The interpolation factor, usually {@link World#getAlpha()}
+     * @param out   The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getInterpolatedPosition( double alpha, Vec2 out ) {
+        return previousPosition.lerp( position, alpha, out );
+    }
+
+    /**
+     * Interpolates between the rotation of this body at the start and at the end of the last tick.
+     *
+     * @param alpha The interpolation factor, usually {@link World#getAlpha()}
+     */
+    public double getInterpolatedRotation( double alpha ) {
+        return previousRotation + ( rotation - previousRotation ) * alpha;
+    }
+
     public Vec2 untransform( Vec2 pt, Vec2 out ) {
-        return pt.sub( position, out ).rotate( - rotation, out );
+        updateRotation();
+        double x = pt.x - position.x;
+        double y = pt.y - position.y;
+        return Vec2.put( out, transform.cos * x + transform.sin * y, transform.cos * y - transform.sin * x );
     }
 
     public Vec2 transform( Vec2 pt, Vec2 out ) {
-        return pt.rotate( rotation, out ).add( position, out );
+        updateRotation();
+        return transform.rotate( pt, out ).add( position, out );
+    }
+
+    /**
+     * Updates the sine and cosine of the transform when the rotation changed since the body was prepared, which
+     * happens when constraints are prepared after correction.
+     */
+    private void updateRotation() {
+        if( transform.angle != rotation )
+            transform.setRotation( rotation );
     }
 
     public void addImpulse( Vec2 impulse, Vec2 contact, boolean rotational ) {
@@ -127,6 +189,7 @@ public class Body {
         private double dynamicFriction = 0.08;
         private double surfaceVelo;
         private double restitution;
+        private boolean bullet;
         private ICollider collider;
         private final Vec2 position = new Vec2();
         private final Vec2 velocity = new Vec2();
@@ -219,6 +282,11 @@ public class Body {
             return this;
         }
 
+        public Builder bullet( boolean value ) {
+            bullet = value;
+            return this;
+        }
+
         public Builder position( double x, double y ) {
             position.set( x, y );
             return this;
@@ -299,9 +367,12 @@ public class Body {
             instance.dynamicFriction = dynamicFriction;
             instance.surfaceVelo = surfaceVelo;
             instance.restitution = restitution;
+            instance.bullet = bullet;
             instance.position.set( position );
+            instance.previousPosition.set( position );
             instance.velocity.set( velocity );
             instance.rotation = rotation;
+            instance.previousRotation = rotation;
             instance.rotationVelo = rotationVelo;
 
             if( world != null ) {
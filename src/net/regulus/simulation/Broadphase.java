@@ -0,0 +1,230 @@
+package net.regulus.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import net.regulus.collider.ICollider;
+import net.regulus.detection.broadphase.AABBTree;
+import net.regulus.detection.broadphase.BoxBatch;
+import net.regulus.detection.broadphase.ITreeCallback;
+import net.regulus.detection.raycast.RayPacket;
+import net.regulus.geom.AABB;
+
+/**
+ * Keeps the bodies of a world in an {@link AABBTree}, so that collision pairs and query candidates can be found without
+ * testing every body. Bodies with an unbounded box, like planes and bars, can't be put in the tree and are kept in a
+ * separate list instead: they are candidates for every pair and every query. The exact boxes of the bodies are kept in
+ * a {@link BoxBatch} by body index, which filters out the pairs that only overlap by their fat boxes in the tree.
+ */
+final class Broadphase {
+    static final double MARGIN = 0.1;
+
+    final AABBTree tree = new AABBTree( MARGIN );
+    final List<Body> unbounded = new ArrayList<>();
+    final BoxBatch boxes = new BoxBatch();
+
+    private final List<Body> stale = new ArrayList<>();
+    private final AABB box = new AABB();
+    private List<Body> bodies;
+
+    private Body current;
+    private BiConsumer<Body, Body> pairHandler;
+    private final ITreeCallback pairCallback = this::pairCandidate;
+
+    private final AABB candidateBox = new AABB();
+    private long[] packetOrder = new long[ 64 ];
+    private int packetCandidates;
+    private double packetX, packetY;
+    private final ITreeCallback packetCallback = this::packetCandidate;
+
+    /**
+     * Updates the tree to the current boxes of the bodies, and assigns their indices.
+     */
+    void update( List<Body> bodies ) {
+        this.bodies = bodies;
+
+        for( Body body : stale ) {
+            remove( body );
+        }
+        stale.clear();
+        unbounded.clear();
+
+        int size = bodies.size();
+        boxes.resize( size );
+        for( int i = 0; i < size; i++ ) {
+            Body body = bodies.get( i );
+            body.index = i;
+
+            ICollider collider = body.getCollider();
+            if( collider == null ) {
+                boxes.setEmpty( i );
+                remove( body );
+                continue;
+            }
+
+            collider.getBox( box );
+            boxes.set( i, box );
+            if( ! isFinite( box ) ) {
+                remove( body );
+                unbounded.add( body );
+                continue;
+            }
+
+            if( body.proxy == AABBTree.NULL ) {
+                body.proxy = tree.createProxy( box, body );
+            } else {
+                tree.moveProxy( body.proxy, box );
+            }
+        }
+    }
+
+    /**
+     * Returns the body of a proxy, or {@code null} when that body is no longer in the world.
+     */
+    Body body( int proxy ) {
+        Body body = (Body) tree.getData( proxy );
+        if( ! isLive( body ) ) {
+            if( ! stale.contains( body ) )
+                stale.add( body );
+            return null;
+        }
+        return body;
+    }
+
+    /**
+     * Removes a body that is removed from the world, so that it's proxy is not left in the tree until it is found.
+     */
+    void discard( Body body ) {
+        remove( body );
+        unbounded.remove( body );
+    }
+
+    boolean isLive( Body body ) {
+        return bodies != null && body.index >= 0 && body.index < bodies.size() && bodies.get( body.index ) == body;
+    }
+
+    /**
+     * Finds all pairs of bodies whose boxes may overlap, calling the handler with the lower-indexed body first. Pairs
+     * of two static bodies are skipped.
+     */
+    void findPairs( BiConsumer<Body, Body> handler ) {
+        pairHandler = handler;
+
+        int size = bodies.size();
+        for( int i = 0; i < size; i++ ) {
+            Body body = bodies.get( i );
+            if( body.proxy == AABBTree.NULL || body.mass.isStatic() )
+                continue;
+
+            current = body;
+            boxes.get( i, box );
+            tree.query( box, pairCallback );
+        }
+
+        for( Body u : unbounded ) {
+            for( int i = 0; i < size; i++ ) {
+                Body body = bodies.get( i );
+                if( body == u || body.getCollider() == null )
+                    continue;
+                if( body.proxy == AABBTree.NULL && body.index < u.index )
+                    continue; // Pair of two unbounded bodies, handled already
+                if( body.mass.isStatic() && u.mass.isStatic() )
+                    continue;
+
+                if( body.index < u.index ) {
+                    handler.accept( body, u );
+                } else {
+                    handler.accept( u, body );
+                }
+            }
+        }
+
+        current = null;
+        pairHandler = null;
+    }
+
+    private boolean pairCandidate( int proxy ) {
+        Body other = body( proxy );
+        if( other == null || other == current )
+            return true;
+
+        // Pairs of two dynamic bodies are found twice, only handle them from the lower-indexed body
+        if( ! other.mass.isStatic() && other.index < current.index )
+            return true;
+
+        // The tree only knows the fat boxes
+        if( ! boxes.overlaps( current.index, other.index ) )
+            return true;
+
+        if( current.index < other.index ) {
+            pairHandler.accept( current, other );
+        } else {
+            pairHandler.accept( other, current );
+        }
+        return true;
+    }
+
+    /**
+     * Casts a packet of rays against all bodies that the packet may hit. Candidates are visited from near to far, and
+     * candidates beyond the nearest hits found so far are skipped.
+     */
+    void castPacket( RayPacket packet, Predicate<Body> filter ) {
+        for( Body body : unbounded ) {
+            if( filter == null || filter.test( body ) ) {
+                packet.cast( body.getCollider(), body );
+            }
+        }
+
+        packet.getBox( box );
+        packetX = packet.ox[ 0 ];
+        packetY = packet.oy[ 0 ];
+        packetCandidates = 0;
+        tree.query( box, packetCallback );
+
+        // Keys sort by distance first, see packetCandidate
+        Arrays.sort( packetOrder, 0, packetCandidates );
+        for( int i = 0; i < packetCandidates; i++ ) {
+            int proxy = (int) packetOrder[ i ];
+            tree.getFatBox( proxy, candidateBox );
+            if( ! AABB.overlap( box, candidateBox ) )
+                continue;
+
+            Body body = body( proxy );
+            if( body == null || filter != null && ! filter.test( body ) )
+                continue;
+
+            if( packet.cast( body.getCollider(), body ) ) {
+                packet.getBox( box );
+            }
+        }
+    }
+
+    private boolean packetCandidate( int proxy ) {
+        tree.getFatBox( proxy, candidateBox );
+        double dx = Math.max( 0, Math.max( candidateBox.min.x - packetX, packetX - candidateBox.max.x ) );
+        double dy = Math.max( 0, Math.max( candidateBox.min.y - packetY, packetY - candidateBox.max.y ) );
+
+        // The bits of a non-negative float sort like the float itself, so the distance goes in the high bits
+        long key = (long) Float.floatToIntBits( (float) ( dx * dx + dy * dy ) ) << 32 | proxy;
+        if( packetCandidates == packetOrder.length ) {
+            packetOrder = Arrays.copyOf( packetOrder, packetCandidates * 2 );
+        }
+        packetOrder[ packetCandidates ++ ] = key;
+        return true;
+    }
+
+    private void remove( Body body ) {
+        if( body.proxy != AABBTree.NULL ) {
+            tree.destroyProxy( body.proxy );
+            body.proxy = AABBTree.NULL;
+        }
+    }
+
+    static boolean isFinite( AABB box ) {
+        return Double.isFinite( box.min.x ) && Double.isFinite( box.min.y )
+            && Double.isFinite( box.max.x ) && Double.isFinite( box.max.y );
+    }
+}
@@ -73,6 +73,18 @@ public final class Mass {
         return isStatic;
     }
 
+    /**
+     * Sets the mass properties directly, without computing them from the collider. Used to restore world snapshots.
+     */
+    void set( double mass, double density, double inertia, boolean isStatic ) {
+        this.mass = mass;
+        this.density = density;
+        this.inertia = inertia;
+        this.isStatic = isStatic;
+        invMass = isStatic ? 0 : 1 / mass;
+        invInertia = isStatic ? 0 : 1 / inertia;
+    }
+
     public void recompute() {
         setDensity( density );
     }
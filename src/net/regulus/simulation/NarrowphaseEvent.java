@@ -0,0 +1,42 @@
+package net.regulus.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event emitted for a narrowphase test of a pair of bodies that takes longer than the threshold of the
+ * event, which is 50 microseconds unless configured otherwise in the recording settings.
+ */
+@Name( "net.regulus.Narrowphase" )
+@Label( "Slow Narrowphase" )
+@Category( { "Regulus", "Physics" } )
+@Description( "A narrowphase collision test that took longer than the threshold" )
+@Threshold( "50 us" )
+class NarrowphaseEvent extends Event {
+    /** The type of this event, to check whether it's enabled without creating an event */
+    static final EventType TYPE = EventType.getEventType( NarrowphaseEvent.class );
+
+    @Label( "Shape A" )
+    @Description( "The collider type of the first body" )
+    String shapeA;
+
+    @Label( "Shape B" )
+    @Description( "The collider type of the second body" )
+    String shapeB;
+
+    @Label( "Body A" )
+    @Description( "The index of the first body" )
+    int bodyA;
+
+    @Label( "Body B" )
+    @Description( "The index of the second body" )
+    int bodyB;
+
+    @Label( "Contacts" )
+    int contacts;
+}
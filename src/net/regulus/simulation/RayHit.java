@@ -0,0 +1,32 @@
+package net.regulus.simulation;
+
+import net.regulus.collider.SimpleCollider;
+import net.regulus.geom.Vec2;
+
+/**
+ * A hit of a ray or shape cast against a body in a {@link World}. Instances are meant to be reused between queries.
+ */
+public class RayHit {
+    /** The body that was hit */
+    public Body body;
+    /** The simple collider of the body that was hit, or {@code null} when unknown */
+    public SimpleCollider collider;
+    /** The fraction along the cast where the hit occurs, between 0 and 1 */
+    public double fraction;
+    /** The distance along the cast where the hit occurs */
+    public double distance;
+    /** The global hit point, on the surface of the hit body */
+    public final Vec2 point = new Vec2();
+    /** The surface normal at the hit point, pointing out of the hit body */
+    public final Vec2 normal = new Vec2();
+
+    public RayHit set( RayHit other ) {
+        body = other.body;
+        collider = other.collider;
+        fraction = other.fraction;
+        distance = other.distance;
+        point.set( other.point );
+        normal.set( other.normal );
+        return this;
+    }
+}
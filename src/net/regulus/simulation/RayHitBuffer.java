@@ -0,0 +1,62 @@
+package net.regulus.simulation;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of {@link RayHit}s, filled by queries that report multiple hits. The hit instances are kept when
+ * the buffer is cleared, so that filling the buffer again does not allocate.
+ */
+public class RayHitBuffer {
+    private RayHit[] hits = new RayHit[ 16 ];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RayHit get( int index ) {
+        if( index < 0 || index >= size ) {
+            throw new IndexOutOfBoundsException( index + "" );
+        }
+        return hits[ index ];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a hit to the end of this buffer, reusing a previously allocated instance when possible.
+     */
+    RayHit next() {
+        if( size == hits.length ) {
+            hits = Arrays.copyOf( hits, size * 2 );
+        }
+        RayHit hit = hits[ size ];
+        if( hit == null ) {
+            hit = hits[ size ] = new RayHit();
+        }
+        size ++;
+        return hit;
+    }
+
+    /**
+     * Sorts the hits in this buffer by fraction, nearest first.
+     */
+    void sort() {
+        // Insertion sort: the buffer is usually small, and this does not allocate
+        for( int i = 1; i < size; i++ ) {
+            RayHit hit = hits[ i ];
+            int j = i - 1;
+            while( j >= 0 && hits[ j ].fraction > hit.fraction ) {
+                hits[ j + 1 ] = hits[ j ];
+                j --;
+            }
+            hits[ j + 1 ] = hit;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package net.regulus.simulation;
+
+/**
+ * Records how long each phase of {@link World#tick} takes, along with some counters, over a rolling window of recent
+ * ticks. A profiler is attached to a world with {@link World#setProfiler}, and a world without a profiler does not
+ * measure anything. Use {@link #getStats} to compute percentiles over the window.
+ * <p>
+ * A profiler is not thread safe: stats must be taken on the thread that ticks the world.
+ */
+public class StepProfiler {
+    /** The phases of a tick */
+    public enum Phase {
+        /** Preparing bodies for the tick, which puts colliders at the position of their body */
+        PREPARE,
+        /** Updating the broadphase and finding pairs of bodies that may collide, excluding narrowphase */
+        PAIRS,
+        /** Testing pairs for collision with {@link net.regulus.detection.sat.SAT} */
+        NARROWPHASE,
+        /** Resolving collisions */
+        RESOLVE,
+        /** Resolving constraints */
+        CONSTRAINT_RESOLVE,
+        /** Correcting collisions */
+        CORRECT,
+        /** Correcting constraints */
+        CONSTRAINT_CORRECT,
+        /** Updating particle systems */
+        PARTICLES,
+        /** Integrating velocities and positions, including bullet sweeps and publishing transforms */
+        INTEGRATE
+    }
+
+    /** The counters of a tick */
+    public enum Counter {
+        /** The amount of pairs tested in narrowphase */
+        PAIRS_TESTED,
+        /** The amount of tested pairs that collide */
+        PAIRS_COLLIDING,
+        /** The amount of contacts of all colliding pairs */
+        CONTACTS
+    }
+
+    static final int PHASES = Phase.values().length;
+    static final int COUNTERS = Counter.values().length;
+
+    /** The row of the total tick time, which comes after the phases */
+    static final int TOTAL = PHASES;
+    /** The amount of rows, which are the phases, the total time and the counters */
+    static final int ROWS = PHASES + 1 + COUNTERS;
+
+    private final long[][] samples;
+    private final long[] current = new long[ ROWS ];
+    private final int window;
+    private int size;
+    private int next;
+    private long ticks;
+
+    private long start;
+    private long mark;
+
+    /**
+     * Constructs a profiler that keeps the last 120 ticks.
+     */
+    public StepProfiler() {
+        this( 120 );
+    }
+
+    /**
+     * Constructs a profiler.
+     *
+     * @param window The amount of recent ticks to keep
+     */
+    public StepProfiler( int window ) {
+        if( window < 1 )
+            throw new IllegalArgumentException( "Window must be at least 1" );
+        this.window = window;
+        samples = new long[ ROWS ][ window ];
+    }
+
+    /**
+     * Returns the amount of recent ticks this profiler keeps.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Returns the amount of ticks recorded since this profiler was created or reset.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Forgets all recorded ticks.
+     */
+    public void reset() {
+        size = 0;
+        next = 0;
+        ticks = 0;
+    }
+
+    /**
+     * Computes the statistics of the recorded window, putting them in the specified output stats.
+     *
+     * @param out The output stats. When {@code null}, new stats are created.
+     */
+    public StepStats getStats( StepStats out ) {
+        if( out == null )
+            out = new StepStats();
+        out.set( samples, size, next );
+        return out;
+    }
+
+    void begin() {
+        for( int i = 0; i < ROWS; i++ ) {
+            current[ i ] = 0;
+        }
+        start = System.nanoTime();
+        mark = start;
+    }
+
+    /**
+     * Ends a phase, adding the time since the end of the last phase to it.
+     */
+    void phase( Phase phase ) {
+        long now = System.nanoTime();
+        current[ phase.ordinal() ] += now - mark;
+        mark = now;
+    }
+
+    /**
+     * Ends a phase that contains another phase, excluding the time of the nested phase.
+     */
+    void phase( Phase phase, Phase nested ) {
+        phase( phase );
+        current[ phase.ordinal() ] -= current[ nested.ordinal() ];
+    }
+
+    void time( Phase phase, long nanos ) {
+        current[ phase.ordinal() ] += nanos;
+    }
+
+    void count( Counter counter, int amount ) {
+        current[ PHASES + 1 + counter.ordinal() ] += amount;
+    }
+
+    void end() {
+        current[ TOTAL ] = System.nanoTime() - start;
+        for( int i = 0; i < ROWS; i++ ) {
+            samples[ i ][ next ] = current[ i ];
+        }
+        next = ( next + 1 ) % window;
+        if( size < window )
+            size ++;
+        ticks ++;
+    }
+}
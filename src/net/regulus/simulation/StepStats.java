@@ -0,0 +1,152 @@
+package net.regulus.simulation;
+
+import java.util.Arrays;
+
+import net.regulus.simulation.StepProfiler.Counter;
+import net.regulus.simulation.StepProfiler.Phase;
+
+/**
+ * Statistics over a window of ticks recorded by a {@link StepProfiler}. Times are in nanoseconds. The stats are a copy:
+ * they don't change when more ticks are recorded, until they are filled again with {@link StepProfiler#getStats}.
+ * Reusing a stats instance does not allocate, unless the window of the profiler grows.
+ */
+public class StepStats {
+    private long[][] sorted = new long[ StepProfiler.ROWS ][ 0 ];
+    private final long[] last = new long[ StepProfiler.ROWS ];
+    private final double[] mean = new double[ StepProfiler.ROWS ];
+    private int size;
+
+    void set( long[][] samples, int size, int next ) {
+        this.size = size;
+        for( int row = 0; row < StepProfiler.ROWS; row++ ) {
+            if( sorted[ row ].length < size ) {
+                sorted[ row ] = new long[ samples[ row ].length ];
+            }
+
+            long[] s = samples[ row ];
+            long[] d = sorted[ row ];
+            long sum = 0;
+            for( int i = 0; i < size; i++ ) {
+                d[ i ] = s[ i ];
+                sum += s[ i ];
+            }
+            Arrays.sort( d, 0, size );
+
+            last[ row ] = size == 0 ? 0 : s[ ( next - 1 + s.length ) % s.length ];
+            mean[ row ] = size == 0 ? 0 : (double) sum / size;
+        }
+    }
+
+    /**
+     * Returns the amount of ticks these stats cover.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time of a phase in the last tick.
+     */
+    public long last( Phase phase ) {
+        return last[ phase.ordinal() ];
+    }
+
+    /**
+     * Returns the mean time of a phase.
+     */
+    public double mean( Phase phase ) {
+        return mean[ phase.ordinal() ];
+    }
+
+    /**
+     * Returns a percentile of the time of a phase, using the nearest rank.
+     *
+     * @param p The percentile, between 0 and 100
+     */
+    public long percentile( Phase phase, double p ) {
+        return percentile( phase.ordinal(), p );
+    }
+
+    /**
+     * Returns the total time of the last tick.
+     */
+    public long lastTotal() {
+        return last[ StepProfiler.TOTAL ];
+    }
+
+    /**
+     * Returns the mean total time of a tick.
+     */
+    public double meanTotal() {
+        return mean[ StepProfiler.TOTAL ];
+    }
+
+    /**
+     * Returns a percentile of the total time of a tick.
+     *
+     * @param p The percentile, between 0 and 100
+     */
+    public long percentileTotal( double p ) {
+        return percentile( StepProfiler.TOTAL, p );
+    }
+
+    /**
+     * Returns the value of a counter in the last tick.
+     */
+    public long last( Counter counter ) {
+        return last[ row( counter ) ];
+    }
+
+    /**
+     * Returns the mean value of a counter.
+     */
+    public double mean( Counter counter ) {
+        return mean[ row( counter ) ];
+    }
+
+    /**
+     * Returns a percentile of the value of a counter.
+     *
+     * @param p The percentile, between 0 and 100
+     */
+    public long percentile( Counter counter, double p ) {
+        return percentile( row( counter ), p );
+    }
+
+    private long percentile( int row, double p ) {
+        if( size == 0 )
+            return 0;
+        if( p < 0 || p > 100 )
+            throw new IllegalArgumentException( "Percentile out of range: " + p );
+
+        int rank = (int) Math.ceil( p / 100 * size ) - 1;
+        return sorted[ row ][ Math.max( rank, 0 ) ];
+    }
+
+    private static int row( Counter counter ) {
+        return StepProfiler.PHASES + 1 + counter.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder( "Step stats over " ).append( size ).append( " ticks (us, mean/p50/p99):" );
+        for( Phase phase : Phase.values() ) {
+            builder.append( "\n  " ).append( phase ).append( ": " );
+            appendMicros( builder, mean( phase ) ).append( " / " );
+            appendMicros( builder, percentile( phase, 50 ) ).append( " / " );
+            appendMicros( builder, percentile( phase, 99 ) );
+        }
+        builder.append( "\n  TOTAL: " );
+        appendMicros( builder, meanTotal() ).append( " / " );
+        appendMicros( builder, percentileTotal( 50 ) ).append( " / " );
+        appendMicros( builder, percentileTotal( 99 ) );
+        for( Counter counter : Counter.values() ) {
+            builder.append( "\n  " ).append( counter ).append( ": " ).append( last( counter ) );
+        }
+        return builder.toString();
+    }
+
+    private static StringBuilder appendMicros( StringBuilder builder, double nanos ) {
+        return builder.append( Math.round( nanos / 100 ) / 10.0 );
+    }
+}
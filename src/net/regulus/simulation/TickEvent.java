@@ -0,0 +1,32 @@
+package net.regulus.simulation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted for every {@link World#tick}, spanning the whole tick.
+ */
+@Name( "net.regulus.Tick" )
+@Label( "Physics Tick" )
+@Category( { "Regulus", "Physics" } )
+@Description( "A tick of a physics world" )
+class TickEvent extends Event {
+    @Label( "Time Step" )
+    double dt;
+
+    @Label( "Bodies" )
+    int bodies;
+
+    @Label( "Pairs Tested" )
+    @Description( "The amount of pairs tested in narrowphase" )
+    int pairsTested;
+
+    @Label( "Pairs Colliding" )
+    int pairsColliding;
+
+    @Label( "Contacts" )
+    int contacts;
+}
@@ -0,0 +1,168 @@
+package net.regulus.simulation;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.regulus.geom.Vec2;
+
+/**
+ * An immutable copy of the transforms of all bodies of a world at the end of a tick, which can be read from other
+ * threads while the world is ticking. Worlds that {@linkplain World#setPublishTransforms publish transforms} publish a
+ * snapshot at the end of every tick, and readers take the latest snapshot with {@link World#acquireTransforms}.
+ * <p>
+ * Snapshots are recycled by the world once they are no longer the latest snapshot, but never while a reader holds
+ * them. A reader must therefore {@linkplain #release release} a snapshot when done, and must not use it afterwards:
+ * <pre>
+ * try( TransformSnapshot transforms = world.acquireTransforms() ) {
+ *     for( int i = 0; i &lt; transforms.size(); i++ ) {
+ *         draw( transforms.getBody( i ), transforms.getX( i ), transforms.getY( i ), transforms.getRotation( i ) );
+ *     }
+ * }</pre>
+ */
+public final class TransformSnapshot implements AutoCloseable {
+    final AtomicInteger readers = new AtomicInteger();
+
+    private long version;
+    private int size;
+    private Body[] bodies = new Body[ 0 ];
+    private double[] x = new double[ 0 ];
+    private double[] y = new double[ 0 ];
+    private double[] rotation = new double[ 0 ];
+    private double[] previousX = new double[ 0 ];
+    private double[] previousY = new double[ 0 ];
+    private double[] previousRotation = new double[ 0 ];
+
+    TransformSnapshot() {
+    }
+
+    void fill( List<Body> list, long version ) {
+        int n = list.size();
+        if( bodies.length < n ) {
+            int capacity = Math.max( n, bodies.length * 2 );
+            bodies = new Body[ capacity ];
+            x = new double[ capacity ];
+            y = new double[ capacity ];
+            rotation = new double[ capacity ];
+            previousX = new double[ capacity ];
+            previousY = new double[ capacity ];
+            previousRotation = new double[ capacity ];
+        }
+
+        for( int i = 0; i < n; i++ ) {
+            Body body = list.get( i );
+            bodies[ i ] = body;
+            x[ i ] = body.position.x;
+            y[ i ] = body.position.y;
+            rotation[ i ] = body.rotation;
+            previousX[ i ] = body.previousPosition.x;
+            previousY[ i ] = body.previousPosition.y;
+            previousRotation[ i ] = body.previousRotation;
+        }
+        // Drop references to bodies that are no longer in the world
+        for( int i = n; i < size; i++ ) {
+            bodies[ i ] = null;
+        }
+
+        size = n;
+        this.version = version;
+    }
+
+    /**
+     * Returns the version of this snapshot, which is the amount of ticks the world had run when the snapshot was taken.
+     * Versions increase with every tick, so readers can tell whether a new snapshot was published.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the amount of bodies in this snapshot.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a body in this snapshot, in the order of {@link World#bodies} at the time of the snapshot. The body
+     * itself is not a snapshot: it's fields may be changed by the simulation at any time.
+     */
+    public Body getBody( int index ) {
+        check( index );
+        return bodies[ index ];
+    }
+
+    public double getX( int index ) {
+        check( index );
+        return x[ index ];
+    }
+
+    public double getY( int index ) {
+        check( index );
+        return y[ index ];
+    }
+
+    public double getRotation( int index ) {
+        check( index );
+        return rotation[ index ];
+    }
+
+    /**
+     * Returns the position of a body.
+     *
+     * @param out The output vector. When {@code null}, a new vector is created.
+     */
+    public Vec2 getPosition( int index, Vec2 out ) {
+        check( index );
+        return Vec2.put( out, x[ index ], y[ index ] );
+    }
+
+    /**
+     * Interpolates between the position of a body at the start and at the end of the tick of this snapshot.
+     *
+     * @param alpha The interpolation factor
+     * @param out   The output vector. When {@code null}, a new vector is created.
+     * @see Body#getInterpolatedPosition
+     */
+    public Vec2 getInterpolatedPosition( int index, double alpha, Vec2 out ) {
+        check( index );
+        return Vec2.put(
+            out,
+            previousX[ index ] + ( x[ index ] - previousX[ index ] ) * alpha,
+            previousY[ index ] + ( y[ index ] - previousY[ index ] ) * alpha
+        );
+    }
+
+    /**
+     * Interpolates between the rotation of a body at the start and at the end of the tick of this snapshot.
+     *
+     * @see Body#getInterpolatedRotation
+     */
+    public double getInterpolatedRotation( int index, double alpha ) {
+        check( index );
+        return previousRotation[ index ] + ( rotation[ index ] - previousRotation[ index ] ) * alpha;
+    }
+
+    /**
+     * Releases this snapshot, allowing the world to recycle it. A snapshot must be released exactly once for every
+     * time it was acquired.
+     */
+    public void release() {
+        if( readers.decrementAndGet() < 0 ) {
+            readers.incrementAndGet();
+            throw new IllegalStateException( "Snapshot released more often than acquired" );
+        }
+    }
+
+    /**
+     * Same as {@link #release}, for use in try-with-resources.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    private void check( int index ) {
+        if( index < 0 || index >= size )
+            throw new IndexOutOfBoundsException( "Body " + index + " out of range for snapshot of " + size + " bodies" );
+    }
+}
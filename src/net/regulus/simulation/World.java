@@ -1,10 +1,29 @@
 package net.regulus.simulation;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 
+import net.regulus.collider.ICollider;
+import net.regulus.detection.broadphase.ITreeCallback;
+import net.regulus.detection.broadphase.ITreeRaycastCallback;
+import net.regulus.detection.raycast.RayPacket;
+import net.regulus.detection.raycast.Raycast;
+import net.regulus.detection.raycast.RaycastResult;
+import net.regulus.detection.raycast.ShapeCast;
 import net.regulus.detection.sat.SAT;
+import net.regulus.geom.AABB;
+import net.regulus.geom.Line;
+import net.regulus.geom.MathUtil;
 import net.regulus.geom.Vec2;
 import net.regulus.simulation.constraint.IConstraint;
 import net.regulus.simulation.particle.ParticleSystem;
@@ -17,50 +36,464 @@ public class World {
 
     public final Vec2 gravity = new Vec2( 0, - 0.1 );
 
+    /**
+     * The distance a bullet is moved past it's time of impact, so that the contact is found by the next tick
+     */
+    public double bulletSlop = 0.005;
+
+    /** The time step of the ticks run by {@link #step} */
+    public double fixedTimeStep = 0.2 / 30;
+    /**
+     * The maximum amount of ticks a single {@link #step} runs. When the simulation falls further behind, the rest of
+     * the elapsed time is dropped so that the simulation does not spiral into ever longer steps.
+     */
+    public int maxSubSteps = 60;
+
+    private double accumulator;
+    private volatile double alpha = 1;
+
+    private boolean deterministic;
+    private StepProfiler profiler;
+    private int pairsTested;
+
+    /** Orders collisions by the indices of their bodies, the broadphase already puts the lower index first */
+    private static final Comparator<CollisionSet> PAIR_ORDER = Comparator.<CollisionSet>comparingInt( set -> set.bodyA.index )
+                                                                          .thenComparingInt( set -> set.bodyB.index );
+    /** The magic number that starts a snapshot, which reads as 'RGLS' */
+    private static final int SNAPSHOT_MAGIC = 0x52474C53;
+    /** The version of the snapshot layout, increased on every change of the layout */
+    private static final short SNAPSHOT_VERSION = 1;
+
+    private static final Comparator<Body> BODY_ORDER = Comparator.comparingInt( body -> body.index );
+
+    private final Broadphase broadphase = new Broadphase();
+    private WorldSnapshot snapshots;
+    /** Set when bodies were restored from a snapshot, and colliders and broadphase are not updated yet */
+    private boolean restored;
+    private long ticks;
+
+    /** The latest published transforms, or {@code null} when transforms are not published */
+    private volatile TransformSnapshot transforms;
+    /** Snapshots that can be filled next, normally just one, more when readers hold on to old snapshots */
+    private final List<TransformSnapshot> transformBuffers = new ArrayList<>();
+    /** Commands queued by any thread, run at the start of the next tick */
+    private final Queue<Consumer<World>> commands = new ConcurrentLinkedQueue<>();
+    private final BiConsumer<Body, Body> pairHandler = this::collisionDetection;
+
+    // Query state, kept in fields so that queries don't allocate
+    private final Line ray = new Line();
+    private final RaycastResult rayResult = new RaycastResult();
+    private final ShapeCast shapeCast = new ShapeCast();
+    private final RayPacket packet = new RayPacket();
+    private final AABB queryBox = new AABB();
+    private final List<Body> candidates = new ArrayList<>();
+    private final ITreeRaycastCallback raycastCallback = this::raycastCandidate;
+    private final ITreeCallback candidateCallback = this::addCandidate;
+    private final ITreeCallback boxCallback = this::boxCandidate;
+    private final ITreeCallback pointCallback = this::pointCandidate;
+    private AABB regionBox;
+    private Vec2 regionPoint;
+    private IntConsumer regionConsumer;
+    private Predicate<Body> queryFilter;
+    private RayHit closestHit;
+    private RayHitBuffer hitBuffer;
+    private double queryDistance;
+    private double bestFraction;
+    private boolean found;
+
     public void init() {
+        boolean strict = enterStrict();
+        try {
+            runCommands();
+            restored = false;
+            for( Body body : bodies ) {
+                body.prepare();
+            }
+            broadphase.update( bodies );
+            for( IConstraint constraint : constraints ) {
+                if( ! constraint.enabled() )
+                    continue;
+                constraint.prepare();
+            }
+        } finally {
+            exitStrict( strict );
+        }
+    }
+
+    /**
+     * Advances this world by an amount of real time, running as many ticks of {@link #fixedTimeStep} as fit in the
+     * elapsed time plus the time left over from previous steps. The time that is left over after this step determines
+     * the {@linkplain #getAlpha() interpolation factor}, which can be used to render bodies between the last two ticks.
+     *
+     * @param elapsed The elapsed time since the last step
+     * @return The amount of ticks that were run
+     */
+    public int step( double elapsed ) {
+        accumulator += elapsed;
+
+        int steps = 0;
+        while( accumulator >= fixedTimeStep && steps < maxSubSteps ) {
+            tick( fixedTimeStep );
+            accumulator -= fixedTimeStep;
+            steps ++;
+        }
+
+        if( accumulator >= fixedTimeStep ) {
+            // Too far behind, drop the time we can't catch up with
+            accumulator %= fixedTimeStep;
+        }
+
+        alpha = accumulator / fixedTimeStep;
+        return steps;
+    }
+
+    /**
+     * Returns how far the time of this world is between the last two ticks run by {@link #step}, as a factor between 0
+     * and 1. Use this with {@link Body#getInterpolatedPosition} and {@link Body#getInterpolatedRotation}. This can be
+     * read from other threads, along with {@linkplain #acquireTransforms published transforms}.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Returns the amount of ticks this world has run.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Sets whether this world publishes the transforms of it's bodies at the end of every tick, so that other threads
+     * can read them while the next tick runs. Publishing copies the position and rotation of every body into a
+     * {@link TransformSnapshot}, which does not allocate unless a reader holds on to an old snapshot or the amount of
+     * bodies grows. Enabling publishing immediately publishes the current transforms.
+     *
+     * @see #acquireTransforms
+     */
+    public void setPublishTransforms( boolean publish ) {
+        if( publish == isPublishTransforms() )
+            return;
+        if( publish ) {
+            publishTransforms();
+        } else {
+            transforms = null;
+            transformBuffers.clear();
+        }
+    }
+
+    /**
+     * Returns whether this world publishes the transforms of it's bodies.
+     *
+     * @see #setPublishTransforms
+     */
+    public boolean isPublishTransforms() {
+        return transforms != null;
+    }
+
+    /**
+     * Acquires the latest published transforms. This is lock-free and can be called from any thread, also while the
+     * world is ticking: the snapshot is never changed until it is {@linkplain TransformSnapshot#release released},
+     * which must be done exactly once for every call to this method.
+     *
+     * @throws IllegalStateException When this world does not publish transforms
+     * @see #setPublishTransforms
+     */
+    public TransformSnapshot acquireTransforms() {
+        while( true ) {
+            TransformSnapshot snapshot = transforms;
+            if( snapshot == null )
+                throw new IllegalStateException( "World does not publish transforms" );
+
+            snapshot.readers.incrementAndGet();
+            // When the snapshot is still the latest, the world won't fill it until we release it. Otherwise, the world
+            // may have seen no readers and be filling it now.
+            if( snapshot == transforms )
+                return snapshot;
+            snapshot.readers.decrementAndGet();
+        }
+    }
+
+    private void publishTransforms() {
+        TransformSnapshot published = transforms;
+
+        TransformSnapshot snapshot = null;
+        for( TransformSnapshot buffer : transformBuffers ) {
+            if( buffer != published && buffer.readers.get() == 0 ) {
+                snapshot = buffer;
+                break;
+            }
+        }
+        if( snapshot == null ) {
+            // All buffers are held by readers, rather than waiting for them we add a buffer
+            snapshot = new TransformSnapshot();
+            transformBuffers.add( snapshot );
+        }
+
+        snapshot.fill( bodies, ticks );
+        transforms = snapshot;
+    }
+
+    /**
+     * Sets whether this world runs in deterministic mode. In deterministic mode, ticking worlds with the same bodies,
+     * added in the same order, gives bit-identical results on every run and every JVM, so that worlds can be simulated
+     * in lockstep on different machines. This is done as follows:
+     * <ul>
+     * <li>Colliding pairs are resolved in order of the indices of their bodies, rather than in the order the
+     * broadphase finds them, which depends on the history of the broadphase tree.</li>
+     * <li>Bodies that are swept by a bullet are handled in order of their indices.</li>
+     * <li>Trigonometric functions use {@link StrictMath} while this world is initialized, ticked, restored or shape
+     * cast, see {@link MathUtil#setStrictMath}. This only applies to the thread that runs the world, so other worlds
+     * are not affected.</li>
+     * </ul>
+     * Use {@link #checksum} to detect diverging worlds.
+     */
+    public void setDeterministic( boolean deterministic ) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Switches the current thread to {@link StrictMath} when this world is deterministic.
+     *
+     * @return True when the thread was switched, and must be switched back with {@link #exitStrict}
+     */
+    private boolean enterStrict() {
+        if( ! deterministic || MathUtil.isStrictMath() )
+            return false;
+        MathUtil.setStrictMath( true );
+        return true;
+    }
+
+    private static void exitStrict( boolean entered ) {
+        if( entered ) {
+            MathUtil.setStrictMath( false );
+        }
+    }
+
+    /**
+     * Returns whether this world runs in deterministic mode.
+     *
+     * @see #setDeterministic
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * Computes a checksum over the state of all bodies: their position, velocity, rotation and rotation velocity, in
+     * order of {@link #bodies}. Worlds that are simulated in lockstep have the same checksum after every tick, unless
+     * they diverged. This does not allocate and is cheap enough to run every tick.
+     */
+    public long checksum() {
+        long hash = mix( 0xCBF29CE484222325L, bodies.size() );
         for( Body body : bodies ) {
-            body.prepare();
+            hash = mix( hash, Double.doubleToLongBits( body.position.x ) );
+            hash = mix( hash, Double.doubleToLongBits( body.position.y ) );
+            hash = mix( hash, Double.doubleToLongBits( body.velocity.x ) );
+            hash = mix( hash, Double.doubleToLongBits( body.velocity.y ) );
+            hash = mix( hash, Double.doubleToLongBits( body.rotation ) );
+            hash = mix( hash, Double.doubleToLongBits( body.rotationVelo ) );
         }
-        for( IConstraint constraint : constraints ) {
-            if( ! constraint.enabled() )
-                continue;
-            constraint.prepare();
+        return hash;
+    }
+
+    private static long mix( long hash, long value ) {
+        hash = ( hash ^ value ) * 0x100000001B3L;
+        return hash ^ hash >>> 29;
+    }
+
+    /**
+     * Writes the state of this world into a buffer, starting at the position of the buffer. A snapshot contains the
+     * settings of this world and all it's bodies, including their shapes, constraints and particle systems, and can be
+     * {@linkplain #restore restored} to continue the simulation exactly where it was. Collisions don't need to be
+     * saved, as they are found again every tick. The snapshot does not include subclass state of bodies and particles,
+     * and the only supported constraints are the builtin ones.
+     * <p>
+     * Snapshots are written in little-endian byte order, regardless of the order of the buffer. A snapshot starts with
+     * a magic number and a layout version, so that snapshots of older versions can be rejected.
+     *
+     * @param buf The buffer to write to, which is advanced to the end of the snapshot
+     * @throws java.nio.BufferOverflowException When the snapshot does not fit in the buffer
+     * @throws IllegalArgumentException         When this world has colliders or constraints of unsupported types
+     */
+    public void snapshot( ByteBuffer buf ) {
+        ByteOrder order = buf.order();
+        buf.order( ByteOrder.LITTLE_ENDIAN );
+        try {
+            buf.putInt( SNAPSHOT_MAGIC );
+            buf.putShort( SNAPSHOT_VERSION );
+            buf.put( (byte) ( deterministic ? 1 : 0 ) );
+            buf.putDouble( gravity.x ).putDouble( gravity.y );
+            buf.putDouble( bulletSlop );
+            buf.putDouble( fixedTimeStep );
+            buf.putInt( maxSubSteps );
+            buf.putDouble( accumulator );
+            buf.putDouble( alpha );
+
+            snapshots().write( this, buf );
+        } finally {
+            buf.order( order );
         }
     }
 
+    /**
+     * Restores the state of this world from a snapshot written by {@link #snapshot}, starting at the position of the
+     * buffer. Bodies, constraints, particle systems and particles at the same index as in the snapshot are reused, as
+     * are colliders that did not change, so that references to them stay valid. Other objects are created, and objects
+     * beyond the end of the snapshot are removed. Particle systems that need more particles create them with their
+     * {@linkplain ParticleSystem#particleFactory particle factory}.
+     * <p>
+     * When this method throws, this world may be partially restored.
+     *
+     * @param buf The buffer to read from, which is advanced to the end of the snapshot
+     * @throws IllegalArgumentException      When the buffer does not contain a valid snapshot
+     * @throws java.nio.BufferUnderflowException When the snapshot is truncated
+     */
+    public void restore( ByteBuffer buf ) {
+        ByteOrder order = buf.order();
+        buf.order( ByteOrder.LITTLE_ENDIAN );
+        try {
+            int magic = buf.getInt();
+            if( magic != SNAPSHOT_MAGIC ) {
+                throw new IllegalArgumentException( "Not a world snapshot" );
+            }
+            short version = buf.getShort();
+            if( version != SNAPSHOT_VERSION ) {
+                throw new IllegalArgumentException( "Unsupported snapshot version: " + version );
+            }
+
+            setDeterministic( buf.get() != 0 );
+            gravity.set( buf.getDouble(), buf.getDouble() );
+            bulletSlop = buf.getDouble();
+            fixedTimeStep = buf.getDouble();
+            maxSubSteps = buf.getInt();
+            accumulator = buf.getDouble();
+            alpha = buf.getDouble();
+
+            snapshots().read( this, buf );
+        } finally {
+            buf.order( order );
+        }
+
+        // Colliders and broadphase are updated by the next tick, or by the next query when that comes first.
+        // Constraints are not prepared: their solver state is part of the snapshot
+        restored = true;
+    }
+
+    /**
+     * Puts colliders and the broadphase in place when bodies were restored and have not been ticked since.
+     */
+    private void updateRestored() {
+        if( ! restored )
+            return;
+        boolean strict = enterStrict();
+        try {
+            for( Body body : bodies ) {
+                body.prepare();
+            }
+        } finally {
+            exitStrict( strict );
+        }
+        broadphase.update( bodies );
+        restored = false;
+    }
+
+    private WorldSnapshot snapshots() {
+        if( snapshots == null ) {
+            snapshots = new WorldSnapshot();
+        }
+        return snapshots;
+    }
+
+    /**
+     * Attaches a profiler to this world, which records the time of each phase of every following {@link #tick}. Without
+     * a profiler, ticks are not measured at all.
+     *
+     * @param profiler The profiler, or {@code null} to disable profiling
+     */
+    public void setProfiler( StepProfiler profiler ) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the profiler of this world, or {@code null} when profiling is disabled.
+     */
+    public StepProfiler getProfiler() {
+        return profiler;
+    }
+
     public void tick( double dt ) {
+        boolean strict = enterStrict();
+        try {
+            runTick( dt );
+        } finally {
+            exitStrict( strict );
+        }
+    }
+
+    private void runTick( double dt ) {
+        TickEvent event = new TickEvent();
+        event.begin();
+
+        StepProfiler prof = profiler;
+        if( prof != null )
+            prof.begin();
+        runCommands();
+        restored = false;
+
         for( Body body : bodies ) {
+            body.previousPosition.set( body.position );
+            body.previousRotation = body.rotation;
             body.prepare();
         }
-        collisions.clear();
-        for( int i = 0; i < bodies.size(); i++ ) {
-            Body bodyA = bodies.get( i );
-            for( int j = i + 1; j < bodies.size(); j++ ) {
-                Body bodyB = bodies.get( j );
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.PREPARE );
 
-                collisionDetection( bodyA, bodyB );
-            }
+        broadphase.update( bodies );
+        collisions.clear();
+        pairsTested = 0;
+        broadphase.findPairs( pairHandler );
+        if( deterministic ) {
+            collisions.sort( PAIR_ORDER );
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.PAIRS, StepProfiler.Phase.NARROWPHASE );
+
         for( CollisionSet collision : collisions ) {
             collision.resolve( dt );
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.RESOLVE );
+
         for( IConstraint constraint : constraints ) {
             if( ! constraint.enabled() )
                 continue;
             constraint.resolve( dt );
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.CONSTRAINT_RESOLVE );
+
         for( CollisionSet collision : collisions ) {
             collision.correct();
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.CORRECT );
+
         for( IConstraint constraint : constraints ) {
             if( ! constraint.enabled() )
                 continue;
             constraint.prepare();
             constraint.correct( dt );
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.CONSTRAINT_CORRECT );
+
         for( ParticleSystem sys : particleSystems ) {
             sys.update( dt );
         }
+        if( prof != null )
+            prof.phase( StepProfiler.Phase.PARTICLES );
+
         Vec2 v = new Vec2();
         for( Body body : bodies ) {
             body.applyTotalImpulse();
@@ -71,18 +504,45 @@ public class World {
                 double aDrag = 1 - body.angularDrag * dt;
                 body.rotationVelo *= aDrag;
             }
-            body.position.add( body.velocity.mul( dt, v ), body.position );
+            body.velocity.mul( dt, v );
+            if( body.bullet && ! body.mass.isStatic() ) {
+                sweepBullet( body, v );
+            }
+            body.position.add( v, body.position );
             body.rotation += body.rotationVelo * dt;
         }
+        ticks ++;
+        if( transforms != null )
+            publishTransforms();
+
+        if( prof != null ) {
+            prof.phase( StepProfiler.Phase.INTEGRATE );
+            prof.end();
+        }
+
+        event.end();
+        if( event.shouldCommit() ) {
+            event.dt = dt;
+            event.bodies = bodies.size();
+            event.pairsTested = pairsTested;
+            event.pairsColliding = collisions.size();
+            for( CollisionSet collision : collisions ) {
+                event.contacts += collision.collisions.size();
+            }
+            event.commit();
+        }
     }
 
     public World add( Body b ) {
+        b.index = bodies.size();
         bodies.add( b );
         return this;
     }
 
     public World add( Body... b ) {
-        bodies.addAll( Arrays.asList( b ) );
+        for( Body body : b ) {
+            add( body );
+        }
         return this;
     }
 
@@ -96,26 +556,556 @@ public class World {
         return this;
     }
 
-    private void collisionDetection( Body a, Body b ) {
-        if( a == b )
+    /**
+     * Removes a body from this world in constant time, by moving the last body of {@link #bodies} into it's place.
+     * This changes the index of that last body, but the bodies themselves stay valid handles. Constraints that act on
+     * the body are removed as well, see {@link IConstraint#references}, as they would otherwise keep pulling on a body
+     * that is no longer moved. This must not be called while the world is ticking, use {@link #queueRemove(Body)} for
+     * that.
+     *
+     * @return True when the body was in this world
+     */
+    public boolean remove( Body b ) {
+        int index = b.index;
+        if( index < 0 || index >= bodies.size() || bodies.get( index ) != b ) {
+            // Index is outdated when the body list was changed directly
+            index = bodies.indexOf( b );
+            if( index < 0 )
+                return false;
+        }
+
+        Body last = bodies.remove( bodies.size() - 1 );
+        if( last != b ) {
+            bodies.set( index, last );
+            last.index = index;
+        }
+        b.index = - 1;
+        broadphase.discard( b );
+
+        // Backwards, so that the constraints moved into the place of removed ones are checked as well
+        for( int i = constraints.size() - 1; i >= 0; i-- ) {
+            if( constraints.get( i ).references( b ) )
+                removeConstraint( i );
+        }
+        return true;
+    }
+
+    /**
+     * Removes a constraint from this world, by moving the last constraint of {@link #constraints} into it's place.
+     * This must not be called while the world is ticking, use {@link #queueRemove(IConstraint)} for that.
+     *
+     * @return True when the constraint was in this world
+     */
+    public boolean remove( IConstraint constr ) {
+        int index = constraints.indexOf( constr );
+        if( index < 0 )
+            return false;
+
+        removeConstraint( index );
+        return true;
+    }
+
+    private void removeConstraint( int index ) {
+        IConstraint last = constraints.remove( constraints.size() - 1 );
+        if( index < constraints.size() ) {
+            constraints.set( index, last );
+        }
+    }
+
+    /**
+     * Queues a command that is run on the thread that ticks this world, at the start of the next {@link #tick} or
+     * {@link #init}, before anything else is done. This can be called from any thread at any time, also while the
+     * world is ticking, and does not block. Commands run in the order they were queued by each thread.
+     */
+    public void queue( Consumer<World> command ) {
+        if( command == null )
+            throw new NullPointerException( "Null command" );
+        commands.add( command );
+    }
+
+    /**
+     * Queues adding a body, see {@link #queue}.
+     */
+    public void queueAdd( Body b ) {
+        queue( world -> world.add( b ) );
+    }
+
+    /**
+     * Queues removing a body, see {@link #queue} and {@link #remove(Body)}.
+     */
+    public void queueRemove( Body b ) {
+        queue( world -> world.remove( b ) );
+    }
+
+    /**
+     * Queues adding a constraint, see {@link #queue}.
+     */
+    public void queueAdd( IConstraint constr ) {
+        queue( world -> world.add( constr ) );
+    }
+
+    /**
+     * Queues removing a constraint, see {@link #queue} and {@link #remove(IConstraint)}.
+     */
+    public void queueRemove( IConstraint constr ) {
+        queue( world -> world.remove( constr ) );
+    }
+
+    private void runCommands() {
+        Consumer<World> command;
+        while( ( command = commands.poll() ) != null ) {
+            command.accept( this );
+        }
+    }
+
+    /**
+     * Casts a ray through this world and finds the nearest body it hits. Rays that start inside a body do not hit that
+     * body. Queries work on the state of the bodies as of the last {@link #tick} or {@link #init}.
+     *
+     * @param origin      The start of the ray
+     * @param direction   The direction of the ray, which does not need to be normalized
+     * @param maxDistance The length of the ray
+     * @param out         The hit to fill, which is only modified when the ray hits something
+     * @return True when the ray hits a body
+     */
+    public boolean raycast( Vec2 origin, Vec2 direction, double maxDistance, RayHit out ) {
+        return raycast( origin, direction, maxDistance, null, out );
+    }
+
+    /**
+     * Casts a ray through this world and finds the nearest body it hits, ignoring bodies rejected by a filter.
+     *
+     * @param filter The filter, which returns true for bodies that can be hit. When {@code null}, all bodies can be
+     *               hit.
+     * @see #raycast(Vec2, Vec2, double, RayHit)
+     */
+    public boolean raycast( Vec2 origin, Vec2 direction, double maxDistance, Predicate<Body> filter, RayHit out ) {
+        updateRestored();
+        if( ! prepareRay( origin, direction, maxDistance, filter ) )
+            return false;
+
+        closestHit = out;
+        for( Body body : broadphase.unbounded ) {
+            castRay( body );
+        }
+        // Start with the nearest unbounded hit, so that only nearer bodies are visited
+        broadphase.tree.raycast( ray.pointA.x, ray.pointA.y, ray.pointB.x, ray.pointB.y, bestFraction, raycastCallback );
+
+        boolean hit = found;
+        finishQuery();
+        return hit;
+    }
+
+    /**
+     * Casts a ray through this world and finds all bodies it hits, sorted from nearest to farthest. The buffer is
+     * cleared before it is filled.
+     *
+     * @return The amount of hits
+     * @see #raycast(Vec2, Vec2, double, RayHit)
+     */
+    public int raycastAll( Vec2 origin, Vec2 direction, double maxDistance, RayHitBuffer out ) {
+        return raycastAll( origin, direction, maxDistance, null, out );
+    }
+
+    /**
+     * Casts a ray through this world and finds all bodies it hits, ignoring bodies rejected by a filter.
+     *
+     * @return The amount of hits
+     * @see #raycast(Vec2, Vec2, double, Predicate, RayHit)
+     * @see #raycastAll(Vec2, Vec2, double, RayHitBuffer)
+     */
+    public int raycastAll( Vec2 origin, Vec2 direction, double maxDistance, Predicate<Body> filter, RayHitBuffer out ) {
+        updateRestored();
+        out.clear();
+        if( ! prepareRay( origin, direction, maxDistance, filter ) )
+            return 0;
+
+        hitBuffer = out;
+        for( Body body : broadphase.unbounded ) {
+            castRay( body );
+        }
+        broadphase.tree.raycast( ray.pointA.x, ray.pointA.y, ray.pointB.x, ray.pointB.y, 1, raycastCallback );
+        finishQuery();
+
+        out.sort();
+        return out.size();
+    }
+
+    /**
+     * Casts many rays through this world at once, finding the nearest body hit by each ray. Consecutive rays are
+     * grouped into packets of {@link RayPacket#SIZE} rays, and each packet traverses the broadphase once and is tested
+     * against each candidate body as a whole, using the Vector API when available. This works best when consecutive
+     * rays are close to each other, like a fan of rays from a single point.
+     *
+     * @param origins     The origins of the rays, as pairs of x and y coordinates
+     * @param directions  The directions of the rays, as pairs of x and y coordinates, which need not be normalized
+     * @param count       The amount of rays
+     * @param maxDistance The length of the rays
+     * @param out         The hits, one per ray. Entries that are {@code null} are created, and rays that hit nothing
+     *                    get a hit with a {@code null} body.
+     * @return The amount of rays that hit a body
+     * @see #raycast(Vec2, Vec2, double, RayHit)
+     */
+    public int raycastBatch( double[] origins, double[] directions, int count, double maxDistance, RayHit[] out ) {
+        return raycastBatch( origins, directions, count, maxDistance, null, out );
+    }
+
+    /**
+     * Casts many rays through this world at once, ignoring bodies rejected by a filter.
+     *
+     * @param filter The filter, which returns true for bodies that can be hit. When {@code null}, all bodies can be
+     *               hit.
+     * @return The amount of rays that hit a body
+     * @see #raycastBatch(double[], double[], int, double, RayHit[])
+     */
+    public int raycastBatch( double[] origins, double[] directions, int count, double maxDistance, Predicate<Body> filter, RayHit[] out ) {
+        updateRestored();
+        int hits = 0;
+        for( int start = 0; start < count; start += RayPacket.SIZE ) {
+            int end = Math.min( start + RayPacket.SIZE, count );
+
+            packet.clear();
+            for( int i = start; i < end; i++ ) {
+                double dx = directions[ i * 2 ], dy = directions[ i * 2 + 1 ];
+                double mag = Math.sqrt( dx * dx + dy * dy );
+                double scale = mag == 0 || maxDistance <= 0 ? 0 : maxDistance / mag;
+                packet.add( origins[ i * 2 ], origins[ i * 2 + 1 ], dx * scale, dy * scale );
+            }
+
+            broadphase.castPacket( packet, filter );
+
+            for( int i = start; i < end; i++ ) {
+                int lane = i - start;
+                RayHit hit = out[ i ];
+                if( hit == null ) {
+                    hit = out[ i ] = new RayHit();
+                }
+
+                if( ! packet.hit( lane ) ) {
+                    hit.body = null;
+                    hit.collider = null;
+                    continue;
+                }
+
+                hit.body = (Body) packet.data[ lane ];
+                hit.collider = packet.collider[ lane ];
+                hit.fraction = packet.fraction[ lane ];
+                hit.distance = hit.fraction * maxDistance;
+                packet.getPoint( lane, hit.point );
+                hit.normal.set( packet.normalX[ lane ], packet.normalY[ lane ] );
+                hits ++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Sweeps a shape through this world and finds the nearest body it touches. The shape is typically a collider that
+     * is not attached to any body, and is moved during the sweep: afterwards it is left at the start position. When
+     * the shape overlaps a body at it's start position, that body is hit at fraction zero.
+     *
+     * @param shape       The shape to sweep, which must have a finite bounding box
+     * @param position    The start position of the shape
+     * @param rotation    The rotation of the shape
+     * @param translation The translation to sweep the shape along
+     * @param out         The hit to fill, which is only modified when the shape hits something
+     * @return True when the shape hits a body
+     */
+    public boolean shapeCast( ICollider shape, Vec2 position, double rotation, Vec2 translation, RayHit out ) {
+        return shapeCast( shape, position, rotation, translation, null, out );
+    }
+
+    /**
+     * Sweeps a shape through this world and finds the nearest body it touches, ignoring bodies rejected by a filter.
+     *
+     * @param filter The filter, which returns true for bodies that can be hit. When {@code null}, all bodies can be
+     *               hit.
+     * @see #shapeCast(ICollider, Vec2, double, Vec2, RayHit)
+     */
+    public boolean shapeCast( ICollider shape, Vec2 position, double rotation, Vec2 translation, Predicate<Body> filter, RayHit out ) {
+        boolean strict = enterStrict();
+        try {
+            return castShape( shape, position, rotation, translation, filter, out );
+        } finally {
+            exitStrict( strict );
+        }
+    }
+
+    private boolean castShape( ICollider shape, Vec2 position, double rotation, Vec2 translation, Predicate<Body> filter, RayHit out ) {
+        updateRestored();
+        shapeCast.sweptBox( shape, position, rotation, translation, queryBox );
+        queryFilter = filter;
+        found = false;
+
+        candidates.addAll( broadphase.unbounded );
+        broadphase.tree.query( queryBox, candidateCallback );
+
+        for( Body body : candidates ) {
+            if( queryFilter != null && ! queryFilter.test( body ) )
+                continue;
+            if( ! shapeCast.cast( shape, position, rotation, translation, body.getCollider(), rayResult ) )
+                continue;
+            if( found && rayResult.fraction >= bestFraction )
+                continue;
+
+            bestFraction = rayResult.fraction;
+            found = true;
+            putHit( out, body, translation.mag() );
+        }
+
+        boolean hit = found;
+        candidates.clear();
+        finishQuery();
+        return hit;
+    }
+
+    /**
+     * Finds all bodies whose collider overlaps a box, calling the consumer with the index of each body in {@link
+     * #bodies}. Overlap is tested exactly against the shape of the colliders. Like other queries, this works on the
+     * state of the bodies as of the last {@link #tick} or {@link #init}, and does not allocate.
+     *
+     * @param box      The box to query
+     * @param consumer The consumer that receives body indices, in no particular order
+     */
+    public void queryAABB( AABB box, IntConsumer consumer ) {
+        updateRestored();
+        for( Body body : broadphase.unbounded ) {
+            if( body.getCollider().overlapsBox( box ) ) {
+                consumer.accept( body.index );
+            }
+        }
+
+        regionBox = box;
+        regionConsumer = consumer;
+        broadphase.tree.query( box, boxCallback );
+        regionBox = null;
+        regionConsumer = null;
+    }
+
+    /**
+     * Finds all bodies whose collider contains a point, calling the consumer with the index of each body in {@link
+     * #bodies}.
+     *
+     * @param point    The point to query
+     * @param consumer The consumer that receives body indices, in no particular order
+     * @see #queryAABB(AABB, IntConsumer)
+     */
+    public void queryPoint( Vec2 point, IntConsumer consumer ) {
+        updateRestored();
+        for( Body body : broadphase.unbounded ) {
+            if( body.getCollider().containsPoint( point ) ) {
+                consumer.accept( body.index );
+            }
+        }
+
+        regionPoint = point;
+        regionConsumer = consumer;
+        broadphase.tree.query( point.x, point.y, point.x, point.y, pointCallback );
+        regionPoint = null;
+        regionConsumer = null;
+    }
+
+    private boolean prepareRay( Vec2 origin, Vec2 direction, double maxDistance, Predicate<Body> filter ) {
+        double mag = direction.mag();
+        if( mag == 0 || maxDistance <= 0 )
+            return false;
+
+        ray.pointA.set( origin );
+        ray.pointB.set(
+            origin.x + direction.x / mag * maxDistance,
+            origin.y + direction.y / mag * maxDistance
+        );
+        queryFilter = filter;
+        queryDistance = maxDistance;
+        bestFraction = 1;
+        found = false;
+        return true;
+    }
+
+    private void castRay( Body body ) {
+        if( queryFilter != null && ! queryFilter.test( body ) )
             return;
-        if( a.mass.isStatic() && b.mass.isStatic() )
+        if( ! Raycast.cast( body.getCollider(), ray, rayResult ) )
             return;
-        if( a.getCollider() == null || b.getCollider() == null )
+
+        if( closestHit != null ) {
+            if( found && rayResult.fraction >= bestFraction )
+                return;
+            bestFraction = rayResult.fraction;
+            putHit( closestHit, body, queryDistance );
+        } else {
+            putHit( hitBuffer.next(), body, queryDistance );
+        }
+        found = true;
+    }
+
+    private double raycastCandidate( int proxy, double maxFraction ) {
+        Body body = broadphase.body( proxy );
+        if( body != null ) {
+            castRay( body );
+        }
+        return closestHit != null && found ? bestFraction : maxFraction;
+    }
+
+    private boolean addCandidate( int proxy ) {
+        Body body = broadphase.body( proxy );
+        if( body != null ) {
+            candidates.add( body );
+        }
+        return true;
+    }
+
+    private boolean boxCandidate( int proxy ) {
+        Body body = broadphase.body( proxy );
+        if( body != null && body.getCollider().overlapsBox( regionBox ) ) {
+            regionConsumer.accept( body.index );
+        }
+        return true;
+    }
+
+    private boolean pointCandidate( int proxy ) {
+        Body body = broadphase.body( proxy );
+        if( body != null && body.getCollider().containsPoint( regionPoint ) ) {
+            regionConsumer.accept( body.index );
+        }
+        return true;
+    }
+
+    private void putHit( RayHit hit, Body body, double length ) {
+        hit.body = body;
+        hit.collider = rayResult.collider;
+        hit.fraction = rayResult.fraction;
+        hit.distance = rayResult.fraction * length;
+        hit.point.set( rayResult.point );
+        hit.normal.set( rayResult.normal );
+    }
+
+    private void finishQuery() {
+        queryFilter = null;
+        closestHit = null;
+        hitBuffer = null;
+    }
+
+    /**
+     * Limits the translation of a bullet for this tick so that it does not pass through any other body. The swept box
+     * of the bullet is checked against the broadphase first, so bullets that don't come near anything are cheap.
+     * Bodies the bullet already touches can't be swept against, instead the bullet is kept from moving further into
+     * them and slides along their surface.
+     */
+    private void sweepBullet( Body body, Vec2 translation ) {
+        ICollider collider = body.getCollider();
+        if( collider == null )
             return;
 
+        collider.getBox( queryBox );
+        double extent = Math.min( queryBox.max.x - queryBox.min.x, queryBox.max.y - queryBox.min.y );
+        if( ! Broadphase.isFinite( queryBox ) || translation.mag() <= extent / 2 )
+            return; // Consecutive positions overlap, discrete collision detection can't miss anything
+
+        double toi = 1;
+        for( int pass = 0; pass < 2; pass ++ ) {
+            shapeCast.sweptBox( collider, body.position, body.rotation, translation, queryBox );
+            candidates.addAll( broadphase.unbounded );
+            broadphase.tree.query( queryBox, candidateCallback );
+            if( deterministic ) {
+                // Sliding changes the translation for the next candidates, so the order matters
+                candidates.sort( BODY_ORDER );
+            }
+
+            boolean slid = false;
+            toi = 1;
+            for( Body other : candidates ) {
+                if( other == body || isCollisionDisabled( body, other ) )
+                    continue;
+                if( ! shapeCast.cast( collider, body.position, body.rotation, translation, other.getCollider(), rayResult ) )
+                    continue;
+
+                if( rayResult.fraction == 0 ) {
+                    // Already touching: remove the part of the translation that goes into the other body
+                    double into = translation.dot( rayResult.normal );
+                    if( into < 0 ) {
+                        translation.sub( rayResult.normal.x * into, rayResult.normal.y * into, translation );
+                        slid = true;
+                    }
+                } else if( rayResult.fraction < toi ) {
+                    toi = rayResult.fraction;
+                }
+            }
+            candidates.clear();
+
+            if( ! slid )
+                break; // Otherwise sweep again along the new translation
+        }
+
+        double length = translation.mag();
+        if( toi < 1 && length > 0 ) {
+            translation.mul( Math.min( 1, toi + bulletSlop / length ), translation );
+        }
+    }
+
+    private boolean isCollisionDisabled( Body a, Body b ) {
         for( IConstraint constraint : constraints ) {
             if( ! constraint.enabled() )
                 continue;
             if( constraint.collisionDisabled( a, b ) || constraint.collisionDisabled( b, a ) ) {
-                return;
+                return true;
             }
         }
+        return false;
+    }
+
+    private void collisionDetection( Body a, Body b ) {
+        if( a == b )
+            return;
+        if( a.mass.isStatic() && b.mass.isStatic() )
+            return;
+        if( a.getCollider() == null || b.getCollider() == null )
+            return;
+        if( isCollisionDisabled( a, b ) )
+            return;
 
         CollisionSet set = new CollisionSet( a, b );
-        SAT.collide( a.getCollider(), b.getCollider(), set );
+        pairsTested ++;
+        if( profiler != null || NarrowphaseEvent.TYPE.isEnabled() ) {
+            measureNarrowphase( a, b, set );
+        } else {
+            SAT.collide( a.getCollider(), b.getCollider(), set );
+        }
 
         if( set.collisions.size() > 0 )
             collisions.add( set );
     }
+
+    private void measureNarrowphase( Body a, Body b, CollisionSet set ) {
+        NarrowphaseEvent event = NarrowphaseEvent.TYPE.isEnabled() ? new NarrowphaseEvent() : null;
+        if( event != null )
+            event.begin();
+
+        long start = System.nanoTime();
+        SAT.collide( a.getCollider(), b.getCollider(), set );
+        long time = System.nanoTime() - start;
+
+        int contacts = set.collisions.size();
+        StepProfiler prof = profiler;
+        if( prof != null ) {
+            prof.time( StepProfiler.Phase.NARROWPHASE, time );
+            prof.count( StepProfiler.Counter.PAIRS_TESTED, 1 );
+            if( contacts > 0 ) {
+                prof.count( StepProfiler.Counter.PAIRS_COLLIDING, 1 );
+                prof.count( StepProfiler.Counter.CONTACTS, contacts );
+            }
+        }
+
+        if( event != null ) {
+            event.end();
+            if( event.shouldCommit() ) {
+                event.shapeA = a.getCollider().getClass().getSimpleName();
+                event.shapeB = b.getCollider().getClass().getSimpleName();
+                event.bodyA = a.index;
+                event.bodyB = b.index;
+                event.contacts = contacts;
+                event.commit();
+            }
+        }
+    }
 }
@@ -0,0 +1,611 @@
+package net.regulus.simulation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import net.regulus.collider.BarCollider;
+import net.regulus.collider.BoxCollider;
+import net.regulus.collider.CapsuleCollider;
+import net.regulus.collider.ChainCollider;
+import net.regulus.collider.CircleCollider;
+import net.regulus.collider.CompoundCollider;
+import net.regulus.collider.HeightfieldCollider;
+import net.regulus.collider.ICollider;
+import net.regulus.collider.PlaneCollider;
+import net.regulus.collider.PolygonCollider;
+import net.regulus.collider.RegularPolyCollider;
+import net.regulus.collider.SimpleCollider;
+import net.regulus.collider.TileMapCollider;
+import net.regulus.geom.Vec2;
+import net.regulus.simulation.constraint.AxleConstraint;
+import net.regulus.simulation.constraint.DistanceConstraint;
+import net.regulus.simulation.constraint.IConstraint;
+import net.regulus.simulation.constraint.LinkingConstraint;
+import net.regulus.simulation.constraint.SpringConstraint;
+import net.regulus.simulation.particle.Particle;
+import net.regulus.simulation.particle.ParticleSystem;
+
+/**
+ * Writes and reads the bodies, constraints and particle systems of a world, for {@link World#snapshot} and {@link
+ * World#restore}. All values are written in full precision, so that a restored world continues exactly like the
+ * original. The layout is:
+ * <pre>
+ * bodies:      count, then per body: state, material, mass, shape
+ * constraints: count, then per constraint: type, links, parameters, solver state
+ * particles:   system count, then per system: particle count, then per particle: state</pre>
+ * Shapes are a type tag followed by the parameters of the type, compound shapes are followed by their children.
+ * Objects that are already in the world are reused when they are at the same index and have the same type, which
+ * keeps references to bodies and constraints valid when a world is rolled back.
+ */
+final class WorldSnapshot {
+    private static final byte NONE = 0;
+    private static final byte CIRCLE = 1;
+    private static final byte BOX = 2;
+    private static final byte CAPSULE = 3;
+    private static final byte POLYGON = 4;
+    private static final byte REGULAR_POLY = 5;
+    private static final byte PLANE = 6;
+    private static final byte BAR = 7;
+    private static final byte COMPOUND = 8;
+    private static final byte TILE_MAP = 9;
+    private static final byte CHAIN = 10;
+    private static final byte HEIGHTFIELD = 11;
+
+    private static final byte AXLE = 1;
+    private static final byte DISTANCE = 2;
+    private static final byte SPRING = 3;
+
+    private final Vec2 tmp = new Vec2();
+    private long[] words = new long[ 0 ];
+    private double[] coords = new double[ 0 ];
+
+    void write( World world, ByteBuffer buf ) {
+        List<Body> bodies = world.bodies;
+        buf.putInt( bodies.size() );
+        for( Body body : bodies ) {
+            writeBody( body, buf );
+        }
+
+        List<IConstraint> constraints = world.constraints;
+        buf.putInt( constraints.size() );
+        for( IConstraint constraint : constraints ) {
+            writeConstraint( world, constraint, buf );
+        }
+
+        List<ParticleSystem> systems = world.particleSystems;
+        buf.putInt( systems.size() );
+        for( ParticleSystem system : systems ) {
+            buf.putInt( system.particles.size() );
+            for( Particle particle : system.particles ) {
+                writeParticle( particle, buf );
+            }
+        }
+    }
+
+    void read( World world, ByteBuffer buf ) {
+        List<Body> bodies = world.bodies;
+        int bodyCount = count( buf );
+        truncate( bodies, bodyCount );
+        for( int i = 0; i < bodyCount; i++ ) {
+            if( i == bodies.size() ) {
+                bodies.add( new Body() );
+            }
+            Body body = bodies.get( i );
+            body.index = i;
+            readBody( body, buf );
+        }
+
+        List<IConstraint> constraints = world.constraints;
+        int constraintCount = count( buf );
+        truncate( constraints, constraintCount );
+        for( int i = 0; i < constraintCount; i++ ) {
+            IConstraint existing = i < constraints.size() ? constraints.get( i ) : null;
+            IConstraint constraint = readConstraint( world, existing, buf );
+            if( existing == null ) {
+                constraints.add( constraint );
+            } else if( constraint != existing ) {
+                constraints.set( i, constraint );
+            }
+        }
+
+        List<ParticleSystem> systems = world.particleSystems;
+        int systemCount = count( buf );
+        truncate( systems, systemCount );
+        for( int i = 0; i < systemCount; i++ ) {
+            if( i == systems.size() ) {
+                systems.add( new ParticleSystem( world ) );
+            }
+            ParticleSystem system = systems.get( i );
+            List<Particle> particles = system.particles;
+            int particleCount = count( buf );
+            truncate( particles, particleCount );
+            for( int j = 0; j < particleCount; j++ ) {
+                if( j == particles.size() ) {
+                    if( system.particleFactory == null ) {
+                        throw new IllegalStateException( "Particle system " + i + " needs more particles, but has no particle factory" );
+                    }
+                    particles.add( system.particleFactory.apply( system ) );
+                }
+                readParticle( particles.get( j ), buf );
+            }
+        }
+    }
+
+    private void writeBody( Body body, ByteBuffer buf ) {
+        putVec( body.position, buf );
+        putVec( body.velocity, buf );
+        buf.putDouble( body.rotation );
+        buf.putDouble( body.rotationVelo );
+        putVec( body.previousPosition, buf );
+        buf.putDouble( body.previousRotation );
+
+        buf.putDouble( body.restitution );
+        buf.putDouble( body.linearDrag );
+        buf.putDouble( body.angularDrag );
+        buf.putDouble( body.staticFriction );
+        buf.putDouble( body.particleFriction );
+        buf.putDouble( body.dynamicFriction );
+        buf.putDouble( body.surfaceVelo );
+        buf.put( (byte) ( body.bullet ? 1 : 0 ) );
+
+        Mass mass = body.mass;
+        buf.put( (byte) ( mass.isStatic() ? 1 : 0 ) );
+        buf.putDouble( mass.getMass() );
+        buf.putDouble( mass.getDensity() );
+        buf.putDouble( mass.getInertia() );
+
+        writeShape( body.getCollider(), buf );
+    }
+
+    private void readBody( Body body, ByteBuffer buf ) {
+        getVec( body.position, buf );
+        getVec( body.velocity, buf );
+        body.rotation = buf.getDouble();
+        body.rotationVelo = buf.getDouble();
+        getVec( body.previousPosition, buf );
+        body.previousRotation = buf.getDouble();
+
+        body.restitution = buf.getDouble();
+        body.linearDrag = buf.getDouble();
+        body.angularDrag = buf.getDouble();
+        body.staticFriction = buf.getDouble();
+        body.particleFriction = buf.getDouble();
+        body.dynamicFriction = buf.getDouble();
+        body.surfaceVelo = buf.getDouble();
+        body.bullet = buf.get() != 0;
+
+        boolean isStatic = buf.get() != 0;
+        double mass = buf.getDouble();
+        double density = buf.getDouble();
+        double inertia = buf.getDouble();
+        body.mass.set( mass, density, inertia, isStatic );
+
+        // Set the collider directly, the mass is already known
+        body.collider = readShape( body.collider, buf );
+    }
+
+    private void writeShape( ICollider shape, ByteBuffer buf ) {
+        if( shape == null ) {
+            buf.put( NONE );
+            return;
+        }
+
+        if( shape.getClass() == CompoundCollider.class ) {
+            List<SimpleCollider> colliders = ( (CompoundCollider) shape ).colliders;
+            buf.put( COMPOUND );
+            buf.putInt( colliders.size() );
+            for( SimpleCollider collider : colliders ) {
+                writeShape( collider, buf );
+            }
+            return;
+        }
+
+        if( shape.getClass() == TileMapCollider.class ) {
+            TileMapCollider map = (TileMapCollider) shape;
+            words = map.getCells( words );
+            int n = map.getRows() * ( map.getColumns() + 63 >> 6 );
+            buf.put( TILE_MAP );
+            buf.putInt( map.getColumns() );
+            buf.putInt( map.getRows() );
+            buf.putDouble( map.getCellSize() );
+            buf.putInt( n );
+            for( int i = 0; i < n; i++ ) {
+                buf.putLong( words[ i ] );
+            }
+            return;
+        }
+
+        if( shape.getClass() == ChainCollider.class ) {
+            ChainCollider chain = (ChainCollider) shape;
+            coords = chain.getVertices( coords );
+            int n = chain.getVertexCount() * 2;
+            buf.put( CHAIN );
+            buf.put( (byte) ( chain.isLoop() ? 1 : 0 ) );
+            buf.putDouble( chain.getThickness() );
+            buf.putInt( n );
+            for( int i = 0; i < n; i++ ) {
+                buf.putDouble( coords[ i ] );
+            }
+            return;
+        }
+
+        if( shape.getClass() == HeightfieldCollider.class ) {
+            HeightfieldCollider field = (HeightfieldCollider) shape;
+            coords = field.getHeights( coords );
+            int n = field.getSampleCount();
+            buf.put( HEIGHTFIELD );
+            buf.putDouble( field.getSpacing() );
+            buf.putDouble( field.getThickness() );
+            buf.putInt( n );
+            for( int i = 0; i < n; i++ ) {
+                buf.putDouble( coords[ i ] );
+            }
+            return;
+        }
+
+        byte type = shapeType( shape );
+        SimpleCollider simple = (SimpleCollider) shape;
+        buf.put( type );
+        putVec( simple.getOffset( tmp ), buf );
+        buf.putDouble( simple.getRotationOffset() );
+
+        switch( type ) {
+            case CIRCLE:
+                buf.putDouble( ( (CircleCollider) shape ).getRadius() );
+                break;
+            case BOX:
+                buf.putDouble( ( (BoxCollider) shape ).getWidth() );
+                buf.putDouble( ( (BoxCollider) shape ).getHeight() );
+                break;
+            case CAPSULE:
+                buf.putDouble( ( (CapsuleCollider) shape ).getRadius() );
+                buf.putDouble( ( (CapsuleCollider) shape ).getLength() );
+                break;
+            case POLYGON:
+                PolygonCollider polygon = (PolygonCollider) shape;
+                int n = polygon.vertexAmount();
+                buf.putInt( n );
+                for( int i = 0; i < n; i++ ) {
+                    putVec( polygon.get( i, tmp ), buf );
+                }
+                break;
+            case REGULAR_POLY:
+                buf.putInt( ( (RegularPolyCollider) shape ).getSides() );
+                buf.putDouble( ( (RegularPolyCollider) shape ).getRadius() );
+                break;
+            case BAR:
+                buf.putDouble( ( (BarCollider) shape ).getWidth() );
+                break;
+        }
+    }
+
+    /**
+     * Reads a shape, returning the existing shape when it's equal to the shape that was read.
+     */
+    private ICollider readShape( ICollider existing, ByteBuffer buf ) {
+        byte type = buf.get();
+        if( type == NONE )
+            return null;
+
+        if( type == COMPOUND ) {
+            CompoundCollider compound = existing != null && existing.getClass() == CompoundCollider.class
+                                        ? (CompoundCollider) existing
+                                        : new CompoundCollider();
+            List<SimpleCollider> colliders = compound.colliders;
+            int n = count( buf );
+            truncate( colliders, n );
+            for( int i = 0; i < n; i++ ) {
+                SimpleCollider child = i < colliders.size() ? colliders.get( i ) : null;
+                ICollider read = readShape( child, buf );
+                if( ! ( read instanceof SimpleCollider ) ) {
+                    throw new IllegalArgumentException( "Invalid compound child" );
+                }
+                if( child == null ) {
+                    colliders.add( (SimpleCollider) read );
+                } else if( read != child ) {
+                    colliders.set( i, (SimpleCollider) read );
+                }
+            }
+            return compound;
+        }
+
+        if( type == TILE_MAP ) {
+            int columns = count( buf );
+            int rows = count( buf );
+            double cellSize = buf.getDouble();
+            int n = count( buf );
+            if( words.length < n )
+                words = new long[ n ];
+            for( int i = 0; i < n; i++ ) {
+                words[ i ] = buf.getLong();
+            }
+
+            if( existing != null && existing.getClass() == TileMapCollider.class ) {
+                TileMapCollider map = (TileMapCollider) existing;
+                if( map.getColumns() == columns && map.getRows() == rows && map.getCellSize() == cellSize && map.hasCells( words ) )
+                    return existing;
+            }
+            TileMapCollider map = new TileMapCollider( columns, rows, cellSize );
+            map.setCells( words );
+            return map;
+        }
+
+        if( type == CHAIN ) {
+            boolean loop = buf.get() != 0;
+            double thickness = buf.getDouble();
+            int n = count( buf );
+            if( coords.length < n )
+                coords = new double[ n ];
+            for( int i = 0; i < n; i++ ) {
+                coords[ i ] = buf.getDouble();
+            }
+
+            // Rebuilding the tree of a large chain is costly, so keep the existing chain when nothing changed
+            if( existing != null && existing.getClass() == ChainCollider.class ) {
+                ChainCollider chain = (ChainCollider) existing;
+                if( chain.isLoop() == loop && chain.getThickness() == thickness && chain.getVertexCount() * 2 == n && chain.hasVertices( coords ) )
+                    return existing;
+            }
+            return new ChainCollider( Arrays.copyOf( coords, n ), loop, thickness );
+        }
+
+        if( type == HEIGHTFIELD ) {
+            double spacing = buf.getDouble();
+            double thickness = buf.getDouble();
+            int n = count( buf );
+            if( coords.length < n )
+                coords = new double[ n ];
+            for( int i = 0; i < n; i++ ) {
+                coords[ i ] = buf.getDouble();
+            }
+
+            // Heights may be changed after creation, so an existing heightfield of the same size takes the stored heights
+            if( existing != null && existing.getClass() == HeightfieldCollider.class ) {
+                HeightfieldCollider field = (HeightfieldCollider) existing;
+                if( field.getSpacing() == spacing && field.getThickness() == thickness && field.getSampleCount() == n ) {
+                    if( ! field.hasHeights( coords ) )
+                        field.setHeights( coords );
+                    return existing;
+                }
+            }
+            return new HeightfieldCollider( Arrays.copyOf( coords, n ), spacing, thickness );
+        }
+
+        double ox = buf.getDouble();
+        double oy = buf.getDouble();
+        double rotationOffset = buf.getDouble();
+
+        boolean same = existing != null && existing.getClass() != CompoundCollider.class && shapeType( existing ) == type;
+        if( same ) {
+            SimpleCollider simple = (SimpleCollider) existing;
+            simple.getOffset( tmp );
+            same = tmp.x == ox && tmp.y == oy && simple.getRotationOffset() == rotationOffset;
+        }
+
+        switch( type ) {
+            case CIRCLE: {
+                double radius = buf.getDouble();
+                if( same && ( (CircleCollider) existing ).getRadius() == radius )
+                    return existing;
+                return ICollider.circle().offset( ox, oy ).rotationOff( rotationOffset ).radius( radius ).build();
+            }
+            case BOX: {
+                double width = buf.getDouble();
+                double height = buf.getDouble();
+                if( same && ( (BoxCollider) existing ).getWidth() == width && ( (BoxCollider) existing ).getHeight() == height )
+                    return existing;
+                return ICollider.box().offset( ox, oy ).rotationOff( rotationOffset ).size( width, height ).build();
+            }
+            case CAPSULE: {
+                double radius = buf.getDouble();
+                double length = buf.getDouble();
+                if( same && ( (CapsuleCollider) existing ).getRadius() == radius && ( (CapsuleCollider) existing ).getLength() == length )
+                    return existing;
+                return ICollider.capsule().offset( ox, oy ).rotationOff( rotationOffset ).radius( radius ).length( length ).build();
+            }
+            case POLYGON: {
+                int n = count( buf );
+                int start = buf.position();
+                if( same && ( (PolygonCollider) existing ).vertexAmount() == n ) {
+                    PolygonCollider polygon = (PolygonCollider) existing;
+                    for( int i = 0; i < n && same; i++ ) {
+                        polygon.get( i, tmp );
+                        same = tmp.x == buf.getDouble() && tmp.y == buf.getDouble();
+                    }
+                    if( same ) {
+                        return existing;
+                    }
+                    buf.position( start );
+                }
+
+                ICollider.PolygonBuilder builder = ICollider.polygon().offset( ox, oy ).rotationOff( rotationOffset );
+                for( int i = 0; i < n; i++ ) {
+                    builder.add( buf.getDouble(), buf.getDouble() );
+                }
+                return builder.build();
+            }
+            case REGULAR_POLY: {
+                int sides = buf.getInt();
+                double radius = buf.getDouble();
+                if( same && ( (RegularPolyCollider) existing ).getSides() == sides && ( (RegularPolyCollider) existing ).getRadius() == radius )
+                    return existing;
+                return ICollider.regularPoly().offset( ox, oy ).rotationOff( rotationOffset ).sides( sides ).radius( radius ).build();
+            }
+            case PLANE: {
+                if( same )
+                    return existing;
+                return ICollider.plane().offset( ox, oy ).rotationOff( rotationOffset ).build();
+            }
+            case BAR: {
+                double width = buf.getDouble();
+                if( same && ( (BarCollider) existing ).getWidth() == width )
+                    return existing;
+                return ICollider.bar().offset( ox, oy ).rotationOff( rotationOffset ).width( width ).build();
+            }
+            default:
+                throw new IllegalArgumentException( "Invalid shape type: " + type );
+        }
+    }
+
+    private static byte shapeType( ICollider shape ) {
+        Class<?> cls = shape.getClass();
+        if( cls == CircleCollider.class )
+            return CIRCLE;
+        if( cls == BoxCollider.class )
+            return BOX;
+        if( cls == CapsuleCollider.class )
+            return CAPSULE;
+        if( cls == PolygonCollider.class )
+            return POLYGON;
+        if( cls == RegularPolyCollider.class )
+            return REGULAR_POLY;
+        if( cls == PlaneCollider.class )
+            return PLANE;
+        if( cls == BarCollider.class )
+            return BAR;
+        throw new IllegalArgumentException( "Can't snapshot collider of type " + cls.getName() );
+    }
+
+    private void writeConstraint( World world, IConstraint constraint, ByteBuffer buf ) {
+        Class<?> cls = constraint.getClass();
+        byte type;
+        if( cls == AxleConstraint.class ) {
+            type = AXLE;
+        } else if( cls == DistanceConstraint.class ) {
+            type = DISTANCE;
+        } else if( cls == SpringConstraint.class ) {
+            type = SPRING;
+        } else {
+            throw new IllegalArgumentException( "Can't snapshot constraint of type " + cls.getName() );
+        }
+
+        LinkingConstraint link = (LinkingConstraint) constraint;
+        buf.put( type );
+        buf.put( (byte) ( ( link.enabled ? 1 : 0 ) | ( link.disableCollision ? 2 : 0 ) ) );
+        buf.putInt( bodyIndex( world, link.bodyA ) );
+        buf.putInt( bodyIndex( world, link.bodyB ) );
+        putVec( link.linkA, buf );
+        putVec( link.linkB, buf );
+
+        if( type == DISTANCE ) {
+            DistanceConstraint distance = (DistanceConstraint) link;
+            buf.putDouble( distance.minDist );
+            buf.putDouble( distance.maxDist );
+        } else if( type == SPRING ) {
+            SpringConstraint spring = (SpringConstraint) link;
+            buf.putDouble( spring.minDist );
+            buf.putDouble( spring.maxDist );
+            buf.putDouble( spring.springConstant );
+            buf.putDouble( spring.damping );
+        }
+        link.writeState( buf );
+    }
+
+    private IConstraint readConstraint( World world, IConstraint existing, ByteBuffer buf ) {
+        byte type = buf.get();
+        LinkingConstraint link;
+        switch( type ) {
+            case AXLE:
+                link = existing != null && existing.getClass() == AxleConstraint.class ? (AxleConstraint) existing : new AxleConstraint();
+                break;
+            case DISTANCE:
+                link = existing != null && existing.getClass() == DistanceConstraint.class ? (DistanceConstraint) existing : new DistanceConstraint();
+                break;
+            case SPRING:
+                link = existing != null && existing.getClass() == SpringConstraint.class ? (SpringConstraint) existing : new SpringConstraint();
+                break;
+            default:
+                throw new IllegalArgumentException( "Invalid constraint type: " + type );
+        }
+
+        byte flags = buf.get();
+        link.enabled = ( flags & 1 ) != 0;
+        link.disableCollision = ( flags & 2 ) != 0;
+        link.bodyA = body( world, buf.getInt() );
+        link.bodyB = body( world, buf.getInt() );
+        getVec( link.linkA, buf );
+        getVec( link.linkB, buf );
+
+        if( type == DISTANCE ) {
+            DistanceConstraint distance = (DistanceConstraint) link;
+            distance.minDist = buf.getDouble();
+            distance.maxDist = buf.getDouble();
+        } else if( type == SPRING ) {
+            SpringConstraint spring = (SpringConstraint) link;
+            spring.minDist = buf.getDouble();
+            spring.maxDist = buf.getDouble();
+            spring.springConstant = buf.getDouble();
+            spring.damping = buf.getDouble();
+        }
+        link.readState( buf );
+        return link;
+    }
+
+    private static int bodyIndex( World world, Body body ) {
+        if( body == null )
+            return - 1;
+        int index = body.index;
+        if( index < 0 || index >= world.bodies.size() || world.bodies.get( index ) != body ) {
+            // Not ticked since it was added
+            index = world.bodies.indexOf( body );
+        }
+        if( index < 0 ) {
+            throw new IllegalArgumentException( "Constraint links a body that is not in the world" );
+        }
+        return index;
+    }
+
+    private static Body body( World world, int index ) {
+        if( index == - 1 )
+            return null;
+        if( index < 0 || index >= world.bodies.size() ) {
+            throw new IllegalArgumentException( "Invalid body index: " + index );
+        }
+        return world.bodies.get( index );
+    }
+
+    private static void writeParticle( Particle particle, ByteBuffer buf ) {
+        putVec( particle.position, buf );
+        putVec( particle.velocity, buf );
+        buf.putDouble( particle.radius );
+        buf.putDouble( particle.mass );
+        buf.putDouble( particle.interactionRadius );
+        buf.putDouble( particle.gasConst );
+        buf.putDouble( particle.restDens );
+        buf.putDouble( particle.viscosity );
+    }
+
+    private static void readParticle( Particle particle, ByteBuffer buf ) {
+        getVec( particle.position, buf );
+        getVec( particle.velocity, buf );
+        particle.radius = buf.getDouble();
+        particle.mass = buf.getDouble();
+        particle.interactionRadius = buf.getDouble();
+        particle.gasConst = buf.getDouble();
+        particle.restDens = buf.getDouble();
+        particle.viscosity = buf.getDouble();
+    }
+
+    private static int count( ByteBuffer buf ) {
+        int count = buf.getInt();
+        if( count < 0 ) {
+            throw new IllegalArgumentException( "Invalid count: " + count );
+        }
+        return count;
+    }
+
+    private static void truncate( List<?> list, int size ) {
+        if( list.size() > size ) {
+            list.subList( size, list.size() ).clear();
+        }
+    }
+
+    private static void putVec( Vec2 v, ByteBuffer buf ) {
+        buf.putDouble( v.x ).putDouble( v.y );
+    }
+
+    private static void getVec( Vec2 v, ByteBuffer buf ) {
+        v.set( buf.getDouble(), buf.getDouble() );
+    }
+}
@@ -13,6 +13,13 @@ public interface IConstraint {
         return false;
     }
 
+    /**
+     * Checks whether this constraint acts on a body, in which case it is removed along with that body.
+     */
+    default boolean references( Body body ) {
+        return false;
+    }
+
     boolean enabled();
 
     static AxleBuilder axle() {
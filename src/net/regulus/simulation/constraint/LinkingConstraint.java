@@ -1,5 +1,7 @@
 package net.regulus.simulation.constraint;
 
+import java.nio.ByteBuffer;
+
 import net.regulus.geom.Vec2;
 import net.regulus.simulation.Body;
 
@@ -54,6 +56,11 @@ public abstract class LinkingConstraint implements IConstraint {
         return disableCollision && this.bodyA == bodyA && this.bodyB == bodyB;
     }
 
+    @Override
+    public boolean references( Body body ) {
+        return bodyA == body || bodyB == body;
+    }
+
     public Vec2 globalA( Vec2 out ) {
         return Vec2.put( out, globalA );
     }
@@ -71,4 +78,29 @@ public abstract class LinkingConstraint implements IConstraint {
             return Vec2.put( out, 0, 0 );
         return body.getConstraintVelo( point, out );
     }
+
+    /**
+     * Writes the solver state of this constraint, which is computed by {@link #prepare} and used by the next tick. This
+     * is used by world snapshots.
+     */
+    public void writeState( ByteBuffer buf ) {
+        buf.putDouble( globalA.x ).putDouble( globalA.y );
+        buf.putDouble( globalB.x ).putDouble( globalB.y );
+        buf.putDouble( ptA.x ).putDouble( ptA.y );
+        buf.putDouble( ptB.x ).putDouble( ptB.y );
+        buf.putDouble( normal.x ).putDouble( normal.y );
+        buf.putDouble( globalDist );
+    }
+
+    /**
+     * Reads the solver state of this constraint, as written by {@link #writeState}.
+     */
+    public void readState( ByteBuffer buf ) {
+        globalA.set( buf.getDouble(), buf.getDouble() );
+        globalB.set( buf.getDouble(), buf.getDouble() );
+        ptA.set( buf.getDouble(), buf.getDouble() );
+        ptB.set( buf.getDouble(), buf.getDouble() );
+        normal.set( buf.getDouble(), buf.getDouble() );
+        globalDist = buf.getDouble();
+    }
 }
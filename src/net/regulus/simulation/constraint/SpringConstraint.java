@@ -1,5 +1,7 @@
 package net.regulus.simulation.constraint;
 
+import java.nio.ByteBuffer;
+
 import net.regulus.geom.Vec2;
 
 public class SpringConstraint extends LinkingConstraint {
@@ -56,4 +58,18 @@ public class SpringConstraint extends LinkingConstraint {
             depth = minDist - globalDist;
         }
     }
+
+    @Override
+    public void writeState( ByteBuffer buf ) {
+        super.writeState( buf );
+        buf.put( (byte) ( solve ? 1 : 0 ) );
+        buf.putDouble( depth );
+    }
+
+    @Override
+    public void readState( ByteBuffer buf ) {
+        super.readState( buf );
+        solve = buf.get() != 0;
+        depth = buf.getDouble();
+    }
 }
@@ -7,7 +7,7 @@ import net.regulus.geom.Vec2;
 class ParticleCollider extends CircleCollider {
 
     @Override
-    protected void recomputeMatrix() {
+    protected void recomputeTransform() {
     }
 
     @Override
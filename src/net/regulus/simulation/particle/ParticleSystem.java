@@ -3,8 +3,11 @@ package net.regulus.simulation.particle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 
+import net.regulus.collider.ICollider;
 import net.regulus.detection.CollisionPrimer;
+import net.regulus.detection.broadphase.BoxBatch;
 import net.regulus.detection.sat.SAT;
 import net.regulus.geom.AABB;
 import net.regulus.geom.MathUtil;
@@ -17,9 +20,22 @@ public class ParticleSystem {
     public final List<Particle> particles = new ArrayList<>();
     public final World world;
 
+    /**
+     * Creates particles for this system when a world snapshot is restored that has more particles in this system than
+     * there are now. When {@code null}, such snapshots can't be restored.
+     */
+    public Function<ParticleSystem, ? extends Particle> particleFactory;
+
     private final List<BodyCollision> bodyCollisions = new ArrayList<>();
     private final List<ParticleCollision> particleCollisions = new ArrayList<>();
 
+    // The boxes of the world's bodies by index, tested against each particle at once
+    private final BoxBatch bodyBoxes = new BoxBatch();
+    private final AABB bodyBox = new AABB();
+    private final AABB particleBox = new AABB();
+    private final ParticleCollider particleColl = new ParticleCollider();
+    private long[] masks;
+
     public ParticleSystem( World world ) {
         this.world = world;
     }
@@ -27,15 +43,28 @@ public class ParticleSystem {
     public void update( double dt ) {
         bodyCollisions.clear();
         particleCollisions.clear();
-        AABB bodyBox = new AABB();
-        AABB particleBox = new AABB();
-        ParticleCollider particleColl = new ParticleCollider();
+
+        List<Body> bodies = world.bodies;
+        int bodyCount = bodies.size();
+        bodyBoxes.resize( bodyCount );
+        for( int i = 0; i < bodyCount; i++ ) {
+            ICollider collider = bodies.get( i ).getCollider();
+            if( collider == null ) {
+                bodyBoxes.setEmpty( i );
+            } else {
+                bodyBoxes.set( i, collider.getBox( bodyBox ) );
+            }
+        }
+
+        int words = BoxBatch.words( bodyCount );
         for( Particle p : particles ) {
             particleBox.setCenterSize( p.position, p.radius * 2, p.radius * 2 );
-            for( Body b : world.bodies ) {
-                b.getCollider().getBox( bodyBox );
+            masks = bodyBoxes.overlaps( particleBox, masks );
 
-                if( AABB.overlap( bodyBox, particleBox ) ) {
+            // Visit the overlapping bodies in world order
+            for( int w = 0; w < words; w++ ) {
+                for( long bits = masks[ w ]; bits != 0; bits &= bits - 1 ) {
+                    Body b = bodies.get( w << 6 | Long.numberOfTrailingZeros( bits ) );
                     particleColl.set( p.position, p.radius, particleBox );
                     SAT.collide(
                         particleColl, b.getCollider(),
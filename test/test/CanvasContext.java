@@ -740,9 +740,63 @@ public class CanvasContext {
             drawInfBar( (BarCollider) collider );
         } else if( collider instanceof PolygonalCollider ) {
             drawPolygon( (PolygonalCollider) collider );
+        } else if( collider instanceof TileMapCollider ) {
+            drawTileMap( (TileMapCollider) collider );
+        } else if( collider instanceof ChainCollider ) {
+            drawChain( (ChainCollider) collider );
+        } else if( collider instanceof HeightfieldCollider ) {
+            drawHeightfield( (HeightfieldCollider) collider );
         }
     }
 
+    public void drawHeightfield( HeightfieldCollider field ) {
+        Transform transform = field.getBodyTransform( null );
+        Vec2 cv = new Vec2();
+
+        p.reset();
+
+        boolean moved = false;
+        double spacing = field.getSpacing();
+        for( int i = 0, l = field.getSampleCount(); i < l; i++ ) {
+            transform.mul( i * spacing, field.getHeight( i ), cv );
+            worldToCanvas( cv, cv );
+            moved = goTo( cv, moved );
+        }
+
+        stroke( p );
+    }
+
+    public void drawChain( ChainCollider chain ) {
+        Transform transform = chain.getBodyTransform( null );
+        Vec2 cv = new Vec2();
+
+        p.reset();
+
+        boolean moved = false;
+        for( int i = 0, l = chain.getVertexCount(); i < l; i++ ) {
+            chain.getVertex( i, cv );
+            transform.mul( cv, cv );
+            worldToCanvas( cv, cv );
+            moved = goTo( cv, moved );
+        }
+
+        if( chain.isLoop() ) {
+            p.closePath();
+        }
+
+        stroke( p );
+    }
+
+    public void drawTileMap( TileMapCollider map ) {
+        Transform transform = map.getBodyTransform( null );
+        Vec2 center = new Vec2();
+        double size = map.getCellSize();
+        map.forEachRectangle( 0, 0, map.getColumns(), map.getRows(), ( column, row, columns, rows ) -> {
+            transform.mul( ( column + columns / 2.0 ) * size, ( row + rows / 2.0 ) * size, center );
+            drawBox( center.x, center.y, transform.angle, columns * size, rows * size );
+        } );
+    }
+
     public void drawBox( AABB box ) {
         Vec2 tmp = new Vec2();
         p.reset();